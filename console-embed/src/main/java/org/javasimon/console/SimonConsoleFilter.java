@@ -33,8 +33,10 @@ public class SimonConsoleFilter implements Filter {
 		String urlPrefix = config.getInitParameter(SimonConsoleServlet.URL_PREFIX_INIT_PARAMETER);
 		// Plugin classes
 		String pluginClasses = config.getInitParameter(SimonConsoleServlet.PLUGIN_CLASSES_INIT_PARAMETER);
+		// Prometheus name rules
+		String prometheusRules = config.getInitParameter(SimonConsoleServlet.PROMETHEUS_RULES_INIT_PARAMETER);
 		// Create request processor
-		requestProcessor = SimonConsoleRequestProcessor.create(urlPrefix, manager, pluginClasses);
+		requestProcessor = SimonConsoleRequestProcessor.create(urlPrefix, manager, pluginClasses, prometheusRules);
 
 	}
 
@@ -8,6 +8,7 @@ import org.javasimon.console.action.DetailJsonAction;
 import org.javasimon.console.action.ErrorAction;
 import org.javasimon.console.action.ListJsonAction;
 import org.javasimon.console.action.PluginsJsonAction;
+import org.javasimon.console.action.PrometheusAction;
 import org.javasimon.console.action.RedirectAction;
 import org.javasimon.console.action.ResourceAction;
 import org.javasimon.console.action.TableCsvAction;
@@ -15,6 +16,8 @@ import org.javasimon.console.action.TableHtmlAction;
 import org.javasimon.console.action.TableJsonAction;
 import org.javasimon.console.action.TreeJsonAction;
 import org.javasimon.console.action.TreeXmlAction;
+import org.javasimon.console.prometheus.PrometheusExporter;
+import org.javasimon.console.prometheus.PrometheusNameRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,6 +75,11 @@ class SimonConsoleRequestProcessor {
 	 */
 	private final SimonConsolePluginManager pluginManager = new SimonConsolePluginManager();
 
+	/**
+	 * Exporter used by {@link PrometheusAction}.
+	 */
+	private PrometheusExporter prometheusExporter = new PrometheusExporter();
+
 	public SimonConsoleRequestProcessor(String urlPrefix) {
 		if (urlPrefix == null) {
 			this.urlPrefix = "";
@@ -171,6 +179,15 @@ class SimonConsoleRequestProcessor {
 		addSimpleActionBinding(DetailHtmlAction.PATH, DetailHtmlAction.class);
 		addSimpleActionBinding(DetailJsonAction.PATH, DetailJsonAction.class);
 		addSimpleActionBinding(PluginsJsonAction.PATH, PluginsJsonAction.class);
+		addActionBinding(new ActionBinding<Action>() {
+			public boolean supports(ActionContext actionContext) {
+				return actionContext.getPath().equals(PrometheusAction.PATH);
+			}
+
+			public Action create(ActionContext actionContext) {
+				return new PrometheusAction(actionContext, prometheusExporter);
+			}
+		});
 		for (ActionBinding actionBinding : pluginManager.getActionBindings()) {
 			addActionBinding(actionBinding);
 		}
@@ -261,6 +278,15 @@ class SimonConsoleRequestProcessor {
 	public SimonConsolePluginManager getPluginManager() {
 		return pluginManager;
 	}
+
+	public PrometheusExporter getPrometheusExporter() {
+		return prometheusExporter;
+	}
+
+	public void setPrometheusExporter(PrometheusExporter prometheusExporter) {
+		this.prometheusExporter = prometheusExporter;
+	}
+
 	/**
 	 * Instanciate the request processor (factory method)
 	 * @param urlPrefix Url prefix (null allowed)
@@ -268,7 +294,21 @@ class SimonConsoleRequestProcessor {
 	 * @param pluginClasses Plugin classes (null allowed)
 	 */
 	public static SimonConsoleRequestProcessor create(String urlPrefix, Manager manager, String pluginClasses) {
+		return create(urlPrefix, manager, pluginClasses, null);
+	}
+
+	/**
+	 * Instanciate the request processor (factory method)
+	 * @param urlPrefix Url prefix (null allowed)
+	 * @param manager Manager (null allowed)
+	 * @param pluginClasses Plugin classes (null allowed)
+	 * @param prometheusRules Prometheus name rules, see {@link PrometheusNameRule#parse(String)} (null allowed)
+	 */
+	public static SimonConsoleRequestProcessor create(String urlPrefix, Manager manager, String pluginClasses, String prometheusRules) {
 		SimonConsoleRequestProcessor requestProcessor = new SimonConsoleRequestProcessor(urlPrefix);
+		if (prometheusRules != null) {
+			requestProcessor.setPrometheusExporter(new PrometheusExporter(PrometheusNameRule.parse(prometheusRules), null));
+		}
 		if (manager != null) {
 			// Defaults to global manager
 			requestProcessor.setManager(manager);
@@ -31,6 +31,10 @@ public class SimonConsoleServlet extends HttpServlet {
 	 * Plugin classes init parameter name.
 	 */
 	public static final String PLUGIN_CLASSES_INIT_PARAMETER = "plugin-classes";
+	/**
+	 * Prometheus name rules init parameter name.
+	 */
+	public static final String PROMETHEUS_RULES_INIT_PARAMETER = "prometheus-rules";
 	private SimonConsoleRequestProcessor requestProcessor;
 
 	@Override
@@ -42,8 +46,10 @@ public class SimonConsoleServlet extends HttpServlet {
 		String urlPrefix = config.getInitParameter(URL_PREFIX_INIT_PARAMETER);
 		// Plugin classes
 		String pluginClasses = config.getInitParameter(PLUGIN_CLASSES_INIT_PARAMETER);
+		// Prometheus name rules
+		String prometheusRules = config.getInitParameter(PROMETHEUS_RULES_INIT_PARAMETER);
 		// Create request processor
-		requestProcessor = SimonConsoleRequestProcessor.create(urlPrefix, manager, pluginClasses);
+		requestProcessor = SimonConsoleRequestProcessor.create(urlPrefix, manager, pluginClasses, prometheusRules);
 	}
 
 	/**
@@ -0,0 +1,49 @@
+package org.javasimon.console.action;
+
+import org.javasimon.SimonPattern;
+import org.javasimon.console.Action;
+import org.javasimon.console.ActionContext;
+import org.javasimon.console.ActionException;
+import org.javasimon.console.prometheus.PrometheusExporter;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+
+/**
+ * Export Simons in Prometheus text exposition format, output is streamed to the response writer.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class PrometheusAction extends Action {
+
+	/** URI for Prometheus action. */
+	public static final String PATH = "/data/metrics";
+
+	private final PrometheusExporter exporter;
+
+	/** Pattern for Simon name filtering. */
+	private String pattern;
+
+	public PrometheusAction(ActionContext context) {
+		this(context, new PrometheusExporter());
+	}
+
+	public PrometheusAction(ActionContext context, PrometheusExporter exporter) {
+		super(context);
+		this.exporter = exporter;
+	}
+
+	@Override
+	public void readParameters() {
+		pattern = getContext().getParameterAsString("pattern", null);
+	}
+
+	@Override
+	public void execute() throws ServletException, IOException, ActionException {
+		dontCache();
+		getContext().setContentType(PrometheusExporter.CONTENT_TYPE);
+		exporter.write(getContext().getManager(), pattern != null ? SimonPattern.create(pattern) : null, getContext().getWriter());
+	}
+}
@@ -0,0 +1,94 @@
+package org.javasimon.console.plugin;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.javasimon.Simon;
+import org.javasimon.console.ActionContext;
+import org.javasimon.console.action.DetailHtmlBuilder;
+import org.javasimon.console.action.DetailPlugin;
+import org.javasimon.console.html.HtmlResourceType;
+import org.javasimon.console.json.ArrayJS;
+import org.javasimon.console.json.ObjectJS;
+import org.javasimon.console.text.StringifierFactory;
+import org.javasimon.jdbc4.SlowQuery;
+import org.javasimon.jdbc4.SlowQueryLog;
+
+/**
+ * Detail plugin to display the latest slow queries of {@link SlowQueryLog} including their bind parameters.
+ * Applies on the {@code <prefix>.sql} Simon of the JDBC driver, requires Java Simon JDBC module on the classpath.
+ * Bind parameters may contain sensitive data, register this plugin only for consoles with restricted access.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class JdbcSlowQueryDetailPlugin extends DetailPlugin {
+
+	private static final String SQL_SUFFIX = ".sql";
+
+	public JdbcSlowQueryDetailPlugin() {
+		super("jdbcSlowQuery", "Slow SQL");
+		addResource("js/javasimon-jdbcSlowQueryPlugin.js", HtmlResourceType.JS);
+	}
+
+	/**
+	 * Indicate that this plugin only applies on {@code <prefix>.sql} Simons with existing slow query log.
+	 */
+	@Override
+	public boolean supports(Simon simon) {
+		return getLog(simon) != null;
+	}
+
+	private SlowQueryLog getLog(Simon simon) {
+		String name = simon.getName();
+		if (name == null || !name.endsWith(SQL_SUFFIX)) {
+			return null;
+		}
+		return SlowQueryLog.find(name.substring(0, name.length() - SQL_SUFFIX.length()));
+	}
+
+	private List<SlowQuery> getData(Simon simon) {
+		return getLog(simon).getSlowQueries();
+	}
+
+	@Override
+	public DetailHtmlBuilder executeHtml(ActionContext context, DetailHtmlBuilder htmlBuilder, StringifierFactory htmlStringifierFactory, Simon simon) throws IOException {
+		htmlBuilder.beginRow().labelCell("Slow queries").beginValueCell(" colspan=\"3\"");
+		htmlBuilder.begin("table")
+			.beginRow().labelCell("Time").labelCell("Duration").labelCell("SQL").labelCell("Parameters").endRow();
+		for (SlowQuery slowQuery : getData(simon)) {
+			htmlBuilder.beginRow()
+				.valueCell(htmlStringifierFactory.toString(slowQuery.getTimestamp(), "Date"))
+				.valueCell(htmlStringifierFactory.toString(slowQuery.getDuration(), "Time"))
+				.valueCell(escapeHtml(slowQuery.getSql()))
+				.valueCell(slowQuery.getParameters() != null ? escapeHtml(slowQuery.getParameters()) : "")
+				.endRow();
+		}
+		htmlBuilder.end("table");
+		htmlBuilder.endValueCell().endRow();
+		return htmlBuilder;
+	}
+
+	@Override
+	public ObjectJS executeJson(ActionContext context, StringifierFactory jsonStringifierFactory, Simon simon) {
+		ArrayJS queriesJS = new ArrayJS();
+		for (SlowQuery slowQuery : getData(simon)) {
+			ObjectJS queryJS = new ObjectJS();
+			queryJS.setSimpleAttribute("timestamp", slowQuery.getTimestamp(), jsonStringifierFactory.getStringifier(Long.class, "Date"));
+			queryJS.setSimpleAttribute("duration", slowQuery.getDuration(), jsonStringifierFactory.getStringifier(Long.class, "Time"));
+			queryJS.setSimpleAttribute("sql", slowQuery.getSql(), jsonStringifierFactory.getStringifier(String.class));
+			queryJS.setSimpleAttribute("parameters", slowQuery.getParameters(), jsonStringifierFactory.getStringifier(String.class));
+			queriesJS.addElement(queryJS);
+		}
+		ObjectJS slowQueryJS = new ObjectJS();
+		slowQueryJS.setAttribute("queries", queriesJS);
+		return slowQueryJS;
+	}
+
+	/**
+	 * Escapes SQL for HTML output, SQL often contains {@code <} and {@code >} operators.
+	 */
+	private static String escapeHtml(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
@@ -0,0 +1,97 @@
+package org.javasimon.console.plugin;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.javasimon.Simon;
+import org.javasimon.console.ActionContext;
+import org.javasimon.console.action.DetailHtmlBuilder;
+import org.javasimon.console.action.DetailPlugin;
+import org.javasimon.console.html.HtmlResourceType;
+import org.javasimon.console.json.ArrayJS;
+import org.javasimon.console.json.ObjectJS;
+import org.javasimon.console.text.StringifierFactory;
+import org.javasimon.jdbc4.QueryShapeIndex;
+
+/**
+ * Detail plugin to display the most expensive query shapes of {@link QueryShapeIndex}.
+ * Applies on the {@code <prefix>.sql} Simon of the JDBC driver, requires Java Simon JDBC module on the classpath.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class JdbcTopSqlDetailPlugin extends DetailPlugin {
+
+	/**
+	 * Count of displayed query shapes.
+	 */
+	public static final int TOP_COUNT = 10;
+
+	private static final String SQL_SUFFIX = ".sql";
+
+	public JdbcTopSqlDetailPlugin() {
+		super("jdbcTopSql", "Top SQL");
+		addResource("js/javasimon-jdbcTopSqlPlugin.js", HtmlResourceType.JS);
+	}
+
+	/**
+	 * Indicate that this plugin only applies on {@code <prefix>.sql} Simons with existing query shape index.
+	 */
+	@Override
+	public boolean supports(Simon simon) {
+		return getIndex(simon) != null;
+	}
+
+	private QueryShapeIndex getIndex(Simon simon) {
+		String name = simon.getName();
+		if (name == null || !name.endsWith(SQL_SUFFIX)) {
+			return null;
+		}
+		return QueryShapeIndex.find(name.substring(0, name.length() - SQL_SUFFIX.length()));
+	}
+
+	private List<QueryShapeIndex.QueryShape> getData(Simon simon) {
+		return getIndex(simon).getTop(TOP_COUNT, QueryShapeIndex.Order.TOTAL);
+	}
+
+	@Override
+	public DetailHtmlBuilder executeHtml(ActionContext context, DetailHtmlBuilder htmlBuilder, StringifierFactory htmlStringifierFactory, Simon simon) throws IOException {
+		htmlBuilder.beginRow().labelCell("Queries").beginValueCell(" colspan=\"3\"");
+		htmlBuilder.begin("table")
+			.beginRow().labelCell("SQL").labelCell("Counter").labelCell("Total").labelCell("Max").endRow();
+		for (QueryShapeIndex.QueryShape shape : getData(simon)) {
+			htmlBuilder.beginRow()
+				.valueCell(escapeHtml(shape.getNormalizedSql()))
+				.beginValueCell().value(shape.getCount(), null).endValueCell()
+				.beginValueCell().value(shape.getTotal(), "Time").endValueCell()
+				.beginValueCell().value(shape.getMax(), "Time").endValueCell()
+				.endRow();
+		}
+		htmlBuilder.end("table");
+		htmlBuilder.endValueCell().endRow();
+		return htmlBuilder;
+	}
+
+	@Override
+	public ObjectJS executeJson(ActionContext context, StringifierFactory jsonStringifierFactory, Simon simon) {
+		ArrayJS queriesJS = new ArrayJS();
+		for (QueryShapeIndex.QueryShape shape : getData(simon)) {
+			ObjectJS queryJS = new ObjectJS();
+			queryJS.setSimpleAttribute("sql", shape.getNormalizedSql(), jsonStringifierFactory.getStringifier(String.class));
+			queryJS.setSimpleAttribute("count", shape.getCount(), jsonStringifierFactory.getStringifier(Long.class));
+			queryJS.setSimpleAttribute("total", shape.getTotal(), jsonStringifierFactory.getStringifier(Long.class, "Time"));
+			queryJS.setSimpleAttribute("max", shape.getMax(), jsonStringifierFactory.getStringifier(Long.class, "Time"));
+			queriesJS.addElement(queryJS);
+		}
+		ObjectJS topSqlJS = new ObjectJS();
+		topSqlJS.setAttribute("queries", queriesJS);
+		return topSqlJS;
+	}
+
+	/**
+	 * Escapes SQL for HTML output, SQL often contains {@code <} and {@code >} operators.
+	 */
+	private static String escapeHtml(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
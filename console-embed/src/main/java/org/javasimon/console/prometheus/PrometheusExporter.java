@@ -0,0 +1,251 @@
+package org.javasimon.console.prometheus;
+
+import org.javasimon.Counter;
+import org.javasimon.Manager;
+import org.javasimon.Simon;
+import org.javasimon.SimonFilter;
+import org.javasimon.Stopwatch;
+import org.javasimon.callback.quantiles.Bucket;
+import org.javasimon.callback.quantiles.Buckets;
+import org.javasimon.callback.quantiles.QuantilesCallback;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Renders Simons in Prometheus text exposition format (version 0.0.4). Output is written directly
+ * to the provided writer, only one small entry per Simon is created to sort the metrics into families.
+ * <ul>
+ * <li>Stopwatch is rendered as a summary {@code <name>_seconds} ({@code _count} and {@code _sum}) or as a histogram
+ * if {@link Buckets} are attached to it by {@link QuantilesCallback} (bucket upper bounds are used for {@code le}
+ * labels, {@code _count} is the number of values in buckets).</li>
+ * <li>Counter is rendered as a gauge {@code <name>} with the current value and a counter
+ * {@code <name>_increments_total} with the sum of all increments.</li>
+ * </ul>
+ * Metric names and labels are derived from Simon names by {@link PrometheusNameRule}s - the first matching rule
+ * is used. Simon names not matched by any rule are sanitized (all characters except letters, digits, underscore
+ * and colon are replaced by underscore) and prefixed with the optional prefix. Mapped names are cached.
+ * If Simons of different types are mapped to the same metric name, the type of the first Simon wins.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class PrometheusExporter {
+
+	/** Content type of the exposition format. */
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final int MAX_CACHED_NAMES = 100000;
+
+	private static final double NANOS_IN_SECOND = 1000000000D;
+
+	private static final String SUMMARY = "summary";
+	private static final String HISTOGRAM = "histogram";
+	private static final String GAUGE = "gauge";
+	private static final String COUNTER = "counter";
+
+	private final List<PrometheusNameRule> rules;
+
+	private final String prefix;
+
+	private final ConcurrentMap<String, PrometheusNameRule.MetricName> names = new ConcurrentHashMap<>();
+
+	/** Creates exporter with sanitized Simon names as metric names and no labels. */
+	public PrometheusExporter() {
+		this(Collections.<PrometheusNameRule>emptyList(), null);
+	}
+
+	/**
+	 * Creates exporter with the name mapping rules.
+	 *
+	 * @param rules name rules, the first matching rule is applied
+	 * @param prefix prefix of metric names for Simons not matched by any rule (can be {@code null})
+	 */
+	public PrometheusExporter(List<PrometheusNameRule> rules, String prefix) {
+		this.rules = new ArrayList<>(rules);
+		this.prefix = prefix != null ? prefix : "";
+	}
+
+	/**
+	 * Writes all Stopwatches and Counters accepted by the filter.
+	 *
+	 * @param manager Simon manager
+	 * @param filter Simon filter or {@code null} for all Simons
+	 * @param writer output writer
+	 * @throws IOException if writing fails
+	 */
+	public void write(Manager manager, SimonFilter filter, Writer writer) throws IOException {
+		Entry[] entries = collectEntries(manager, filter);
+		Arrays.sort(entries);
+		String family = null;
+		for (Entry entry : entries) {
+			if (!entry.family.equals(family)) {
+				family = entry.family;
+				writer.write("# TYPE ");
+				writer.write(family);
+				writer.write(' ');
+				writer.write(entry.type);
+				writer.write('\n');
+			}
+			writeEntry(entry, writer);
+		}
+		writer.flush();
+	}
+
+	private Entry[] collectEntries(Manager manager, SimonFilter filter) {
+		List<Entry> entries = new ArrayList<>();
+		for (Simon simon : manager.getSimons(filter)) {
+			if (simon instanceof Stopwatch) {
+				PrometheusNameRule.MetricName name = metricName(simon.getName());
+				Buckets buckets = QuantilesCallback.getBuckets((Stopwatch) simon);
+				entries.add(new Entry(name.name + "_seconds", name.labels, buckets != null ? HISTOGRAM : SUMMARY, simon, buckets));
+			} else if (simon instanceof Counter) {
+				PrometheusNameRule.MetricName name = metricName(simon.getName());
+				entries.add(new Entry(name.name, name.labels, GAUGE, simon, null));
+				entries.add(new Entry(name.name + "_increments_total", name.labels, COUNTER, simon, null));
+			}
+		}
+		return entries.toArray(new Entry[entries.size()]);
+	}
+
+	private void writeEntry(Entry entry, Writer writer) throws IOException {
+		if (entry.type == GAUGE) {
+			writeSample(writer, entry.family, "", entry.labels, null, Long.toString(((Counter) entry.simon).getCounter()));
+		} else if (entry.type == COUNTER) {
+			writeSample(writer, entry.family, "", entry.labels, null, Long.toString(((Counter) entry.simon).getIncrementSum()));
+		} else {
+			Stopwatch stopwatch = (Stopwatch) entry.simon;
+			long count = stopwatch.getCounter();
+			double sum = stopwatch.getTotal() / NANOS_IN_SECOND;
+			if (entry.buckets != null) {
+				count = writeBuckets(entry, writer);
+			}
+			writeSample(writer, entry.family, "_count", entry.labels, null, Long.toString(count));
+			writeSample(writer, entry.family, "_sum", entry.labels, null, Double.toString(sum));
+		}
+	}
+
+	/** Writes cumulative buckets and returns total count of values in buckets. */
+	private long writeBuckets(Entry entry, Writer writer) throws IOException {
+		List<Bucket> buckets = entry.buckets.getBuckets();
+		long cumulative = 0;
+		for (int i = 0; i < buckets.size() - 1; i++) {
+			Bucket bucket = buckets.get(i);
+			cumulative += bucket.getCount();
+			writeSample(writer, entry.family, "_bucket", entry.labels, Double.toString(bucket.getMax() / NANOS_IN_SECOND), Long.toString(cumulative));
+		}
+		cumulative += buckets.get(buckets.size() - 1).getCount();
+		writeSample(writer, entry.family, "_bucket", entry.labels, "+Inf", Long.toString(cumulative));
+		return cumulative;
+	}
+
+	private void writeSample(Writer writer, String family, String suffix, String labels, String le, String value) throws IOException {
+		writer.write(family);
+		writer.write(suffix);
+		if (le != null) {
+			if (labels.isEmpty()) {
+				writer.write("{le=\"");
+			} else {
+				writer.write(labels, 0, labels.length() - 1);
+				writer.write(",le=\"");
+			}
+			writer.write(le);
+			writer.write("\"}");
+		} else {
+			writer.write(labels);
+		}
+		writer.write(' ');
+		writer.write(value);
+		writer.write('\n');
+	}
+
+	private PrometheusNameRule.MetricName metricName(String simonName) {
+		PrometheusNameRule.MetricName name = names.get(simonName);
+		if (name == null) {
+			for (PrometheusNameRule rule : rules) {
+				name = rule.apply(simonName);
+				if (name != null) {
+					break;
+				}
+			}
+			if (name == null) {
+				name = new PrometheusNameRule.MetricName(sanitizeMetricName(prefix + simonName), "");
+			}
+			if (names.size() >= MAX_CACHED_NAMES) {
+				names.clear();
+			}
+			names.put(simonName, name);
+		}
+		return name;
+	}
+
+	/**
+	 * Replaces characters not allowed in Prometheus metric names with underscores.
+	 *
+	 * @param name metric name candidate
+	 * @return valid metric name
+	 */
+	public static String sanitizeMetricName(String name) {
+		StringBuilder sb = new StringBuilder(name.length() + 1);
+		if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+			sb.append('_');
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean allowed = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == ':';
+			sb.append(allowed ? c : '_');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Appends label value with backslash, double-quote and line feed escaped.
+	 *
+	 * @param value label value
+	 * @param sb target string builder
+	 */
+	static void escapeLabelValue(String value, StringBuilder sb) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				sb.append('\\').append(c);
+			} else if (c == '\n') {
+				sb.append("\\n");
+			} else {
+				sb.append(c);
+			}
+		}
+	}
+
+	/** One metric family member - sorted by family name and labels. */
+	private static final class Entry implements Comparable<Entry> {
+
+		private final String family;
+		private final String labels;
+		private final String type;
+		private final Simon simon;
+		private final Buckets buckets;
+
+		Entry(String family, String labels, String type, Simon simon, Buckets buckets) {
+			this.family = family;
+			this.labels = labels;
+			this.type = type;
+			this.simon = simon;
+			this.buckets = buckets;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int result = family.compareTo(other.family);
+			return result != 0 ? result : labels.compareTo(other.labels);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.javasimon.console.prometheus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule mapping hierarchical Simon name to Prometheus metric name and labels. Rule consists of a regular
+ * expression matched against the whole Simon name, metric name template and label value templates.
+ * Templates can refer to groups of the expression with {@code $1}, {@code $2}, etc.
+ * <p/>
+ * Rules are typically written in a textual form - one rule per line (or separated by semicolons):
+ * <pre>
+ * org\.app\.service\.(\w+)\.(\w+) = app_service{service="$1",method="$2"}
+ * org\.app\.(\w+) = app_$1</pre>
+ * Metric name produced by the rule is sanitized as any other metric name
+ * (see {@link PrometheusExporter#sanitizeMetricName(String)}).
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class PrometheusNameRule {
+
+	private static final Pattern RULE_SYNTAX = Pattern.compile("(.+?)\\s*=\\s*([^{\\s]+)\\s*(?:\\{(.*)\\})?");
+
+	private static final Pattern LABEL_SYNTAX = Pattern.compile("\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*=\\s*\"([^\"]*)\"\\s*");
+
+	private final Pattern pattern;
+
+	private final String metricName;
+
+	private final Map<String, String> labels;
+
+	/**
+	 * Creates the rule.
+	 *
+	 * @param regex regular expression matched against whole Simon name
+	 * @param metricName metric name template
+	 * @param labels label names and value templates (iteration order is kept)
+	 */
+	public PrometheusNameRule(String regex, String metricName, Map<String, String> labels) {
+		this.pattern = Pattern.compile(regex);
+		this.metricName = metricName;
+		this.labels = Collections.unmodifiableMap(new LinkedHashMap<>(labels));
+	}
+
+	/**
+	 * Parses rules written in the textual form, one rule per line or separated by semicolons.
+	 * Empty lines and lines starting with {@code #} are ignored.
+	 *
+	 * @param rules textual form of rules
+	 * @return list of parsed rules in the original order
+	 * @throws IllegalArgumentException if a rule can't be parsed
+	 */
+	public static List<PrometheusNameRule> parse(String rules) {
+		List<PrometheusNameRule> result = new ArrayList<>();
+		if (rules == null) {
+			return result;
+		}
+		for (String line : rules.split("[\\n;]")) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			Matcher ruleMatcher = RULE_SYNTAX.matcher(line);
+			if (!ruleMatcher.matches()) {
+				throw new IllegalArgumentException("Invalid Prometheus name rule: " + line);
+			}
+			Map<String, String> labels = new LinkedHashMap<>();
+			String labelsDefinition = ruleMatcher.group(3);
+			if (labelsDefinition != null && !labelsDefinition.trim().isEmpty()) {
+				for (String label : labelsDefinition.split(",")) {
+					Matcher labelMatcher = LABEL_SYNTAX.matcher(label);
+					if (!labelMatcher.matches()) {
+						throw new IllegalArgumentException("Invalid label in Prometheus name rule: " + line);
+					}
+					labels.put(labelMatcher.group(1), labelMatcher.group(2));
+				}
+			}
+			result.add(new PrometheusNameRule(ruleMatcher.group(1), ruleMatcher.group(2), labels));
+		}
+		return result;
+	}
+
+	/**
+	 * Applies the rule to the Simon name.
+	 *
+	 * @param simonName Simon name
+	 * @return mapped metric name or {@code null} if the rule does not match the name
+	 */
+	MetricName apply(String simonName) {
+		Matcher matcher = pattern.matcher(simonName);
+		if (!matcher.matches()) {
+			return null;
+		}
+		String name = PrometheusExporter.sanitizeMetricName(expand(metricName, matcher));
+		if (labels.isEmpty()) {
+			return new MetricName(name, "");
+		}
+		StringBuilder labelsBuilder = new StringBuilder();
+		for (Map.Entry<String, String> label : labels.entrySet()) {
+			labelsBuilder.append(labelsBuilder.length() == 0 ? '{' : ',')
+				.append(label.getKey()).append("=\"");
+			PrometheusExporter.escapeLabelValue(expand(label.getValue(), matcher), labelsBuilder);
+			labelsBuilder.append('"');
+		}
+		return new MetricName(name, labelsBuilder.append('}').toString());
+	}
+
+	private static String expand(String template, Matcher matcher) {
+		if (template.indexOf('$') == -1) {
+			return template;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < template.length(); i++) {
+			char c = template.charAt(i);
+			if (c == '$' && i + 1 < template.length() && Character.isDigit(template.charAt(i + 1))) {
+				int group = template.charAt(++i) - '0';
+				if (group <= matcher.groupCount() && matcher.group(group) != null) {
+					sb.append(matcher.group(group));
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return pattern.pattern() + " = " + metricName + (labels.isEmpty() ? "" : labels);
+	}
+
+	/** Metric name and rendered labels (including braces, or empty string without labels). */
+	static final class MetricName {
+
+		final String name;
+
+		final String labels;
+
+		MetricName(String name, String labels) {
+			this.name = name;
+			this.labels = labels;
+		}
+	}
+}
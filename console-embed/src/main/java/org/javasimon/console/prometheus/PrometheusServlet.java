@@ -0,0 +1,77 @@
+package org.javasimon.console.prometheus;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.javasimon.SimonPattern;
+import org.javasimon.console.SimonConsoleServlet;
+
+import java.io.IOException;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Standalone servlet exposing Simons in Prometheus text format, typically mapped to {@code /metrics}.
+ * Manager stored in the servlet context (see {@link SimonConsoleServlet#getManager}) is used if present,
+ * otherwise the default {@link SimonManager#manager()}.
+ * <p/>
+ * Init parameters:
+ * <ul>
+ * <li>{@code rules} - name rules in the textual form of {@link PrometheusNameRule#parse(String)};</li>
+ * <li>{@code prefix} - prefix of metric names for Simons not matched by any rule;</li>
+ * <li>{@code pattern} - Simon pattern restricting exported Simons.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class PrometheusServlet extends HttpServlet {
+
+	/** Serial version UID since class is Serializable. */
+	public static final long serialVersionUID = 1L;
+
+	/** Name rules init parameter name. */
+	public static final String RULES_INIT_PARAMETER = "rules";
+
+	/** Metric name prefix init parameter name. */
+	public static final String PREFIX_INIT_PARAMETER = "prefix";
+
+	/** Simon pattern init parameter name. */
+	public static final String PATTERN_INIT_PARAMETER = "pattern";
+
+	private transient Manager manager;
+
+	private transient PrometheusExporter exporter;
+
+	private transient SimonPattern pattern;
+
+	@Override
+	public void init(ServletConfig config) throws ServletException {
+		super.init(config);
+		manager = SimonConsoleServlet.getManager(config.getServletContext());
+		if (manager == null) {
+			manager = SimonManager.manager();
+		}
+		try {
+			exporter = new PrometheusExporter(PrometheusNameRule.parse(config.getInitParameter(RULES_INIT_PARAMETER)),
+				config.getInitParameter(PREFIX_INIT_PARAMETER));
+		} catch (IllegalArgumentException e) {
+			throw new ServletException(e);
+		}
+		String patternParameter = config.getInitParameter(PATTERN_INIT_PARAMETER);
+		pattern = patternParameter != null ? SimonPattern.create(patternParameter) : null;
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		response.setContentType(PrometheusExporter.CONTENT_TYPE);
+		exporter.write(manager, pattern, response.getWriter());
+	}
+
+	@Override
+	public String getServletInfo() {
+		return "Prometheus exposition of Java Simon statistics";
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Prometheus text format exposition of Simons - {@link org.javasimon.console.prometheus.PrometheusExporter}
+ * used by the console action {@link org.javasimon.console.action.PrometheusAction} and by the standalone
+ * {@link org.javasimon.console.prometheus.PrometheusServlet}.
+ */
+package org.javasimon.console.prometheus;
@@ -0,0 +1,29 @@
+"use strict";
+var javasimon=window.javasimon;
+if (javasimon) {
+	(function(domUtil, viewPluginMgr) {
+		viewPluginMgr.fnAddPluginRenderer("jdbcSlowQuery",function(eTableBody, oSlowQuery) {
+			var row=this.fnAppendRow(eTableBody),
+				i,subTable,subRow, subTableSection, oQuery;
+			this.fnAppendLabelCell(row,"Slow queries");
+			subTable=domUtil.fnAppendChildElement(this.fnAppendValueCell(row, " ", 3),"table");
+			subTableSection=domUtil.fnAppendChildElement(subTable, "thead");
+			subRow=this.fnAppendRow(subTableSection);
+			this.fnAppendLabelCell(subRow, "Time");
+			this.fnAppendLabelCell(subRow, "Duration");
+			this.fnAppendLabelCell(subRow, "SQL");
+			this.fnAppendLabelCell(subRow, "Parameters");
+			subTableSection=domUtil.fnAppendChildElement(subTable, "tbody");
+			if (oSlowQuery.queries) {
+				for(i=0; i<oSlowQuery.queries.length; i++) {
+					oQuery=oSlowQuery.queries[i];
+					subRow=this.fnAppendRow(subTableSection);
+					this.fnAppendCell(subRow, null, oQuery.timestamp);
+					this.fnAppendCell(subRow, null, oQuery.duration === 0 ?"0":oQuery.duration);
+					this.fnAppendCell(subRow, null, oQuery.sql);
+					this.fnAppendCell(subRow, null, oQuery.parameters ? oQuery.parameters : "");
+				}
+			}
+		});
+	}(javasimon.DOMUtil, javasimon.ViewPluginManager));
+}
@@ -0,0 +1,29 @@
+"use strict";
+var javasimon=window.javasimon;
+if (javasimon) {
+	(function(domUtil, viewPluginMgr) {
+		viewPluginMgr.fnAddPluginRenderer("jdbcTopSql",function(eTableBody, oTopSql) {
+			var row=this.fnAppendRow(eTableBody),
+				i,subTable,subRow, subTableSection, oQuery;
+			this.fnAppendLabelCell(row,"Queries");
+			subTable=domUtil.fnAppendChildElement(this.fnAppendValueCell(row, " ", 3),"table");
+			subTableSection=domUtil.fnAppendChildElement(subTable, "thead");
+			subRow=this.fnAppendRow(subTableSection);
+			this.fnAppendLabelCell(subRow, "SQL");
+			this.fnAppendLabelCell(subRow, "Count");
+			this.fnAppendLabelCell(subRow, "Total");
+			this.fnAppendLabelCell(subRow, "Max");
+			subTableSection=domUtil.fnAppendChildElement(subTable, "tbody");
+			if (oTopSql.queries) {
+				for(i=0; i<oTopSql.queries.length; i++) {
+					oQuery=oTopSql.queries[i];
+					subRow=this.fnAppendRow(subTableSection);
+					this.fnAppendCell(subRow, null, oQuery.sql);
+					this.fnAppendCell(subRow, null, oQuery.count === 0 ?"0":oQuery.count);
+					this.fnAppendCell(subRow, null, oQuery.total === 0 ?"0":oQuery.total);
+					this.fnAppendCell(subRow, null, oQuery.max === 0 ?"0":oQuery.max);
+				}
+			}
+		});
+	}(javasimon.DOMUtil, javasimon.ViewPluginManager));
+}
@@ -0,0 +1,43 @@
+package org.javasimon.console.action;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.javasimon.console.SimonData;
+import org.javasimon.console.TestActionContext;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link PrometheusAction}.
+ */
+public class PrometheusActionTest {
+
+	@BeforeClass
+	public static void setUpClass() {
+		SimonData.initialize();
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		TestActionContext context = new TestActionContext("/data/metrics");
+		PrometheusAction action = new PrometheusAction(context);
+		action.readParameters();
+		action.execute();
+		String text = context.toString();
+		assertTrue(text.contains("# TYPE A_seconds summary\nA_seconds_count 3\nA_seconds_sum 0.6\n"), text);
+		assertTrue(text.contains("# TYPE X gauge\nX 2\n"), text);
+	}
+
+	@Test
+	public void testExecutePattern() throws Exception {
+		TestActionContext context = new TestActionContext("/data/metrics");
+		context.setParameter("pattern", "A*");
+		PrometheusAction action = new PrometheusAction(context);
+		action.readParameters();
+		action.execute();
+		String text = context.toString();
+		assertTrue(text.contains("A_seconds_count 3\n"), text);
+		assertFalse(text.contains("B_seconds"), text);
+	}
+}
@@ -0,0 +1,81 @@
+package org.javasimon.console.plugin;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+
+import org.javasimon.Simon;
+import org.javasimon.SimonManager;
+import org.javasimon.console.TestActionContext;
+import org.javasimon.console.TimeFormatType;
+import org.javasimon.console.action.DetailHtmlAction;
+import org.javasimon.console.action.DetailHtmlBuilder;
+import org.javasimon.console.action.DetailJsonAction;
+import org.javasimon.console.json.JsonStringifierFactory;
+import org.javasimon.console.text.StringifierFactory;
+import org.javasimon.jdbc4.JdbcMonitoringSettings;
+import org.javasimon.jdbc4.SlowQueryLog;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link JdbcSlowQueryDetailPlugin}.
+ */
+public class JdbcSlowQueryDetailPluginTest {
+
+	private final JdbcSlowQueryDetailPlugin plugin = new JdbcSlowQueryDetailPlugin();
+
+	@BeforeMethod
+	public void before() throws Exception {
+		SimonManager.clear();
+		SlowQueryLog.forPrefix("test.console.slow").clear();
+		JdbcMonitoringSettings.forPrefix("test.console.slow").setSlowQueryThreshold(10);
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:JdbcSlowQueryDetailPluginTest;simon_prefix=test.console.slow")) {
+			connection.createStatement().execute("create alias if not exists sleep for \"java.lang.Thread.sleep\"");
+			try (PreparedStatement statement = connection.prepareStatement("select ? from dual where sleep(20) is null and 1 < 2")) {
+				statement.setString(1, "abc");
+				statement.executeQuery().close();
+			}
+		} finally {
+			JdbcMonitoringSettings.forPrefix("test.console.slow").setSlowQueryThreshold(0);
+		}
+	}
+
+	@Test
+	public void testSupports() {
+		assertTrue(plugin.supports(SimonManager.getSimon("test.console.slow.sql")));
+		assertFalse(plugin.supports(SimonManager.getSimon("test.console.slow.sql.select")));
+		assertFalse(plugin.supports(SimonManager.getStopwatch("unknown.sql")));
+	}
+
+	@Test
+	public void testExecuteJson() throws Exception {
+		Simon simon = SimonManager.getSimon("test.console.slow.sql");
+		StringWriter writer = new StringWriter();
+		JsonStringifierFactory stringifierFactory = new JsonStringifierFactory();
+		stringifierFactory.init(TimeFormatType.MILLISECOND, JsonStringifierFactory.READABLE_DATE_PATTERN, JsonStringifierFactory.READABLE_NUMBER_PATTERN);
+		plugin.executeJson(new TestActionContext(DetailJsonAction.PATH), stringifierFactory, simon).write(writer);
+		JSONArray queries = new JSONObject(writer.toString()).getJSONArray("queries");
+		assertEquals(queries.length(), 1);
+		assertEquals(queries.getJSONObject(0).getString("sql"), "select ? from dual where sleep(20) is null and 1 < 2");
+		assertEquals(queries.getJSONObject(0).getString("parameters"), "['abc']");
+	}
+
+	@Test
+	public void testExecuteHtml() throws Exception {
+		Simon simon = SimonManager.getSimon("test.console.slow.sql");
+		StringWriter writer = new StringWriter();
+		StringifierFactory stringifierFactory = new StringifierFactory();
+		stringifierFactory.init(TimeFormatType.MILLISECOND, StringifierFactory.READABLE_DATE_PATTERN, StringifierFactory.READABLE_NUMBER_PATTERN);
+		plugin.executeHtml(new TestActionContext(DetailHtmlAction.PATH), new DetailHtmlBuilder(writer, stringifierFactory), stringifierFactory, simon);
+		assertTrue(writer.toString().contains("sleep(20) is null and 1 &lt; 2"), writer.toString());
+		assertTrue(writer.toString().contains("['abc']"), writer.toString());
+	}
+}
@@ -0,0 +1,77 @@
+package org.javasimon.console.plugin;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import org.javasimon.Simon;
+import org.javasimon.SimonManager;
+import org.javasimon.console.TestActionContext;
+import org.javasimon.console.TimeFormatType;
+import org.javasimon.console.action.DetailHtmlAction;
+import org.javasimon.console.action.DetailHtmlBuilder;
+import org.javasimon.console.action.DetailJsonAction;
+import org.javasimon.console.json.JsonStringifierFactory;
+import org.javasimon.console.text.StringifierFactory;
+import org.javasimon.jdbc4.QueryShapeIndex;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link JdbcTopSqlDetailPlugin}.
+ */
+public class JdbcTopSqlDetailPluginTest {
+
+	private final JdbcTopSqlDetailPlugin plugin = new JdbcTopSqlDetailPlugin();
+
+	@BeforeMethod
+	public void before() throws Exception {
+		SimonManager.clear();
+		QueryShapeIndex.forPrefix("test.console").clear();
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:JdbcTopSqlDetailPluginTest;simon_prefix=test.console")) {
+			Statement statement = connection.createStatement();
+			statement.execute("create table if not exists foo (id int)");
+			for (int i = 0; i < 3; i++) {
+				statement.execute("select * from foo where id < " + i);
+			}
+			statement.close();
+		}
+	}
+
+	@Test
+	public void testSupports() {
+		assertTrue(plugin.supports(SimonManager.getSimon("test.console.sql")));
+		assertFalse(plugin.supports(SimonManager.getSimon("test.console.sql.select")));
+		assertFalse(plugin.supports(SimonManager.getStopwatch("unknown.sql")));
+	}
+
+	@Test
+	public void testExecuteJson() throws Exception {
+		Simon simon = SimonManager.getSimon("test.console.sql");
+		StringWriter writer = new StringWriter();
+		JsonStringifierFactory stringifierFactory = new JsonStringifierFactory();
+		stringifierFactory.init(TimeFormatType.MILLISECOND, JsonStringifierFactory.READABLE_DATE_PATTERN, JsonStringifierFactory.READABLE_NUMBER_PATTERN);
+		plugin.executeJson(new TestActionContext(DetailJsonAction.PATH), stringifierFactory, simon).write(writer);
+		JSONArray queries = new JSONObject(writer.toString()).getJSONArray("queries");
+		assertEquals(queries.length(), 2);
+		JSONObject select = queries.getJSONObject(0).getLong("count") == 3 ? queries.getJSONObject(0) : queries.getJSONObject(1);
+		assertEquals(select.getString("sql"), "select * from foo where id < ?");
+	}
+
+	@Test
+	public void testExecuteHtml() throws Exception {
+		Simon simon = SimonManager.getSimon("test.console.sql");
+		StringWriter writer = new StringWriter();
+		StringifierFactory stringifierFactory = new StringifierFactory();
+		stringifierFactory.init(TimeFormatType.MILLISECOND, StringifierFactory.READABLE_DATE_PATTERN, StringifierFactory.READABLE_NUMBER_PATTERN);
+		plugin.executeHtml(new TestActionContext(DetailHtmlAction.PATH), new DetailHtmlBuilder(writer, stringifierFactory), stringifierFactory, simon);
+		assertTrue(writer.toString().contains("select * from foo where id &lt; ?"), writer.toString());
+	}
+}
@@ -0,0 +1,88 @@
+package org.javasimon.console.prometheus;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.SimonPattern;
+import org.javasimon.Split;
+import org.javasimon.callback.quantiles.FixedQuantilesCallback;
+import org.javasimon.clock.SimonClock;
+import org.javasimon.clock.TestClock;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Unit test for {@link PrometheusExporter} and {@link PrometheusNameRule}.
+ */
+public class PrometheusExporterTest {
+
+	@Test
+	public void testSummaryAndCounter() throws Exception {
+		Manager manager = new EnabledManager();
+		manager.getStopwatch("org.app.service").addSplit(Split.create(250 * SimonClock.NANOS_IN_MILLIS));
+		manager.getCounter("org.app.counter").increase(5);
+		manager.getCounter("org.app.counter").decrease(2);
+
+		StringWriter writer = new StringWriter();
+		new PrometheusExporter().write(manager, null, writer);
+		assertEquals(writer.toString(),
+			"# TYPE org_app_counter gauge\n" +
+				"org_app_counter 3\n" +
+				"# TYPE org_app_counter_increments_total counter\n" +
+				"org_app_counter_increments_total 5\n" +
+				"# TYPE org_app_service_seconds summary\n" +
+				"org_app_service_seconds_count 1\n" +
+				"org_app_service_seconds_sum 0.25\n");
+	}
+
+	@Test
+	public void testRulesAndHistogram() throws Exception {
+		TestClock clock = new TestClock();
+		clock.setNanos(1);
+		Manager manager = new EnabledManager(clock);
+		manager.callback().addCallback(new FixedQuantilesCallback(0, 400, 4));
+		for (long millis : new long[] {50, 150, 150}) {
+			measure(manager, clock, "org.app.service.Orders.create", millis);
+		}
+		measure(manager, clock, "org.app.service.Orders.delete", 1);
+		measure(manager, clock, "org.other.stopwatch", 1);
+
+		List<PrometheusNameRule> rules = PrometheusNameRule.parse(
+			"# service calls\n" +
+				"org\\.app\\.service\\.(\\w+)\\.(\\w+) = app_call{service=\"$1\",method=\"$2\"}");
+		StringWriter writer = new StringWriter();
+		new PrometheusExporter(rules, "x_").write(manager, SimonPattern.createForStopwatch("org.*"), writer);
+		String output = writer.toString();
+
+		assertTrue(output.startsWith("# TYPE app_call_seconds histogram\n"), output);
+		assertEquals(output.split("# TYPE").length, 3, output);
+		assertTrue(output.contains("app_call_seconds_bucket{service=\"Orders\",method=\"create\",le=\"0.1\"} 1\n"), output);
+		assertTrue(output.contains("app_call_seconds_bucket{service=\"Orders\",method=\"create\",le=\"0.2\"} 3\n"), output);
+		assertTrue(output.contains("app_call_seconds_bucket{service=\"Orders\",method=\"create\",le=\"+Inf\"} 3\n"), output);
+		assertTrue(output.contains("app_call_seconds_count{service=\"Orders\",method=\"create\"} 3\n"), output);
+		assertTrue(output.contains("app_call_seconds_sum{service=\"Orders\",method=\"create\"} 0.35\n"), output);
+		assertTrue(output.contains("app_call_seconds_count{service=\"Orders\",method=\"delete\"} 1\n"), output);
+		assertTrue(output.contains("# TYPE x_org_other_stopwatch_seconds histogram\n"), output);
+	}
+
+	private static void measure(Manager manager, TestClock clock, String name, long millis) {
+		Split split = manager.getStopwatch(name).start();
+		clock.setNanos(clock.nanoTime() + millis * SimonClock.NANOS_IN_MILLIS);
+		split.stop();
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidRule() {
+		PrometheusNameRule.parse("org.app = name{label=unquoted}");
+	}
+
+	@Test
+	public void testSanitizeMetricName() {
+		assertEquals(PrometheusExporter.sanitizeMetricName("org.app-x:y"), "org_app_x:y");
+		assertEquals(PrometheusExporter.sanitizeMetricName("1st"), "_1st");
+	}
+}
@@ -258,6 +258,19 @@ abstract class AbstractSimon implements Simon {
 		sample.setLastUsage(lastUsage);
 	}
 
+	/** Restores usages and note from the sample, usage span of this Simon can only be extended. */
+	void restoreCommon(Sample sample) {
+		if (sample.getFirstUsage() != 0 && (firstUsage == 0 || sample.getFirstUsage() < firstUsage)) {
+			firstUsage = sample.getFirstUsage();
+		}
+		if (sample.getLastUsage() > lastUsage) {
+			lastUsage = sample.getLastUsage();
+		}
+		if (note == null) {
+			note = sample.getNote();
+		}
+	}
+
 	// incremental Simons methods
 	Collection<Simon> incrementalSimons() {
 		return incrementalSimons != null ? incrementalSimons.values() : null;
@@ -179,6 +179,28 @@ final class CounterImpl extends AbstractSimon implements Counter {
 		return null;
 	}
 
+	/**
+	 * Merges values from the sample (e.g. restored from a persisted snapshot) into this Counter.
+	 * Counter value and increment/decrement sums are added, min and max are combined.
+	 * Incremental Simons are not affected.
+	 *
+	 * @param sample sample to merge into this Counter
+	 */
+	synchronized void restore(CounterSample sample) {
+		counter += sample.getCounter();
+		incrementSum += sample.getIncrementSum();
+		decrementSum += sample.getDecrementSum();
+		if (sample.getMax() > max) {
+			max = sample.getMax();
+			maxTimestamp = sample.getMaxTimestamp();
+		}
+		if (sample.getMin() < min) {
+			min = sample.getMin();
+			minTimestamp = sample.getMinTimestamp();
+		}
+		restoreCommon(sample);
+	}
+
 	@Override
 	public synchronized long getCounter() {
 		return counter;
@@ -1,5 +1,6 @@
 package org.javasimon;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
@@ -7,6 +8,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -36,7 +38,10 @@ import org.javasimon.utils.bean.SimonBeanUtils;
  * <pre>{@code
  * <simon-configuration>
  * ... TODO
+ *   <snapshot file="path/to/snapshot" period-ms="60000" load="true"/>
  * </simon-configuration>}</pre>
+ * Element {@code snapshot} configures {@link ManagerSnapshotPersister} - snapshot is loaded (unless {@code load}
+ * is false) and persisted periodically if {@code period-ms} is specified.
  *
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
  */
@@ -48,6 +53,8 @@ public final class ManagerConfiguration {
 
 	private final Manager manager;
 
+	private ManagerSnapshotPersister snapshotPersister;
+
 	/**
 	 * Creates manager configuration for a specified manager.
 	 *
@@ -84,6 +91,8 @@ public final class ManagerConfiguration {
 						manager.callback().addCallback(processFilterCallback(xr));
 					} else if (isStartTag(xr, "simon")) {
 						processSimon(xr);
+					} else if (isStartTag(xr, "snapshot")) {
+						processSnapshot(xr);
 					} else {
 						break;
 					}
@@ -221,6 +230,44 @@ public final class ManagerConfiguration {
 		processEndElement(xr, "simon");
 	}
 
+	private void processSnapshot(XMLStreamReader xr) throws XMLStreamException {
+		Map<String, String> attrs = processStartElement(xr, "snapshot", "file");
+		if (snapshotPersister != null) {
+			stopSnapshotPersister();
+		}
+		snapshotPersister = new ManagerSnapshotPersister(manager, new File(attrs.get("file")));
+		if (attrs.get("load") == null || Boolean.parseBoolean(attrs.get("load"))) {
+			try {
+				snapshotPersister.load();
+			} catch (IOException e) {
+				manager.callback().onManagerWarning("Simon snapshot could not be loaded", e);
+			}
+		}
+		if (attrs.get("period-ms") != null) {
+			snapshotPersister.start(Long.parseLong(attrs.get("period-ms")), TimeUnit.MILLISECONDS);
+		}
+		processEndElement(xr, "snapshot");
+	}
+
+	private void stopSnapshotPersister() {
+		try {
+			snapshotPersister.stop();
+		} catch (IOException e) {
+			manager.callback().onManagerWarning("Simon snapshot could not be persisted", e);
+		}
+	}
+
+	/**
+	 * Returns snapshot persister configured by the {@code snapshot} element, or {@code null} if snapshot
+	 * persistence is not configured.
+	 *
+	 * @return configured snapshot persister or {@code null}
+	 * @since 4.2
+	 */
+	public ManagerSnapshotPersister getSnapshotPersister() {
+		return snapshotPersister;
+	}
+
 	/**
 	 * Returns configuration for the Simon with the specified name.
 	 *
@@ -0,0 +1,464 @@
+package org.javasimon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the state of all Simons of the {@link Manager} into a compact binary snapshot and restores it later,
+ * typically after application restart. Samples of all Stopwatches and Counters are stored together with
+ * their {@link java.io.Serializable} attributes (other attributes are skipped).
+ * <p/>
+ * Snapshot is double buffered - two slot files ({@code file.0} and {@code file.1}) are written alternately,
+ * each with a sequence number and CRC32 checksum. Incomplete or corrupted slot is ignored on {@link #load()}
+ * and the older valid snapshot is used instead. Encoding uses reusable {@link ByteBuffer} and data are written
+ * using NIO {@link FileChannel}. Persisting runs on a separate daemon thread when periodic persistence is started,
+ * recording threads are only affected by sampling of each Simon (as with any other sampling).
+ * <p/>
+ * Restored values are merged into existing Simons - if the Simon measured something already before the snapshot
+ * was loaded, statistics are combined. Attributes are restored only if the Simon does not have the attribute yet.
+ * <p/>
+ * Persister can be configured via {@link ManagerConfiguration} element {@code snapshot}:
+ * <pre>{@code
+ * <simon-configuration>
+ *   <snapshot file="/var/app/simons.snapshot" period-ms="60000" load="true"/>
+ * </simon-configuration>}</pre>
+ * Snapshot element should be placed after callbacks so that restored Simons are announced to them.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class ManagerSnapshotPersister {
+
+	/** Magic number at the start of every snapshot file ("JSIM"). */
+	static final int MAGIC = 0x4A53494D;
+
+	/** Version of the binary format. */
+	static final int FORMAT_VERSION = 1;
+
+	/** Header: magic, version, sequence, timestamp, payload length, CRC32. */
+	static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 8;
+
+	private static final byte TYPE_STOPWATCH = 1;
+	private static final byte TYPE_COUNTER = 2;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	private static final Logger logger = LoggerFactory.getLogger(ManagerSnapshotPersister.class);
+
+	private final Manager manager;
+
+	private final File[] slots;
+
+	/** Reusable encoding buffer, grows when needed. */
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+	/** Sequence number of the next written snapshot, determines the slot. */
+	private long sequence;
+
+	private ScheduledExecutorService executorService;
+
+	private ScheduledFuture<?> scheduledFuture;
+
+	/**
+	 * Creates snapshot persister for the manager with snapshots stored in the specified file (two slot files
+	 * with suffixes {@code .0} and {@code .1} are used actually).
+	 *
+	 * @param manager manager whose Simons are persisted and restored
+	 * @param file base snapshot file
+	 */
+	public ManagerSnapshotPersister(Manager manager, File file) {
+		this.manager = manager;
+		slots = new File[] {new File(file.getPath() + ".0"), new File(file.getPath() + ".1")};
+	}
+
+	/**
+	 * Starts periodical persisting of the snapshot with the specified period.
+	 *
+	 * @param period persisting period
+	 * @param timeUnit time unit of period
+	 */
+	public synchronized void start(long period, TimeUnit timeUnit) {
+		if (scheduledFuture != null) {
+			throw new IllegalStateException("ManagerSnapshotPersister has already been started");
+		}
+		executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "javasimon-snapshotPersister");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduledFuture = executorService.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					persist();
+				} catch (IOException | RuntimeException e) {
+					logger.warn("Persisting Simon snapshot failed", e);
+				}
+			}
+		}, period, period, timeUnit);
+	}
+
+	/**
+	 * Stops periodical persisting and writes the final snapshot. Does nothing if persisting was not started.
+	 *
+	 * @throws IOException if writing of the final snapshot fails
+	 */
+	public void stop() throws IOException {
+		synchronized (this) {
+			if (scheduledFuture == null) {
+				return;
+			}
+			scheduledFuture.cancel(false);
+			scheduledFuture = null;
+			executorService.shutdown();
+			executorService = null;
+		}
+		persist();
+	}
+
+	/**
+	 * Samples all Simons and writes the snapshot into the next slot file.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void persist() throws IOException {
+		if (sequence == 0) {
+			// never overwrite the newest snapshot of the previous run, even if it was not loaded
+			ByteBuffer newest = newestValidSlot();
+			if (newest != null) {
+				sequence = newest.getLong(8) + 1;
+			}
+		}
+		List<Simon> simons = persistableSimons();
+		buffer.clear();
+		buffer.position(HEADER_SIZE);
+		putInt(simons.size());
+		for (Simon simon : simons) {
+			encodeSimon(simon);
+		}
+		int payloadLength = buffer.position() - HEADER_SIZE;
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), HEADER_SIZE, payloadLength);
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, FORMAT_VERSION);
+		buffer.putLong(8, sequence);
+		buffer.putLong(16, manager.milliTime());
+		buffer.putInt(24, payloadLength);
+		buffer.putLong(28, crc.getValue());
+		buffer.flip();
+
+		File slot = slots[(int) (sequence % 2)];
+		try (FileChannel channel = FileChannel.open(slot.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		}
+		sequence++;
+	}
+
+	/**
+	 * Loads the newest valid snapshot and merges it into the manager.
+	 *
+	 * @return number of restored Simons, or -1 if no valid snapshot was found
+	 * @throws IOException if reading fails
+	 */
+	public synchronized int load() throws IOException {
+		ByteBuffer newest = newestValidSlot();
+		if (newest == null) {
+			return -1;
+		}
+		sequence = newest.getLong(8) + 1;
+		newest.position(HEADER_SIZE);
+		int count = newest.getInt();
+		for (int i = 0; i < count; i++) {
+			decodeSimon(newest);
+		}
+		return count;
+	}
+
+	private ByteBuffer newestValidSlot() throws IOException {
+		ByteBuffer newest = null;
+		for (File slot : slots) {
+			ByteBuffer data = readValidSlot(slot);
+			if (data != null && (newest == null || data.getLong(8) > newest.getLong(8))) {
+				newest = data;
+			}
+		}
+		return newest;
+	}
+
+	private ByteBuffer readValidSlot(File slot) throws IOException {
+		if (!slot.isFile() || slot.length() < HEADER_SIZE) {
+			return null;
+		}
+		ByteBuffer data = ByteBuffer.allocate((int) slot.length());
+		try (FileChannel channel = FileChannel.open(slot.toPath(), StandardOpenOption.READ)) {
+			while (data.hasRemaining() && channel.read(data) != -1) {
+				// reading whole file
+			}
+		}
+		if (data.getInt(0) != MAGIC || data.getInt(4) != FORMAT_VERSION) {
+			logger.warn("Ignoring unknown Simon snapshot format in {}", slot);
+			return null;
+		}
+		int payloadLength = data.getInt(24);
+		if (payloadLength < 0 || HEADER_SIZE + payloadLength != data.position()) {
+			logger.warn("Ignoring incomplete Simon snapshot {}", slot);
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(data.array(), HEADER_SIZE, payloadLength);
+		if (crc.getValue() != data.getLong(28)) {
+			logger.warn("Ignoring corrupted Simon snapshot {}", slot);
+			return null;
+		}
+		return data;
+	}
+
+	/** Returns Stopwatches and Counters, unknown Simons are not persisted. */
+	private List<Simon> persistableSimons() {
+		List<Simon> simons = new ArrayList<>();
+		for (Simon simon : manager.getSimons(null)) {
+			if (simon instanceof Stopwatch || simon instanceof Counter) {
+				simons.add(simon);
+			}
+		}
+		return simons;
+	}
+
+	private void encodeSimon(Simon simon) {
+		Sample sample = simon.sample();
+		if (simon instanceof Stopwatch) {
+			StopwatchSample s = (StopwatchSample) sample;
+			putByte(TYPE_STOPWATCH);
+			encodeCommon(s);
+			putLong(s.getTotal());
+			putLong(s.getCounter());
+			putLong(s.getMin());
+			putLong(s.getMax());
+			putLong(s.getMinTimestamp());
+			putLong(s.getMaxTimestamp());
+			putLong(s.getMaxActive());
+			putLong(s.getMaxActiveTimestamp());
+			putLong(s.getLast());
+			putDouble(s.getMean());
+			putDouble(s.getVarianceN());
+		} else {
+			CounterSample s = (CounterSample) sample;
+			putByte(TYPE_COUNTER);
+			encodeCommon(s);
+			putLong(s.getCounter());
+			putLong(s.getMin());
+			putLong(s.getMax());
+			putLong(s.getMinTimestamp());
+			putLong(s.getMaxTimestamp());
+			putLong(s.getIncrementSum());
+			putLong(s.getDecrementSum());
+		}
+		encodeAttributes(simon);
+	}
+
+	private void encodeCommon(Sample sample) {
+		putString(sample.getName());
+		putString(sample.getNote());
+		putLong(sample.getFirstUsage());
+		putLong(sample.getLastUsage());
+	}
+
+	private void encodeAttributes(Simon simon) {
+		List<String> names = new ArrayList<>();
+		List<byte[]> values = new ArrayList<>();
+		for (Map.Entry<String, Object> attribute : simon.getCopyAsSortedMap().entrySet()) {
+			byte[] value = serialize(attribute.getValue());
+			if (value != null) {
+				names.add(attribute.getKey());
+				values.add(value);
+			}
+		}
+		putInt(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			putString(names.get(i));
+			putBytes(values.get(i));
+		}
+	}
+
+	private byte[] serialize(Object value) {
+		if (!(value instanceof Serializable)) {
+			return null;
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(value);
+			}
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			// not serializable after all (e.g. non-serializable nested object)
+			return null;
+		}
+	}
+
+	private void decodeSimon(ByteBuffer data) {
+		byte type = data.get();
+		AbstractSimon simon;
+		if (type == TYPE_STOPWATCH) {
+			StopwatchSample s = new StopwatchSample();
+			decodeCommon(data, s);
+			s.setTotal(data.getLong());
+			s.setCounter(data.getLong());
+			s.setMin(data.getLong());
+			s.setMax(data.getLong());
+			s.setMinTimestamp(data.getLong());
+			s.setMaxTimestamp(data.getLong());
+			s.setMaxActive(data.getLong());
+			s.setMaxActiveTimestamp(data.getLong());
+			s.setLast(data.getLong());
+			s.setMean(data.getDouble());
+			s.setVarianceN(data.getDouble());
+			simon = restorableSimon(manager.getStopwatch(s.getName()));
+			if (simon != null) {
+				((StopwatchImpl) simon).restore(s);
+			}
+		} else if (type == TYPE_COUNTER) {
+			CounterSample s = new CounterSample();
+			decodeCommon(data, s);
+			s.setCounter(data.getLong());
+			s.setMin(data.getLong());
+			s.setMax(data.getLong());
+			s.setMinTimestamp(data.getLong());
+			s.setMaxTimestamp(data.getLong());
+			s.setIncrementSum(data.getLong());
+			s.setDecrementSum(data.getLong());
+			simon = restorableSimon(manager.getCounter(s.getName()));
+			if (simon != null) {
+				((CounterImpl) simon).restore(s);
+			}
+		} else {
+			throw new SimonException("Unknown Simon type in the snapshot: " + type);
+		}
+		decodeAttributes(data, simon);
+	}
+
+	private AbstractSimon restorableSimon(Simon simon) {
+		return simon instanceof StopwatchImpl || simon instanceof CounterImpl ? (AbstractSimon) simon : null;
+	}
+
+	private void decodeCommon(ByteBuffer data, Sample sample) {
+		sample.setName(getString(data));
+		sample.setNote(getString(data));
+		sample.setFirstUsage(data.getLong());
+		sample.setLastUsage(data.getLong());
+	}
+
+	private void decodeAttributes(ByteBuffer data, AbstractSimon simon) {
+		int count = data.getInt();
+		for (int i = 0; i < count; i++) {
+			String name = getString(data);
+			byte[] value = getBytes(data);
+			if (simon != null && simon.getAttribute(name) == null) {
+				try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value))) {
+					simon.setAttribute(name, in.readObject());
+				} catch (IOException | ClassNotFoundException e) {
+					manager.warning("Attribute " + name + " of Simon " + simon.getName() + " could not be restored", e);
+				}
+			}
+		}
+	}
+
+	// buffer utils - growing buffer on overflow
+
+	private void ensureCapacity(int bytes) {
+		if (buffer.remaining() < bytes) {
+			ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+
+	private void putByte(byte value) {
+		ensureCapacity(1);
+		buffer.put(value);
+	}
+
+	private void putInt(int value) {
+		ensureCapacity(4);
+		buffer.putInt(value);
+	}
+
+	private void putLong(long value) {
+		ensureCapacity(8);
+		buffer.putLong(value);
+	}
+
+	private void putDouble(double value) {
+		ensureCapacity(8);
+		buffer.putDouble(value);
+	}
+
+	private void putBytes(byte[] bytes) {
+		ensureCapacity(4 + bytes.length);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	/** Null string is encoded as length -1. */
+	private void putString(String value) {
+		if (value == null) {
+			putInt(-1);
+		} else {
+			putBytes(value.getBytes(UTF8));
+		}
+	}
+
+	private static byte[] getBytes(ByteBuffer data) {
+		int length = data.getInt();
+		if (length > data.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		data.get(bytes);
+		return bytes;
+	}
+
+	private static String getString(ByteBuffer data) {
+		int length = data.getInt();
+		if (length == -1) {
+			return null;
+		}
+		data.position(data.position() - 4);
+		return new String(getBytes(data), UTF8);
+	}
+}
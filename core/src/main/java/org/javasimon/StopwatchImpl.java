@@ -152,6 +152,41 @@ final class StopwatchImpl extends AbstractSimon implements Stopwatch {
 		return split;
 	}
 
+	/**
+	 * Merges values from the sample (e.g. restored from a persisted snapshot) into this Stopwatch.
+	 * Mean and variance are combined as if all splits were measured by this Stopwatch, active splits are
+	 * not restored. Incremental Simons are not affected.
+	 *
+	 * @param sample sample to merge into this Stopwatch
+	 */
+	synchronized void restore(StopwatchSample sample) {
+		if (sample.getCounter() <= 0) {
+			return;
+		}
+		long newCounter = counter + sample.getCounter();
+		double delta = sample.getMean() - mean;
+		mean2 += sample.getVarianceN() * sample.getCounter() + delta * delta * counter * sample.getCounter() / newCounter;
+		total += sample.getTotal();
+		counter = newCounter;
+		mean = ((double) total) / counter;
+		if (sample.getMax() > max) {
+			max = sample.getMax();
+			maxTimestamp = sample.getMaxTimestamp();
+		}
+		if (sample.getMin() < min) {
+			min = sample.getMin();
+			minTimestamp = sample.getMinTimestamp();
+		}
+		if (sample.getMaxActive() > maxActive) {
+			maxActive = sample.getMaxActive();
+			maxActiveTimestamp = sample.getMaxActiveTimestamp();
+		}
+		if (sample.getLastUsage() > lastUsage) {
+			last = sample.getLast();
+		}
+		restoreCommon(sample);
+	}
+
 	@Override
 	public synchronized double getMean() {
 		return mean;
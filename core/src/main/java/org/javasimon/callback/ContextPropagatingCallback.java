@@ -0,0 +1,35 @@
+package org.javasimon.callback;
+
+/**
+ * Callback that keeps per-thread state (like a call tree or a request being processed) and can carry this state
+ * over to tasks executed by other threads - e.g. by an executor. State is captured in the thread submitting
+ * the task and attached to the thread executing the task only while the task runs. Callbacks are usually not called
+ * directly, {@link ContextSnapshot} captures and attaches states of all such callbacks of the manager.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public interface ContextPropagatingCallback extends Callback {
+
+	/**
+	 * Captures state of the current thread, called by the thread submitting the task.
+	 *
+	 * @return captured state or {@code null} if there is nothing to propagate
+	 */
+	Object captureContext();
+
+	/**
+	 * Attaches captured state to the current thread, called by the thread executing the task before the task runs.
+	 *
+	 * @param context state returned by {@link #captureContext()}
+	 * @return previous state of the current thread, passed to {@link #detachContext(Object)}
+	 */
+	Object attachContext(Object context);
+
+	/**
+	 * Restores previous state of the current thread, called by the thread executing the task after the task runs.
+	 *
+	 * @param previous state returned by {@link #attachContext(Object)}
+	 */
+	void detachContext(Object previous);
+}
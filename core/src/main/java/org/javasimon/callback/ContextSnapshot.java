@@ -0,0 +1,146 @@
+package org.javasimon.callback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.javasimon.Manager;
+
+/**
+ * States of all {@link ContextPropagatingCallback}s of the manager captured in one thread, so they can be attached
+ * to another thread executing a task submitted from the first thread:
+ * <pre>
+ * ContextSnapshot snapshot = ContextSnapshot.capture(manager);
+ * executor.execute(snapshot.wrap(task));</pre>
+ * Splits of the task then become part of the call tree ({@link org.javasimon.callback.calltree.CallTreeCallback})
+ * or the monitored request of the submitting thread. Capturing the snapshot walks the callback tree of the manager,
+ * if there is no propagating callback (or nothing to propagate), {@link #EMPTY} snapshot is returned.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class ContextSnapshot {
+
+	/** Snapshot without any state, attaching it does nothing. */
+	public static final ContextSnapshot EMPTY = new ContextSnapshot(new ContextPropagatingCallback[0], new Object[0]);
+
+	private final ContextPropagatingCallback[] callbacks;
+
+	private final Object[] contexts;
+
+	private ContextSnapshot(ContextPropagatingCallback[] callbacks, Object[] contexts) {
+		this.callbacks = callbacks;
+		this.contexts = contexts;
+	}
+
+	/**
+	 * Captures states of the current thread from all propagating callbacks of the manager.
+	 *
+	 * @param manager Simon manager
+	 * @return captured snapshot, {@link #EMPTY} if there is nothing to propagate
+	 */
+	public static ContextSnapshot capture(Manager manager) {
+		List<ContextPropagatingCallback> callbacks = new ArrayList<>(1);
+		List<Object> contexts = new ArrayList<>(1);
+		capture(manager.callback(), callbacks, contexts);
+		if (callbacks.isEmpty()) {
+			return EMPTY;
+		}
+		return new ContextSnapshot(callbacks.toArray(new ContextPropagatingCallback[callbacks.size()]), contexts.toArray());
+	}
+
+	private static void capture(Callback callback, List<ContextPropagatingCallback> callbacks, List<Object> contexts) {
+		if (callback instanceof ContextPropagatingCallback) {
+			Object context = ((ContextPropagatingCallback) callback).captureContext();
+			if (context != null) {
+				callbacks.add((ContextPropagatingCallback) callback);
+				contexts.add(context);
+			}
+		}
+		if (callback instanceof CompositeCallback) {
+			for (Callback child : ((CompositeCallback) callback).callbacks()) {
+				capture(child, callbacks, contexts);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the snapshot has no state.
+	 *
+	 * @return true for empty snapshot
+	 */
+	public boolean isEmpty() {
+		return callbacks.length == 0;
+	}
+
+	/**
+	 * Attaches captured states to the current thread.
+	 *
+	 * @return previous states that must be restored by {@link #detach(Object[])}
+	 */
+	public Object[] attach() {
+		Object[] previous = new Object[callbacks.length];
+		for (int i = 0; i < callbacks.length; i++) {
+			previous[i] = callbacks[i].attachContext(contexts[i]);
+		}
+		return previous;
+	}
+
+	/**
+	 * Restores previous states of the current thread, in reverse order of attaching.
+	 *
+	 * @param previous states returned by {@link #attach()}
+	 */
+	public void detach(Object[] previous) {
+		for (int i = callbacks.length - 1; i >= 0; i--) {
+			callbacks[i].detachContext(previous[i]);
+		}
+	}
+
+	/**
+	 * Returns wrapper of the task that runs the task with captured states attached to the executing thread.
+	 *
+	 * @param task task
+	 * @return wrapped task, or the task itself for empty snapshot
+	 */
+	public Runnable wrap(final Runnable task) {
+		if (isEmpty()) {
+			return task;
+		}
+		return new Runnable() {
+			@Override
+			public void run() {
+				Object[] previous = attach();
+				try {
+					task.run();
+				} finally {
+					detach(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns wrapper of the task that calls the task with captured states attached to the executing thread.
+	 *
+	 * @param task task
+	 * @param <V> result type of the task
+	 * @return wrapped task, or the task itself for empty snapshot
+	 */
+	public <V> Callable<V> wrap(final Callable<V> task) {
+		if (isEmpty()) {
+			return task;
+		}
+		return new Callable<V>() {
+			@Override
+			public V call() throws Exception {
+				Object[] previous = attach();
+				try {
+					return task.call();
+				} finally {
+					detach(previous);
+				}
+			}
+		};
+	}
+}
@@ -7,6 +7,11 @@ import org.javasimon.callback.logging.LogMessageSource;
 
 /**
  * Call tree contains the root call tree node and the current call stack.
+ * <p/>
+ * Call tree of a task executed for another thread has a parent position - the tree and its current node
+ * in the submitting thread at the time of submission. When the root split of the task stops, the tree
+ * is merged into the parent node ({@link #mergeIntoParent()}), if the root split of the parent tree is still running.
+ * Methods modifying the tree are synchronized for this reason.
  *
  * @author gquintana
  * @since 3.2
@@ -23,6 +28,15 @@ public class CallTree implements LogMessageSource<Split> {
 	/** Root call tree node. */
 	private CallTreeNode rootNode;
 
+	/** Call tree of the submitting thread (for task trees). */
+	private CallTree parentTree;
+
+	/** Root node of the parent tree when the task was submitted. */
+	private CallTreeNode parentRoot;
+
+	/** Current node of the parent tree when the task was submitted. */
+	private CallTreeNode parentNode;
+
 	/**
 	 * Main constructor.
 	 *
@@ -39,7 +53,7 @@ public class CallTree implements LogMessageSource<Split> {
 	 *
 	 * @return Current (child) tree node
 	 */
-	public CallTreeNode onStopwatchStart(Split split) {
+	public synchronized CallTreeNode onStopwatchStart(Split split) {
 		final String name = split.getStopwatch().getName();
 		CallTreeNode currentNode;
 		if (callStack.isEmpty()) {
@@ -62,7 +76,7 @@ public class CallTree implements LogMessageSource<Split> {
 	 *
 	 * @return Current (child) tree node
 	 */
-	public CallTreeNode onStopwatchStop(Split split) {
+	public synchronized CallTreeNode onStopwatchStop(Split split) {
 		CallTreeNode currentNode = callStack.removeLast();
 		currentNode.addSplit(split);
 		if (callStack.isEmpty()) {
@@ -105,4 +119,52 @@ public class CallTree implements LogMessageSource<Split> {
 	public CallTreeNode getRootNode() {
 		return rootNode;
 	}
+
+	/**
+	 * Returns current tree node - the last node of the call stack, must be called by the thread owning the tree.
+	 *
+	 * @return current node or {@code null} if no split is running
+	 */
+	CallTreeNode getCurrentNode() {
+		return callStack.peekLast();
+	}
+
+	/**
+	 * Sets position in the tree of the submitting thread this (task) tree belongs to.
+	 *
+	 * @param parentTree call tree of the submitting thread
+	 * @param parentRoot root node of the parent tree
+	 * @param parentNode current node of the parent tree
+	 */
+	void setParent(CallTree parentTree, CallTreeNode parentRoot, CallTreeNode parentNode) {
+		this.parentTree = parentTree;
+		this.parentRoot = parentRoot;
+		this.parentNode = parentNode;
+	}
+
+	/**
+	 * Returns true if this is a tree of a task submitted by another thread.
+	 *
+	 * @return true if the tree has parent tree
+	 */
+	boolean hasParent() {
+		return parentTree != null;
+	}
+
+	/**
+	 * Merges this (finished) tree into the parent node of the submitting thread tree.
+	 *
+	 * @return true if merged, false if there is no parent or the root split of the parent tree was already stopped
+	 */
+	boolean mergeIntoParent() {
+		return parentTree != null && parentTree.merge(parentRoot, parentNode, rootNode);
+	}
+
+	private synchronized boolean merge(CallTreeNode root, CallTreeNode node, CallTreeNode subtree) {
+		if (callStack.isEmpty() || rootNode != root) {
+			return false;
+		}
+		node.merge(subtree);
+		return true;
+	}
 }
@@ -7,6 +7,7 @@ import org.javasimon.Split;
 import org.javasimon.Stopwatch;
 import org.javasimon.StopwatchSample;
 import org.javasimon.callback.CallbackSkeleton;
+import org.javasimon.callback.ContextPropagatingCallback;
 import org.javasimon.callback.logging.LogTemplate;
 import org.javasimon.callback.logging.SplitThresholdLogTemplate;
 
@@ -24,12 +25,15 @@ import org.javasimon.callback.logging.SplitThresholdLogTemplate;
  * 		org.javasimon.data.SecondDAO.findByRelation 20ms, 10%, 3
  * 	org.javasimon.business.SecondService.do 10ms, 5%
  * </pre>
+ * Call tree is propagated to tasks executed by other threads (see {@link org.javasimon.callback.ContextSnapshot}),
+ * task has its own tree which is added under the current node of the submitting thread when the task finishes.
+ * Task finished after the root split of the submitting thread is logged as a separate tree.
  *
  * @author gquintana
  * @see CallTree
  * @since 3.2
  */
-public class CallTreeCallback extends CallbackSkeleton {
+public class CallTreeCallback extends CallbackSkeleton implements ContextPropagatingCallback {
 
 	/** Call tree of current thread. */
 	private final ThreadLocal<CallTree> threadCallTree = new ThreadLocal<>();
@@ -105,12 +109,26 @@ public class CallTreeCallback extends CallbackSkeleton {
 	 * @return Created call tree
 	 */
 	private CallTree initCallTree() {
+		return initCallTree(null);
+	}
+
+	/**
+	 * Initializes the call tree for current thread, optionally as a tree of the task submitted from another thread.
+	 *
+	 * @param parent position in the tree of the submitting thread or {@code null}
+	 *
+	 * @return Created call tree
+	 */
+	private CallTree initCallTree(TaskParent parent) {
 		final CallTree callTree = new CallTree(logThreshold) {
 			@Override
 			protected void onRootStopwatchStop(CallTreeNode rootNode, Split split) {
 				CallTreeCallback.this.onRootStopwatchStop(this, split);
 			}
 		};
+		if (parent != null) {
+			callTree.setParent(parent.tree, parent.root, parent.node);
+		}
 		threadCallTree.set(callTree);
 		return callTree;
 	}
@@ -143,11 +161,59 @@ public class CallTreeCallback extends CallbackSkeleton {
 	 * @param split stopped split
 	 */
 	public void onRootStopwatchStop(CallTree callTree, Split split) {
+		if (callTree.mergeIntoParent()) {
+			// task tree is part of the tree of the submitting thread now, tree stays bound until the task ends
+			return;
+		}
 		callTreeLogTemplate.log(split, callTree);
 		if (logThreshold != null && split.runningFor() > logThreshold) {
 			split.getStopwatch().setAttribute(ATTR_NAME_LAST, callTree);
 		}
-		removeCallTree();
+		if (!callTree.hasParent()) {
+			removeCallTree();
+		}
+	}
+
+	/**
+	 * Captures current node of the call tree of the current thread.
+	 *
+	 * @return position in the call tree or {@code null} if no split is running in the current thread
+	 */
+	@Override
+	public Object captureContext() {
+		CallTree callTree = getCallTree();
+		if (callTree == null) {
+			return null;
+		}
+		CallTreeNode node = callTree.getCurrentNode();
+		return node != null ? new TaskParent(callTree, callTree.getRootNode(), node) : null;
+	}
+
+	/**
+	 * Binds new call tree of the task to the current thread.
+	 *
+	 * @param context position in the call tree of the submitting thread
+	 * @return previous call tree of the current thread
+	 */
+	@Override
+	public Object attachContext(Object context) {
+		CallTree previous = getCallTree();
+		initCallTree((TaskParent) context);
+		return previous;
+	}
+
+	/**
+	 * Restores previous call tree of the current thread.
+	 *
+	 * @param previous call tree returned by {@link #attachContext(Object)}
+	 */
+	@Override
+	public void detachContext(Object previous) {
+		if (previous != null) {
+			threadCallTree.set((CallTree) previous);
+		} else {
+			removeCallTree();
+		}
 	}
 
 	/**
@@ -159,4 +225,17 @@ public class CallTreeCallback extends CallbackSkeleton {
 	public static CallTree getLastCallTree(Stopwatch stopwatch) {
 		return (CallTree) stopwatch.getAttribute(ATTR_NAME_LAST);
 	}
+
+	/** Position in the call tree of the thread submitting a task. */
+	private static final class TaskParent {
+		private final CallTree tree;
+		private final CallTreeNode root;
+		private final CallTreeNode node;
+
+		TaskParent(CallTree tree, CallTreeNode root, CallTreeNode node) {
+			this.tree = tree;
+			this.root = root;
+			this.node = node;
+		}
+	}
 }
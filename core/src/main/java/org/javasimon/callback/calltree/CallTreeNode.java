@@ -157,6 +157,20 @@ public class CallTreeNode {
 		return child;
 	}
 
+	/**
+	 * Adds the tree node with its children as a child of this node, splits are added to the existing nodes
+	 * with the same name.
+	 *
+	 * @param node tree node, usually root of another tree
+	 */
+	public void merge(CallTreeNode node) {
+		CallTreeNode child = getOrAddChild(node.name);
+		child.splits.addAll(node.splits);
+		for (CallTreeNode grandChild : node.getChildren()) {
+			child.merge(grandChild);
+		}
+	}
+
 	/**
 	 * Returns parent tree node.
 	 *
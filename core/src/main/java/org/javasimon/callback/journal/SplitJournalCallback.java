@@ -0,0 +1,392 @@
+package org.javasimon.callback.journal;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonException;
+import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.StopwatchSample;
+import org.javasimon.callback.CallbackSkeleton;
+import org.javasimon.clock.SimonClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Callback journaling every stopped (or added) split into append-only binary journal for offline analysis.
+ * Unlike {@link org.javasimon.callback.lastsplits.LastSplitsCallback} individual splits are not kept in memory,
+ * journal can be replayed later with {@link org.javasimon.utils.SplitJournalReader}.
+ * <p/>
+ * Each split is encoded into a fixed-size record (stopwatch id, start nanos, duration, thread id) in a buffer
+ * of the current thread. Full thread buffers are appended to the current memory-mapped segment file.
+ * Segments are rotated when full, only the last {@code maxSegments} segments are kept, so disk usage is bounded
+ * by {@code maxSegments * segmentSize}. Every segment starts with the dictionary of stopwatch names, hence
+ * segments can be read independently.
+ * <p/>
+ * Thread buffers are flushed into the segment when full, periodically (if flush period is set) and
+ * on {@link #flush()} or {@link #cleanup()}.
+ * <p/>
+ * Segment format: header (magic, version, creation millis, creation nanos), followed by records - each
+ * record starts with the type byte, {@link #RECORD_END} (or end of the file) terminates the segment:
+ * <ul>
+ * <li>{@link #RECORD_NAME}: int id, int length, UTF-8 bytes of the stopwatch name;</li>
+ * <li>{@link #RECORD_SPLIT}: int id, long start nanos, long duration nanos, long thread id.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @see org.javasimon.utils.SplitJournalReader
+ * @since 4.2
+ */
+public class SplitJournalCallback extends CallbackSkeleton {
+
+	/** Magic number at the start of every segment ("JSJR"). */
+	public static final int SEGMENT_MAGIC = 0x4A534A52;
+
+	/** Version of the journal format. */
+	public static final int FORMAT_VERSION = 1;
+
+	/** Segment header size - magic, version, creation millis and creation nanos. */
+	public static final int SEGMENT_HEADER_SIZE = 4 + 4 + 8 + 8;
+
+	/** Record type marking the end of records in the segment. */
+	public static final byte RECORD_END = 0;
+
+	/** Record type of the split record. */
+	public static final byte RECORD_SPLIT = 1;
+
+	/** Record type of the stopwatch name definition. */
+	public static final byte RECORD_NAME = 2;
+
+	/** Size of the split record including type byte. */
+	public static final int SPLIT_RECORD_SIZE = 1 + 4 + 8 + 8 + 8;
+
+	/** Prefix of the segment file names. */
+	public static final String SEGMENT_PREFIX = "splits-";
+
+	/** Suffix of the segment file names. */
+	public static final String SEGMENT_SUFFIX = ".journal";
+
+	/** Filter accepting segment files. */
+	public static final FilenameFilter SEGMENT_FILTER = new FilenameFilter() {
+		@Override
+		public boolean accept(File dir, String name) {
+			return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+		}
+	};
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final Logger logger = LoggerFactory.getLogger(SplitJournalCallback.class);
+
+	private final File directory;
+	private final int segmentSize;
+	private final int maxSegments;
+	private final int threadBufferSize;
+	private long flushPeriodMs;
+
+	private final ConcurrentMap<String, Integer> stopwatchIds = new ConcurrentHashMap<>();
+
+	/** Stopwatch names indexed by id - guarded by {@link #writeLock}. */
+	private final List<String> stopwatchNames = new ArrayList<>();
+
+	private final List<ThreadBuffer> threadBuffers = new CopyOnWriteArrayList<>();
+
+	private final ThreadLocal<ThreadBuffer> threadBuffer = new ThreadLocal<ThreadBuffer>() {
+		@Override
+		protected ThreadBuffer initialValue() {
+			ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread(), threadBufferSize);
+			threadBuffers.add(buffer);
+			return buffer;
+		}
+	};
+
+	private final Object writeLock = new Object();
+
+	private SimonClock clock = SimonClock.SYSTEM;
+
+	private MappedByteBuffer segment;
+
+	private long segmentSequence;
+
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Creates journal callback with 16 MB segments, 8 segments at most and 8 KB thread buffers.
+	 *
+	 * @param directory directory for segment files
+	 */
+	public SplitJournalCallback(File directory) {
+		this(directory, 16 * 1024 * 1024, 8, 8 * 1024);
+	}
+
+	/**
+	 * Creates journal callback.
+	 *
+	 * @param directory directory for segment files
+	 * @param segmentSize size of a single segment file in bytes
+	 * @param maxSegments maximal number of segment files kept in the directory
+	 * @param threadBufferSize size of the buffer of each recording thread in bytes
+	 */
+	public SplitJournalCallback(File directory, int segmentSize, int maxSegments, int threadBufferSize) {
+		if (threadBufferSize < SPLIT_RECORD_SIZE || threadBufferSize > (segmentSize - SEGMENT_HEADER_SIZE) / 2) {
+			throw new IllegalArgumentException("Thread buffer size must hold at least one record and fit into the half of the segment");
+		}
+		if (maxSegments < 1) {
+			throw new IllegalArgumentException("At least one segment must be kept: " + maxSegments);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = maxSegments;
+		this.threadBufferSize = threadBufferSize;
+	}
+
+	public long getFlushPeriodMs() {
+		return flushPeriodMs;
+	}
+
+	/**
+	 * Sets period of flushing of all thread buffers, must be set before the callback is added to the manager.
+	 * Zero (default) means that buffers are flushed only when full or when {@link #flush()} is called.
+	 *
+	 * @param flushPeriodMs flush period in milliseconds
+	 */
+	public void setFlushPeriodMs(long flushPeriodMs) {
+		this.flushPeriodMs = flushPeriodMs;
+	}
+
+	@Override
+	public void initialize(Manager manager) {
+		clock = manager;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new SimonException("Journal directory can't be created: " + directory);
+		}
+		synchronized (writeLock) {
+			File[] existing = segmentFiles(directory);
+			if (existing.length > 0) {
+				segmentSequence = segmentSequence(existing[existing.length - 1]);
+			}
+		}
+		if (flushPeriodMs > 0) {
+			flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "javasimon-splitJournalFlusher");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			flusher.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						flush();
+					} catch (RuntimeException e) {
+						logger.warn("Flushing split journal failed", e);
+					}
+				}
+			}, flushPeriodMs, flushPeriodMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/** Stops periodic flushing, flushes all thread buffers and closes the current segment. */
+	@Override
+	public void cleanup() {
+		if (flusher != null) {
+			flusher.shutdown();
+			flusher = null;
+		}
+		flush();
+		synchronized (writeLock) {
+			closeSegment();
+		}
+	}
+
+	@Override
+	public void onStopwatchStop(Split split, StopwatchSample sample) {
+		journal(split.getStopwatch(), split);
+	}
+
+	@Override
+	public void onStopwatchAdd(Stopwatch stopwatch, Split split, StopwatchSample sample) {
+		journal(stopwatch, split);
+	}
+
+	private void journal(Stopwatch stopwatch, Split split) {
+		String name = stopwatch.getName();
+		if (name == null) {
+			return;
+		}
+		threadBuffer.get().append(stopwatchId(name), split.getStart(), split.runningFor(), Thread.currentThread().getId());
+	}
+
+	/**
+	 * Flushes buffers of all threads into the current segment and forces the segment to the storage.
+	 * Buffers of threads that are not alive anymore are released.
+	 */
+	public void flush() {
+		for (ThreadBuffer buffer : threadBuffers) {
+			buffer.drain();
+			if (buffer.isOwnerDead()) {
+				threadBuffers.remove(buffer);
+			}
+		}
+		synchronized (writeLock) {
+			if (segment != null) {
+				segment.force();
+			}
+		}
+	}
+
+	private int stopwatchId(String name) {
+		Integer id = stopwatchIds.get(name);
+		if (id != null) {
+			return id;
+		}
+		synchronized (writeLock) {
+			id = stopwatchIds.get(name);
+			if (id == null) {
+				id = stopwatchNames.size();
+				stopwatchNames.add(name);
+				writeChunk(nameRecord(id, name));
+				stopwatchIds.put(name, id);
+			}
+			return id;
+		}
+	}
+
+	private static ByteBuffer nameRecord(int id, String name) {
+		byte[] bytes = name.getBytes(UTF8);
+		ByteBuffer record = ByteBuffer.allocate(1 + 4 + 4 + bytes.length);
+		record.put(RECORD_NAME).putInt(id).putInt(bytes.length).put(bytes);
+		record.flip();
+		return record;
+	}
+
+	// called with writeLock
+	private void writeChunk(ByteBuffer chunk) {
+		if (segment == null || segment.remaining() < chunk.remaining()) {
+			rotateSegment();
+		}
+		segment.put(chunk);
+	}
+
+	// called with writeLock
+	private void rotateSegment() {
+		closeSegment();
+		segmentSequence++;
+		File file = new File(directory, String.format("%s%010d%s", SEGMENT_PREFIX, segmentSequence, SEGMENT_SUFFIX));
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		} catch (IOException e) {
+			throw new SimonException("Journal segment can't be created: " + file, e);
+		}
+		segment.putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION).putLong(clock.milliTime()).putLong(clock.nanoTime());
+		for (int id = 0; id < stopwatchNames.size(); id++) {
+			ByteBuffer record = nameRecord(id, stopwatchNames.get(id));
+			if (segment.remaining() < record.remaining() + threadBufferSize) {
+				throw new SimonException("Journal segment is too small for the stopwatch dictionary: " + segmentSize);
+			}
+			segment.put(record);
+		}
+		deleteOldSegments();
+	}
+
+	// called with writeLock
+	private void closeSegment() {
+		if (segment != null) {
+			if (segment.hasRemaining()) {
+				segment.put(RECORD_END);
+			}
+			segment.force();
+			segment = null;
+		}
+	}
+
+	private void deleteOldSegments() {
+		File[] segments = segmentFiles(directory);
+		for (int i = 0; i < segments.length - maxSegments; i++) {
+			if (!segments[i].delete()) {
+				logger.warn("Old journal segment {} can't be deleted", segments[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns segment files in the directory ordered from the oldest to the newest.
+	 *
+	 * @param directory journal directory
+	 * @return ordered array of segment files
+	 */
+	public static File[] segmentFiles(File directory) {
+		File[] files = directory.listFiles(SEGMENT_FILTER);
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files);
+		return files;
+	}
+
+	private static long segmentSequence(File segment) {
+		String name = segment.getName();
+		try {
+			return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/** Buffer of records of a single thread - synchronized, but contended only when flushed from the other thread. */
+	private final class ThreadBuffer {
+
+		private final WeakReference<Thread> owner;
+		private final ByteBuffer buffer;
+
+		ThreadBuffer(Thread owner, int size) {
+			this.owner = new WeakReference<>(owner);
+			buffer = ByteBuffer.allocate(size);
+		}
+
+		synchronized void append(int id, long start, long duration, long threadId) {
+			if (buffer.remaining() < SPLIT_RECORD_SIZE) {
+				drain();
+			}
+			buffer.put(RECORD_SPLIT).putInt(id).putLong(start).putLong(duration).putLong(threadId);
+		}
+
+		synchronized void drain() {
+			if (buffer.position() == 0) {
+				return;
+			}
+			buffer.flip();
+			synchronized (writeLock) {
+				writeChunk(buffer);
+			}
+			buffer.clear();
+		}
+
+		boolean isOwnerDead() {
+			Thread thread = owner.get();
+			return thread == null || !thread.isAlive();
+		}
+	}
+}
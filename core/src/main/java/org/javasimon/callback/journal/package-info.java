@@ -0,0 +1,5 @@
+/**
+ * {@link org.javasimon.callback.journal.SplitJournalCallback} journals individual splits into
+ * rotating binary segment files, journal is read by {@link org.javasimon.utils.SplitJournalReader}.
+ */
+package org.javasimon.callback.journal;
@@ -57,6 +57,8 @@ public final class JmxReporter {
 
 	private JmxRegisterCallback jmxRegisterCallback;
 
+	private SimonManagerMXBeanImpl simonManagerMXBean;
+
 	private JmxReporter(Manager manager) {
 		if (manager == null) {
 			throw new IllegalArgumentException("Manager is null");
@@ -204,7 +206,7 @@ public final class JmxReporter {
 
 	/** Starts JmxReporter - registers all required beans in JMX bean server. */
 	public JmxReporter start() {
-		SimonManagerMXBean simonManagerMXBean = new SimonManagerMXBeanImpl(manager);
+		simonManagerMXBean = new SimonManagerMXBeanImpl(manager);
 		registerMXBean(simonManagerMXBean, beanName);
 
 		if (registerSimons) {
@@ -232,8 +234,21 @@ public final class JmxReporter {
 		}
 	}
 
-	/** Stop JMX reporter. Unregister all previously registered beans. */
+	/**
+	 * Returns Simon manager MX bean registered by {@link #start()} - it can be used to set up threshold
+	 * notifications, see {@link SimonManagerMXBeanImpl#getThresholdEvaluator()}.
+	 *
+	 * @return registered Simon manager MX bean or {@code null} if the reporter was not started
+	 */
+	public SimonManagerMXBeanImpl getSimonManagerMXBean() {
+		return simonManagerMXBean;
+	}
+
+	/** Stop JMX reporter. Stops threshold evaluation and unregisters all previously registered beans. */
 	public void stop() {
+		if (simonManagerMXBean != null) {
+			simonManagerMXBean.stopThresholdEvaluation();
+		}
 		unregisterManagerBean();
 		unregisterSimonBeans();
 	}
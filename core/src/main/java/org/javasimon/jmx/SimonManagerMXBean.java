@@ -225,4 +225,55 @@ public interface SimonManagerMXBean extends Serializable {
 	 * @see #getIncrementStopwatchSample(String, String)
 	 */
 	List<org.javasimon.jmx.StopwatchSample> getIncrementStopwatchSamples(String key);
+
+	/**
+	 * Adds threshold rule evaluated by the background threshold evaluator. Breaches are reported
+	 * as JMX notifications emitted by this bean.
+	 *
+	 * @param pattern Simon name pattern ({@link org.javasimon.SimonPattern})
+	 * @param metric name of the metric - mean, max, p99 or counter-rate
+	 * @param limit limit value, nanoseconds for Stopwatch metrics, increments per second for counter rate
+	 * @see ThresholdEvaluator
+	 * @since 4.2
+	 */
+	void addThreshold(String pattern, String metric, double limit);
+
+	/**
+	 * Removes all threshold rules with the specified pattern.
+	 *
+	 * @param pattern Simon name pattern used for the rules
+	 * @since 4.2
+	 */
+	void removeThresholds(String pattern);
+
+	/**
+	 * Returns all threshold rules in human readable form.
+	 *
+	 * @return array of threshold rules
+	 * @since 4.2
+	 */
+	String[] getThresholds();
+
+	/**
+	 * Starts background evaluation of threshold rules.
+	 *
+	 * @param periodMs evaluation period in milliseconds
+	 * @since 4.2
+	 */
+	void startThresholdEvaluation(long periodMs);
+
+	/**
+	 * Stops background evaluation of threshold rules.
+	 *
+	 * @since 4.2
+	 */
+	void stopThresholdEvaluation();
+
+	/**
+	 * Returns true if the background evaluation of threshold rules is running.
+	 *
+	 * @return true if threshold evaluation is running
+	 * @since 4.2
+	 */
+	boolean isThresholdEvaluationRunning();
 }
@@ -7,11 +7,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
 
 /**
  * Simon MXBean implementation. See {@link SimonManagerMXBean} for interface
  * documentation.
  * Most methods are implemented by calling the {@link Manager}.
+ * <p/>
+ * Bean is also a notification emitter - notifications about threshold breaches are emitted
+ * by the {@link ThresholdEvaluator} bound to this bean.
  *
  * @author Radovan Sninsky
  * @author <a href="mailto:ivan.mushketyk@gmail.com">Ivan Mushketyk</a>
@@ -21,17 +28,25 @@ import java.util.List;
  * @see SimonUtils
  * @since 2.0
  */
-public class SimonManagerMXBeanImpl implements SimonManagerMXBean {
+public class SimonManagerMXBeanImpl extends NotificationBroadcasterSupport implements SimonManagerMXBean {
+
+	private static final MBeanNotificationInfo THRESHOLD_NOTIFICATION_INFO = new MBeanNotificationInfo(
+		new String[] {ThresholdEvaluator.NOTIFICATION_BREACH, ThresholdEvaluator.NOTIFICATION_RECOVERY},
+		Notification.class.getName(), "Threshold breaches and recoveries of Simons");
 
 	private Manager manager;
 
+	private final ThresholdEvaluator thresholdEvaluator;
+
 	/**
 	 * MXBean constructor.
 	 *
 	 * @param manager instance of {@link Manager}, typically {@code SimonManager.manager()}.
 	 */
 	public SimonManagerMXBeanImpl(Manager manager) {
+		super(THRESHOLD_NOTIFICATION_INFO);
 		this.manager = manager;
+		thresholdEvaluator = new ThresholdEvaluator(manager, this);
 	}
 
 	@Override
@@ -235,6 +250,52 @@ public class SimonManagerMXBeanImpl implements SimonManagerMXBean {
 		return getIncrementStopwatchSamples(null, key);
 	}
 
+	@Override
+	public void addThreshold(String pattern, String metric, double limit) {
+		thresholdEvaluator.addRule(new ThresholdRule(pattern, ThresholdRule.Metric.forName(metric), limit));
+	}
+
+	@Override
+	public void removeThresholds(String pattern) {
+		thresholdEvaluator.removeRules(pattern);
+	}
+
+	@Override
+	public String[] getThresholds() {
+		List<ThresholdRule> rules = thresholdEvaluator.getRules();
+		String[] thresholds = new String[rules.size()];
+		int i = 0;
+		for (ThresholdRule rule : rules) {
+			thresholds[i++] = rule.toString();
+		}
+		return thresholds;
+	}
+
+	@Override
+	public void startThresholdEvaluation(long periodMs) {
+		thresholdEvaluator.start(periodMs, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stopThresholdEvaluation() {
+		thresholdEvaluator.stop();
+	}
+
+	@Override
+	public boolean isThresholdEvaluationRunning() {
+		return thresholdEvaluator.isRunning();
+	}
+
+	/**
+	 * Returns threshold evaluator emitting notifications through this bean.
+	 *
+	 * @return threshold evaluator
+	 * @since 4.2
+	 */
+	public ThresholdEvaluator getThresholdEvaluator() {
+		return thresholdEvaluator;
+	}
+
 	@Override
 	public final void printSimonTree() {
 		System.out.println(SimonUtils.simonTreeString(manager.getRootSimon()));
@@ -0,0 +1,66 @@
+package org.javasimon.jmx;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+/**
+ * Value object describing single threshold breach (or recovery) of one Simon. Array of these objects
+ * is provided as a user data of notifications emitted by {@link ThresholdEvaluator}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @see ThresholdEvaluator
+ * @since 4.2
+ */
+public final class ThresholdBreach implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+	private final String rule;
+	private final String metric;
+	private final double value;
+	private final double limit;
+
+	/**
+	 * Class constructor due to JMX requirements.
+	 *
+	 * @param name Simon name
+	 * @param rule threshold rule as a string
+	 * @param metric name of the metric
+	 * @param value measured metric value
+	 * @param limit limit of the rule
+	 */
+	@ConstructorProperties({"name", "rule", "metric", "value", "limit"})
+	public ThresholdBreach(String name, String rule, String metric, double value, double limit) {
+		this.name = name;
+		this.rule = rule;
+		this.metric = metric;
+		this.value = value;
+		this.limit = limit;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getRule() {
+		return rule;
+	}
+
+	public String getMetric() {
+		return metric;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getLimit() {
+		return limit;
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + metric + "=" + value + " (limit " + limit + ")";
+	}
+}
@@ -0,0 +1,331 @@
+package org.javasimon.jmx;
+
+import org.javasimon.CounterSample;
+import org.javasimon.Manager;
+import org.javasimon.Sample;
+import org.javasimon.Simon;
+import org.javasimon.Stopwatch;
+import org.javasimon.StopwatchSample;
+import org.javasimon.callback.quantiles.BucketSample;
+import org.javasimon.callback.quantiles.Buckets;
+import org.javasimon.callback.quantiles.QuantilesCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+
+/**
+ * Background evaluator of {@link ThresholdRule}s that emits JMX notifications when thresholds are breached.
+ * Evaluator periodically scans Simons matching configured rules and compares their values with the limits.
+ * Values are obtained using incremental sampling ({@link Simon#sampleIncrement(Object)} with the evaluator
+ * as a key), hence mean, max and counter rate are related to the last evaluation period only. Percentile
+ * is computed from {@link Buckets} if they are attached to the Stopwatch - also only from the splits of the last
+ * period (bucket counts are compared with the counts of the previous evaluation). No callback is involved - measuring
+ * itself is not affected by the evaluation beyond the update of the incremental Simon.
+ * <p/>
+ * Notifications are coalesced - every evaluation emits at most one notification of type {@link #NOTIFICATION_BREACH}
+ * with all newly breached thresholds and at most one of type {@link #NOTIFICATION_RECOVERY} with thresholds that are
+ * not breached anymore. Breach of the same rule by the same Simon is not reported again until it recovers.
+ * Array of {@link ThresholdBreach} objects is set as a user data of the notification. If no split/increment
+ * occurred for the Simon during the period its state is not changed.
+ * <p/>
+ * Evaluator is typically used through {@link SimonManagerMXBean} operations, but can be used directly:
+ * <pre>
+ * SimonManagerMXBeanImpl mxBean = new SimonManagerMXBeanImpl(SimonManager.manager());
+ * ThresholdEvaluator evaluator = mxBean.getThresholdEvaluator();
+ * evaluator.addRule(new ThresholdRule("org.app.*", ThresholdRule.Metric.MEAN, 50 * SimonClock.NANOS_IN_MILLIS));
+ * evaluator.start(1, TimeUnit.MINUTES);
+ * </pre>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class ThresholdEvaluator {
+
+	/** Type of the notification reporting newly breached thresholds. */
+	public static final String NOTIFICATION_BREACH = "org.javasimon.threshold.breach";
+
+	/** Type of the notification reporting recovered thresholds. */
+	public static final String NOTIFICATION_RECOVERY = "org.javasimon.threshold.recovery";
+
+	private static final Logger logger = LoggerFactory.getLogger(ThresholdEvaluator.class);
+
+	private static final double P99 = 0.99D;
+
+	private final Manager manager;
+
+	private final NotificationBroadcasterSupport emitter;
+
+	private final List<ThresholdRule> rules = new CopyOnWriteArrayList<>();
+
+	private final AtomicLong sequenceNumber = new AtomicLong();
+
+	/** Simon names currently breaching the rule - accessed only from synchronized {@link #evaluate()}. */
+	private final Map<ThresholdRule, Set<String>> breaching = new HashMap<>();
+
+	/** Bucket counts of the previous evaluation per Simon name - accessed only from synchronized {@link #evaluate()}. */
+	private final Map<String, int[]> lastBucketCounts = new HashMap<>();
+
+	private long lastEvaluationMs;
+
+	private ScheduledExecutorService executorService;
+
+	private ScheduledFuture<?> scheduledFuture;
+
+	/**
+	 * Creates the evaluator for the manager emitting notifications via provided emitter.
+	 *
+	 * @param manager manager whose Simons are evaluated
+	 * @param emitter emitter used for sending notifications, also used as a source of notifications
+	 */
+	public ThresholdEvaluator(Manager manager, NotificationBroadcasterSupport emitter) {
+		this.manager = manager;
+		this.emitter = emitter;
+	}
+
+	/**
+	 * Adds the threshold rule.
+	 *
+	 * @param rule threshold rule
+	 */
+	public void addRule(ThresholdRule rule) {
+		rules.add(rule);
+	}
+
+	/**
+	 * Removes all rules with the specified pattern.
+	 *
+	 * @param pattern Simon name pattern of the rule
+	 */
+	public synchronized void removeRules(String pattern) {
+		for (ThresholdRule rule : rules) {
+			if (rule.getPattern().equals(pattern)) {
+				rules.remove(rule);
+				breaching.remove(rule);
+			}
+		}
+	}
+
+	/** Removes all rules. */
+	public synchronized void clearRules() {
+		rules.clear();
+		breaching.clear();
+	}
+
+	/**
+	 * Returns currently configured rules.
+	 *
+	 * @return list of threshold rules
+	 */
+	public List<ThresholdRule> getRules() {
+		return new ArrayList<>(rules);
+	}
+
+	/**
+	 * Starts periodical evaluation with the specified period.
+	 *
+	 * @param period evaluation period
+	 * @param timeUnit time unit of the period
+	 */
+	public synchronized void start(long period, TimeUnit timeUnit) {
+		if (scheduledFuture != null) {
+			throw new IllegalStateException("ThresholdEvaluator has already been started");
+		}
+		if (executorService == null) {
+			executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "javasimon-thresholdEvaluator");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		lastEvaluationMs = manager.milliTime();
+		scheduledFuture = executorService.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					evaluate();
+				} catch (RuntimeException e) {
+					logger.warn("Threshold evaluation failed", e);
+				}
+			}
+		}, period, period, timeUnit);
+	}
+
+	/**
+	 * Stops periodical evaluation (if running), releases the evaluation thread and stops incremental sampling
+	 * of all Simons for this evaluator - also after direct calls of {@link #evaluate()}.
+	 */
+	public synchronized void stop() {
+		if (scheduledFuture != null) {
+			scheduledFuture.cancel(false);
+			scheduledFuture = null;
+			executorService.shutdown();
+			executorService = null;
+		}
+		for (Simon simon : manager.getSimons(null)) {
+			simon.stopIncrementalSampling(this);
+		}
+		breaching.clear();
+		lastBucketCounts.clear();
+	}
+
+	/**
+	 * Returns true if the periodical evaluation is running.
+	 *
+	 * @return true if the evaluator was started and not stopped yet
+	 */
+	public synchronized boolean isRunning() {
+		return scheduledFuture != null;
+	}
+
+	/**
+	 * Evaluates all rules and emits notifications. Called periodically when the evaluator is started,
+	 * but can be called directly as well.
+	 */
+	public synchronized void evaluate() {
+		long now = manager.milliTime();
+		double periodSeconds = (now - lastEvaluationMs) / 1000D;
+		lastEvaluationMs = now;
+
+		List<ThresholdBreach> breaches = new ArrayList<>();
+		List<ThresholdBreach> recoveries = new ArrayList<>();
+		Map<String, Sample> samples = new HashMap<>();
+		Map<String, Double> percentiles = new HashMap<>();
+		for (ThresholdRule rule : rules) {
+			Set<String> ruleBreaching = breaching.get(rule);
+			if (ruleBreaching == null) {
+				ruleBreaching = new HashSet<>();
+				breaching.put(rule, ruleBreaching);
+			}
+			Set<String> existing = new HashSet<>();
+			for (Simon simon : manager.getSimons(rule.getSimonPattern())) {
+				String name = simon.getName();
+				existing.add(name);
+				Sample sample = samples.get(name);
+				if (sample == null) {
+					sample = simon.sampleIncrement(this);
+					samples.put(name, sample);
+				}
+				Double value = metricValue(rule.getMetric(), simon, sample, periodSeconds, percentiles);
+				if (value == null) {
+					continue;
+				}
+				ThresholdBreach breach = new ThresholdBreach(name, rule.toString(), rule.getMetric().name(), value, rule.getLimit());
+				if (value > rule.getLimit()) {
+					if (ruleBreaching.add(name)) {
+						breaches.add(breach);
+					}
+				} else if (ruleBreaching.remove(name)) {
+					recoveries.add(breach);
+				}
+			}
+			ruleBreaching.retainAll(existing);
+		}
+		lastBucketCounts.keySet().retainAll(percentiles.keySet());
+
+		emit(NOTIFICATION_BREACH, "threshold breach", breaches, now);
+		emit(NOTIFICATION_RECOVERY, "threshold recovery", recoveries, now);
+	}
+
+	/** Returns metric value or {@code null} if the value is not available for the period. */
+	private Double metricValue(ThresholdRule.Metric metric, Simon simon, Sample sample, double periodSeconds, Map<String, Double> percentiles) {
+		switch (metric) {
+			case MEAN:
+				StopwatchSample meanSample = (StopwatchSample) sample;
+				return meanSample.getCounter() > 0 ? meanSample.getMean() : null;
+			case MAX:
+				StopwatchSample maxSample = (StopwatchSample) sample;
+				return maxSample.getCounter() > 0 ? (double) maxSample.getMax() : null;
+			case P99:
+				// more rules may use the percentile of the same Simon, bucket counts can be compared only once
+				if (!percentiles.containsKey(simon.getName())) {
+					Buckets buckets = QuantilesCallback.getBuckets((Stopwatch) simon);
+					percentiles.put(simon.getName(), buckets != null ? periodQuantile(simon.getName(), buckets, P99) : null);
+				}
+				return percentiles.get(simon.getName());
+			case COUNTER_RATE:
+				CounterSample counterSample = (CounterSample) sample;
+				if (periodSeconds <= 0 || counterSample.getIncrementSum() == 0) {
+					return null;
+				}
+				return counterSample.getIncrementSum() / periodSeconds;
+			default:
+				throw new IllegalArgumentException("Unsupported metric: " + metric);
+		}
+	}
+
+	/**
+	 * Computes the quantile from the bucket counts added since the previous evaluation, value in the bucket
+	 * is interpolated linearly, for values out of the bucket range the range bound is returned.
+	 *
+	 * @return quantile or {@code null} if no value was added during the period
+	 */
+	private Double periodQuantile(String name, Buckets buckets, double ratio) {
+		BucketSample[] bucketSamples = buckets.sample().getBuckets();
+		int[] counts = new int[bucketSamples.length];
+		int[] periodCounts = new int[bucketSamples.length];
+		int[] last = lastBucketCounts.get(name);
+		boolean reset = last == null || last.length != counts.length;
+		int total = 0;
+		for (int i = 0; i < bucketSamples.length; i++) {
+			counts[i] = bucketSamples[i].getCount();
+			periodCounts[i] = reset ? counts[i] : counts[i] - last[i];
+			if (periodCounts[i] < 0) {
+				// buckets were cleared, start over
+				lastBucketCounts.remove(name);
+				return periodQuantile(name, buckets, ratio);
+			}
+			total += periodCounts[i];
+		}
+		lastBucketCounts.put(name, counts);
+		if (total == 0) {
+			return null;
+		}
+
+		double expectedCount = ratio * total;
+		double lastCount = 0;
+		for (int i = 0; i < periodCounts.length; i++) {
+			double newCount = lastCount + periodCounts[i];
+			if (expectedCount < newCount) {
+				BucketSample bucket = bucketSamples[i];
+				if (i == 0) {
+					return (double) bucket.getMax();
+				}
+				if (i == periodCounts.length - 1) {
+					return (double) bucket.getMin();
+				}
+				return bucket.getMin() + (expectedCount - lastCount) * (bucket.getMax() - bucket.getMin()) / periodCounts[i];
+			}
+			lastCount = newCount;
+		}
+		return (double) bucketSamples[bucketSamples.length - 1].getMin();
+	}
+
+	private void emit(String type, String description, List<ThresholdBreach> breaches, long timestamp) {
+		if (breaches.isEmpty()) {
+			return;
+		}
+		Notification notification = new Notification(type, emitter, sequenceNumber.incrementAndGet(), timestamp,
+			breaches.size() + " " + description + "(s): " + breaches);
+		notification.setUserData(breaches.toArray(new ThresholdBreach[breaches.size()]));
+		emitter.sendNotification(notification);
+	}
+}
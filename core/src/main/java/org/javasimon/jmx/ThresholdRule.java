@@ -0,0 +1,105 @@
+package org.javasimon.jmx;
+
+import org.javasimon.Counter;
+import org.javasimon.SimonPattern;
+import org.javasimon.Stopwatch;
+
+/**
+ * Threshold rule evaluated by {@link ThresholdEvaluator} - all Simons matching the pattern are checked
+ * whether the value of the specified {@link Metric} exceeds the limit. Stopwatch metrics are in nanoseconds,
+ * counter rate is in increments per second.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @see ThresholdEvaluator
+ * @since 4.2
+ */
+public final class ThresholdRule {
+
+	/** Metric checked by the rule. */
+	public enum Metric {
+		/** Mean split time of the Stopwatch during the evaluation period (ns). */
+		MEAN(Stopwatch.class),
+
+		/** Maximal split time of the Stopwatch during the evaluation period (ns). */
+		MAX(Stopwatch.class),
+
+		/**
+		 * 99th percentile of the Stopwatch (ns) - only evaluated for Stopwatches with buckets attached by
+		 * {@link org.javasimon.callback.quantiles.QuantilesCallback}.
+		 */
+		P99(Stopwatch.class),
+
+		/** Counter increments per second during the evaluation period. */
+		COUNTER_RATE(Counter.class);
+
+		private final Class<? extends org.javasimon.Simon> simonType;
+
+		Metric(Class<? extends org.javasimon.Simon> simonType) {
+			this.simonType = simonType;
+		}
+
+		/**
+		 * Returns metric for its name - case is ignored and dash can be used instead of underscore
+		 * (e.g. "counter-rate").
+		 *
+		 * @param name name of the metric
+		 * @return metric
+		 */
+		public static Metric forName(String name) {
+			return valueOf(name.trim().toUpperCase().replace('-', '_'));
+		}
+	}
+
+	private final String pattern;
+	private final SimonPattern simonPattern;
+	private final Metric metric;
+	private final double limit;
+
+	/**
+	 * Creates the threshold rule.
+	 *
+	 * @param pattern Simon name pattern ({@link SimonPattern})
+	 * @param metric checked metric
+	 * @param limit limit value, rule is breached if the metric value is greater than this limit
+	 */
+	public ThresholdRule(String pattern, Metric metric, double limit) {
+		if (pattern == null || metric == null) {
+			throw new IllegalArgumentException("Pattern and metric must not be null");
+		}
+		this.pattern = pattern;
+		this.simonPattern = new SimonPattern(pattern, metric.simonType);
+		this.metric = metric;
+		this.limit = limit;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Returns Simon pattern accepting only Simons of the type appropriate for the metric.
+	 *
+	 * @return Simon pattern used as a filter
+	 */
+	public SimonPattern getSimonPattern() {
+		return simonPattern;
+	}
+
+	public Metric getMetric() {
+		return metric;
+	}
+
+	public double getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns human readable rule in the form {@code pattern METRIC > limit}.
+	 *
+	 * @return rule as a human readable string
+	 */
+	@Override
+	public String toString() {
+		return pattern + " " + metric + " > " + limit;
+	}
+}
@@ -0,0 +1,71 @@
+package org.javasimon.reporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends batches to a file, e.g. for later import or for a log shipping agent.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class FileTransport implements MetricTransport {
+
+	/** Default batch size. */
+	public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+	private final File file;
+
+	private final int batchSize;
+
+	private FileChannel channel;
+
+	/**
+	 * Creates file transport with the {@link #DEFAULT_BATCH_SIZE default batch size}.
+	 *
+	 * @param file target file, created if it does not exist
+	 */
+	public FileTransport(File file) {
+		this(file, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates file transport.
+	 *
+	 * @param file target file, created if it does not exist
+	 * @param batchSize maximal batch size in bytes
+	 */
+	public FileTransport(File file, int batchSize) {
+		this.file = file;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public int getMaxBatchSize() {
+		return batchSize;
+	}
+
+	@Override
+	public void send(ByteBuffer batch) throws IOException {
+		if (channel == null) {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}
+		while (batch.hasRemaining()) {
+			channel.write(batch);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			try {
+				channel.close();
+			} finally {
+				channel = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.javasimon.reporter;
+
+import org.javasimon.CounterSample;
+import org.javasimon.StopwatchSample;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes samples into Graphite plaintext protocol - one line {@code path value timestamp} per metric,
+ * timestamp is in epoch seconds. Path is composed from the optional prefix, Simon name and metric name,
+ * e.g. {@code app.org.javasimon.stopwatch.mean 1234.5 1400000000}.
+ * <p/>
+ * Stopwatch metrics: {@code count}, {@code total} and if there were any splits during the period also
+ * {@code min}, {@code max} and {@code mean}. Counter metrics: {@code value}, {@code increments}
+ * and {@code decrements}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class GraphiteEncoder extends MetricEncoder {
+
+	private final String prefix;
+
+	/** Creates Graphite encoder without path prefix. */
+	public GraphiteEncoder() {
+		this(null);
+	}
+
+	/**
+	 * Creates Graphite encoder with the specified path prefix.
+	 *
+	 * @param prefix path prefix (without trailing dot) or {@code null}
+	 */
+	public GraphiteEncoder(String prefix) {
+		this.prefix = prefix != null && !prefix.isEmpty() ? prefix + '.' : null;
+	}
+
+	@Override
+	public void encodeStopwatch(String name, StopwatchSample sample, long timestampMillis, ByteBuffer buffer) {
+		long seconds = timestampMillis / 1000;
+		putLine(buffer, name, "count", sample.getCounter(), seconds);
+		putLine(buffer, name, "total", sample.getTotal(), seconds);
+		if (sample.getCounter() > 0) {
+			putLine(buffer, name, "min", sample.getMin(), seconds);
+			putLine(buffer, name, "max", sample.getMax(), seconds);
+			putPath(buffer, name, "mean");
+			putDouble(buffer, sample.getMean());
+			putTimestamp(buffer, seconds);
+		}
+	}
+
+	@Override
+	public void encodeCounter(String name, CounterSample sample, long timestampMillis, ByteBuffer buffer) {
+		long seconds = timestampMillis / 1000;
+		putLine(buffer, name, "value", sample.getCounter(), seconds);
+		putLine(buffer, name, "increments", sample.getIncrementSum(), seconds);
+		putLine(buffer, name, "decrements", sample.getDecrementSum(), seconds);
+	}
+
+	private void putLine(ByteBuffer buffer, String name, String metric, long value, long seconds) {
+		putPath(buffer, name, metric);
+		putLong(buffer, value);
+		putTimestamp(buffer, seconds);
+	}
+
+	private void putPath(ByteBuffer buffer, String name, String metric) {
+		if (prefix != null) {
+			putName(buffer, prefix);
+		}
+		putName(buffer, name);
+		buffer.put((byte) '.');
+		putAscii(buffer, metric);
+		buffer.put((byte) ' ');
+	}
+
+	private void putTimestamp(ByteBuffer buffer, long seconds) {
+		buffer.put((byte) ' ');
+		putLong(buffer, seconds);
+		buffer.put((byte) '\n');
+	}
+}
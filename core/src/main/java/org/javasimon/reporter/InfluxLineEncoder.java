@@ -0,0 +1,98 @@
+package org.javasimon.reporter;
+
+import org.javasimon.CounterSample;
+import org.javasimon.StopwatchSample;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes samples into InfluxDB line protocol - one line per Simon with all metrics as fields,
+ * timestamp is in epoch nanoseconds (millisecond precision):
+ * <pre>
+ * javasimon,type=stopwatch,simon=org.app.service count=5i,total=1500i,min=100i,max=700i,mean=300 1400000000000000000
+ * javasimon,type=counter,simon=org.app.counter value=12i,increments=3i,decrements=0i 1400000000000000000</pre>
+ * Tag values are escaped according to the protocol (comma, space and equal sign).
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class InfluxLineEncoder extends MetricEncoder {
+
+	/** Default measurement name. */
+	public static final String DEFAULT_MEASUREMENT = "javasimon";
+
+	private static final long NANOS_IN_MILLI = 1000000;
+
+	private final String measurement;
+
+	/** Creates encoder with the {@link #DEFAULT_MEASUREMENT default measurement name}. */
+	public InfluxLineEncoder() {
+		this(DEFAULT_MEASUREMENT);
+	}
+
+	/**
+	 * Creates encoder with the specified measurement name.
+	 *
+	 * @param measurement measurement name
+	 */
+	public InfluxLineEncoder(String measurement) {
+		this.measurement = measurement;
+	}
+
+	@Override
+	public void encodeStopwatch(String name, StopwatchSample sample, long timestampMillis, ByteBuffer buffer) {
+		putSeries(buffer, "stopwatch", name);
+		putField(buffer, "count=", sample.getCounter());
+		putField(buffer, ",total=", sample.getTotal());
+		if (sample.getCounter() > 0) {
+			putField(buffer, ",min=", sample.getMin());
+			putField(buffer, ",max=", sample.getMax());
+			putAscii(buffer, ",mean=");
+			putDouble(buffer, sample.getMean());
+		}
+		putTimestamp(buffer, timestampMillis);
+	}
+
+	@Override
+	public void encodeCounter(String name, CounterSample sample, long timestampMillis, ByteBuffer buffer) {
+		putSeries(buffer, "counter", name);
+		putField(buffer, "value=", sample.getCounter());
+		putField(buffer, ",increments=", sample.getIncrementSum());
+		putField(buffer, ",decrements=", sample.getDecrementSum());
+		putTimestamp(buffer, timestampMillis);
+	}
+
+	@Override
+	protected void putName(ByteBuffer buffer, CharSequence chars) {
+		for (int i = 0; i < chars.length(); i++) {
+			char c = chars.charAt(i);
+			if (c == ',' || c == '=' || c == ' ') {
+				buffer.put((byte) '\\');
+				buffer.put((byte) c);
+			} else {
+				buffer.put(c < 0x80 && c > ' ' ? (byte) c : (byte) '_');
+			}
+		}
+	}
+
+	private void putSeries(ByteBuffer buffer, String type, String name) {
+		putName(buffer, measurement);
+		putAscii(buffer, ",type=");
+		putAscii(buffer, type);
+		putAscii(buffer, ",simon=");
+		putName(buffer, name);
+		buffer.put((byte) ' ');
+	}
+
+	private void putField(ByteBuffer buffer, String key, long value) {
+		putAscii(buffer, key);
+		putLong(buffer, value);
+		buffer.put((byte) 'i');
+	}
+
+	private void putTimestamp(ByteBuffer buffer, long timestampMillis) {
+		buffer.put((byte) ' ');
+		putLong(buffer, timestampMillis * NANOS_IN_MILLI);
+		buffer.put((byte) '\n');
+	}
+}
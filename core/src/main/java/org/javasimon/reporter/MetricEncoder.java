@@ -0,0 +1,141 @@
+package org.javasimon.reporter;
+
+import org.javasimon.CounterSample;
+import org.javasimon.StopwatchSample;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes incremental samples into a text protocol of the target time series database. Encoder writes
+ * directly into the provided {@link ByteBuffer} - no intermediate strings are created for numbers.
+ * If the buffer is too small {@link BufferOverflowException} is thrown and {@link SimonReporter} flushes
+ * the batch and encodes the sample again into the empty buffer.
+ * <p/>
+ * Only ASCII output is produced, other characters of Simon names are replaced by {@code '_'}.
+ * Durations are reported in nanoseconds as everywhere else in Simon API.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public abstract class MetricEncoder {
+
+	private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes();
+
+	private static final int DECIMAL_PLACES = 3;
+
+	private static final long DECIMAL_FACTOR = 1000;
+
+	/**
+	 * Encodes the Stopwatch sample.
+	 *
+	 * @param name Stopwatch name (incremental samples do not carry the name)
+	 * @param sample incremental Stopwatch sample (values related to the reporting period)
+	 * @param timestampMillis timestamp of the report in epoch millis
+	 * @param buffer output buffer
+	 * @throws BufferOverflowException if the buffer is full
+	 */
+	public abstract void encodeStopwatch(String name, StopwatchSample sample, long timestampMillis, ByteBuffer buffer);
+
+	/**
+	 * Encodes the Counter sample.
+	 *
+	 * @param name Counter name
+	 * @param sample incremental Counter sample, counter value is the current value, increment/decrement sums are
+	 * related to the reporting period
+	 * @param timestampMillis timestamp of the report in epoch millis
+	 * @param buffer output buffer
+	 * @throws BufferOverflowException if the buffer is full
+	 */
+	public abstract void encodeCounter(String name, CounterSample sample, long timestampMillis, ByteBuffer buffer);
+
+	/**
+	 * Writes ASCII characters of the string, non-ASCII and characters rejected by {@link #isAllowed(char)}
+	 * are replaced by {@code '_'}.
+	 *
+	 * @param buffer output buffer
+	 * @param chars written characters
+	 */
+	protected void putName(ByteBuffer buffer, CharSequence chars) {
+		for (int i = 0; i < chars.length(); i++) {
+			char c = chars.charAt(i);
+			buffer.put(c < 0x80 && c > ' ' && isAllowed(c) ? (byte) c : (byte) '_');
+		}
+	}
+
+	/**
+	 * Returns true if the printable ASCII character can be used in a name as is. Returns true by default.
+	 *
+	 * @param c printable ASCII character
+	 * @return true if the character does not have to be replaced
+	 */
+	protected boolean isAllowed(char c) {
+		return true;
+	}
+
+	/**
+	 * Writes ASCII string as is - used for constant parts of the protocol.
+	 *
+	 * @param buffer output buffer
+	 * @param ascii ASCII string
+	 */
+	protected static void putAscii(ByteBuffer buffer, String ascii) {
+		for (int i = 0; i < ascii.length(); i++) {
+			buffer.put((byte) ascii.charAt(i));
+		}
+	}
+
+	/**
+	 * Writes decimal representation of the long value.
+	 *
+	 * @param buffer output buffer
+	 * @param value written value
+	 */
+	protected static void putLong(ByteBuffer buffer, long value) {
+		if (value == Long.MIN_VALUE) {
+			buffer.put(LONG_MIN_VALUE);
+			return;
+		}
+		if (value < 0) {
+			buffer.put((byte) '-');
+			value = -value;
+		}
+		long divisor = 1;
+		while (divisor <= value / 10) {
+			divisor *= 10;
+		}
+		while (divisor > 0) {
+			buffer.put((byte) ('0' + (value / divisor) % 10));
+			divisor /= 10;
+		}
+	}
+
+	/**
+	 * Writes decimal representation of the double value with three decimal places at most
+	 * (trailing zeros are omitted). NaN and infinite values are written as zero.
+	 *
+	 * @param buffer output buffer
+	 * @param value written value
+	 */
+	protected static void putDouble(ByteBuffer buffer, double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			buffer.put((byte) '0');
+			return;
+		}
+		long scaled = Math.round(Math.abs(value) * DECIMAL_FACTOR);
+		if (value < 0 && scaled != 0) {
+			buffer.put((byte) '-');
+		}
+		putLong(buffer, scaled / DECIMAL_FACTOR);
+		long fraction = scaled % DECIMAL_FACTOR;
+		if (fraction != 0) {
+			buffer.put((byte) '.');
+			long divisor = DECIMAL_FACTOR / 10;
+			for (int i = 0; i < DECIMAL_PLACES && fraction != 0; i++) {
+				buffer.put((byte) ('0' + fraction / divisor));
+				fraction %= divisor;
+				divisor /= 10;
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package org.javasimon.reporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Transport delivering batches of encoded metrics to the target system. Transport is used
+ * from the single reporting thread of {@link SimonReporter}, it does not have to be thread safe.
+ * Transports open their channel lazily and reopen it after {@link #close()} or after failure,
+ * hence the same transport can be used after the reporter is restarted.
+ * <p/>
+ * Blocking transport is the backpressure mechanism - reporter does not encode the next batch
+ * until the previous one is sent and next report is not started until the current one is finished.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public interface MetricTransport extends Closeable {
+
+	/**
+	 * Returns maximal size of a single batch in bytes. Reporter allocates its buffer with this size.
+	 *
+	 * @return maximal batch size in bytes
+	 */
+	int getMaxBatchSize();
+
+	/**
+	 * Sends the batch - bytes between the position and the limit of the buffer.
+	 *
+	 * @param batch buffer with encoded metrics, flipped for reading
+	 * @throws IOException if sending fails, batch is dropped by the reporter
+	 */
+	void send(ByteBuffer batch) throws IOException;
+}
@@ -0,0 +1,239 @@
+package org.javasimon.reporter;
+
+import org.javasimon.Counter;
+import org.javasimon.CounterSample;
+import org.javasimon.Manager;
+import org.javasimon.Sample;
+import org.javasimon.Simon;
+import org.javasimon.SimonPattern;
+import org.javasimon.Stopwatch;
+import org.javasimon.StopwatchSample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically pushes statistics of Simons to an external time series database. Reporter takes incremental
+ * samples ({@link Simon#sampleIncrement(Object)} with the reporter as a key), so every report contains values
+ * related to the last reporting period only. Samples are encoded by {@link MetricEncoder} into a reusable
+ * buffer of {@link MetricTransport#getMaxBatchSize()} bytes, full buffer is sent as one batch by the transport.
+ * <p/>
+ * Reports are executed with a fixed delay on a single daemon thread, hence slow transport postpones the next
+ * report instead of piling up unsent data - incremental samples simply cover the longer period then.
+ * If sending of a batch fails, the rest of the report is dropped (number of dropped batches is available
+ * via {@link #getDroppedBatches()}) and the reporter continues with the next period.
+ * <p/>
+ * Example - pushing all Stopwatches and Counters to Graphite every 10 seconds:
+ * <pre>
+ * SimonReporter reporter = new SimonReporter(SimonManager.manager(),
+ *   new GraphiteEncoder("app"), new TcpTransport(new InetSocketAddress("graphite", 2003)));
+ * reporter.start(10, TimeUnit.SECONDS);</pre>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class SimonReporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(SimonReporter.class);
+
+	private final Manager manager;
+
+	private final MetricEncoder encoder;
+
+	private final MetricTransport transport;
+
+	private final ByteBuffer buffer;
+
+	private volatile SimonPattern pattern;
+
+	private long sentBatches;
+
+	private long droppedBatches;
+
+	private ScheduledExecutorService executorService;
+
+	private ScheduledFuture<?> scheduledFuture;
+
+	/**
+	 * Creates reporter for all Stopwatches and Counters of the manager.
+	 *
+	 * @param manager reported manager
+	 * @param encoder metric encoder
+	 * @param transport metric transport
+	 */
+	public SimonReporter(Manager manager, MetricEncoder encoder, MetricTransport transport) {
+		this.manager = manager;
+		this.encoder = encoder;
+		this.transport = transport;
+		this.buffer = ByteBuffer.allocateDirect(transport.getMaxBatchSize());
+	}
+
+	/**
+	 * Restricts reported Simons to the ones matching the pattern.
+	 *
+	 * @param pattern Simon pattern or {@code null} for all Simons
+	 */
+	public void setPattern(String pattern) {
+		this.pattern = pattern != null ? SimonPattern.create(pattern) : null;
+	}
+
+	/**
+	 * Starts periodical reporting with the specified period.
+	 *
+	 * @param period reporting period
+	 * @param timeUnit time unit of the period
+	 */
+	public synchronized void start(long period, TimeUnit timeUnit) {
+		if (scheduledFuture != null) {
+			throw new IllegalStateException("SimonReporter has already been started");
+		}
+		if (executorService == null) {
+			executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "javasimon-reporter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		scheduledFuture = executorService.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					report();
+				} catch (RuntimeException e) {
+					logger.warn("Reporting of Simons failed", e);
+				}
+			}
+		}, period, period, timeUnit);
+	}
+
+	/**
+	 * Stops periodical reporting (if running), closes the transport and stops incremental sampling of all Simons
+	 * for this reporter. Reporter can be started again, next report will contain whole values of Simons.
+	 */
+	public synchronized void stop() {
+		if (scheduledFuture != null) {
+			scheduledFuture.cancel(false);
+			scheduledFuture = null;
+			executorService.shutdown();
+			executorService = null;
+		}
+		synchronized (buffer) {
+			for (Simon simon : manager.getSimons(null)) {
+				simon.stopIncrementalSampling(this);
+			}
+			closeTransport();
+		}
+	}
+
+	/**
+	 * Returns true if the periodical reporting is running.
+	 *
+	 * @return true if the reporter was started and not stopped yet
+	 */
+	public synchronized boolean isRunning() {
+		return scheduledFuture != null;
+	}
+
+	/**
+	 * Reports all matching Simons. Called periodically when the reporter is started, but can be called
+	 * directly as well.
+	 */
+	public void report() {
+		synchronized (buffer) {
+			long timestamp = manager.milliTime();
+			buffer.clear();
+			try {
+				for (Simon simon : manager.getSimons(pattern)) {
+					if (simon instanceof Stopwatch || simon instanceof Counter) {
+						encode(simon, timestamp);
+					}
+				}
+				flush();
+			} catch (IOException e) {
+				droppedBatches++;
+				logger.warn("Sending of metrics failed, rest of the report is dropped: {}", e.toString());
+				closeTransport();
+			}
+		}
+	}
+
+	private void encode(Simon simon, long timestamp) throws IOException {
+		Sample sample = simon.sampleIncrement(this);
+		int position = buffer.position();
+		try {
+			encodeSample(simon.getName(), sample, timestamp);
+		} catch (BufferOverflowException e) {
+			buffer.position(position);
+			flush();
+			try {
+				encodeSample(simon.getName(), sample, timestamp);
+			} catch (BufferOverflowException e2) {
+				buffer.clear();
+				logger.warn("Metrics of Simon {} do not fit into the batch of {} bytes", simon.getName(), buffer.capacity());
+			}
+		}
+	}
+
+	private void encodeSample(String name, Sample sample, long timestamp) {
+		if (sample instanceof StopwatchSample) {
+			encoder.encodeStopwatch(name, (StopwatchSample) sample, timestamp, buffer);
+		} else {
+			encoder.encodeCounter(name, (CounterSample) sample, timestamp, buffer);
+		}
+	}
+
+	private void flush() throws IOException {
+		if (buffer.position() == 0) {
+			return;
+		}
+		buffer.flip();
+		try {
+			transport.send(buffer);
+			sentBatches++;
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	private void closeTransport() {
+		try {
+			transport.close();
+		} catch (IOException e) {
+			logger.debug("Closing of the transport failed", e);
+		}
+	}
+
+	/**
+	 * Returns number of successfully sent batches.
+	 *
+	 * @return number of sent batches
+	 */
+	public long getSentBatches() {
+		synchronized (buffer) {
+			return sentBatches;
+		}
+	}
+
+	/**
+	 * Returns number of batches dropped because of a transport failure.
+	 *
+	 * @return number of dropped batches
+	 */
+	public long getDroppedBatches() {
+		synchronized (buffer) {
+			return droppedBatches;
+		}
+	}
+}
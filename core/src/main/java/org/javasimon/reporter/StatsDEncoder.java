@@ -0,0 +1,82 @@
+package org.javasimon.reporter;
+
+import org.javasimon.CounterSample;
+import org.javasimon.StopwatchSample;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes samples into StatsD protocol. Samples are already aggregated by Simon, hence split count
+ * and counter increments/decrements are sent as StatsD counters ({@code |c}) and other values
+ * as gauges ({@code |g}), e.g. {@code app.org.app.service.count:5|c}. StatsD does not use timestamps.
+ * <p/>
+ * Negative gauge values would be interpreted as a relative change by StatsD, so they are sent as zero
+ * followed by the relative change (as recommended by the StatsD documentation).
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class StatsDEncoder extends MetricEncoder {
+
+	private final String prefix;
+
+	/** Creates StatsD encoder without bucket prefix. */
+	public StatsDEncoder() {
+		this(null);
+	}
+
+	/**
+	 * Creates StatsD encoder with the specified bucket prefix.
+	 *
+	 * @param prefix bucket prefix (without trailing dot) or {@code null}
+	 */
+	public StatsDEncoder(String prefix) {
+		this.prefix = prefix != null && !prefix.isEmpty() ? prefix + '.' : null;
+	}
+
+	@Override
+	public void encodeStopwatch(String name, StopwatchSample sample, long timestampMillis, ByteBuffer buffer) {
+		putLine(buffer, name, "count", sample.getCounter(), "|c\n");
+		putLine(buffer, name, "total", sample.getTotal(), "|c\n");
+		if (sample.getCounter() > 0) {
+			putLine(buffer, name, "min", sample.getMin(), "|g\n");
+			putLine(buffer, name, "max", sample.getMax(), "|g\n");
+			putBucket(buffer, name, "mean");
+			putDouble(buffer, sample.getMean());
+			putAscii(buffer, "|g\n");
+		}
+	}
+
+	@Override
+	public void encodeCounter(String name, CounterSample sample, long timestampMillis, ByteBuffer buffer) {
+		long value = sample.getCounter();
+		if (value < 0) {
+			putLine(buffer, name, "value", 0, "|g\n");
+		}
+		putLine(buffer, name, "value", value, "|g\n");
+		putLine(buffer, name, "increments", sample.getIncrementSum(), "|c\n");
+		putLine(buffer, name, "decrements", sample.getDecrementSum(), "|c\n");
+	}
+
+	/** StatsD uses colon and pipe as separators. */
+	@Override
+	protected boolean isAllowed(char c) {
+		return c != ':' && c != '|' && c != '@';
+	}
+
+	private void putLine(ByteBuffer buffer, String name, String metric, long value, String type) {
+		putBucket(buffer, name, metric);
+		putLong(buffer, value);
+		putAscii(buffer, type);
+	}
+
+	private void putBucket(ByteBuffer buffer, String name, String metric) {
+		if (prefix != null) {
+			putName(buffer, prefix);
+		}
+		putName(buffer, name);
+		buffer.put((byte) '.');
+		putAscii(buffer, metric);
+		buffer.put((byte) ':');
+	}
+}
@@ -0,0 +1,77 @@
+package org.javasimon.reporter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Writes batches into a TCP connection (Graphite plaintext, InfluxDB line protocol via Telegraf, etc.).
+ * Connection is opened lazily and reopened with the next batch after any failure. Write blocks if the
+ * receiver is slow which slows down the reporter instead of buffering unsent data.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class TcpTransport implements MetricTransport {
+
+	/** Default batch size. */
+	public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+	private final InetSocketAddress target;
+
+	private final int batchSize;
+
+	private SocketChannel channel;
+
+	/**
+	 * Creates TCP transport with the {@link #DEFAULT_BATCH_SIZE default batch size}.
+	 *
+	 * @param target target address
+	 */
+	public TcpTransport(InetSocketAddress target) {
+		this(target, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates TCP transport.
+	 *
+	 * @param target target address
+	 * @param batchSize maximal batch size in bytes
+	 */
+	public TcpTransport(InetSocketAddress target, int batchSize) {
+		this.target = target;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public int getMaxBatchSize() {
+		return batchSize;
+	}
+
+	@Override
+	public void send(ByteBuffer batch) throws IOException {
+		if (channel == null) {
+			channel = SocketChannel.open(target);
+		}
+		try {
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			try {
+				channel.close();
+			} finally {
+				channel = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package org.javasimon.reporter;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends every batch as a single UDP datagram (typical for StatsD, also supported by Graphite and InfluxDB).
+ * Batch size is limited by the maximal packet size, default {@link #DEFAULT_MAX_PACKET_SIZE} fits into
+ * a standard Ethernet MTU without fragmentation.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class UdpTransport implements MetricTransport {
+
+	/** Default maximal packet size (Ethernet MTU minus IP and UDP headers with some margin). */
+	public static final int DEFAULT_MAX_PACKET_SIZE = 1432;
+
+	private final SocketAddress target;
+
+	private final int maxPacketSize;
+
+	private DatagramChannel channel;
+
+	/**
+	 * Creates UDP transport with the {@link #DEFAULT_MAX_PACKET_SIZE default packet size}.
+	 *
+	 * @param target target address
+	 */
+	public UdpTransport(SocketAddress target) {
+		this(target, DEFAULT_MAX_PACKET_SIZE);
+	}
+
+	/**
+	 * Creates UDP transport.
+	 *
+	 * @param target target address
+	 * @param maxPacketSize maximal size of the datagram payload
+	 */
+	public UdpTransport(SocketAddress target, int maxPacketSize) {
+		this.target = target;
+		this.maxPacketSize = maxPacketSize;
+	}
+
+	@Override
+	public int getMaxBatchSize() {
+		return maxPacketSize;
+	}
+
+	@Override
+	public void send(ByteBuffer batch) throws IOException {
+		if (channel == null) {
+			channel = DatagramChannel.open();
+		}
+		channel.send(batch, target);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			try {
+				channel.close();
+			} finally {
+				channel = null;
+			}
+		}
+	}
+}
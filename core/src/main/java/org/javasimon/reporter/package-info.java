@@ -0,0 +1,7 @@
+/**
+ * Push-based reporting of Simons to external time series databases. {@link org.javasimon.reporter.SimonReporter}
+ * periodically encodes incremental samples with a {@link org.javasimon.reporter.MetricEncoder} (Graphite, InfluxDB
+ * line protocol, StatsD) and sends them in batches via a {@link org.javasimon.reporter.MetricTransport}
+ * (UDP, TCP, file).
+ */
+package org.javasimon.reporter;
@@ -0,0 +1,165 @@
+package org.javasimon.utils;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.javasimon.Manager;
+import org.javasimon.Simon;
+import org.javasimon.callback.CallbackSkeleton;
+import org.javasimon.callback.CompositeCallback;
+
+/**
+ * Cache of values resolved from Simons of one manager - typically Stopwatches resolved once per intercepted
+ * method or handler. Cached values are valid only as long as the Simons they were resolved from, hence
+ * the cache is dropped when the manager is cleared (its root Simon is replaced) or when any Simon is destroyed
+ * by {@link Manager#destroySimon(String)}. Lookup path only compares the root Simon and the count of destroyed
+ * Simons - destroyed Simons are counted by a single internal callback registered for each manager. If the callback
+ * is removed from the manager (e.g. by {@link org.javasimon.callback.CompositeCallback#removeAllCallbacks()}),
+ * caches are dropped and the callback is registered again with the next lookup.
+ * <p/>
+ * Cache does not resolve the values itself, they are added to the {@link #map()} by the caller:
+ * <pre>{@code
+ * ConcurrentMap<Method, Stopwatch> stopwatches = cache.map();
+ * Stopwatch stopwatch = stopwatches.get(method);
+ * if (stopwatch == null) {
+ *     stopwatch = manager.getStopwatch(name(method));
+ *     stopwatches.putIfAbsent(method, stopwatch);
+ * }}</pre>
+ * Map is concurrent, values that are not immutable (e.g. chains of values for one key) must be updated
+ * with {@code putIfAbsent} or {@code replace} to avoid lost updates.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the cached values
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class ManagerCache<K, V> {
+
+	/** Counters of destroyed Simons per callback of the manager (callbacks of a manager never change). */
+	private static final Map<CompositeCallback, DestroyedSimonsCounter> COUNTERS = new WeakHashMap<>();
+
+	/** Counter used for managers without callbacks, they never destroy Simons. */
+	private static final DestroyedSimonsCounter NO_COUNTER = new DestroyedSimonsCounter();
+
+	private final Manager manager;
+
+	private volatile Entries<K, V> entries;
+
+	/**
+	 * Creates the cache for Simons of the manager.
+	 *
+	 * @param manager Simon manager
+	 */
+	public ManagerCache(Manager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Returns the manager of the cached Simons.
+	 *
+	 * @return Simon manager
+	 */
+	public Manager getManager() {
+		return manager;
+	}
+
+	/**
+	 * Returns map valid for the current state of the manager - a new empty map is returned after the manager
+	 * was cleared or any Simon was destroyed.
+	 *
+	 * @return concurrent map of cached values
+	 */
+	public ConcurrentMap<K, V> map() {
+		Simon root = manager.getRootSimon();
+		Entries<K, V> current = entries;
+		if (!isValid(current, root)) {
+			current = refresh(root);
+		}
+		return current.map;
+	}
+
+	private static boolean isValid(Entries<?, ?> entries, Simon root) {
+		return entries != null && entries.root == root && entries.destroyed == entries.counter.count.get();
+	}
+
+	/** Replaces outdated entries, concurrent callers get the same new entries, so no value put there is lost. */
+	private synchronized Entries<K, V> refresh(Simon root) {
+		Entries<K, V> current = entries;
+		if (!isValid(current, root)) {
+			// root Simon is replaced when the manager is cleared, or another manager is switched on
+			DestroyedSimonsCounter counter = current != null && current.root == root && current.counter.registered
+				? current.counter : counter(manager);
+			current = new Entries<>(root, counter);
+			entries = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Returns counter of destroyed Simons of the manager, registers it with the first call for the manager
+	 * and again after it was removed from the manager's callbacks.
+	 */
+	private static synchronized DestroyedSimonsCounter counter(Manager manager) {
+		CompositeCallback callback = manager.callback();
+		if (callback == null) {
+			return NO_COUNTER;
+		}
+		DestroyedSimonsCounter counter = COUNTERS.get(callback);
+		if (counter == null) {
+			counter = new DestroyedSimonsCounter();
+			callback.addCallback(counter);
+			COUNTERS.put(callback, counter);
+		} else if (!callback.callbacks().contains(counter)) {
+			callback.addCallback(counter);
+		}
+		return counter;
+	}
+
+	/**
+	 * Counts destroyed Simons (and clears of the manager), any change invalidates all caches of the manager.
+	 * Removal of the counter from the manager is counted too, because destroyed Simons are not counted
+	 * until the counter is registered again.
+	 */
+	private static final class DestroyedSimonsCounter extends CallbackSkeleton {
+		private final AtomicLong count = new AtomicLong();
+		private volatile boolean registered;
+
+		@Override
+		public void initialize(Manager manager) {
+			registered = true;
+		}
+
+		@Override
+		public void cleanup() {
+			registered = false;
+			count.incrementAndGet();
+		}
+
+		@Override
+		public void onSimonDestroyed(Simon simon) {
+			count.incrementAndGet();
+		}
+
+		@Override
+		public void onManagerClear() {
+			count.incrementAndGet();
+		}
+	}
+
+	/** Cached values valid for one root Simon and count of destroyed Simons. */
+	private static final class Entries<K, V> {
+		private final Simon root;
+		private final DestroyedSimonsCounter counter;
+		private final long destroyed;
+		private final ConcurrentMap<K, V> map = new ConcurrentHashMap<>();
+
+		Entries(Simon root, DestroyedSimonsCounter counter) {
+			this.root = root;
+			this.counter = counter;
+			this.destroyed = counter.count.get();
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package org.javasimon.utils;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.SimonException;
+import org.javasimon.Split;
+import org.javasimon.callback.journal.SplitJournalCallback;
+import org.javasimon.clock.SimonClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads split journal written by {@link SplitJournalCallback} and replays it into a {@link Manager}.
+ * Segments are read from the oldest to the newest, truncated segment (e.g. after crash) is read up to the last
+ * complete record.
+ * <p/>
+ * Example - computing statistics from the journal after the fact:
+ * <pre>
+ * Manager manager = new SplitJournalReader(new File("/var/app/journal")).replay();
+ * System.out.println(SimonUtils.simonTreeString(manager.getRootSimon()));</pre>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @see SplitJournalCallback
+ * @since 4.2
+ */
+public final class SplitJournalReader {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File directory;
+
+	/**
+	 * Creates reader of the journal in the specified directory.
+	 *
+	 * @param directory journal directory
+	 */
+	public SplitJournalReader(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads all split records of the journal.
+	 *
+	 * @param handler handler called for every split record
+	 * @throws IOException if reading of a segment fails
+	 */
+	public void read(SplitRecordHandler handler) throws IOException {
+		for (File segment : SplitJournalCallback.segmentFiles(directory)) {
+			readSegment(segment, handler);
+		}
+	}
+
+	/**
+	 * Replays the journal into a new {@link EnabledManager} - its clock follows the journal, hence
+	 * usage timestamps, max/min timestamps, etc. of the Stopwatches match the original measurements.
+	 *
+	 * @return new manager with Stopwatches containing all splits from the journal
+	 * @throws IOException if reading of a segment fails
+	 */
+	public Manager replay() throws IOException {
+		final ReplayClock clock = new ReplayClock();
+		final Manager manager = new EnabledManager(clock);
+		read(new SplitRecordHandler() {
+			@Override
+			public void onSplit(String stopwatch, long startNanos, long durationNanos, long threadId, long startMillis) {
+				long endNanos = startNanos + durationNanos;
+				clock.set(endNanos, startMillis + durationNanos / SimonClock.NANOS_IN_MILLIS);
+				manager.getStopwatch(stopwatch).addSplit(Split.create(durationNanos, clock));
+			}
+		});
+		return manager;
+	}
+
+	/**
+	 * Replays the journal into the provided manager. Splits are added with the manager's clock, so
+	 * timestamps of Stopwatches reflect the time of the replay, not the time of the original measurement.
+	 *
+	 * @param manager target manager
+	 * @throws IOException if reading of a segment fails
+	 */
+	public void replay(final Manager manager) throws IOException {
+		read(new SplitRecordHandler() {
+			@Override
+			public void onSplit(String stopwatch, long startNanos, long durationNanos, long threadId, long startMillis) {
+				manager.getStopwatch(stopwatch).addSplit(Split.create(durationNanos, manager));
+			}
+		});
+	}
+
+	private void readSegment(File file, SplitRecordHandler handler) throws IOException {
+		ByteBuffer segment;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (segment.remaining() < SplitJournalCallback.SEGMENT_HEADER_SIZE
+			|| segment.getInt() != SplitJournalCallback.SEGMENT_MAGIC
+			|| segment.getInt() != SplitJournalCallback.FORMAT_VERSION)
+		{
+			throw new SimonException("Invalid journal segment: " + file);
+		}
+		long createdMillis = segment.getLong();
+		long createdNanos = segment.getLong();
+
+		Map<Integer, String> names = new HashMap<>();
+		while (segment.hasRemaining()) {
+			byte type = segment.get();
+			if (type == SplitJournalCallback.RECORD_SPLIT && segment.remaining() >= SplitJournalCallback.SPLIT_RECORD_SIZE - 1) {
+				String name = names.get(segment.getInt());
+				long start = segment.getLong();
+				long duration = segment.getLong();
+				long threadId = segment.getLong();
+				if (name == null) {
+					throw new SimonException("Undefined stopwatch in journal segment: " + file);
+				}
+				handler.onSplit(name, start, duration, threadId, createdMillis + (start - createdNanos) / SimonClock.NANOS_IN_MILLIS);
+			} else if (type == SplitJournalCallback.RECORD_NAME && segment.remaining() >= 8) {
+				int id = segment.getInt();
+				int length = segment.getInt();
+				if (length > segment.remaining()) {
+					return;
+				}
+				byte[] bytes = new byte[length];
+				segment.get(bytes);
+				names.put(id, new String(bytes, UTF8));
+			} else {
+				// end record or truncated record
+				return;
+			}
+		}
+	}
+
+	/** Handler of split records read from the journal. */
+	public interface SplitRecordHandler {
+
+		/**
+		 * Called for every split record in the journal.
+		 *
+		 * @param stopwatch name of the stopwatch
+		 * @param startNanos start of the split in nanos (as measured by the clock of the original manager)
+		 * @param durationNanos duration of the split in nanos
+		 * @param threadId id of the thread that stopped the split
+		 * @param startMillis approximate start of the split in epoch millis
+		 */
+		void onSplit(String stopwatch, long startNanos, long durationNanos, long threadId, long startMillis);
+	}
+
+	/** Clock driven by the replayed records. */
+	private static final class ReplayClock implements SimonClock {
+
+		private long nanos;
+		private long millis;
+
+		void set(long nanos, long millis) {
+			this.nanos = nanos;
+			this.millis = millis;
+		}
+
+		@Override
+		public long nanoTime() {
+			return nanos;
+		}
+
+		@Override
+		public long milliTime() {
+			return millis;
+		}
+
+		@Override
+		public long millisForNano(long nanos) {
+			return millis + (nanos - this.nanos) / NANOS_IN_MILLIS;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.javasimon;
+
+import org.javasimon.clock.TestClock;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+
+/**
+ * Tests persisting and restoring of Simons by {@link ManagerSnapshotPersister}.
+ */
+public final class ManagerSnapshotPersisterTest {
+
+	private File file;
+
+	@BeforeMethod
+	public void createFile() throws IOException {
+		file = File.createTempFile("simons", ".snapshot");
+		deleteSlots();
+	}
+
+	@AfterMethod
+	public void deleteSlots() {
+		new File(file.getPath() + ".0").delete();
+		new File(file.getPath() + ".1").delete();
+		file.delete();
+	}
+
+	@Test
+	public void persistAndRestore() throws IOException {
+		Manager manager = new EnabledManager();
+		Stopwatch stopwatch = manager.getStopwatch("org.app.stopwatch");
+		stopwatch.addSplit(Split.create(100));
+		stopwatch.addSplit(Split.create(300));
+		stopwatch.setAttribute("serializable", "value");
+		stopwatch.setAttribute("not-serializable", new Object());
+		stopwatch.setNote("note");
+		manager.getCounter("org.app.counter").increase(5);
+		new ManagerSnapshotPersister(manager, file).persist();
+
+		Manager restored = new EnabledManager();
+		Stopwatch restoredStopwatch = restored.getStopwatch("org.app.stopwatch");
+		restoredStopwatch.addSplit(Split.create(200));
+		Assert.assertEquals(new ManagerSnapshotPersister(restored, file).load(), 2);
+
+		Assert.assertEquals(restoredStopwatch.getCounter(), 3);
+		Assert.assertEquals(restoredStopwatch.getTotal(), 600);
+		Assert.assertEquals(restoredStopwatch.getMax(), 300);
+		Assert.assertEquals(restoredStopwatch.getMin(), 100);
+		Assert.assertEquals(restoredStopwatch.getMean(), 200D);
+		Assert.assertEquals(restoredStopwatch.getVariance(), 10000D, 0.001);
+		Assert.assertEquals(restoredStopwatch.getNote(), "note");
+		Assert.assertEquals(restoredStopwatch.getAttribute("serializable"), "value");
+		Assert.assertNull(restoredStopwatch.getAttribute("not-serializable"));
+		Assert.assertEquals(restored.getCounter("org.app.counter").getCounter(), 5);
+		Assert.assertEquals(restored.getCounter("org.app.counter").getIncrementSum(), 5);
+	}
+
+	@Test
+	public void corruptedSlotFallsBackToOlderSnapshot() throws IOException {
+		TestClock clock = new TestClock();
+		Manager manager = new EnabledManager(clock);
+		ManagerSnapshotPersister persister = new ManagerSnapshotPersister(manager, file);
+		manager.getCounter("counter").increase();
+		persister.persist();
+		manager.getCounter("counter").increase();
+		persister.persist();
+
+		try (RandomAccessFile slot = new RandomAccessFile(file.getPath() + ".1", "rw")) {
+			slot.seek(slot.length() - 1);
+			slot.write(0xFF);
+		}
+
+		Manager restored = new EnabledManager();
+		new ManagerSnapshotPersister(restored, file).load();
+		Assert.assertEquals(restored.getCounter("counter").getCounter(), 1);
+	}
+
+	@Test
+	public void newPersisterDoesNotOverwriteNewestSnapshot() throws IOException {
+		Manager manager = new EnabledManager();
+		manager.getCounter("counter").increase();
+		ManagerSnapshotPersister persister = new ManagerSnapshotPersister(manager, file);
+		persister.persist();
+		persister.persist();
+
+		manager.getCounter("counter").increase();
+		new ManagerSnapshotPersister(manager, file).persist();
+
+		Manager restored = new EnabledManager();
+		new ManagerSnapshotPersister(restored, file).load();
+		Assert.assertEquals(restored.getCounter("counter").getCounter(), 2);
+	}
+
+	@Test
+	public void snapshotConfiguration() throws IOException {
+		Manager manager = new EnabledManager();
+		manager.getStopwatch("org.app.stopwatch").addSplit(Split.create(100));
+		new ManagerSnapshotPersister(manager, file).persist();
+
+		Manager restored = new EnabledManager();
+		restored.configuration().readConfig(new StringReader("<simon-configuration>\n" +
+			"  <snapshot file='" + file.getPath() + "'/>\n" +
+			"</simon-configuration>"));
+		Assert.assertNotNull(restored.configuration().getSnapshotPersister());
+		Assert.assertEquals(restored.getStopwatch("org.app.stopwatch").getCounter(), 1);
+	}
+}
@@ -0,0 +1,82 @@
+package org.javasimon.callback;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link ContextSnapshot}.
+ */
+public class ContextSnapshotTest {
+
+	@Test
+	public void testEmptySnapshot() {
+		Manager manager = new EnabledManager();
+		manager.callback().addCallback(new CallbackSkeleton());
+		manager.callback().addCallback(new ThreadNameCallback(null));
+
+		ContextSnapshot snapshot = ContextSnapshot.capture(manager);
+		assertSame(snapshot, ContextSnapshot.EMPTY);
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		assertSame(snapshot.wrap(task), task);
+	}
+
+	@Test
+	public void testPropagation() {
+		Manager manager = new EnabledManager();
+		CompositeCallback composite = new CompositeCallbackImpl();
+		final ThreadNameCallback callback = new ThreadNameCallback("submitter");
+		composite.addCallback(callback);
+		manager.callback().addCallback(composite);
+
+		ContextSnapshot snapshot = ContextSnapshot.capture(manager);
+		final List<String> attached = new ArrayList<>();
+		snapshot.wrap(new Runnable() {
+			@Override
+			public void run() {
+				attached.add(callback.current.get());
+			}
+		}).run();
+
+		assertEquals(attached.get(0), "submitter");
+		assertNull(callback.current.get());
+	}
+
+	/** Propagates a string bound to the thread. */
+	private static class ThreadNameCallback extends CallbackSkeleton implements ContextPropagatingCallback {
+		private final ThreadLocal<String> current = new ThreadLocal<>();
+		private final String captured;
+
+		ThreadNameCallback(String captured) {
+			this.captured = captured;
+		}
+
+		@Override
+		public Object captureContext() {
+			return captured;
+		}
+
+		@Override
+		public Object attachContext(Object context) {
+			String previous = current.get();
+			current.set((String) context);
+			return previous;
+		}
+
+		@Override
+		public void detachContext(Object previous) {
+			current.set((String) previous);
+		}
+	}
+}
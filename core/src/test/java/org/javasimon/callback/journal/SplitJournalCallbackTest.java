@@ -0,0 +1,92 @@
+package org.javasimon.callback.journal;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.utils.SplitJournalReader;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests journaling of splits and replaying the journal with {@link SplitJournalReader}.
+ */
+public class SplitJournalCallbackTest {
+
+	private File directory;
+
+	@BeforeMethod
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("journal", "");
+		Assert.assertTrue(directory.delete());
+		Assert.assertTrue(directory.mkdir());
+	}
+
+	@AfterMethod
+	public void deleteDirectory() {
+		for (File file : SplitJournalCallback.segmentFiles(directory)) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void replayedStatisticsMatchOriginal() throws Exception {
+		final Manager manager = new EnabledManager();
+		SplitJournalCallback callback = new SplitJournalCallback(directory);
+		manager.callback().addCallback(callback);
+
+		Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 1; i <= 1000; i++) {
+					manager.getStopwatch("org.app.sw" + (i % 3)).addSplit(Split.create(i));
+				}
+			}
+		};
+		Thread thread = new Thread(work);
+		thread.start();
+		work.run();
+		thread.join();
+		manager.getStopwatch("org.app.started").start().stop();
+		manager.callback().removeCallback(callback);
+
+		Manager replayed = new SplitJournalReader(directory).replay();
+		for (String name : new String[] {"org.app.sw0", "org.app.sw1", "org.app.sw2", "org.app.started"}) {
+			Stopwatch original = manager.getStopwatch(name);
+			Stopwatch copy = replayed.getStopwatch(name);
+			Assert.assertEquals(copy.getCounter(), original.getCounter(), name);
+			Assert.assertEquals(copy.getTotal(), original.getTotal(), name);
+			Assert.assertEquals(copy.getMax(), original.getMax(), name);
+		}
+	}
+
+	@Test
+	public void segmentsAreRotatedAndBounded() throws IOException {
+		Manager manager = new EnabledManager();
+		SplitJournalCallback callback = new SplitJournalCallback(directory, 4096, 3, 512);
+		manager.callback().addCallback(callback);
+		Stopwatch stopwatch = manager.getStopwatch("org.app.sw");
+		for (int i = 0; i < 10000; i++) {
+			stopwatch.addSplit(Split.create(1));
+		}
+		manager.callback().removeCallback(callback);
+
+		Assert.assertEquals(SplitJournalCallback.segmentFiles(directory).length, 3);
+		final AtomicInteger splits = new AtomicInteger();
+		new SplitJournalReader(directory).read(new SplitJournalReader.SplitRecordHandler() {
+			@Override
+			public void onSplit(String stopwatch, long startNanos, long durationNanos, long threadId, long startMillis) {
+				Assert.assertEquals(stopwatch, "org.app.sw");
+				splits.incrementAndGet();
+			}
+		});
+		Assert.assertTrue(splits.get() > 0 && splits.get() < 10000, "splits: " + splits.get());
+	}
+}
@@ -0,0 +1,140 @@
+package org.javasimon.jmx;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.callback.quantiles.BucketsType;
+import org.javasimon.callback.quantiles.FixedQuantilesCallback;
+import org.javasimon.clock.SimonClock;
+import org.javasimon.clock.TestClock;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+/**
+ * Unit test for {@link ThresholdEvaluator}.
+ */
+public class ThresholdEvaluatorTest {
+
+	private TestClock clock;
+	private EnabledManager manager;
+	private SimonManagerMXBeanImpl mxBean;
+	private List<Notification> notifications;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		clock = new TestClock();
+		manager = new EnabledManager(clock);
+		mxBean = new SimonManagerMXBeanImpl(manager);
+		notifications = new ArrayList<>();
+		mxBean.addNotificationListener(new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification, Object handback) {
+				notifications.add(notification);
+			}
+		}, null, null);
+	}
+
+	@Test
+	public void meanBreachIsCoalescedAndRecovers() {
+		mxBean.addThreshold("app.*", "mean", 100);
+		Stopwatch stopwatchA = manager.getStopwatch("app.a");
+		Stopwatch stopwatchB = manager.getStopwatch("app.b");
+		stopwatchA.addSplit(Split.create(200, clock));
+		stopwatchB.addSplit(Split.create(300, clock));
+
+		mxBean.getThresholdEvaluator().evaluate();
+		Assert.assertEquals(notifications.size(), 1);
+		Notification notification = notifications.get(0);
+		Assert.assertEquals(notification.getType(), ThresholdEvaluator.NOTIFICATION_BREACH);
+		ThresholdBreach[] breaches = (ThresholdBreach[]) notification.getUserData();
+		Assert.assertEquals(breaches.length, 2);
+
+		// still breaching - no new notification
+		stopwatchA.addSplit(Split.create(200, clock));
+		mxBean.getThresholdEvaluator().evaluate();
+		Assert.assertEquals(notifications.size(), 1);
+
+		// mean of the last period only is considered
+		stopwatchA.addSplit(Split.create(50, clock));
+		mxBean.getThresholdEvaluator().evaluate();
+		Assert.assertEquals(notifications.size(), 2);
+		Assert.assertEquals(notifications.get(1).getType(), ThresholdEvaluator.NOTIFICATION_RECOVERY);
+		breaches = (ThresholdBreach[]) notifications.get(1).getUserData();
+		Assert.assertEquals(breaches.length, 1);
+		Assert.assertEquals(breaches[0].getName(), "app.a");
+		Assert.assertEquals(breaches[0].getValue(), 50D);
+	}
+
+	@Test
+	public void counterRate() {
+		mxBean.addThreshold("app.counter", "counter-rate", 5);
+		clock.setMillisNanosFollow(1000);
+		mxBean.getThresholdEvaluator().start(1, TimeUnit.DAYS);
+		try {
+			manager.getCounter("app.counter").increase(20);
+			clock.setMillisNanosFollow(3000);
+			mxBean.getThresholdEvaluator().evaluate();
+			Assert.assertEquals(notifications.size(), 1);
+			ThresholdBreach breach = ((ThresholdBreach[]) notifications.get(0).getUserData())[0];
+			Assert.assertEquals(breach.getValue(), 10D);
+		} finally {
+			mxBean.stopThresholdEvaluation();
+		}
+		Assert.assertFalse(mxBean.isThresholdEvaluationRunning());
+	}
+
+	@Test
+	public void percentileOfLastPeriod() {
+		manager.callback().addCallback(new FixedQuantilesCallback(BucketsType.LINEAR, 0, 1000, 10));
+		mxBean.addThreshold("app.*", "P99", 500 * SimonClock.NANOS_IN_MILLIS);
+		Stopwatch stopwatch = manager.getStopwatch("app.a");
+		measure(stopwatch, 100, 950 * SimonClock.NANOS_IN_MILLIS);
+		mxBean.getThresholdEvaluator().evaluate();
+		Assert.assertEquals(notifications.size(), 1);
+		Assert.assertEquals(notifications.get(0).getType(), ThresholdEvaluator.NOTIFICATION_BREACH);
+
+		// slow splits of the previous period do not count anymore
+		measure(stopwatch, 100, 150 * SimonClock.NANOS_IN_MILLIS);
+		mxBean.getThresholdEvaluator().evaluate();
+		Assert.assertEquals(notifications.size(), 2);
+		Assert.assertEquals(notifications.get(1).getType(), ThresholdEvaluator.NOTIFICATION_RECOVERY);
+		ThresholdBreach recovery = ((ThresholdBreach[]) notifications.get(1).getUserData())[0];
+		Assert.assertEquals(recovery.getValue(), 199.0 * SimonClock.NANOS_IN_MILLIS, SimonClock.NANOS_IN_MILLIS);
+	}
+
+	/** Measures splits on the stopwatch so that callbacks get them too. */
+	private void measure(Stopwatch stopwatch, int count, long nanos) {
+		for (int i = 0; i < count; i++) {
+			clock.setNanos(clock.nanoTime() + 1);
+			Split split = stopwatch.start();
+			clock.setNanos(clock.nanoTime() + nanos);
+			split.stop();
+		}
+	}
+
+	@Test
+	public void stopWithoutStartEndsIncrementalSampling() {
+		mxBean.addThreshold("app.*", "mean", 100);
+		Stopwatch stopwatch = manager.getStopwatch("app.a");
+		ThresholdEvaluator evaluator = mxBean.getThresholdEvaluator();
+		evaluator.evaluate();
+		evaluator.stop();
+		Assert.assertFalse(stopwatch.stopIncrementalSampling(evaluator));
+	}
+
+	@Test
+	public void thresholdsManagement() {
+		mxBean.addThreshold("app.*", "max", 100);
+		mxBean.addThreshold("other.*", "P99", 100);
+		Assert.assertEquals(mxBean.getThresholds().length, 2);
+		mxBean.removeThresholds("app.*");
+		Assert.assertEquals(mxBean.getThresholds(), new String[] {"other.* P99 > 100.0"});
+	}
+}
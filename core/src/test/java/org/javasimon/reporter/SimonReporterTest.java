@@ -0,0 +1,212 @@
+package org.javasimon.reporter;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.Split;
+import org.javasimon.clock.TestClock;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests {@link SimonReporter} with all encoders and transports.
+ */
+public final class SimonReporterTest {
+
+	private TestClock clock;
+	private Manager manager;
+
+	@BeforeMethod
+	public void setUp() {
+		clock = new TestClock();
+		clock.setMillisNanosFollow(1400000000000L);
+		manager = new EnabledManager(clock);
+		manager.getStopwatch("org.app.service").addSplit(Split.create(100, clock));
+		manager.getStopwatch("org.app.service").addSplit(Split.create(250, clock));
+		manager.getCounter("org.app.counter").increase(3);
+	}
+
+	@Test
+	public void graphiteEncoding() throws IOException {
+		CollectingTransport transport = new CollectingTransport(1024);
+		new SimonReporter(manager, new GraphiteEncoder("app"), transport).report();
+
+		Assert.assertEquals(transport.batches.size(), 1);
+		Assert.assertEquals(sortedLines(transport.batches.get(0)), Arrays.asList(
+			"app.org.app.counter.decrements 0 1400000000",
+			"app.org.app.counter.increments 3 1400000000",
+			"app.org.app.counter.value 3 1400000000",
+			"app.org.app.service.count 2 1400000000",
+			"app.org.app.service.max 250 1400000000",
+			"app.org.app.service.mean 175 1400000000",
+			"app.org.app.service.min 100 1400000000",
+			"app.org.app.service.total 350 1400000000"));
+	}
+
+	@Test
+	public void influxEncodingReportsIncrements() throws IOException {
+		CollectingTransport transport = new CollectingTransport(1024);
+		SimonReporter reporter = new SimonReporter(manager, new InfluxLineEncoder(), transport);
+		reporter.setPattern("org.app.service");
+		reporter.report();
+		manager.getStopwatch("org.app.service").addSplit(Split.create(1, clock));
+		reporter.report();
+		reporter.report();
+
+		Assert.assertEquals(transport.batches.get(0),
+			"javasimon,type=stopwatch,simon=org.app.service count=2i,total=350i,min=100i,max=250i,mean=175 1400000000000000000\n");
+		Assert.assertEquals(transport.batches.get(1),
+			"javasimon,type=stopwatch,simon=org.app.service count=1i,total=1i,min=1i,max=1i,mean=1 1400000000000000000\n");
+		Assert.assertEquals(transport.batches.get(2),
+			"javasimon,type=stopwatch,simon=org.app.service count=0i,total=0i 1400000000000000000\n");
+	}
+
+	@Test
+	public void statsDOverUdpIsSplitIntoPackets() throws IOException {
+		try (DatagramChannel server = DatagramChannel.open()) {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			SimonReporter reporter = new SimonReporter(manager, new StatsDEncoder(),
+				new UdpTransport(server.getLocalAddress(), 160));
+			reporter.report();
+			reporter.stop();
+
+			Assert.assertEquals(reporter.getSentBatches(), 2);
+			Set<String> packets = new HashSet<>(Arrays.asList(receive(server), receive(server)));
+			Assert.assertEquals(packets, new HashSet<>(Arrays.asList(
+				"org.app.counter.value:3|g\norg.app.counter.increments:3|c\norg.app.counter.decrements:0|c\n",
+				"org.app.service.count:2|c\norg.app.service.total:350|c\norg.app.service.min:100|g\n" +
+					"org.app.service.max:250|g\norg.app.service.mean:175|g\n")));
+		}
+	}
+
+	@Test
+	public void graphiteOverTcp() throws Exception {
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			SimonReporter reporter = new SimonReporter(manager, new GraphiteEncoder(),
+				new TcpTransport(new InetSocketAddress(server.getInetAddress(), server.getLocalPort())));
+			reporter.setPattern("org.app.counter");
+			reporter.report();
+			try (Socket socket = server.accept()) {
+				reporter.stop();
+				String received = read(socket.getInputStream());
+				Assert.assertTrue(received.startsWith("org.app.counter.value 3 1400000000\n"), received);
+			}
+		}
+	}
+
+	@Test
+	public void fileTransportAppends() throws IOException {
+		File file = File.createTempFile("metrics", ".txt");
+		try {
+			SimonReporter reporter = new SimonReporter(manager, new GraphiteEncoder(), new FileTransport(file));
+			reporter.setPattern("org.app.counter");
+			reporter.report();
+			reporter.report();
+			reporter.stop();
+
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII);
+			Assert.assertEquals(lines.size(), 6);
+			Assert.assertEquals(lines.get(4), "org.app.counter.increments 0 1400000000");
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void failedBatchIsDropped() {
+		CollectingTransport transport = new CollectingTransport(1024);
+		transport.fail = true;
+		SimonReporter reporter = new SimonReporter(manager, new GraphiteEncoder(), transport);
+		reporter.report();
+		Assert.assertEquals(reporter.getDroppedBatches(), 1);
+		Assert.assertEquals(reporter.getSentBatches(), 0);
+
+		transport.fail = false;
+		reporter.report();
+		Assert.assertEquals(reporter.getSentBatches(), 1);
+	}
+
+	@Test
+	public void encodedNumbers() {
+		ByteBuffer buffer = ByteBuffer.allocate(128);
+		MetricEncoder.putLong(buffer, Long.MIN_VALUE);
+		buffer.put((byte) ' ');
+		MetricEncoder.putLong(buffer, -1203);
+		buffer.put((byte) ' ');
+		MetricEncoder.putDouble(buffer, 12.5);
+		buffer.put((byte) ' ');
+		MetricEncoder.putDouble(buffer, -0.0304);
+		buffer.put((byte) ' ');
+		MetricEncoder.putDouble(buffer, Double.NaN);
+		buffer.flip();
+		Assert.assertEquals(StandardCharsets.US_ASCII.decode(buffer).toString(), Long.MIN_VALUE + " -1203 12.5 -0.03 0");
+	}
+
+	private static List<String> sortedLines(String text) {
+		List<String> lines = new ArrayList<>(Arrays.asList(text.split("\n")));
+		Collections.sort(lines);
+		return lines;
+	}
+
+	private static String receive(DatagramChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(2048);
+		channel.receive(buffer);
+		buffer.flip();
+		return StandardCharsets.US_ASCII.decode(buffer).toString();
+	}
+
+	private static String read(InputStream inputStream) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = inputStream.read()) != -1) {
+			sb.append((char) c);
+		}
+		return sb.toString();
+	}
+
+	private static final class CollectingTransport implements MetricTransport {
+
+		private final int batchSize;
+		private final List<String> batches = new ArrayList<>();
+		private boolean fail;
+
+		CollectingTransport(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public int getMaxBatchSize() {
+			return batchSize;
+		}
+
+		@Override
+		public void send(ByteBuffer batch) throws IOException {
+			if (fail) {
+				throw new IOException("failure");
+			}
+			batches.add(StandardCharsets.US_ASCII.decode(batch).toString());
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.javasimon.utils;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.Stopwatch;
+import org.javasimon.SwitchingManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link ManagerCache}.
+ */
+public final class ManagerCacheTest {
+
+	@Test
+	public void cachedValuesAreKept() {
+		Manager manager = new EnabledManager();
+		ManagerCache<String, Stopwatch> cache = new ManagerCache<>(manager);
+		Stopwatch stopwatch = manager.getStopwatch("cache.a");
+		cache.map().put("a", stopwatch);
+		manager.getStopwatch("cache.b");
+
+		Assert.assertSame(cache.map().get("a"), stopwatch);
+		Assert.assertSame(cache.getManager(), manager);
+	}
+
+	@Test
+	public void clearDropsCache() {
+		Manager manager = new EnabledManager();
+		ManagerCache<String, Stopwatch> cache = new ManagerCache<>(manager);
+		cache.map().put("a", manager.getStopwatch("cache.a"));
+		manager.clear();
+
+		Assert.assertTrue(cache.map().isEmpty());
+	}
+
+	@Test
+	public void destroySimonDropsCache() {
+		Manager manager = new EnabledManager();
+		ManagerCache<String, Stopwatch> cache = new ManagerCache<>(manager);
+		ManagerCache<String, Stopwatch> otherCache = new ManagerCache<>(manager);
+		cache.map().put("a", manager.getStopwatch("cache.a"));
+		otherCache.map().put("b", manager.getStopwatch("cache.b"));
+		manager.destroySimon("cache.a");
+
+		Assert.assertTrue(cache.map().isEmpty());
+		Assert.assertTrue(otherCache.map().isEmpty());
+		// one counting callback per manager
+		Assert.assertEquals(manager.callback().callbacks().size(), 1);
+	}
+
+	@Test
+	public void removedCallbacksAreRegisteredAgain() {
+		Manager manager = new EnabledManager();
+		ManagerCache<String, Stopwatch> cache = new ManagerCache<>(manager);
+		cache.map().put("a", manager.getStopwatch("cache.a"));
+		manager.callback().removeAllCallbacks();
+		Assert.assertTrue(cache.map().isEmpty());
+		Assert.assertEquals(manager.callback().callbacks().size(), 1);
+
+		cache.map().put("b", manager.getStopwatch("cache.b"));
+		manager.destroySimon("cache.b");
+		Assert.assertTrue(cache.map().isEmpty());
+		Assert.assertEquals(manager.callback().callbacks().size(), 1);
+	}
+
+	@Test
+	public void switchingManager() {
+		SwitchingManager manager = new SwitchingManager();
+		ManagerCache<String, Stopwatch> cache = new ManagerCache<>(manager);
+		cache.map().put("a", manager.getStopwatch("cache.a"));
+		manager.disable();
+		Assert.assertTrue(cache.map().isEmpty());
+		cache.map().put("a", manager.getStopwatch("cache.a"));
+		manager.enable();
+		Assert.assertTrue(cache.map().isEmpty());
+
+		cache.map().put("a", manager.getStopwatch("cache.a"));
+		manager.destroySimon("cache.a");
+		Assert.assertTrue(cache.map().isEmpty());
+	}
+}
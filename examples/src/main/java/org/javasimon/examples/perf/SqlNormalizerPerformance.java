@@ -0,0 +1,130 @@
+package org.javasimon.examples.perf;
+
+import org.javasimon.StopwatchSample;
+import org.javasimon.jdbc4.SqlNormalizer;
+import org.javasimon.utils.BenchmarkUtils;
+import org.javasimon.utils.GoogleChartImageGenerator;
+import org.javasimon.utils.Replacer;
+
+/**
+ * Compares single-pass {@link SqlNormalizer} with the previous chain of regular expressions on ~10KB statements
+ * (long {@code in} lists and many predicates with function calls). Before the benchmark both normalizations
+ * of the statements are printed to check that the results are the same.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+@SuppressWarnings("UnusedDeclaration")
+public final class SqlNormalizerPerformance {
+
+	private static final int LOOP = 2000;
+
+	private static final int STATEMENT_SIZE = 10000;
+
+	private static final Replacer[] FIRST_REPLACERS = {
+		new Replacer("''", "?"),
+		new Replacer(" *([-=<>!+*/,]+) *", "$1"),
+		new Replacer("([-=<>!+*/]+)", " $1 "),
+		new Replacer("\\s+", " "),
+		new Replacer("(create|alter|drop) (\\S+) ([^ (]+).*$", "$1 $2 $3"),
+		new Replacer("([-=<>!+*/,.(]+\\s?)(?:(?:'[^']+')|(?:[0-9.]+))", "$1?"),
+		new Replacer("like '[^']+'", "like ?"),
+		new Replacer("between \\S+ and \\S+", "between ? and ?"),
+		new Replacer(" in\\(", " in ("),
+		new Replacer("^\\{|\\}$", ""),
+		new Replacer("^\\s*begin", "call"),
+		new Replacer(";?\\s*end;?$", ""),
+	};
+
+	private static final Replacer[] SECOND_REPLACERS = {
+		new Replacer(",", ", "),
+		new Replacer(" in \\(\\?(?:, \\?)*\\)", " in (?)"),
+	};
+
+	private static final Replacer FUNCTION_REPLACER =
+		new Replacer("([-(=<>!+*/,]+\\s?)\\w+\\([^()]*\\)", "$1?", Replacer.Modificator.REPEAT_UNTIL_UNCHANGED);
+
+	private static final Replacer TYPE_SELECTOR = new Replacer("^\\W*(\\w+)\\W.*", "$1");
+
+	private SqlNormalizerPerformance() {
+	}
+
+	/**
+	 * Entry point of the demo application.
+	 *
+	 * @param args command line arguments
+	 */
+	public static void main(String[] args) {
+		final String[] statements = {inListSelect(), predicateUpdate()};
+		for (String statement : statements) {
+			String regex = regexNormalize(statement);
+			String lexer = new SqlNormalizer(statement).getNormalizedSql();
+			System.out.println("Statement length: " + statement.length() + ", same result: " + regex.equals(lexer)
+				+ ", normalized: " + lexer.substring(0, Math.min(lexer.length(), 200)));
+		}
+
+		StopwatchSample[] results = BenchmarkUtils.run(2, 5,
+			new BenchmarkUtils.Task("regex") {
+				@Override
+				public void perform() throws Exception {
+					for (int i = 0; i < LOOP; i++) {
+						for (String statement : statements) {
+							regexNormalize(statement);
+						}
+					}
+				}
+			},
+			new BenchmarkUtils.Task("lexer") {
+				@Override
+				public void perform() throws Exception {
+					for (int i = 0; i < LOOP; i++) {
+						for (String statement : statements) {
+							new SqlNormalizer(statement).getNormalizedSql();
+						}
+					}
+				}
+			}
+		);
+
+		System.out.println("\nGoogle Chart avg:\n" +
+			GoogleChartImageGenerator.barChart("SQL normalization of " + LOOP + "x2 10KB statements", results));
+	}
+
+	private static String inListSelect() {
+		StringBuilder sb = new StringBuilder("SELECT id, name, sum(amount) FROM orders o WHERE o.state = 'OPEN' AND o.id IN (");
+		for (int i = 0; sb.length() < STATEMENT_SIZE; i++) {
+			sb.append(i > 0 ? ", " : "").append(100000 + i);
+		}
+		return sb.append(") GROUP BY id, name").toString();
+	}
+
+	private static String predicateUpdate() {
+		StringBuilder sb = new StringBuilder("UPDATE orders SET state='CLOSED', updated=sysdate() WHERE 1=1");
+		for (int i = 0; sb.length() < STATEMENT_SIZE; i++) {
+			sb.append("\n  AND (col").append(i).append(" >= to_date('").append(i % 28 + 1)
+				.append(".6.2015', 'dd.mm.yyyy') OR col").append(i).append(" like 'value").append(i).append("%')");
+		}
+		return sb.toString();
+	}
+
+	/** Normalization as it was implemented by the chain of regular expressions. */
+	private static String regexNormalize(String sql) {
+		String normalizedSql = sql.toLowerCase().trim();
+		for (Replacer replacer : FIRST_REPLACERS) {
+			normalizedSql = replacer.process(normalizedSql);
+		}
+		String type = TYPE_SELECTOR.process(normalizedSql);
+		if (type.equals("select")) {
+			String[] sa = normalizedSql.split(" from ", 2);
+			if (sa.length == 2) {
+				normalizedSql = sa[0] + " from " + FUNCTION_REPLACER.process(sa[1]);
+			}
+		} else {
+			normalizedSql = FUNCTION_REPLACER.process(normalizedSql);
+		}
+		for (Replacer replacer : SECOND_REPLACERS) {
+			normalizedSql = replacer.process(normalizedSql);
+		}
+		return normalizedSql;
+	}
+}
@@ -0,0 +1,107 @@
+package org.javasimon.javaee;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper counting the size of the response body written by the application. Bytes are counted
+ * for the output stream, characters for the writer (exact for single-byte encodings, approximation otherwise).
+ * Status code is taken from the wrapped response ({@link HttpServletResponse#getStatus()}).
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+	private long size;
+
+	private ServletOutputStream outputStream;
+
+	private PrintWriter writer;
+
+	CountingResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+
+	/**
+	 * Returns size of the body written so far.
+	 *
+	 * @return bytes written to the output stream plus characters written to the writer
+	 */
+	long getSize() {
+		return size;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			outputStream = new CountingOutputStream(super.getOutputStream());
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new CountingWriter(super.getWriter());
+		}
+		return writer;
+	}
+
+	private final class CountingOutputStream extends ServletOutputStream {
+		private final ServletOutputStream delegate;
+
+		CountingOutputStream(ServletOutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write(b);
+			size++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write(b, off, len);
+			size += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+
+	private final class CountingWriter extends PrintWriter {
+		CountingWriter(PrintWriter delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public void write(int c) {
+			super.write(c);
+			size++;
+		}
+
+		@Override
+		public void write(char[] buf, int off, int len) {
+			super.write(buf, off, len);
+			size += len;
+		}
+
+		@Override
+		public void write(String s, int off, int len) {
+			super.write(s, off, len);
+			size += len;
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package org.javasimon.javaee;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.servlet.http.HttpServletRequest;
 
 import org.javasimon.Manager;
@@ -17,6 +20,13 @@ import org.javasimon.utils.Replacer;
  * <p/>
  * To select which HTTP Request should be monitored method {@link #isMonitored} can be overridden. Default implementation monitors everything except for
  * typical resource-like requests (images, JS/CSS, ...).
+ * <p/>
+ * URIs containing IDs can be mapped to stable Simon names with URI templates (see {@link #setUriTemplates(String)}),
+ * e.g. {@code /orders/{id}/items} is monitored as {@code <prefix>.orders._id_.items} for all IDs. Templates are matched
+ * by {@link UriTemplateMatcher} against the request URI without path parameters (like {@code ;jsessionid=...}) and resolved
+ * names are cached by this URI. Cache is bounded by {@link #setUriCacheSize(int)} and it is cleared when it is full.
+ * URIs not matching any template are named the default way (see {@link #getMonitorName(javax.servlet.http.HttpServletRequest)})
+ * and they are not cached. Cache hits and unmatched URIs are counted, see {@link #getUriCacheHits()} and {@link #getUnmatchedUris()}.
  *
  * @author gquintana
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
@@ -45,6 +55,11 @@ public class HttpStopwatchSource extends AbstractStopwatchSource<HttpServletRequ
 	 */
 	private static final String GET_METHOD = "GET";
 
+	/**
+	 * Default maximal count of URIs in the cache of resolved Simon names.
+	 */
+	public static final int DEFAULT_URI_CACHE_SIZE = 1000;
+
 	/**
 	 * Simon prefix, can be set to {@code null}.
 	 */
@@ -56,6 +71,12 @@ public class HttpStopwatchSource extends AbstractStopwatchSource<HttpServletRequ
 	private Replacer jsessionParameterReplacer = new Replacer("[;&]?JSESSIONID=[^;?/&]*", "", Replacer.Modificator.IGNORE_CASE);
 	private Replacer trailingStuffReplacer = new Replacer("/[^a-zA-Z]*$", "");
 
+	private volatile UriTemplateMatcher uriTemplateMatcher;
+	private final ConcurrentMap<String, String> uriCache = new ConcurrentHashMap<>();
+	private volatile int uriCacheSize = DEFAULT_URI_CACHE_SIZE;
+	private final AtomicLong uriCacheHits = new AtomicLong();
+	private final AtomicLong unmatchedUris = new AtomicLong();
+
 	public HttpStopwatchSource(Manager manager) {
 		super(manager);
 	}
@@ -66,6 +87,7 @@ public class HttpStopwatchSource extends AbstractStopwatchSource<HttpServletRequ
 
 	public void setPrefix(String prefix) {
 		this.prefix = prefix;
+		uriCache.clear();
 	}
 
 	public String getReplaceUnallowed() {
@@ -74,6 +96,83 @@ public class HttpStopwatchSource extends AbstractStopwatchSource<HttpServletRequ
 
 	public void setReplaceUnallowed(String replaceUnallowed) {
 		unallowedCharacterReplacer.setTo(replaceUnallowed);
+		uriCache.clear();
+	}
+
+	/**
+	 * Returns configured URI templates separated by commas.
+	 *
+	 * @return URI templates or {@code null} if templates are not used
+	 * @since 4.2
+	 */
+	public String getUriTemplates() {
+		UriTemplateMatcher matcher = uriTemplateMatcher;
+		if (matcher == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (String template : matcher.getTemplates()) {
+			if (sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(template);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Sets URI templates like {@code /orders/{id}/items} separated by commas (or whitespaces), each template
+	 * is monitored by a single Simon. Names resolved for request URIs matching a template are cached by the URI
+	 * without path parameters.
+	 *
+	 * @param uriTemplates URI templates, {@code null} or empty string disables templates
+	 * @since 4.2
+	 */
+	public void setUriTemplates(String uriTemplates) {
+		uriTemplateMatcher = uriTemplates == null || uriTemplates.trim().isEmpty() ? null : UriTemplateMatcher.parse(uriTemplates);
+		uriCache.clear();
+	}
+
+	/**
+	 * Returns maximal count of URIs in the cache of resolved Simon names.
+	 *
+	 * @return URI cache size
+	 * @since 4.2
+	 */
+	public int getUriCacheSize() {
+		return uriCacheSize;
+	}
+
+	/**
+	 * Sets maximal count of URIs in the cache of resolved Simon names (used only with URI templates), the cache
+	 * is cleared when it is full. Names for URIs not matching any template are resolved again for each request.
+	 *
+	 * @param uriCacheSize URI cache size, 0 disables the cache
+	 * @since 4.2
+	 */
+	public void setUriCacheSize(int uriCacheSize) {
+		this.uriCacheSize = uriCacheSize;
+		uriCache.clear();
+	}
+
+	/**
+	 * Returns count of requests with Simon name found in the URI cache.
+	 *
+	 * @return count of URI cache hits
+	 * @since 4.2
+	 */
+	public long getUriCacheHits() {
+		return uriCacheHits.get();
+	}
+
+	/**
+	 * Returns count of requests with URI not matching any URI template.
+	 *
+	 * @return count of unmatched URIs
+	 * @since 4.2
+	 */
+	public long getUnmatchedUris() {
+		return unmatchedUris.get();
 	}
 
 	/**
@@ -103,20 +202,16 @@ public class HttpStopwatchSource extends AbstractStopwatchSource<HttpServletRequ
 	 * <li>the characters that are not allowed as part of the Simon name are replaced with underscore (_) - replacement regex can be changed with {@link #setReplaceUnallowed(String)},</li>
 	 * <li>any subsequent slashes and dots are replaced with a single dot ({@link org.javasimon.Manager#HIERARCHY_DELIMITER})</li>
 	 * </ol>
+	 * If URI templates are set, template matching the URI is used instead of the result of the first step
+	 * and the name is cached for the URI.
 	 *
 	 * @param request HTTP request
 	 * @return fully qualified name of the Simon
 	 * @see #requestToStringForMonitorName(javax.servlet.http.HttpServletRequest)
 	 */
 	protected String getMonitorName(HttpServletRequest request) {
-		String uri = requestToStringForMonitorName(request);
-		String localName = SimonServletFilterUtils.getSimonName(uri, unallowedCharacterReplacer);
-		String monitorName;
-		if (prefix == null || prefix.isEmpty()) {
-			monitorName = localName;
-		} else {
-			monitorName = prefix + Manager.HIERARCHY_DELIMITER + localName;
-		}
+		UriTemplateMatcher matcher = uriTemplateMatcher;
+		String monitorName = matcher != null ? getTemplateMonitorName(request, matcher) : getUriMonitorName(requestToStringForMonitorName(request));
 
 		if (includeMethodName(request)) {
 			monitorName += Manager.HIERARCHY_DELIMITER + request.getMethod();
@@ -125,6 +220,63 @@ public class HttpStopwatchSource extends AbstractStopwatchSource<HttpServletRequ
 		return monitorName;
 	}
 
+	private String getUriMonitorName(String uri) {
+		String localName = SimonServletFilterUtils.getSimonName(uri, unallowedCharacterReplacer);
+		if (prefix == null || prefix.isEmpty()) {
+			return localName;
+		}
+		return prefix + Manager.HIERARCHY_DELIMITER + localName;
+	}
+
+	private String getTemplateMonitorName(HttpServletRequest request, UriTemplateMatcher matcher) {
+		String uri = removePathParameters(request.getRequestURI());
+		String monitorName = uriCache.get(uri);
+		if (monitorName != null) {
+			uriCacheHits.incrementAndGet();
+			return monitorName;
+		}
+		String template = matcher.match(uri);
+		if (template == null) {
+			// unmatched URIs are not cached, there may be any number of them
+			unmatchedUris.incrementAndGet();
+			return getUriMonitorName(requestToStringForMonitorName(request));
+		}
+		monitorName = getUriMonitorName(template);
+		int cacheSize = uriCacheSize;
+		if (cacheSize > 0) {
+			if (uriCache.size() >= cacheSize) {
+				// URIs of the frequent requests are cached again soon
+				uriCache.clear();
+			}
+			uriCache.putIfAbsent(uri, monitorName);
+		}
+		return monitorName;
+	}
+
+	/**
+	 * Removes path parameters ({@code ;jsessionid=...} or any other {@code ;param}) from all segments of the URI.
+	 *
+	 * @param uri request URI
+	 * @return URI without path parameters
+	 */
+	static String removePathParameters(String uri) {
+		int semicolon = uri.indexOf(';');
+		if (semicolon < 0) {
+			return uri;
+		}
+		StringBuilder sb = new StringBuilder(uri.length());
+		int from = 0;
+		while (semicolon >= 0) {
+			sb.append(uri, from, semicolon);
+			from = uri.indexOf('/', semicolon);
+			if (from < 0) {
+				return sb.toString();
+			}
+			semicolon = uri.indexOf(';', from);
+		}
+		return sb.append(uri, from, uri.length()).toString();
+	}
+
 	private boolean includeMethodName(HttpServletRequest request) {
 		return includeHttpMethodName == IncludeHttpMethodName.ALWAYS ||
 				(includeHttpMethodName == IncludeHttpMethodName.NON_GET && !request.getMethod().equals(GET_METHOD));
@@ -5,6 +5,7 @@ import java.lang.reflect.Method;
 import javax.interceptor.InvocationContext;
 
 import org.javasimon.Manager;
+import org.javasimon.aop.Monitored;
 import org.javasimon.source.AbstractMethodStopwatchSource;
 
 /**
@@ -47,7 +48,8 @@ public class MethodStopwatchSource extends AbstractMethodStopwatchSource<Invocat
 
 	/**
 	 * Returns Simon name for the specified Invocation context.
-	 * By default it contains the prefix + method name.
+	 * By default it contains the prefix + method name, {@link Monitored} annotation is applied if present
+	 * (see {@link #getMonitorName(String, java.lang.reflect.Method)}).
 	 * This method can be overridden.
 	 *
 	 * @param context Invocation context
@@ -55,8 +57,34 @@ public class MethodStopwatchSource extends AbstractMethodStopwatchSource<Invocat
 	 * @since 3.1
 	 */
 	protected String getMonitorName(InvocationContext context) {
-		String className = context.getMethod().getDeclaringClass().getSimpleName();
-		String methodName = context.getMethod().getName();
-		return prefix + Manager.HIERARCHY_DELIMITER + className + Manager.HIERARCHY_DELIMITER + methodName;
+		return getMonitorName(prefix, context.getMethod());
+	}
+
+	/**
+	 * Returns Simon name for the method. Default name is {@code prefix.SimpleClassName.methodName}, {@link Monitored}
+	 * annotation on the method or its declaring class changes it following the rules of the annotation -
+	 * name of the class annotation replaces {@code prefix.SimpleClassName}, suffix of the method annotation replaces
+	 * the method name and name of the method annotation is used as the whole name.
+	 *
+	 * @param prefix Simon name prefix
+	 * @param method invoked method
+	 * @return fully qualified name of the Simon
+	 * @since 4.2
+	 */
+	public static String getMonitorName(String prefix, Method method) {
+		Monitored methodAnnotation = method.getAnnotation(Monitored.class);
+		if (methodAnnotation != null && !methodAnnotation.name().isEmpty()) {
+			return methodAnnotation.name();
+		}
+
+		Class<?> declaringClass = method.getDeclaringClass();
+		Monitored classAnnotation = declaringClass.getAnnotation(Monitored.class);
+		String name = classAnnotation != null && !classAnnotation.name().isEmpty()
+			? classAnnotation.name()
+			: prefix + Manager.HIERARCHY_DELIMITER + declaringClass.getSimpleName();
+		String suffix = methodAnnotation != null && !methodAnnotation.suffix().isEmpty()
+			? methodAnnotation.suffix()
+			: method.getName();
+		return name + Manager.HIERARCHY_DELIMITER + suffix;
 	}
 }
@@ -0,0 +1,237 @@
+package org.javasimon.javaee;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.ServletRequest;
+
+import org.javasimon.Split;
+
+/**
+ * Monitoring context of one HTTP request measured by {@link SimonServletFilter}, stored as request attribute
+ * {@link #ATTRIBUTE}. Context holds the request split and the {@link RequestTrace} of splits stopped for the request
+ * (if the threshold reporting is enabled) and it lives as long as the request - also across asynchronous processing
+ * ({@code request.startAsync()}) where the request split is stopped when the async processing completes.
+ * <p/>
+ * Splits stopped in the request thread during the dispatch are recorded automatically. Work executed
+ * on other threads can be attached to the request explicitly:
+ * <pre>
+ * RequestContext context = RequestContext.get(request);
+ * executor.submit(context.wrap(task));</pre>
+ * Wrapped task binds the context to the executing thread only while it runs, or splits can be added
+ * by {@link #addSplit(Split)} directly. When the splits of the request are recorded, the context is also captured
+ * by {@link org.javasimon.callback.ContextSnapshot}, so executors using the snapshot propagate it automatically.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class RequestContext {
+
+	/** Name of the request attribute holding the context. */
+	public static final String ATTRIBUTE = RequestContext.class.getName();
+
+	/** Context bound to the thread that currently works on the request. */
+	private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+	private final SimonServletFilter filter;
+
+	private final Split split;
+
+	private final RequestTrace trace;
+
+	private final AtomicBoolean finished = new AtomicBoolean();
+
+	private volatile boolean asyncListenerRegistered;
+
+	private volatile CountingResponseWrapper response;
+
+	private volatile boolean failed;
+
+	/**
+	 * Creates the context for the request split.
+	 *
+	 * @param filter filter measuring the request
+	 * @param split request split
+	 * @param trace trace for splits of the request or {@code null} if splits are not recorded
+	 */
+	RequestContext(SimonServletFilter filter, Split split, RequestTrace trace) {
+		this.filter = filter;
+		this.split = split;
+		this.trace = trace;
+	}
+
+	/**
+	 * Returns monitoring context of the request.
+	 *
+	 * @param request servlet request
+	 * @return request context or {@code null} if the request is not monitored
+	 */
+	public static RequestContext get(ServletRequest request) {
+		Object context = request.getAttribute(ATTRIBUTE);
+		return context instanceof RequestContext ? (RequestContext) context : null;
+	}
+
+	/**
+	 * Returns context bound to the current thread.
+	 *
+	 * @return request context or {@code null} if the thread does not work on a monitored request
+	 */
+	public static RequestContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds the context to the current thread.
+	 *
+	 * @return previously bound context that should be restored by {@link #unbind(RequestContext)}
+	 */
+	RequestContext bind() {
+		RequestContext previous = CURRENT.get();
+		CURRENT.set(this);
+		return previous;
+	}
+
+	/**
+	 * Restores previously bound context of the current thread.
+	 *
+	 * @param previous context returned by {@link #bind()}
+	 */
+	static void unbind(RequestContext previous) {
+		if (previous != null) {
+			CURRENT.set(previous);
+		} else {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * Returns wrapper of the task that executes the task with this context bound to the executing thread.
+	 *
+	 * @param task task executed for the request
+	 * @return wrapped task
+	 */
+	public Runnable wrap(final Runnable task) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				RequestContext previous = bind();
+				try {
+					task.run();
+				} finally {
+					unbind(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns wrapper of the task that executes the task with this context bound to the executing thread.
+	 *
+	 * @param task task executed for the request
+	 * @param <V> result type of the task
+	 * @return wrapped task
+	 */
+	public <V> Callable<V> wrap(final Callable<V> task) {
+		return new Callable<V>() {
+			@Override
+			public V call() throws Exception {
+				RequestContext previous = bind();
+				try {
+					return task.call();
+				} finally {
+					unbind(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns filter measuring the request.
+	 *
+	 * @return Simon servlet filter
+	 */
+	SimonServletFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Returns split measuring the request.
+	 *
+	 * @return request split
+	 */
+	public Split getSplit() {
+		return split;
+	}
+
+	/**
+	 * Records the stopped split in the trace of the request, ignored if splits are not recorded or the request
+	 * is finished.
+	 *
+	 * @param split stopped split
+	 */
+	public void addSplit(Split split) {
+		if (trace != null && !finished.get() && split.getStopwatch() != null) {
+			trace.record(split.getStopwatch(), split.getStart(), split.runningFor());
+		}
+	}
+
+	/**
+	 * Returns trace of splits stopped for the request.
+	 *
+	 * @return request trace or {@code null} if splits are not recorded
+	 */
+	public RequestTrace getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Returns true if the request processing is finished - request split is stopped.
+	 *
+	 * @return true if the request is finished
+	 */
+	public boolean isFinished() {
+		return finished.get();
+	}
+
+	/**
+	 * Marks the request as finished.
+	 *
+	 * @return true if this call finished the request, false if it was already finished
+	 */
+	boolean finish() {
+		return finished.compareAndSet(false, true);
+	}
+
+	boolean isAsyncListenerRegistered() {
+		return asyncListenerRegistered;
+	}
+
+	void setAsyncListenerRegistered(boolean asyncListenerRegistered) {
+		this.asyncListenerRegistered = asyncListenerRegistered;
+	}
+
+	/**
+	 * Returns response wrapper counting the response size.
+	 *
+	 * @return response wrapper or {@code null} if response metrics are not collected
+	 */
+	CountingResponseWrapper getResponse() {
+		return response;
+	}
+
+	void setResponse(CountingResponseWrapper response) {
+		this.response = response;
+	}
+
+	/**
+	 * Returns true if the request processing ended with an exception (or async error).
+	 *
+	 * @return true if the request failed
+	 */
+	boolean isFailed() {
+		return failed;
+	}
+
+	void setFailed(boolean failed) {
+		this.failed = failed;
+	}
+}
@@ -0,0 +1,254 @@
+package org.javasimon.javaee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.javasimon.Stopwatch;
+
+/**
+ * Bounded trace of splits stopped during one HTTP request, collected in {@link RequestContext} when the threshold
+ * reporting of {@link SimonServletFilter} is enabled. Trace does not keep {@link org.javasimon.Split} objects,
+ * each entry is stored in primitive arrays as stopwatch id, start (ns) and duration (ns). When the trace is full,
+ * following entries are dropped, but they are still counted in the per-Stopwatch summary ({@link #getSummary()}),
+ * so the summary always covers all splits of the request.
+ * <p/>
+ * Arrays are allocated small when the first split is recorded and grow (doubling) up to the capacity, so requests
+ * with few splits do not pay for the full capacity. Nothing else is done with the trace unless the request
+ * is reported - for fast requests the trace is simply discarded.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class RequestTrace {
+
+	/** Default maximal count of entries of the trace. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static final int INITIAL_STOPWATCHES = 8;
+
+	private static final int INITIAL_ENTRIES = 16;
+
+	private final int capacity;
+
+	/* entries */
+	private int[] ids;
+	private long[] starts;
+	private long[] durations;
+	private int size;
+	private int dropped;
+
+	/* stopwatch table with the summary of all splits (including dropped) */
+	private Map<Stopwatch, Integer> stopwatchIds;
+	private Stopwatch[] stopwatches;
+	private int[] counts;
+	private long[] totals;
+	private long[] maxes;
+
+	/**
+	 * Creates the trace with the specified capacity.
+	 *
+	 * @param capacity maximal count of entries
+	 */
+	public RequestTrace(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Records the split, split may be recorded from any thread working on the request.
+	 *
+	 * @param stopwatch Stopwatch of the split
+	 * @param start start of the split in ns
+	 * @param duration duration of the split in ns
+	 */
+	public synchronized void record(Stopwatch stopwatch, long start, long duration) {
+		if (stopwatches == null) {
+			stopwatchIds = new IdentityHashMap<>();
+			stopwatches = new Stopwatch[INITIAL_STOPWATCHES];
+			counts = new int[INITIAL_STOPWATCHES];
+			totals = new long[INITIAL_STOPWATCHES];
+			maxes = new long[INITIAL_STOPWATCHES];
+			int entries = Math.min(capacity, INITIAL_ENTRIES);
+			ids = new int[entries];
+			starts = new long[entries];
+			durations = new long[entries];
+		}
+		int id = stopwatchId(stopwatch);
+		counts[id]++;
+		totals[id] += duration;
+		if (duration > maxes[id]) {
+			maxes[id] = duration;
+		}
+		if (size < capacity) {
+			if (size == ids.length) {
+				int length = (int) Math.min((long) size * 2, capacity);
+				ids = Arrays.copyOf(ids, length);
+				starts = Arrays.copyOf(starts, length);
+				durations = Arrays.copyOf(durations, length);
+			}
+			ids[size] = id;
+			starts[size] = start;
+			durations[size] = duration;
+			size++;
+		} else {
+			dropped++;
+		}
+	}
+
+	private int stopwatchId(Stopwatch stopwatch) {
+		Integer id = stopwatchIds.get(stopwatch);
+		if (id != null) {
+			return id;
+		}
+		int newId = stopwatchIds.size();
+		if (newId == stopwatches.length) {
+			int length = newId * 2;
+			stopwatches = Arrays.copyOf(stopwatches, length);
+			counts = Arrays.copyOf(counts, length);
+			totals = Arrays.copyOf(totals, length);
+			maxes = Arrays.copyOf(maxes, length);
+		}
+		stopwatches[newId] = stopwatch;
+		stopwatchIds.put(stopwatch, newId);
+		return newId;
+	}
+
+	/**
+	 * Returns maximal count of entries.
+	 *
+	 * @return capacity of the trace
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns count of recorded entries.
+	 *
+	 * @return count of entries
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns count of splits that were not recorded because the trace was full.
+	 *
+	 * @return count of dropped splits
+	 */
+	public synchronized int getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Returns Stopwatch of the entry.
+	 *
+	 * @param index index of the entry (in the order of recording)
+	 * @return Stopwatch of the split
+	 */
+	public synchronized Stopwatch getStopwatch(int index) {
+		checkIndex(index);
+		return stopwatches[ids[index]];
+	}
+
+	/**
+	 * Returns start of the entry.
+	 *
+	 * @param index index of the entry (in the order of recording)
+	 * @return start of the split in ns
+	 */
+	public synchronized long getStart(int index) {
+		checkIndex(index);
+		return starts[index];
+	}
+
+	/**
+	 * Returns duration of the entry.
+	 *
+	 * @param index index of the entry (in the order of recording)
+	 * @return duration of the split in ns
+	 */
+	public synchronized long getDuration(int index) {
+		checkIndex(index);
+		return durations[index];
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+		}
+	}
+
+	/**
+	 * Returns summary of all recorded and dropped splits per Stopwatch.
+	 *
+	 * @return list of Stopwatch summaries in the order of the first split
+	 */
+	public synchronized List<StopwatchSummary> getSummary() {
+		List<StopwatchSummary> summary = new ArrayList<>();
+		if (stopwatchIds != null) {
+			for (int id = 0; id < stopwatchIds.size(); id++) {
+				summary.add(new StopwatchSummary(stopwatches[id], counts[id], totals[id], maxes[id]));
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * Count, total and max of splits of one Stopwatch in the request.
+	 */
+	public static final class StopwatchSummary {
+		private final Stopwatch stopwatch;
+		private final int count;
+		private final long total;
+		private final long max;
+
+		StopwatchSummary(Stopwatch stopwatch, int count, long total, long max) {
+			this.stopwatch = stopwatch;
+			this.count = count;
+			this.total = total;
+			this.max = max;
+		}
+
+		/**
+		 * Returns Stopwatch.
+		 *
+		 * @return Stopwatch
+		 */
+		public Stopwatch getStopwatch() {
+			return stopwatch;
+		}
+
+		/**
+		 * Returns count of splits in the request.
+		 *
+		 * @return count of splits
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns total time of splits in the request.
+		 *
+		 * @return total in ns
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		/**
+		 * Returns the longest split in the request.
+		 *
+		 * @return max in ns
+		 */
+		public long getMax() {
+			return max;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package org.javasimon.javaee;
+
+import org.javasimon.Counter;
+import org.javasimon.Manager;
+import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+
+/**
+ * Outcome metrics of one route (request Stopwatch) cached as attribute of the request Stopwatch, so the Simons are
+ * looked up by name only once per route and outcome. For route {@code org.javasimon.web.orders} following Simons are
+ * maintained:
+ * <ul>
+ * <li>{@code org.javasimon.web.orders.2xx} (also {@code 1xx}, {@code 3xx}, {@code 4xx}, {@code 5xx}) - Stopwatch
+ * with latency (and count) of requests finished with the status code of the class;</li>
+ * <li>{@code org.javasimon.web.orders.exception} - Stopwatch with latency of requests that ended with an exception
+ * (status code is not known in that case);</li>
+ * <li>{@code org.javasimon.web.orders.responseBytes} - Counter increased by the size of the response body.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class RouteMetrics {
+
+	/** Name of the Stopwatch attribute holding the route metrics. */
+	static final String ATTRIBUTE = RouteMetrics.class.getName();
+
+	static final String EXCEPTION = "exception";
+
+	static final String RESPONSE_BYTES = "responseBytes";
+
+	private static final int STATUS_CLASSES = 6;
+
+	private final Manager manager;
+
+	private final String route;
+
+	/* outcome Stopwatches resolved lazily - index is the status class, 0 is used for exceptions */
+	private final Stopwatch[] outcomes = new Stopwatch[STATUS_CLASSES];
+
+	private final Counter responseBytes;
+
+	private RouteMetrics(Manager manager, Stopwatch stopwatch) {
+		this.manager = manager;
+		this.route = stopwatch.getName();
+		this.responseBytes = manager.getCounter(route + Manager.HIERARCHY_DELIMITER + RESPONSE_BYTES);
+	}
+
+	/**
+	 * Returns metrics of the route measured by the Stopwatch, metrics are created with the first request of the route.
+	 *
+	 * @param manager manager of the Stopwatch
+	 * @param stopwatch request Stopwatch
+	 * @return route metrics
+	 */
+	static RouteMetrics of(Manager manager, Stopwatch stopwatch) {
+		RouteMetrics metrics = (RouteMetrics) stopwatch.getAttribute(ATTRIBUTE);
+		if (metrics == null) {
+			metrics = new RouteMetrics(manager, stopwatch);
+			stopwatch.setAttribute(ATTRIBUTE, metrics);
+		}
+		return metrics;
+	}
+
+	/**
+	 * Records the outcome of the finished request.
+	 *
+	 * @param requestSplit stopped request split
+	 * @param status HTTP status code of the response
+	 * @param failed true if the request ended with an exception
+	 * @param size size of the response body
+	 */
+	void record(Split requestSplit, int status, boolean failed, long size) {
+		int outcome = failed ? 0 : Math.min(Math.max(status / 100, 1), STATUS_CLASSES - 1);
+		Stopwatch stopwatch = outcomes[outcome];
+		if (stopwatch == null) {
+			String name = outcome == 0 ? EXCEPTION : outcome + "xx";
+			stopwatch = manager.getStopwatch(route + Manager.HIERARCHY_DELIMITER + name);
+			outcomes[outcome] = stopwatch;
+		}
+		stopwatch.addSplit(Split.create(requestSplit.runningFor()));
+		if (size > 0) {
+			responseBytes.increase(size);
+		}
+	}
+}
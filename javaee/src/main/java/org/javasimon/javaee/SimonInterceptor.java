@@ -1,14 +1,25 @@
 package org.javasimon.javaee;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.InvocationContext;
 
-import org.javasimon.Manager;
 import org.javasimon.SimonManager;
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.utils.ManagerCache;
 
 /**
  * Simon Interceptor measuring method execution time - can be used in EJB, or CDI in general.
+ * <p/>
+ * Stopwatch for each intercepted {@link Method} is resolved only once ({@link #isMonitored(InvocationContext)}
+ * and {@link #getSimonName(InvocationContext)} are called for the first invocation of the method) and cached
+ * for all instances of the interceptor class. Cache is dropped when the manager is cleared or any Simon is destroyed,
+ * see {@link ManagerCache}. Invocations of methods
+ * that are not monitored or whose Stopwatch is disabled proceed without creating any {@link Split}.
+ * Simon names follow {@link org.javasimon.aop.Monitored} annotation on the bean class or method if present.
  *
  * @author <a href="mailto:richard.richter@siemens-enterprise.com">Richard "Virgo" Richter</a>
  * @since 2.3
@@ -20,6 +31,12 @@ public class SimonInterceptor {
 	 */
 	public static final String DEFAULT_INTERCEPTOR_PREFIX = "org.javasimon.business";
 
+	/** Cached value for methods that are not monitored. */
+	private static final Object NOT_MONITORED = new Object();
+
+	/** Resolved Stopwatches per interceptor class, shared by all interceptor instances. */
+	private static final ConcurrentMap<Class<?>, ManagerCache<Method, Object>> STOPWATCHES = new ConcurrentHashMap<>();
+
 	/**
 	 * Simon name prefix - can be overridden in subclasses.
 	 */
@@ -27,23 +44,21 @@ public class SimonInterceptor {
 
 	/**
 	 * Returns Simon name for the specified Invocation context.
-	 * By default it contains the prefix + method name.
-	 * This method can be overridden.
+	 * By default it contains the prefix + method name, see {@link MethodStopwatchSource#getMonitorName(String, Method)}.
+	 * This method can be overridden, it is called once per method.
 	 *
 	 * @param context Invocation context
 	 * @return fully qualified name of the Simon
 	 * @since 3.1
 	 */
 	protected String getSimonName(InvocationContext context) {
-		String className = context.getMethod().getDeclaringClass().getSimpleName();
-		String methodName = context.getMethod().getName();
-		return prefix + Manager.HIERARCHY_DELIMITER + className + Manager.HIERARCHY_DELIMITER + methodName;
+		return MethodStopwatchSource.getMonitorName(prefix, context.getMethod());
 	}
 
 	/**
 	 * Indicates whether the method invocation should be monitored.
 	 * Default behavior always returns true.
-	 * This method can be overridden
+	 * This method can be overridden, it is called once per method.
 	 *
 	 * @param context Method invocation context
 	 * @return true to enable Simon, false either
@@ -61,13 +76,40 @@ public class SimonInterceptor {
 	 */
 	@AroundInvoke
 	public Object monitor(InvocationContext context) throws Exception {
-		if (isMonitored(context)) {
-			String simonName = getSimonName(context);
-			try (Split ignored = SimonManager.getStopwatch(simonName).start()) {
+		Stopwatch stopwatch = getStopwatch(context);
+		if (stopwatch != null && stopwatch.isEnabled()) {
+			try (Split ignored = stopwatch.start()) {
 				return context.proceed();
 			}
 		} else {
 			return context.proceed();
 		}
 	}
+
+	/**
+	 * Returns cached Stopwatch for the invoked method, resolves it for the first invocation.
+	 *
+	 * @param context invocation context
+	 * @return Stopwatch or {@code null} if the method is not monitored
+	 */
+	private Stopwatch getStopwatch(InvocationContext context) {
+		ManagerCache<Method, Object> cache = STOPWATCHES.get(getClass());
+		if (cache == null) {
+			cache = new ManagerCache<>(SimonManager.manager());
+			ManagerCache<Method, Object> existing = STOPWATCHES.putIfAbsent(getClass(), cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+
+		// Stopwatches (or NOT_MONITORED) per method
+		ConcurrentMap<Method, Object> stopwatches = cache.map();
+		Method method = context.getMethod();
+		Object stopwatch = stopwatches.get(method);
+		if (stopwatch == null) {
+			stopwatch = isMonitored(context) ? cache.getManager().getStopwatch(getSimonName(context)) : NOT_MONITORED;
+			stopwatches.putIfAbsent(method, stopwatch);
+		}
+		return stopwatch != NOT_MONITORED ? (Stopwatch) stopwatch : null;
+	}
 }
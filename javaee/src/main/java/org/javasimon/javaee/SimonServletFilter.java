@@ -3,9 +3,12 @@ package org.javasimon.javaee;
 import org.javasimon.Manager;
 import org.javasimon.SimonManager;
 import org.javasimon.Split;
+import org.javasimon.StopwatchSample;
 import org.javasimon.callback.CallbackSkeleton;
+import org.javasimon.callback.ContextPropagatingCallback;
 import org.javasimon.clock.SimonClock;
 import org.javasimon.javaee.reqreporter.RequestReporter;
+import org.javasimon.javaee.reqreporter.SlowRequestStore;
 import org.javasimon.source.DisabledMonitorSource;
 import org.javasimon.source.StopwatchSource;
 import org.javasimon.utils.Replacer;
@@ -17,15 +20,17 @@ import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Simon Servlet filter measuring HTTP request execution times. Non-HTTP usages are not supported.
  * Filter provides these functions:
  * <ul>
  * <li>measures all requests and creates tree of Simons with names derived from URLs</li>
- * <li>checks if the request is not longer then a specified threshold and logs warning</li>
+ * <li>measures asynchronous requests ({@code request.startAsync()}) until the async processing completes,
+ * times out or fails - see {@link RequestContext}</li>
+ * <li>optionally collects response status, size and exception metrics per route - see {@link #INIT_PARAM_RESPONSE_METRICS}</li>
+ * <li>checks if the request is not longer then a specified threshold and logs warning, the slowest reported requests
+ * per route and minute are kept in {@link SlowRequestStore} (see {@link #getSlowRequestStore()})</li>
  * <li>provides basic "console" function if config parameter {@link #INIT_PARAM_SIMON_CONSOLE_PATH} is used in {@code web.xml}</li>
  * </ul>
  * <p/>
@@ -63,6 +68,32 @@ public class SimonServletFilter implements Filter {
 	 */
 	public static final String INIT_PARAM_REPORT_THRESHOLD_MS = "report-threshold-ms";
 
+	/**
+	 * Name of filter init parameter that sets maximal count of splits recorded in the {@link RequestTrace} of each request
+	 * when threshold reporting is enabled. Splits over the limit are only counted in the per-Stopwatch summary of the trace.
+	 * Defaults to {@link RequestTrace#DEFAULT_CAPACITY}.
+	 */
+	public static final String INIT_PARAM_REPORT_TRACE_SIZE = "report-trace-size";
+
+	/**
+	 * Name of filter init parameter that sets count of the slowest reported requests kept per route (request Stopwatch)
+	 * and minute in the {@link SlowRequestStore}. Defaults to {@link SlowRequestStore#DEFAULT_SAMPLES_PER_ROUTE}.
+	 */
+	public static final String INIT_PARAM_REPORT_SAMPLES_PER_ROUTE = "report-samples-per-route";
+
+	/**
+	 * Name of filter init parameter that enables ({@code true}) response metrics per route (request Stopwatch). Response
+	 * is wrapped to count the size of the body and latency of each request is also added to the Stopwatch of its outcome:
+	 * <ul>
+	 * <li>{@code <route>.2xx} (also {@code 1xx}, {@code 3xx}, {@code 4xx}, {@code 5xx}) for the status code class,</li>
+	 * <li>{@code <route>.exception} if the request ended with an exception,</li>
+	 * </ul>
+	 * counter {@code <route>.responseBytes} is increased by the size of the response body. Simons are cached
+	 * per route, so no additional name lookups are done for the request. Response wrapper does not support
+	 * non-blocking IO of Servlet 3.1. Disabled by default.
+	 */
+	public static final String INIT_PARAM_RESPONSE_METRICS = "response-metrics";
+
 	/**
 	 * Name of filter init parameter that sets relative ULR path that will provide Simon console page.
 	 * If the parameter is not used, basic plain text console will be disabled.
@@ -89,7 +120,7 @@ public class SimonServletFilter implements Filter {
 
 	/**
 	 * FQN of the {@link org.javasimon.javaee.reqreporter.RequestReporter} implementation that is used to report requests
-	 * that {@link #shouldBeReported(javax.servlet.http.HttpServletRequest, long, java.util.List)}.
+	 * that {@link #shouldBeReported(javax.servlet.http.HttpServletRequest, long, RequestTrace)}.
 	 * Default is {@link org.javasimon.javaee.reqreporter.DefaultRequestReporter}.
 	 */
 	public static final String INIT_PARAM_REQUEST_REPORTER_CLASS = "request-reporter-class";
@@ -97,7 +128,8 @@ public class SimonServletFilter implements Filter {
 	/**
 	 * Properties for a StopwatchSource class. Has the following format: prop1=val1;prop2=val2
 	 * Properties are assumed to be correct Java bean properties and should exist in a class specified by
-	 * {@link org.javasimon.javaee.SimonServletFilter#INIT_PARAM_STOPWATCH_SOURCE_CLASS}
+	 * {@link org.javasimon.javaee.SimonServletFilter#INIT_PARAM_STOPWATCH_SOURCE_CLASS}. For instance URI templates
+	 * of the default {@link HttpStopwatchSource} are set by {@code uriTemplates=/orders/{id}/items,/users/{id}}.
 	 */
 	public static final String INIT_PARAM_STOPWATCH_SOURCE_PROPS = "stopwatch-source-props";
 
@@ -130,15 +162,13 @@ public class SimonServletFilter implements Filter {
 	private Manager manager = SimonManager.manager();
 
 	/**
-	 * Thread local list of splits used to cumulate all splits for the request.
-	 * Every instance of the Servlet has its own thread-local to bind its lifecycle to
-	 * the callback that servlet is registering. Then even more callbacks registered from various
-	 * servlets in the same manager do not interfere.
+	 * Maximal count of splits recorded in the trace of a request, see {@link #INIT_PARAM_REPORT_TRACE_SIZE}.
 	 */
-	private final ThreadLocal<List<Split>> splitsThreadLocal = new ThreadLocal<>();
+	private int reportTraceSize = RequestTrace.DEFAULT_CAPACITY;
 
 	/**
-	 * Callback that saves all splits in {@link #splitsThreadLocal} if {@link #reportThresholdNanos} is configured.
+	 * Callback that records splits stopped for the request in the trace of its {@link RequestContext}
+	 * if {@link #reportThresholdNanos} is configured.
 	 */
 	private SplitSaverCallback splitSaverCallback;
 
@@ -148,7 +178,17 @@ public class SimonServletFilter implements Filter {
 	private StopwatchSource<HttpServletRequest> stopwatchSource;
 
 	/**
-	 * Object responsible for reporting the request over threshold (if {@link #shouldBeReported(javax.servlet.http.HttpServletRequest, long, java.util.List)}
+	 * True if response metrics are collected, see {@link #INIT_PARAM_RESPONSE_METRICS}.
+	 */
+	private boolean responseMetrics;
+
+	/**
+	 * Store of the slowest requests reported over threshold.
+	 */
+	private SlowRequestStore slowRequestStore = new SlowRequestStore();
+
+	/**
+	 * Object responsible for reporting the request over threshold (if {@link #shouldBeReported(javax.servlet.http.HttpServletRequest, long, RequestTrace)}
 	 * returns true).
 	 */
 	private RequestReporter requestReporter;
@@ -178,6 +218,26 @@ public class SimonServletFilter implements Filter {
 			}
 		}
 
+		responseMetrics = Boolean.parseBoolean(filterConfig.getInitParameter(INIT_PARAM_RESPONSE_METRICS));
+
+		String reportSamplesPerRoute = filterConfig.getInitParameter(INIT_PARAM_REPORT_SAMPLES_PER_ROUTE);
+		if (reportSamplesPerRoute != null) {
+			try {
+				slowRequestStore.setSamplesPerRoute(Integer.parseInt(reportSamplesPerRoute));
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+
+		String reportTraceSize = filterConfig.getInitParameter(INIT_PARAM_REPORT_TRACE_SIZE);
+		if (reportTraceSize != null) {
+			try {
+				this.reportTraceSize = Integer.parseInt(reportTraceSize);
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+
 		String consolePath = filterConfig.getInitParameter(INIT_PARAM_SIMON_CONSOLE_PATH);
 		if (consolePath != null) {
 			this.printTreePath = FINAL_SLASH_REMOVE.process(consolePath);
@@ -236,30 +296,62 @@ public class SimonServletFilter implements Filter {
 	}
 
 	private void doFilterWithMonitoring(FilterChain filterChain, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
-		Split split = stopwatchSource.start(request);
-		if (split.isEnabled() && reportThresholdNanos != null) {
-			splitsThreadLocal.set(new ArrayList<Split>());
+		RequestContext context = RequestContext.get(request);
+		if (context == null || context.getFilter() != this) {
+			// the first dispatch of the request (async dispatches of the same request reuse its context)
+			Split split = stopwatchSource.start(request);
+			if (!split.isEnabled()) {
+				filterChain.doFilter(request, response);
+				return;
+			}
+			context = new RequestContext(this, split, reportThresholdNanos != null ? new RequestTrace(reportTraceSize) : null);
+			if (RequestContext.get(request) == null) {
+				request.setAttribute(RequestContext.ATTRIBUTE, context);
+			}
+			if (responseMetrics) {
+				context.setResponse(new CountingResponseWrapper(response));
+			}
+		}
+		CountingResponseWrapper countingResponse = context.getResponse();
+		if (countingResponse != null && countingResponse.getResponse() == response) {
+			response = countingResponse;
 		}
 
+		RequestContext previous = context.bind();
 		try {
 			filterChain.doFilter(request, response);
-			// TODO: is it sensible to catch exceptions here and stop split with tags?
-			// for instance Wicket does not let the exception go to here anyway
+		} catch (IOException | ServletException | RuntimeException | Error e) {
+			// exceptions handled by the framework (e.g. Wicket) do not get here, status code is used for those
+			context.setFailed(true);
+			throw e;
 		} finally {
-			stopSplitForRequest(request, split);
+			RequestContext.unbind(previous);
+			if (request.isAsyncStarted() && RequestContext.get(request) == context) {
+				if (!context.isAsyncListenerRegistered()) {
+					context.setAsyncListenerRegistered(true);
+					request.getAsyncContext().addListener(new RequestAsyncListener(request, context));
+				}
+			} else {
+				stopSplitForRequest(request, context);
+			}
 		}
 	}
 
-	private void stopSplitForRequest(HttpServletRequest request, Split split) {
-		if (split.isEnabled()) {
-			split.stop();
-			long splitNanoTime = split.runningFor();
-			if (reportThresholdNanos != null) {
-				List<Split> splits = splitsThreadLocal.get();
-				splitsThreadLocal.remove(); // better do this before we call potentially overridden method
-				if (shouldBeReported(request, splitNanoTime, splits)) {
-					requestReporter.reportRequest(request, split, splits);
-				}
+	private void stopSplitForRequest(HttpServletRequest request, RequestContext context) {
+		if (!context.finish()) {
+			return;
+		}
+		Split split = context.getSplit();
+		split.stop();
+		long splitNanoTime = split.runningFor();
+		CountingResponseWrapper response = context.getResponse();
+		if (response != null) {
+			RouteMetrics.of(manager, split.getStopwatch()).record(split, response.getStatus(), context.isFailed(), response.getSize());
+		}
+		if (reportThresholdNanos != null) {
+			RequestTrace trace = context.getTrace();
+			if (shouldBeReported(request, splitNanoTime, trace)) {
+				requestReporter.reportRequest(request, split, trace);
 			}
 		}
 	}
@@ -272,10 +364,10 @@ public class SimonServletFilter implements Filter {
 	 *
 	 * @param request HTTP servlet request
 	 * @param requestNanoTime actual HTTP request nano time
-	 * @param splits all splits started for the request
+	 * @param trace trace of splits stopped for the request
 	 * @return {@code true}, if request should be reported as over threshold
 	 */
-	protected boolean shouldBeReported(HttpServletRequest request, long requestNanoTime, List<Split> splits) {
+	protected boolean shouldBeReported(HttpServletRequest request, long requestNanoTime, RequestTrace trace) {
 		return requestNanoTime > getThreshold(request);
 	}
 
@@ -307,6 +399,8 @@ public class SimonServletFilter implements Filter {
 		} else if (subCommand.equalsIgnoreCase("clearManager")) {
 			manager.clear();
 			response.getOutputStream().println("Simon Manager was cleared");
+		} else if (subCommand.equalsIgnoreCase("slowRequests")) {
+			printSlowRequests(response);
 		} else if (subCommand.equalsIgnoreCase("help")) {
 			simonHelp(response);
 		} else {
@@ -318,9 +412,20 @@ public class SimonServletFilter implements Filter {
 	private void simonHelp(ServletResponse response) throws IOException {
 		response.getOutputStream().println("Simon Console help - available commands:");
 		response.getOutputStream().println("- clearManager - clears the manager (removes all Simons)");
+		response.getOutputStream().println("- slowRequests - shows the slowest requests over the report threshold");
 		response.getOutputStream().println("- help - shows this help");
 	}
 
+	private void printSlowRequests(ServletResponse response) throws IOException {
+		String[] reports = slowRequestStore.reports();
+		if (reports.length == 0) {
+			response.getOutputStream().println("No slow requests");
+		}
+		for (String report : reports) {
+			response.getOutputStream().println(report);
+		}
+	}
+
 	private void printSimonTree(ServletResponse response) throws IOException {
 		response.getOutputStream().println(SimonUtils.simonTreeString(manager.getRootSimon()));
 	}
@@ -329,6 +434,15 @@ public class SimonServletFilter implements Filter {
 		return manager;
 	}
 
+	/**
+	 * Returns store of the slowest requests reported over threshold.
+	 *
+	 * @return slow request store
+	 */
+	public SlowRequestStore getSlowRequestStore() {
+		return slowRequestStore;
+	}
+
 	/**
 	 * Returns stopwatch source used by the filter.
 	 *
@@ -347,13 +461,68 @@ public class SimonServletFilter implements Filter {
 		}
 	}
 
-	private class SplitSaverCallback extends CallbackSkeleton {
+	/**
+	 * Records splits stopped by threads working on the request, request context is propagated to tasks
+	 * submitted with {@link org.javasimon.callback.ContextSnapshot}.
+	 */
+	private class SplitSaverCallback extends CallbackSkeleton implements ContextPropagatingCallback {
 		@Override
-		public void onStopwatchStart(Split split) {
-			List<Split> splits = splitsThreadLocal.get();
-			if (splits != null) {
-				splits.add(split);
+		public void onStopwatchStop(Split split, StopwatchSample sample) {
+			RequestContext context = RequestContext.current();
+			if (context != null && context.getFilter() == SimonServletFilter.this) {
+				context.addSplit(split);
 			}
 		}
+
+		@Override
+		public Object captureContext() {
+			RequestContext context = RequestContext.current();
+			return context != null && context.getFilter() == SimonServletFilter.this ? context : null;
+		}
+
+		@Override
+		public Object attachContext(Object context) {
+			return ((RequestContext) context).bind();
+		}
+
+		@Override
+		public void detachContext(Object previous) {
+			RequestContext.unbind((RequestContext) previous);
+		}
+	}
+
+	/**
+	 * Stops the request split when the asynchronous processing completes, times out or fails.
+	 * Listener registers itself again if the async processing is restarted.
+	 */
+	private class RequestAsyncListener implements AsyncListener {
+		private final HttpServletRequest request;
+		private final RequestContext context;
+
+		RequestAsyncListener(HttpServletRequest request, RequestContext context) {
+			this.request = request;
+			this.context = context;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			stopSplitForRequest(request, context);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			stopSplitForRequest(request, context);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			context.setFailed(true);
+			stopSplitForRequest(request, context);
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
 	}
 }
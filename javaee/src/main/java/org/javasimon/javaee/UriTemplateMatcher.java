@@ -0,0 +1,148 @@
+package org.javasimon.javaee;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches request URIs against URI templates like {@code /orders/{id}/items} where a segment in braces matches
+ * any single non-empty path segment. Templates are compiled into a trie of path segments, so the URI is matched
+ * in one pass over its segments without regular expressions. Literal segments take precedence over variables,
+ * e.g. {@code /orders/new} wins over {@code /orders/{id}} for URI {@code /orders/new}. Path parameters
+ * of segments (like {@code ;jsessionid=...}) and empty segments are ignored.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class UriTemplateMatcher {
+
+	private final Node root = new Node();
+
+	private final List<String> templates;
+
+	/**
+	 * Compiles the templates.
+	 *
+	 * @param templates URI templates starting with slash
+	 */
+	public UriTemplateMatcher(List<String> templates) {
+		this.templates = Collections.unmodifiableList(new ArrayList<>(templates));
+		for (String template : templates) {
+			Node node = root;
+			for (String segment : segments(template)) {
+				node = isVariable(segment) ? node.variable() : node.literal(segment);
+			}
+			if (node.template == null) {
+				node.template = template;
+			}
+		}
+	}
+
+	/**
+	 * Parses templates separated by commas or whitespaces.
+	 *
+	 * @param templates list of templates in one string
+	 * @return URI template matcher
+	 */
+	public static UriTemplateMatcher parse(String templates) {
+		List<String> list = new ArrayList<>();
+		for (String template : templates.split("[,\\s]+")) {
+			if (!template.isEmpty()) {
+				list.add(template);
+			}
+		}
+		return new UriTemplateMatcher(list);
+	}
+
+	/**
+	 * Returns compiled templates.
+	 *
+	 * @return list of templates
+	 */
+	public List<String> getTemplates() {
+		return templates;
+	}
+
+	/**
+	 * Returns template matching the URI.
+	 *
+	 * @param uri request URI
+	 * @return matching template or {@code null} if no template matches
+	 */
+	public String match(String uri) {
+		return match(root, uri, 0);
+	}
+
+	private static String match(Node node, String uri, int position) {
+		int length = uri.length();
+		while (position < length && uri.charAt(position) == '/') {
+			position++;
+		}
+		if (position == length) {
+			return node.template;
+		}
+		int end = uri.indexOf('/', position);
+		if (end == -1) {
+			end = length;
+		}
+		int segmentEnd = uri.indexOf(';', position);
+		if (segmentEnd == -1 || segmentEnd > end) {
+			segmentEnd = end;
+		}
+		if (node.literals != null && segmentEnd > position) {
+			Node literal = node.literals.get(uri.substring(position, segmentEnd));
+			if (literal != null) {
+				String template = match(literal, uri, end);
+				if (template != null) {
+					return template;
+				}
+			}
+		}
+		if (node.variable != null && segmentEnd > position) {
+			return match(node.variable, uri, end);
+		}
+		return null;
+	}
+
+	private static List<String> segments(String path) {
+		List<String> segments = new ArrayList<>();
+		for (String segment : path.split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(segment);
+			}
+		}
+		return segments;
+	}
+
+	private static boolean isVariable(String segment) {
+		return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+	}
+
+	/** Node of the trie - one path segment. */
+	private static final class Node {
+		private Map<String, Node> literals;
+		private Node variable;
+		private String template;
+
+		Node literal(String segment) {
+			if (literals == null) {
+				literals = new HashMap<>();
+			}
+			Node node = literals.get(segment);
+			if (node == null) {
+				node = new Node();
+				literals.put(segment, node);
+			}
+			return node;
+		}
+
+		Node variable() {
+			if (variable == null) {
+				variable = new Node();
+			}
+			return variable;
+		}
+	}
+}
@@ -1,52 +1,88 @@
 package org.javasimon.javaee.reqreporter;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.http.HttpServletRequest;
 
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.javaee.RequestTrace;
 import org.javasimon.javaee.SimonServletFilter;
 import org.javasimon.utils.SimonUtils;
 
 /**
  * Reports significant splits (longer than 5% of the request) and list of all used stopwatches with their split counts.
- * Report is sent through {@link org.javasimon.Manager#message(String)}. Following aspects of the class can be overridden:
+ * Request is first offered as {@link SlowRequest} record to the {@link SlowRequestStore} of the filter and only requests
+ * kept by the store (the slowest ones per route and minute) are reported - the report is formatted and sent through
+ * {@link org.javasimon.Manager#message(String)} on a background thread, so the request thread does not pay for it.
+ * Reporter also formats reports retrieved from the store on demand (console, JMX).
+ * Following aspects of the class can be overridden:
  * <ul>
  * <li>Where the report goes - override {@link #reportMessage(String)},</li>
- * <li>what is significant split - override {@link #isSignificantSplit(org.javasimon.Split, org.javasimon.Split)},</li>
+ * <li>what is significant split - override {@link #isSignificantSplit(org.javasimon.Stopwatch, long, long)},</li>
  * <li>whether stopwatch info (from stopwatch distribution part) should be included -
  * override {@link #shouldBeAddedStopwatchInfo(ReporterStopwatchInfo)}.</li>
  * </ul>
  *
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
  */
-public class DefaultRequestReporter implements RequestReporter {
+public class DefaultRequestReporter implements RequestReporter, SlowRequestFormatter {
 	private static final int NOTE_OUTPUT_MAX_LEN = 80;
 
+	private static final int REPORT_QUEUE_SIZE = 100;
+
 	private SimonServletFilter simonServletFilter;
 
+	/** Single thread executor formatting reports, the thread ends when idle and reports over the queue size are dropped. */
+	private final ThreadPoolExecutor reportExecutor;
+
 	public DefaultRequestReporter() {
+		reportExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(REPORT_QUEUE_SIZE),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "javasimon-request-reporter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			}, new ThreadPoolExecutor.DiscardPolicy());
+		reportExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public void reportRequest(HttpServletRequest request, Split requestSplit, RequestTrace trace) {
+		final SlowRequest slowRequest = new SlowRequest(request, requestSplit, trace);
+		if (simonServletFilter.getSlowRequestStore().offer(slowRequest)) {
+			reportExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					reportMessage(format(slowRequest));
+				}
+			});
+		}
 	}
 
 	@Override
-	public void reportRequest(HttpServletRequest request, Split requestSplit, List<Split> splits) {
+	public String format(SlowRequest slowRequest) {
 		StringBuilder messageBuilder = new StringBuilder(
-			"Web request is too long (" + SimonUtils.presentNanoTime(requestSplit.runningFor()) +
-				") [" + requestSplit.getStopwatch().getNote() + "]");
+			"Web request is too long (" + SimonUtils.presentNanoTime(slowRequest.getDuration()) +
+				") [" + slowRequest.getNote() + "]");
 
-		if (splits.size() > 0) {
-			buildSplitDetails(requestSplit, splits, messageBuilder);
+		RequestTrace trace = slowRequest.getTrace();
+		if (trace != null && trace.size() > 0) {
+			buildSplitDetails(slowRequest.getDuration(), trace, messageBuilder);
 		}
-
-		reportMessage(messageBuilder.toString());
+		return messageBuilder.toString();
 	}
 
 	/**
 	 * Reports the prepared message through the method {@link org.javasimon.Manager#message(String)} - can be overridden
-	 * to emit the message to log/console/etc.
+	 * to emit the message to log/console/etc. Called on the background reporting thread.
 	 *
 	 * @param message prepared message with report
 	 */
@@ -54,45 +90,46 @@ public class DefaultRequestReporter implements RequestReporter {
 		simonServletFilter.getManager().message(message);
 	}
 
-	private void buildSplitDetails(Split requestSplit, List<Split> splits, StringBuilder messageBuilder) {
-		Map<String, ReporterStopwatchInfo> stopwatchInfos = new HashMap<>();
-
-		processSplitsAndAddSignificantOnes(requestSplit, splits, messageBuilder, stopwatchInfos);
-		addStopwatchSplitDistribution(messageBuilder, stopwatchInfos);
+	private void buildSplitDetails(long requestDuration, RequestTrace trace, StringBuilder messageBuilder) {
+		addSignificantSplits(requestDuration, trace, messageBuilder);
+		addStopwatchSplitDistribution(messageBuilder, trace);
 	}
 
-	private void processSplitsAndAddSignificantOnes(Split requestSplit, List<Split> splits, StringBuilder messageBuilder, Map<String, ReporterStopwatchInfo> stopwatchInfos) {
-		for (Split split : splits) {
-			ReporterStopwatchInfo stopwatchInfo = stopwatchInfos.get(split.getStopwatch().getName());
-			if (stopwatchInfo == null) {
-				stopwatchInfo = new ReporterStopwatchInfo(split.getStopwatch());
-				stopwatchInfos.put(split.getStopwatch().getName(), stopwatchInfo);
-			}
-			stopwatchInfo.addSplit(split);
-
-			if (isSignificantSplit(split, requestSplit)) {
-				messageBuilder.append("\n\t").append(split.getStopwatch().getName()).append(": ").
-					append(SimonUtils.presentNanoTime(split.runningFor()));
+	private void addSignificantSplits(long requestDuration, RequestTrace trace, StringBuilder messageBuilder) {
+		for (int i = 0; i < trace.size(); i++) {
+			Stopwatch stopwatch = trace.getStopwatch(i);
+			long duration = trace.getDuration(i);
+			if (isSignificantSplit(stopwatch, duration, requestDuration)) {
+				messageBuilder.append("\n\t").append(stopwatch.getName()).append(": ").
+					append(SimonUtils.presentNanoTime(duration));
 			}
 		}
+		if (trace.getDropped() > 0) {
+			messageBuilder.append("\n\t... ").append(trace.getDropped()).append(" more splits not recorded");
+		}
 	}
 
 	/**
-	 * Can be overridden to decide whether {@link Split} is considered significant to be reported in the first part of the output.
-	 * By default all Splits with time over 5% of total request time are significant. This includes overlapping splits too, so more than
+	 * Can be overridden to decide whether a split is considered significant to be reported in the first part of the output.
+	 * By default all splits with time over 5% of total request time are significant. This includes overlapping splits too, so more than
 	 * 20 splits can be reported.
 	 *
-	 * @param split tested Split
-	 * @param requestSplit Split for the whole HTTP request
-	 * @return true, if tested Split is significant
+	 * @param stopwatch Stopwatch of the tested split
+	 * @param duration duration of the tested split in ns
+	 * @param requestDuration duration of the whole HTTP request in ns
+	 * @return true, if tested split is significant
 	 */
-	protected boolean isSignificantSplit(Split split, Split requestSplit) {
-		return split.runningFor() > (requestSplit.runningFor() / 20); // is more than 5%
+	protected boolean isSignificantSplit(Stopwatch stopwatch, long duration, long requestDuration) {
+		return duration > (requestDuration / 20); // is more than 5%
 	}
 
-	private void addStopwatchSplitDistribution(StringBuilder messageBuilder, Map<String, ReporterStopwatchInfo> stopwatchInfos) {
+	private void addStopwatchSplitDistribution(StringBuilder messageBuilder, RequestTrace trace) {
 		messageBuilder.append("\nStopwatch/Split count/total/max for this request (sorted by total descending):");
-		Set<ReporterStopwatchInfo> sortedInfos = new TreeSet<>(stopwatchInfos.values());
+		List<ReporterStopwatchInfo> sortedInfos = new ArrayList<>();
+		for (RequestTrace.StopwatchSummary summary : trace.getSummary()) {
+			sortedInfos.add(new ReporterStopwatchInfo(summary));
+		}
+		Collections.sort(sortedInfos);
 		for (ReporterStopwatchInfo info : sortedInfos) {
 			if (shouldBeAddedStopwatchInfo(info)) {
 				addStopwatchInfo(messageBuilder, info);
@@ -103,7 +140,7 @@ public class DefaultRequestReporter implements RequestReporter {
 	/**
 	 * Decides whether stopwatch info should be included in the report - by default all are included.
 	 *
-	 * @param info stopwatch info contains list of all splits, max split and total time of splits for the reported request
+	 * @param info stopwatch info contains count, max and total time of splits for the reported request
 	 * @return true, if the stopatch info should be reported
 	 */
 	@SuppressWarnings("UnusedParameters")
@@ -112,9 +149,9 @@ public class DefaultRequestReporter implements RequestReporter {
 	}
 
 	private void addStopwatchInfo(StringBuilder messageBuilder, ReporterStopwatchInfo info) {
-		messageBuilder.append("\n\t").append(info.stopwatch.getName()).append(": ").append(info.splits.size()).
+		messageBuilder.append("\n\t").append(info.stopwatch.getName()).append(": ").append(info.count).
 			append("x, total: ").append(SimonUtils.presentNanoTime(info.total)).
-			append(", max: ").append(SimonUtils.presentNanoTime(info.maxSplit.runningFor()));
+			append(", max: ").append(SimonUtils.presentNanoTime(info.max));
 		if (info.stopwatch.getNote() != null) {
 			messageBuilder.append(", note: ").append(SimonUtils.compact(info.stopwatch.getNote(), NOTE_OUTPUT_MAX_LEN));
 		}
@@ -123,5 +160,6 @@ public class DefaultRequestReporter implements RequestReporter {
 	@Override
 	public void setSimonServletFilter(SimonServletFilter simonServletFilter) {
 		this.simonServletFilter = simonServletFilter;
+		simonServletFilter.getSlowRequestStore().setFormatter(this);
 	}
 }
@@ -1,10 +1,10 @@
 package org.javasimon.javaee.reqreporter;
 
-import java.util.List;
-
 import javax.servlet.http.HttpServletRequest;
 
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.javaee.RequestTrace;
 import org.javasimon.javaee.SimonServletFilter;
 import org.javasimon.utils.SimonUtils;
 
@@ -13,7 +13,7 @@ import org.javasimon.utils.SimonUtils;
  * Report is sent through {@link org.javasimon.Manager#message(String)}. Following aspects of the class can be overridden:
  * <ul>
  * <li>Where the report goes - override {@link #reportMessage(String)},</li>
- * <li>whether split should be included - override {@link #shouldBeAddedSplit(org.javasimon.Split)}.</li>
+ * <li>whether split should be included - override {@link #shouldBeAddedSplit(org.javasimon.Stopwatch, long)}.</li>
  * </ul>
  *
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
@@ -26,17 +26,22 @@ public class PlainRequestReporter implements RequestReporter {
 	}
 
 	@Override
-	public void reportRequest(HttpServletRequest request, Split requestSplit, List<Split> splits) {
+	public void reportRequest(HttpServletRequest request, Split requestSplit, RequestTrace trace) {
 		StringBuilder messageBuilder = new StringBuilder(
 			"Web request is too long (" + SimonUtils.presentNanoTime(requestSplit.runningFor()) +
 				") [" + requestSplit.getStopwatch().getNote() + "]");
 
-		for (Split split : splits) {
-			if (shouldBeAddedSplit(split)) {
-				messageBuilder.append("\n\t").append(split.getStopwatch().getName()).append(": ").
-					append(SimonUtils.presentNanoTime(split.runningFor()));
+		for (int i = 0; i < trace.size(); i++) {
+			Stopwatch stopwatch = trace.getStopwatch(i);
+			long duration = trace.getDuration(i);
+			if (shouldBeAddedSplit(stopwatch, duration)) {
+				messageBuilder.append("\n\t").append(stopwatch.getName()).append(": ").
+					append(SimonUtils.presentNanoTime(duration));
 			}
 		}
+		if (trace.getDropped() > 0) {
+			messageBuilder.append("\n\t... ").append(trace.getDropped()).append(" more splits not recorded");
+		}
 
 		reportMessage(messageBuilder.toString());
 	}
@@ -54,11 +59,12 @@ public class PlainRequestReporter implements RequestReporter {
 	/**
 	 * Decides whether split should be included in the report - by default all are included.
 	 *
-	 * @param split tested Split
+	 * @param stopwatch Stopwatch of the tested split
+	 * @param duration duration of the tested split in ns
 	 * @return true, if the split should be reported in the list
 	 */
 	@SuppressWarnings("UnusedParameters")
-	protected boolean shouldBeAddedSplit(Split split) {
+	protected boolean shouldBeAddedSplit(Stopwatch stopwatch, long duration) {
 		return true;
 	}
 
@@ -1,23 +1,23 @@
 package org.javasimon.javaee.reqreporter;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import org.javasimon.Split;
 import org.javasimon.Stopwatch;
+import org.javasimon.javaee.RequestTrace;
 
 /**
- * Contains cummulated information about about single {@link Stopwatch} with all its reported {@link Split}s.
+ * Contains cummulated information about about single {@link Stopwatch} with all its reported splits.
  * Naturally comparable by total time descending.
  */
 public class ReporterStopwatchInfo implements Comparable<ReporterStopwatchInfo> {
 	Stopwatch stopwatch;
-	List<Split> splits = new ArrayList<>();
-	Split maxSplit;
+	int count;
 	long total;
+	long max;
 
-	ReporterStopwatchInfo(Stopwatch stopwatch) {
-		this.stopwatch = stopwatch;
+	ReporterStopwatchInfo(RequestTrace.StopwatchSummary summary) {
+		this.stopwatch = summary.getStopwatch();
+		this.count = summary.getCount();
+		this.total = summary.getTotal();
+		this.max = summary.getMax();
 	}
 
 	@Override
@@ -25,12 +25,19 @@ public class ReporterStopwatchInfo implements Comparable<ReporterStopwatchInfo>
 		return total < o.total ? 1 : total == o.total ? 0 : -1;
 	}
 
-	public void addSplit(Split split) {
-		splits.add(split);
-		long runningFor = split.runningFor();
-		if (maxSplit == null || runningFor > maxSplit.runningFor()) {
-			maxSplit = split;
-		}
-		total += runningFor;
+	public Stopwatch getStopwatch() {
+		return stopwatch;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getMax() {
+		return max;
 	}
 }
@@ -1,9 +1,9 @@
 package org.javasimon.javaee.reqreporter;
 
-import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 
 import org.javasimon.Split;
+import org.javasimon.javaee.RequestTrace;
 import org.javasimon.javaee.SimonServletFilter;
 
 /**
@@ -17,9 +17,9 @@ public interface RequestReporter {
 	 *
 	 * @param request offending HTTP request
 	 * @param requestSplit split measuring the offending request
-	 * @param splits list of all splits started for this request
+	 * @param trace trace of splits stopped for this request
 	 */
-	void reportRequest(HttpServletRequest request, Split requestSplit, List<Split> splits);
+	void reportRequest(HttpServletRequest request, Split requestSplit, RequestTrace trace);
 
 	/**
 	 * Called by initialization after the instance creation. Useful when {@link org.javasimon.Manager} is needed
@@ -0,0 +1,121 @@
+package org.javasimon.javaee.reqreporter;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.javasimon.Split;
+import org.javasimon.javaee.RequestTrace;
+
+/**
+ * Compact record of one request over the reporting threshold kept in {@link SlowRequestStore}. Record holds only
+ * the route (name of the request Stopwatch), request line, timing and the {@link RequestTrace} of the request,
+ * the report text is formatted only when the record is retrieved.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class SlowRequest {
+
+	private final String route;
+	private final String method;
+	private final String uri;
+	private final String note;
+	private final long timestamp;
+	private final long duration;
+	private final RequestTrace trace;
+
+	/**
+	 * Creates the record of the reported request.
+	 *
+	 * @param request reported HTTP request
+	 * @param requestSplit stopped split measuring the request
+	 * @param trace trace of splits stopped for the request (may be {@code null})
+	 */
+	public SlowRequest(HttpServletRequest request, Split requestSplit, RequestTrace trace) {
+		this(requestSplit.getStopwatch().getName(), request.getMethod(), request.getRequestURI(),
+			requestSplit.getStopwatch().getNote(), requestSplit.getStartMillis(), requestSplit.runningFor(), trace);
+	}
+
+	/**
+	 * Creates the record from its parts.
+	 *
+	 * @param route name of the request Stopwatch
+	 * @param method HTTP method
+	 * @param uri request URI
+	 * @param note note of the request Stopwatch
+	 * @param timestamp start of the request in ms
+	 * @param duration duration of the request in ns
+	 * @param trace trace of splits stopped for the request (may be {@code null})
+	 */
+	public SlowRequest(String route, String method, String uri, String note, long timestamp, long duration, RequestTrace trace) {
+		this.route = route;
+		this.method = method;
+		this.uri = uri;
+		this.note = note;
+		this.timestamp = timestamp;
+		this.duration = duration;
+		this.trace = trace;
+	}
+
+	/**
+	 * Returns route of the request - name of the request Stopwatch.
+	 *
+	 * @return route
+	 */
+	public String getRoute() {
+		return route;
+	}
+
+	/**
+	 * Returns HTTP method of the request.
+	 *
+	 * @return HTTP method
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * Returns request URI.
+	 *
+	 * @return request URI
+	 */
+	public String getUri() {
+		return uri;
+	}
+
+	/**
+	 * Returns note of the request Stopwatch.
+	 *
+	 * @return Stopwatch note
+	 */
+	public String getNote() {
+		return note;
+	}
+
+	/**
+	 * Returns start of the request.
+	 *
+	 * @return timestamp in ms
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns duration of the request.
+	 *
+	 * @return duration in ns
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns trace of splits stopped for the request.
+	 *
+	 * @return request trace or {@code null} if splits were not recorded
+	 */
+	public RequestTrace getTrace() {
+		return trace;
+	}
+}
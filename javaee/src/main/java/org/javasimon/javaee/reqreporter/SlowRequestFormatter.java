@@ -0,0 +1,17 @@
+package org.javasimon.javaee.reqreporter;
+
+/**
+ * Formats the report of the {@link SlowRequest} - used by {@link SlowRequestStore} when reports are retrieved.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public interface SlowRequestFormatter {
+	/**
+	 * Formats the report of the slow request.
+	 *
+	 * @param slowRequest slow request record
+	 * @return report text
+	 */
+	String format(SlowRequest slowRequest);
+}
@@ -0,0 +1,225 @@
+package org.javasimon.javaee.reqreporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.javasimon.clock.SimonClock;
+import org.javasimon.utils.SimonUtils;
+
+/**
+ * Bounded in-memory store of requests over the reporting threshold with tail-based sampling - for each minute
+ * and route (name of the request Stopwatch) only the slowest {@link #getSamplesPerRoute()} requests are kept.
+ * Minutes are kept in a ring of {@link #getMinutes()} windows, so the memory is bounded by
+ * {@code minutes * routes * samplesPerRoute} records where routes per minute are limited too.
+ * <p/>
+ * Store keeps {@link SlowRequest} records only, reports are formatted by {@link SlowRequestFormatter} when they
+ * are retrieved - by {@link #reports()} (also over JMX) or on the console of {@link org.javasimon.javaee.SimonServletFilter}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class SlowRequestStore implements SlowRequestStoreMXBean {
+
+	/** Default count of the slowest requests kept per route and minute. */
+	public static final int DEFAULT_SAMPLES_PER_ROUTE = 3;
+
+	/** Default count of minutes kept in the store. */
+	public static final int DEFAULT_MINUTES = 15;
+
+	/** Default maximal count of routes per minute. */
+	public static final int DEFAULT_MAX_ROUTES = 500;
+
+	private static final long MILLIS_IN_MINUTE = 60 * SimonClock.MILLIS_IN_SECOND;
+
+	private static final Comparator<SlowRequest> BY_DURATION = new Comparator<SlowRequest>() {
+		@Override
+		public int compare(SlowRequest r1, SlowRequest r2) {
+			return Long.compare(r1.getDuration(), r2.getDuration());
+		}
+	};
+
+	private static final SlowRequestFormatter SIMPLE_FORMATTER = new SlowRequestFormatter() {
+		@Override
+		public String format(SlowRequest slowRequest) {
+			return slowRequest.getMethod() + ' ' + slowRequest.getUri() + " (" + SimonUtils.presentNanoTime(slowRequest.getDuration()) +
+				") [" + slowRequest.getRoute() + "]";
+		}
+	};
+
+	private final SimonClock clock;
+
+	private final Window[] windows;
+
+	private final int maxRoutes;
+
+	private volatile int samplesPerRoute = DEFAULT_SAMPLES_PER_ROUTE;
+
+	private volatile SlowRequestFormatter formatter = SIMPLE_FORMATTER;
+
+	private final AtomicLong stored = new AtomicLong();
+
+	private final AtomicLong sampledOut = new AtomicLong();
+
+	/**
+	 * Creates the store with default sizes.
+	 */
+	public SlowRequestStore() {
+		this(DEFAULT_MINUTES, DEFAULT_MAX_ROUTES, SimonClock.SYSTEM);
+	}
+
+	/**
+	 * Creates the store.
+	 *
+	 * @param minutes count of minutes kept in the store
+	 * @param maxRoutes maximal count of routes per minute, requests of other routes are sampled out
+	 * @param clock clock used to determine the current minute when the requests are retrieved
+	 */
+	public SlowRequestStore(int minutes, int maxRoutes, SimonClock clock) {
+		if (minutes < 1) {
+			throw new IllegalArgumentException("Minutes must be positive: " + minutes);
+		}
+		this.windows = new Window[minutes];
+		for (int i = 0; i < minutes; i++) {
+			windows[i] = new Window();
+		}
+		this.maxRoutes = maxRoutes;
+		this.clock = clock;
+	}
+
+	/**
+	 * Offers the slow request to the store. Request is kept if it is among the slowest requests of its route
+	 * in its minute - in that case the fastest kept request of the route may be replaced.
+	 *
+	 * @param slowRequest slow request record
+	 * @return true if the request was kept
+	 */
+	public boolean offer(SlowRequest slowRequest) {
+		long minute = slowRequest.getTimestamp() / MILLIS_IN_MINUTE;
+		Window window = windows[(int) (minute % windows.length)];
+		int samples = samplesPerRoute;
+		synchronized (window) {
+			if (window.minute != minute) {
+				if (window.minute > minute) {
+					// the window was already reused by a later minute
+					sampledOut.incrementAndGet();
+					return false;
+				}
+				window.reset(minute);
+			}
+			PriorityQueue<SlowRequest> routeRequests = window.routes.get(slowRequest.getRoute());
+			if (routeRequests == null) {
+				if (window.routes.size() >= maxRoutes || samples <= 0) {
+					sampledOut.incrementAndGet();
+					return false;
+				}
+				routeRequests = new PriorityQueue<>(samples, BY_DURATION);
+				window.routes.put(slowRequest.getRoute(), routeRequests);
+			}
+			if (routeRequests.size() >= samples) {
+				if (routeRequests.peek().getDuration() >= slowRequest.getDuration()) {
+					sampledOut.incrementAndGet();
+					return false;
+				}
+				routeRequests.poll();
+				sampledOut.incrementAndGet();
+			}
+			routeRequests.add(slowRequest);
+		}
+		stored.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Returns kept requests of the last {@link #getMinutes()} minutes.
+	 *
+	 * @return slow requests sorted by duration, slowest first
+	 */
+	public List<SlowRequest> getSlowRequests() {
+		long oldestMinute = clock.milliTime() / MILLIS_IN_MINUTE - windows.length + 1;
+		List<SlowRequest> result = new ArrayList<>();
+		for (Window window : windows) {
+			synchronized (window) {
+				if (window.minute >= oldestMinute) {
+					for (PriorityQueue<SlowRequest> routeRequests : window.routes.values()) {
+						result.addAll(routeRequests);
+					}
+				}
+			}
+		}
+		Collections.sort(result, Collections.reverseOrder(BY_DURATION));
+		return result;
+	}
+
+	@Override
+	public String[] reports() {
+		List<SlowRequest> slowRequests = getSlowRequests();
+		String[] reports = new String[slowRequests.size()];
+		SlowRequestFormatter formatter = this.formatter;
+		for (int i = 0; i < reports.length; i++) {
+			reports[i] = formatter.format(slowRequests.get(i));
+		}
+		return reports;
+	}
+
+	/**
+	 * Sets formatter of the reports.
+	 *
+	 * @param formatter slow request formatter, {@code null} restores the simple one line formatter
+	 */
+	public void setFormatter(SlowRequestFormatter formatter) {
+		this.formatter = formatter != null ? formatter : SIMPLE_FORMATTER;
+	}
+
+	@Override
+	public int getSamplesPerRoute() {
+		return samplesPerRoute;
+	}
+
+	@Override
+	public void setSamplesPerRoute(int samplesPerRoute) {
+		this.samplesPerRoute = samplesPerRoute;
+	}
+
+	@Override
+	public int getMinutes() {
+		return windows.length;
+	}
+
+	@Override
+	public long getStored() {
+		return stored.get();
+	}
+
+	@Override
+	public long getSampledOut() {
+		return sampledOut.get();
+	}
+
+	@Override
+	public void clear() {
+		for (Window window : windows) {
+			synchronized (window) {
+				window.reset(-1);
+			}
+		}
+		stored.set(0);
+		sampledOut.set(0);
+	}
+
+	/** Slow requests of one minute per route, guarded by its own monitor. */
+	private static final class Window {
+		private long minute = -1;
+		private final Map<String, PriorityQueue<SlowRequest>> routes = new HashMap<>();
+
+		void reset(long minute) {
+			this.minute = minute;
+			routes.clear();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package org.javasimon.javaee.reqreporter;
+
+/**
+ * Management interface of {@link SlowRequestStore} - reports are formatted when they are retrieved.
+ * Store is not registered automatically, it can be registered for instance like this:
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(filter.getSlowRequestStore(),
+ *     new ObjectName("org.javasimon.javaee:type=SlowRequestStore"));</pre>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public interface SlowRequestStoreMXBean {
+	/**
+	 * Returns maximal count of requests kept per route and minute.
+	 *
+	 * @return slowest requests kept per route and minute
+	 */
+	int getSamplesPerRoute();
+
+	/**
+	 * Sets maximal count of requests kept per route and minute.
+	 *
+	 * @param samplesPerRoute slowest requests kept per route and minute
+	 */
+	void setSamplesPerRoute(int samplesPerRoute);
+
+	/**
+	 * Returns count of minutes kept in the store.
+	 *
+	 * @return count of minutes
+	 */
+	int getMinutes();
+
+	/**
+	 * Returns count of requests accepted by the store.
+	 *
+	 * @return count of stored requests
+	 */
+	long getStored();
+
+	/**
+	 * Returns count of requests not stored (or replaced later) because they were not among the slowest
+	 * of their route and minute.
+	 *
+	 * @return count of sampled out requests
+	 */
+	long getSampledOut();
+
+	/**
+	 * Returns formatted reports of kept requests, slowest first.
+	 *
+	 * @return reports of slow requests
+	 */
+	String[] reports();
+
+	/**
+	 * Removes all kept requests and resets the counters.
+	 */
+	void clear();
+}
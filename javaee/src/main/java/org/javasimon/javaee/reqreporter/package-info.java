@@ -1,4 +1,5 @@
 /**
- * Package contains classes reporting slow HTTP requests - interface {@link org.javasimon.javaee.reqreporter.RequestReporter} and various (default) implementations.
+ * Package contains classes reporting slow HTTP requests - interface {@link org.javasimon.javaee.reqreporter.RequestReporter} and various (default) implementations
+ * and {@link org.javasimon.javaee.reqreporter.SlowRequestStore} keeping the slowest requests for on-demand retrieval.
  */
-package org.javasimon.javaee.reqreporter;
\ No newline at end of file
+package org.javasimon.javaee.reqreporter;
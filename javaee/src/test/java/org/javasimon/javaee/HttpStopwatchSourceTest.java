@@ -138,4 +138,55 @@ public class HttpStopwatchSourceTest {
 		assertMonitorName(uri, httpMethod, expectedName);
 	}
 
+	@Test
+	public void testUriTemplates() {
+		httpStopwatchSource.setUriTemplates("/orders/{id}/items,/orders/{id}");
+		Assert.assertEquals(httpStopwatchSource.getUriTemplates(), "/orders/{id}/items,/orders/{id}");
+
+		assertMonitorName("/orders/123/items", "org.javasimon.web.orders._id_.items");
+		assertMonitorName("/orders/456/items", "org.javasimon.web.orders._id_.items");
+		assertMonitorName("/orders/123/items", "org.javasimon.web.orders._id_.items");
+		assertMonitorName("/orders/abc", "org.javasimon.web.orders._id_");
+		assertMonitorName("/customers/123", "org.javasimon.web.customers");
+		Assert.assertEquals(httpStopwatchSource.getUriCacheHits(), 1);
+		Assert.assertEquals(httpStopwatchSource.getUnmatchedUris(), 1);
+
+		httpStopwatchSource.setUriCacheSize(0);
+		assertMonitorName("/orders/123/items", "org.javasimon.web.orders._id_.items");
+		assertMonitorName("/orders/123/items", "org.javasimon.web.orders._id_.items");
+		Assert.assertEquals(httpStopwatchSource.getUriCacheHits(), 1);
+
+		httpStopwatchSource.setUriTemplates(null);
+		assertMonitorName("/orders/123/items", "org.javasimon.web.orders.123.items");
+	}
+
+	@Test
+	public void testUriCache() {
+		httpStopwatchSource.setUriTemplates("/orders/{id}");
+		httpStopwatchSource.setUriCacheSize(2);
+
+		// path parameters are not part of the cached URI
+		assertMonitorName("/orders/1;jsessionid=abc", "org.javasimon.web.orders._id_");
+		assertMonitorName("/orders/1;jsessionid=def", "org.javasimon.web.orders._id_");
+		Assert.assertEquals(httpStopwatchSource.getUriCacheHits(), 1);
+
+		// unmatched URIs are not cached
+		assertMonitorName("/customers/1", "org.javasimon.web.customers");
+		assertMonitorName("/customers/1", "org.javasimon.web.customers");
+		Assert.assertEquals(httpStopwatchSource.getUnmatchedUris(), 2);
+		Assert.assertEquals(httpStopwatchSource.getUriCacheHits(), 1);
+
+		// full cache is cleared and new URIs are cached
+		assertMonitorName("/orders/2", "org.javasimon.web.orders._id_");
+		assertMonitorName("/orders/3", "org.javasimon.web.orders._id_");
+		assertMonitorName("/orders/3", "org.javasimon.web.orders._id_");
+		Assert.assertEquals(httpStopwatchSource.getUriCacheHits(), 2);
+	}
+
+	@Test
+	public void testRemovePathParameters() {
+		assertEquals(HttpStopwatchSource.removePathParameters("/a/b"), "/a/b");
+		assertEquals(HttpStopwatchSource.removePathParameters("/a/b;jsessionid=1"), "/a/b");
+		assertEquals(HttpStopwatchSource.removePathParameters("/a;x=1/b;y=2/c"), "/a/b/c");
+	}
 }
@@ -0,0 +1,84 @@
+package org.javasimon.javaee;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.List;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.Stopwatch;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link RequestTrace}.
+ */
+public class RequestTraceTest {
+
+	private final Manager manager = new EnabledManager();
+
+	@Test
+	public void testOverflowSummary() {
+		Stopwatch first = manager.getStopwatch("first");
+		Stopwatch second = manager.getStopwatch("second");
+		RequestTrace trace = new RequestTrace(2);
+		trace.record(first, 100, 10);
+		trace.record(second, 110, 5);
+		trace.record(first, 120, 30);
+		trace.record(second, 150, 1);
+
+		assertEquals(trace.size(), 2);
+		assertEquals(trace.getDropped(), 2);
+		assertSame(trace.getStopwatch(1), second);
+		assertEquals(trace.getStart(1), 110);
+		assertEquals(trace.getDuration(1), 5);
+
+		List<RequestTrace.StopwatchSummary> summary = trace.getSummary();
+		assertEquals(summary.size(), 2);
+		assertSame(summary.get(0).getStopwatch(), first);
+		assertEquals(summary.get(0).getCount(), 2);
+		assertEquals(summary.get(0).getTotal(), 40);
+		assertEquals(summary.get(0).getMax(), 30);
+		assertEquals(summary.get(1).getCount(), 2);
+		assertEquals(summary.get(1).getTotal(), 6);
+	}
+
+	@Test
+	public void testManyStopwatches() {
+		RequestTrace trace = new RequestTrace(RequestTrace.DEFAULT_CAPACITY);
+		for (int i = 0; i < 20; i++) {
+			trace.record(manager.getStopwatch("sw" + i), i, i);
+		}
+		assertEquals(trace.size(), 20);
+		assertEquals(trace.getSummary().size(), 20);
+		assertEquals(trace.getStopwatch(19).getName(), "sw19");
+	}
+
+	@Test
+	public void testGrowingEntries() {
+		Stopwatch stopwatch = manager.getStopwatch("grow");
+		RequestTrace trace = new RequestTrace(100);
+		for (int i = 0; i < 150; i++) {
+			trace.record(stopwatch, i, i * 10);
+		}
+		assertEquals(trace.size(), 100);
+		assertEquals(trace.getDropped(), 50);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(trace.getStart(i), i);
+			assertEquals(trace.getDuration(i), i * 10);
+		}
+		assertEquals(trace.getSummary().get(0).getCount(), 150);
+	}
+
+	@Test
+	public void testEmpty() {
+		RequestTrace trace = new RequestTrace(0);
+		assertEquals(trace.size(), 0);
+		assertEquals(trace.getSummary().size(), 0);
+	}
+
+	@Test(expectedExceptions = IndexOutOfBoundsException.class)
+	public void testIndexOutOfBounds() {
+		new RequestTrace(1).getDuration(0);
+	}
+}
@@ -0,0 +1,101 @@
+package org.javasimon.javaee;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import javax.interceptor.InvocationContext;
+
+import org.javasimon.SimonManager;
+import org.javasimon.SimonState;
+import org.javasimon.Stopwatch;
+import org.javasimon.aop.Monitored;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link SimonInterceptor}.
+ */
+public class SimonInterceptorTest {
+
+	private final SimonInterceptor interceptor = new SimonInterceptor();
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testNames() throws Exception {
+		assertEquals(MethodStopwatchSource.getMonitorName("p", Plain.class.getMethod("call")), "p.Plain.call");
+		assertEquals(MethodStopwatchSource.getMonitorName("p", Annotated.class.getMethod("call")), "service.call");
+		assertEquals(MethodStopwatchSource.getMonitorName("p", Annotated.class.getMethod("suffixed")), "service.other");
+		assertEquals(MethodStopwatchSource.getMonitorName("p", Annotated.class.getMethod("named")), "explicit.name");
+	}
+
+	@Test
+	public void testMonitor() throws Exception {
+		InvocationContext context = context(Plain.class);
+		interceptor.monitor(context);
+		interceptor.monitor(context);
+
+		Stopwatch stopwatch = SimonManager.getStopwatch(SimonInterceptor.DEFAULT_INTERCEPTOR_PREFIX + ".Plain.call");
+		assertEquals(stopwatch.getCounter(), 2);
+
+		// cached Stopwatch is dropped with the cleared manager
+		SimonManager.clear();
+		interceptor.monitor(context);
+		assertEquals(SimonManager.getStopwatch(SimonInterceptor.DEFAULT_INTERCEPTOR_PREFIX + ".Plain.call").getCounter(), 1);
+
+		// and with the destroyed Simon
+		SimonManager.destroySimon(SimonInterceptor.DEFAULT_INTERCEPTOR_PREFIX + ".Plain.call");
+		interceptor.monitor(context);
+		assertEquals(SimonManager.getStopwatch(SimonInterceptor.DEFAULT_INTERCEPTOR_PREFIX + ".Plain.call").getCounter(), 1);
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		InvocationContext context = context(Annotated.class);
+		interceptor.monitor(context);
+		Stopwatch stopwatch = SimonManager.getStopwatch("service.call");
+		stopwatch.setState(SimonState.DISABLED, false);
+		interceptor.monitor(context);
+		assertEquals(stopwatch.getCounter(), 1);
+
+		SimonInterceptor notMonitored = new SimonInterceptor() {
+			@Override
+			protected boolean isMonitored(InvocationContext context) {
+				return false;
+			}
+		};
+		notMonitored.monitor(context(Plain.class));
+		assertNull(SimonManager.getSimon(SimonInterceptor.DEFAULT_INTERCEPTOR_PREFIX + ".Plain.call"));
+	}
+
+	private InvocationContext context(Class<?> beanClass) throws Exception {
+		InvocationContext context = mock(InvocationContext.class);
+		when(context.getMethod()).thenReturn(beanClass.getMethod("call"));
+		when(context.proceed()).thenReturn("result");
+		return context;
+	}
+
+	public static class Plain {
+		public void call() {
+		}
+	}
+
+	@Monitored(name = "service")
+	public static class Annotated {
+		public void call() {
+		}
+
+		@Monitored(suffix = "other")
+		public void suffixed() {
+		}
+
+		@Monitored(name = "explicit.name")
+		public void named() {
+		}
+	}
+}
@@ -1,17 +1,39 @@
 package org.javasimon.javaee;
 
+import org.javasimon.EnabledManager;
 import org.javasimon.Manager;
 import org.javasimon.Simon;
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+import org.javasimon.javaee.reqreporter.RequestReporter;
 import org.javasimon.source.StopwatchSource;
+import org.javasimon.utils.SimonUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -21,14 +43,18 @@ public class SimonServletFilterTest {
 
 	private SimonServletFilter filter;
 	private FilterConfig filterConfig;
+	private Manager manager;
 
 	@BeforeMethod
 	public void beforeMethod() {
 		filter = new SimonServletFilter();
 		filterConfig = mock(FilterConfig.class);
+		manager = new EnabledManager();
 
 		ServletContext servletContext = mock(ServletContext.class);
 		when(filterConfig.getServletContext()).thenReturn(servletContext);
+		when(servletContext.getAttribute(SimonUtils.MANAGER_SERVLET_CTX_ATTRIBUTE)).thenReturn(manager);
+		TestRequestReporter.trace = null;
 	}
 
 	@Test
@@ -56,6 +82,135 @@ public class SimonServletFilterTest {
 		Assert.assertEquals(testBean.getIntProp(), 123);
 	}
 
+	@Test
+	public void testSyncRequest() throws Exception {
+		filter.init(filterConfig);
+		HttpServletRequest request = mockRequest("/sync/page");
+		filter.doFilter(request, mock(HttpServletResponse.class), mock(FilterChain.class));
+
+		Stopwatch stopwatch = manager.getStopwatch(HttpStopwatchSource.DEFAULT_SIMON_PREFIX + ".sync.page");
+		Assert.assertEquals(stopwatch.getCounter(), 1);
+		Assert.assertEquals(stopwatch.getActive(), 0);
+		Assert.assertTrue(RequestContext.get(request).isFinished());
+		Assert.assertNull(RequestContext.current());
+	}
+
+	@Test
+	public void testResponseMetrics() throws Exception {
+		when(filterConfig.getInitParameter(SimonServletFilter.INIT_PARAM_RESPONSE_METRICS)).thenReturn("true");
+		filter.init(filterConfig);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		when(response.getStatus()).thenReturn(404);
+		when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		});
+		filter.doFilter(mockRequest("/metrics/page"), response, new FilterChain() {
+			@Override
+			public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) throws IOException {
+				servletResponse.getOutputStream().write(new byte[10]);
+				servletResponse.getOutputStream().write(1);
+			}
+		});
+		try {
+			filter.doFilter(mockRequest("/metrics/page"), response, new FilterChain() {
+				@Override
+				public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+					throw new IllegalStateException();
+				}
+			});
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		String route = HttpStopwatchSource.DEFAULT_SIMON_PREFIX + ".metrics.page";
+		Assert.assertEquals(manager.getStopwatch(route).getCounter(), 2);
+		Assert.assertEquals(manager.getStopwatch(route + ".4xx").getCounter(), 1);
+		Assert.assertEquals(manager.getStopwatch(route + ".exception").getCounter(), 1);
+		Assert.assertNull(manager.getSimon(route + ".2xx"));
+		Assert.assertEquals(manager.getCounter(route + ".responseBytes").getCounter(), 11);
+		Assert.assertNotNull(manager.getStopwatch(route).getAttribute(RouteMetrics.ATTRIBUTE));
+	}
+
+	@Test
+	public void testAsyncRequest() throws Exception {
+		when(filterConfig.getInitParameter(SimonServletFilter.INIT_PARAM_REPORT_THRESHOLD_MS)).thenReturn("0");
+		when(filterConfig.getInitParameter(SimonServletFilter.INIT_PARAM_REQUEST_REPORTER_CLASS)).thenReturn(TestRequestReporter.class.getName());
+		filter.init(filterConfig);
+
+		final HttpServletRequest request = mockRequest("/async/page");
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		when(request.isAsyncStarted()).thenReturn(true);
+		when(request.getAsyncContext()).thenReturn(asyncContext);
+		final Thread[] worker = new Thread[1];
+		filter.doFilter(request, mock(HttpServletResponse.class), new FilterChain() {
+			@Override
+			public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+				manager.getStopwatch("dispatch").start().stop();
+				worker[0] = new Thread(RequestContext.get(request).wrap(new Runnable() {
+					@Override
+					public void run() {
+						manager.getStopwatch("worker").start().stop();
+					}
+				}));
+				worker[0].start();
+			}
+		});
+		worker[0].join();
+		manager.getStopwatch("unrelated").start().stop();
+
+		Stopwatch stopwatch = manager.getStopwatch(HttpStopwatchSource.DEFAULT_SIMON_PREFIX + ".async.page");
+		Assert.assertEquals(stopwatch.getCounter(), 0);
+		Assert.assertEquals(stopwatch.getActive(), 1);
+
+		ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+		verify(asyncContext).addListener(listener.capture());
+		listener.getValue().onTimeout(null);
+		listener.getValue().onComplete(null);
+
+		Assert.assertEquals(stopwatch.getCounter(), 1);
+		Assert.assertEquals(stopwatch.getActive(), 0);
+		Assert.assertEquals(TestRequestReporter.trace.size(), 2);
+		Assert.assertEquals(TestRequestReporter.trace.getStopwatch(0).getName(), "dispatch");
+		Assert.assertEquals(TestRequestReporter.trace.getStopwatch(1).getName(), "worker");
+	}
+
+	private HttpServletRequest mockRequest(String uri) {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRequestURI()).thenReturn(uri);
+		when(request.getContextPath()).thenReturn("");
+		final Map<String, Object> attributes = new HashMap<>();
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+				return null;
+			}
+		}).when(request).setAttribute(anyString(), any());
+		when(request.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				return attributes.get(invocation.getArguments()[0]);
+			}
+		});
+		return request;
+	}
+
+	public static class TestRequestReporter implements RequestReporter {
+		static RequestTrace trace;
+
+		@Override
+		public void reportRequest(HttpServletRequest request, Split requestSplit, RequestTrace trace) {
+			TestRequestReporter.trace = trace;
+		}
+
+		@Override
+		public void setSimonServletFilter(SimonServletFilter simonServletFilter) {
+		}
+	}
+
 	public static class TestBean implements StopwatchSource {
 		String strProp;
 		int intProp;
@@ -0,0 +1,45 @@
+package org.javasimon.javaee;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link UriTemplateMatcher}.
+ */
+public class UriTemplateMatcherTest {
+
+	private final UriTemplateMatcher matcher = UriTemplateMatcher.parse("/orders/{id}/items, /orders/new /orders/{id} /{tenant}/orders/{id}/items/{item}");
+
+	@Test
+	public void testMatch() {
+		assertEquals(matcher.match("/orders/123/items"), "/orders/{id}/items");
+		assertEquals(matcher.match("/orders/123/items/"), "/orders/{id}/items");
+		assertEquals(matcher.match("//orders//123/items"), "/orders/{id}/items");
+		assertEquals(matcher.match("/orders/123;jsessionid=abc"), "/orders/{id}");
+		assertEquals(matcher.match("/orders/new"), "/orders/new");
+		assertEquals(matcher.match("/acme/orders/1/items/2"), "/{tenant}/orders/{id}/items/{item}");
+	}
+
+	@Test
+	public void testLiteralBacktracking() {
+		// literal "orders" of the first segment does not lead to a match, variable {tenant} does
+		assertEquals(matcher.match("/orders/orders/1/items/2"), "/{tenant}/orders/{id}/items/{item}");
+	}
+
+	@Test
+	public void testNoMatch() {
+		assertNull(matcher.match("/"));
+		assertNull(matcher.match("/orders"));
+		assertNull(matcher.match("/orders/123/items/456"));
+		assertNull(matcher.match("/customers/123"));
+	}
+
+	@Test
+	public void testTemplates() {
+		assertEquals(matcher.getTemplates(), Arrays.asList("/orders/{id}/items", "/orders/new", "/orders/{id}", "/{tenant}/orders/{id}/items/{item}"));
+	}
+}
@@ -0,0 +1,96 @@
+package org.javasimon.javaee.reqreporter;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.clock.SimonClock;
+import org.javasimon.javaee.RequestTrace;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link SlowRequestStore}.
+ */
+public class SlowRequestStoreTest {
+
+	private static final long MINUTE = 60000;
+
+	private SimonClock clock;
+	private SlowRequestStore store;
+
+	@BeforeMethod
+	public void setUp() {
+		clock = mock(SimonClock.class);
+		when(clock.milliTime()).thenReturn(10 * MINUTE);
+		store = new SlowRequestStore(3, 2, clock);
+		store.setSamplesPerRoute(2);
+	}
+
+	@Test
+	public void testSlowestPerRouteAndMinute() {
+		assertTrue(store.offer(request("a", 10 * MINUTE, 10)));
+		assertTrue(store.offer(request("a", 10 * MINUTE + 1, 30)));
+		assertTrue(store.offer(request("a", 10 * MINUTE + 2, 20)));
+		assertFalse(store.offer(request("a", 10 * MINUTE + 3, 5)));
+		assertTrue(store.offer(request("a", 9 * MINUTE, 1)));
+		assertTrue(store.offer(request("b", 10 * MINUTE, 15)));
+
+		List<SlowRequest> slowRequests = store.getSlowRequests();
+		assertEquals(slowRequests.size(), 4);
+		assertEquals(slowRequests.get(0).getDuration(), 30);
+		assertEquals(slowRequests.get(1).getDuration(), 20);
+		assertEquals(slowRequests.get(2).getDuration(), 15);
+		assertEquals(slowRequests.get(3).getDuration(), 1);
+		assertEquals(store.getStored(), 5);
+		assertEquals(store.getSampledOut(), 2);
+	}
+
+	@Test
+	public void testBounds() {
+		assertTrue(store.offer(request("a", 10 * MINUTE, 1)));
+		assertTrue(store.offer(request("b", 10 * MINUTE, 1)));
+		assertFalse(store.offer(request("c", 10 * MINUTE, 100)));
+
+		// minute 7 shares the window with minute 10 and is older
+		assertFalse(store.offer(request("a", 7 * MINUTE, 100)));
+
+		assertTrue(store.offer(request("a", 8 * MINUTE, 100)));
+		assertEquals(store.getSlowRequests().size(), 3);
+
+		// minute 8 gets out of the retrieved range
+		when(clock.milliTime()).thenReturn(11 * MINUTE);
+		assertEquals(store.getSlowRequests().size(), 2);
+
+		store.clear();
+		assertEquals(store.getSlowRequests().size(), 0);
+		assertEquals(store.getStored(), 0);
+	}
+
+	@Test
+	public void testReports() {
+		Manager manager = new EnabledManager();
+		RequestTrace trace = new RequestTrace(1);
+		trace.record(manager.getStopwatch("sql"), 0, 90);
+		trace.record(manager.getStopwatch("sql"), 0, 1);
+		store.offer(new SlowRequest("web.page", "GET", "/page", "/page", 10 * MINUTE, 100, trace));
+
+		assertEquals(store.reports()[0], "GET /page (100 ns) [web.page]");
+
+		store.setFormatter(new DefaultRequestReporter());
+		String report = store.reports()[0];
+		assertTrue(report.startsWith("Web request is too long (100 ns) [/page]\n\tsql: 90 ns"), report);
+		assertTrue(report.contains("1 more splits not recorded"), report);
+		assertTrue(report.contains("sql: 2x, total: 91 ns, max: 90 ns"), report);
+	}
+
+	private SlowRequest request(String route, long timestamp, long duration) {
+		return new SlowRequest(route, "GET", "/" + route, null, timestamp, duration, null);
+	}
+}
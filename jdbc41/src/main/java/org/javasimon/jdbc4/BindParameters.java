@@ -0,0 +1,191 @@
+package org.javasimon.jdbc4;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Snapshot of bind parameters of one prepared statement, used only when the slow query capture is enabled.
+ * Parameters are stored into preallocated arrays - primitive values are kept in a {@code long} array without
+ * boxing, immutable objects (strings, numbers, ...) are kept by reference and streams/LOBs are not retained
+ * at all. Other objects (byte arrays, dates, ...) may be changed by the application after they are bound,
+ * hence they are formatted when bound. Parameters are converted to string only when the execution is slow,
+ * see {@link #toString()}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class BindParameters {
+
+	static final byte UNSET = 0;
+	static final byte NULL = 1;
+	static final byte BOOLEAN = 2;
+	static final byte INTEGRAL = 3;
+	static final byte FLOATING = 4;
+	static final byte OBJECT = 5;
+	static final byte OPAQUE = 6;
+	static final byte FORMATTED = 7;
+
+	/** Longer values are truncated in the report. */
+	static final int MAX_VALUE_LENGTH = 100;
+
+	private byte[] types;
+	private long[] values;
+	private Object[] objects;
+
+	/**
+	 * Creates bind parameters with capacity for the parameters of the SQL.
+	 *
+	 * @param sql prepared SQL
+	 */
+	BindParameters(String sql) {
+		int capacity = placeholderCount(sql);
+		types = new byte[capacity];
+		values = new long[capacity];
+		objects = new Object[capacity];
+	}
+
+	void setNull(int index) {
+		set(index, NULL, 0, null);
+	}
+
+	void setBoolean(int index, boolean value) {
+		set(index, BOOLEAN, value ? 1 : 0, null);
+	}
+
+	void setLong(int index, long value) {
+		set(index, INTEGRAL, value, null);
+	}
+
+	void setDouble(int index, double value) {
+		set(index, FLOATING, Double.doubleToRawLongBits(value), null);
+	}
+
+	void setObject(int index, Object value) {
+		if (value == null) {
+			setNull(index);
+		} else if (isImmutable(value)) {
+			set(index, OBJECT, 0, value);
+		} else {
+			StringBuilder sb = new StringBuilder();
+			appendObject(sb, value);
+			set(index, FORMATTED, 0, sb.toString());
+		}
+	}
+
+	private static boolean isImmutable(Object value) {
+		return value instanceof String || value instanceof Integer || value instanceof Long || value instanceof BigDecimal
+			|| value instanceof Short || value instanceof Byte || value instanceof Double || value instanceof Float
+			|| value instanceof Boolean || value instanceof Character || value instanceof BigInteger || value instanceof Enum;
+	}
+
+	/**
+	 * Records parameter that is not retained (stream, LOB, ...), only its kind is reported.
+	 *
+	 * @param index parameter index (1-based)
+	 * @param kind kind of the value, e.g. {@code stream}
+	 */
+	void setOpaque(int index, String kind) {
+		set(index, OPAQUE, 0, kind);
+	}
+
+	/** Clears all parameters, references to objects are released. */
+	void clear() {
+		Arrays.fill(types, UNSET);
+		Arrays.fill(objects, null);
+	}
+
+	private void set(int index, byte type, long value, Object object) {
+		int i = index - 1;
+		if (i < 0) {
+			return;
+		}
+		if (i >= types.length) {
+			int capacity = Math.max(i + 1, types.length * 2);
+			types = Arrays.copyOf(types, capacity);
+			values = Arrays.copyOf(values, capacity);
+			objects = Arrays.copyOf(objects, capacity);
+		}
+		types[i] = type;
+		values[i] = value;
+		objects[i] = object;
+	}
+
+	/**
+	 * Materializes parameters into a human readable form like {@code [1, 'abc', null, <stream>]},
+	 * unset parameters are shown as {@code ?}.
+	 *
+	 * @return parameters as string
+	 */
+	@Override
+	public String toString() {
+		int count = types.length;
+		while (count > 0 && types[count - 1] == UNSET) {
+			count--;
+		}
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			switch (types[i]) {
+				case NULL:
+					sb.append("null");
+					break;
+				case BOOLEAN:
+					sb.append(values[i] != 0);
+					break;
+				case INTEGRAL:
+					sb.append(values[i]);
+					break;
+				case FLOATING:
+					sb.append(Double.longBitsToDouble(values[i]));
+					break;
+				case OBJECT:
+					appendObject(sb, objects[i]);
+					break;
+				case OPAQUE:
+					sb.append('<').append(objects[i]).append('>');
+					break;
+				case FORMATTED:
+					sb.append(objects[i]);
+					break;
+				default:
+					sb.append('?');
+			}
+		}
+		return sb.append(']').toString();
+	}
+
+	private static void appendObject(StringBuilder sb, Object object) {
+		if (object instanceof byte[]) {
+			sb.append("<bytes[").append(((byte[]) object).length).append("]>");
+			return;
+		}
+		String value = String.valueOf(object);
+		if (value.length() > MAX_VALUE_LENGTH) {
+			value = value.substring(0, MAX_VALUE_LENGTH) + "...";
+		}
+		if (object instanceof CharSequence) {
+			sb.append('\'').append(value).append('\'');
+		} else {
+			sb.append(value);
+		}
+	}
+
+	/**
+	 * Counts question marks in the SQL - upper estimate of the parameter count (marks in literals are counted too).
+	 *
+	 * @param sql SQL
+	 * @return count of question marks
+	 */
+	static int placeholderCount(String sql) {
+		int count = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			if (sql.charAt(i) == '?') {
+				count++;
+			}
+		}
+		return count;
+	}
+}
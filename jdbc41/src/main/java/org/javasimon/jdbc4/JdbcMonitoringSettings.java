@@ -0,0 +1,295 @@
+package org.javasimon.jdbc4;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitoring settings shared by all JDBC proxies with the same hierarchy prefix. Settings are obtained
+ * by {@link #forPrefix(String)} when a proxy object is created, so changes are applied to new result sets
+ * (statements, etc.) only. Settings can be provided as parameters of Simon JDBC URL,
+ * see {@link SimonConnectionConfiguration}, or set programmatically.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class JdbcMonitoringSettings {
+
+	/** Default sample rate for {@link ResultSetMode#SAMPLED} - every 100th {@code next()} is measured. */
+	public static final int DEFAULT_RESULT_SET_SAMPLE_RATE = 100;
+
+	/** Default sample rate for {@link LifecycleMode#SAMPLED} - every 100th connection/statement is measured. */
+	public static final int DEFAULT_LIFECYCLE_SAMPLE_RATE = 100;
+
+	private static final ConcurrentMap<String, JdbcMonitoringSettings> SETTINGS = new ConcurrentHashMap<>();
+
+	private volatile ResultSetMode resultSetMode = ResultSetMode.SPLIT;
+
+	private volatile int resultSetSampleRate = DEFAULT_RESULT_SET_SAMPLE_RATE;
+
+	private volatile boolean resultSetBytesEstimated;
+
+	private volatile LifecycleMode connectionLifecycleMode = LifecycleMode.FULL;
+
+	private volatile LifecycleMode statementLifecycleMode = LifecycleMode.FULL;
+
+	private volatile int lifecycleSampleRate = DEFAULT_LIFECYCLE_SAMPLE_RATE;
+
+	private volatile long slowQueryThresholdNanos;
+
+	private final ConcurrentMap<String, Long> slowQueryPatternThresholds = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns settings for the hierarchy prefix, settings are created with default values on the first call.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return settings for the prefix
+	 */
+	public static JdbcMonitoringSettings forPrefix(String prefix) {
+		JdbcMonitoringSettings settings = SETTINGS.get(prefix);
+		if (settings == null) {
+			settings = new JdbcMonitoringSettings();
+			JdbcMonitoringSettings existing = SETTINGS.putIfAbsent(prefix, settings);
+			if (existing != null) {
+				settings = existing;
+			}
+		}
+		return settings;
+	}
+
+	/**
+	 * Returns how {@code ResultSet.next()} calls are measured, {@link ResultSetMode#SPLIT} by default.
+	 *
+	 * @return result set monitoring mode
+	 */
+	public ResultSetMode getResultSetMode() {
+		return resultSetMode;
+	}
+
+	/**
+	 * Sets how {@code ResultSet.next()} calls are measured.
+	 *
+	 * @param resultSetMode result set monitoring mode
+	 */
+	public void setResultSetMode(ResultSetMode resultSetMode) {
+		if (resultSetMode == null) {
+			throw new IllegalArgumentException("Result set mode must not be null");
+		}
+		this.resultSetMode = resultSetMode;
+	}
+
+	/**
+	 * Returns how often {@code ResultSet.next()} is measured in {@link ResultSetMode#SAMPLED} mode.
+	 *
+	 * @return N - every Nth call is measured
+	 */
+	public int getResultSetSampleRate() {
+		return resultSetSampleRate;
+	}
+
+	/**
+	 * Sets how often {@code ResultSet.next()} is measured in {@link ResultSetMode#SAMPLED} mode.
+	 *
+	 * @param resultSetSampleRate N - every Nth call is measured (positive number)
+	 */
+	public void setResultSetSampleRate(int resultSetSampleRate) {
+		if (resultSetSampleRate < 1) {
+			throw new IllegalArgumentException("Sample rate must be positive: " + resultSetSampleRate);
+		}
+		this.resultSetSampleRate = resultSetSampleRate;
+	}
+
+	/**
+	 * Returns true if result sets estimate volume of String and binary values read, see {@link ResultSetStatistics}.
+	 * Disabled by default.
+	 *
+	 * @return true if the volume of read values is estimated
+	 */
+	public boolean isResultSetBytesEstimated() {
+		return resultSetBytesEstimated;
+	}
+
+	/**
+	 * Sets whether result sets estimate volume of String and binary values read - length of each value returned
+	 * by {@code getString}, {@code getNString}, {@code getBytes} and {@code getObject} is added.
+	 *
+	 * @param resultSetBytesEstimated true to estimate the volume of read values
+	 */
+	public void setResultSetBytesEstimated(boolean resultSetBytesEstimated) {
+		this.resultSetBytesEstimated = resultSetBytesEstimated;
+	}
+
+	/**
+	 * Returns how lifespan of connections ({@code <prefix>.conn} Stopwatch) is measured, {@link LifecycleMode#FULL}
+	 * by default.
+	 *
+	 * @return connection lifecycle monitoring mode
+	 */
+	public LifecycleMode getConnectionLifecycleMode() {
+		return connectionLifecycleMode;
+	}
+
+	/**
+	 * Sets how lifespan of connections ({@code <prefix>.conn} Stopwatch) is measured.
+	 *
+	 * @param connectionLifecycleMode connection lifecycle monitoring mode
+	 */
+	public void setConnectionLifecycleMode(LifecycleMode connectionLifecycleMode) {
+		if (connectionLifecycleMode == null) {
+			throw new IllegalArgumentException("Connection lifecycle mode must not be null");
+		}
+		this.connectionLifecycleMode = connectionLifecycleMode;
+	}
+
+	/**
+	 * Returns how lifespan of statements ({@code <prefix>.stmt} Stopwatch) is measured, {@link LifecycleMode#FULL}
+	 * by default.
+	 *
+	 * @return statement lifecycle monitoring mode
+	 */
+	public LifecycleMode getStatementLifecycleMode() {
+		return statementLifecycleMode;
+	}
+
+	/**
+	 * Sets how lifespan of statements ({@code <prefix>.stmt} Stopwatch) is measured.
+	 *
+	 * @param statementLifecycleMode statement lifecycle monitoring mode
+	 */
+	public void setStatementLifecycleMode(LifecycleMode statementLifecycleMode) {
+		if (statementLifecycleMode == null) {
+			throw new IllegalArgumentException("Statement lifecycle mode must not be null");
+		}
+		this.statementLifecycleMode = statementLifecycleMode;
+	}
+
+	/**
+	 * Returns how often connections and statements are measured in {@link LifecycleMode#SAMPLED} mode.
+	 *
+	 * @return N - in average every Nth object is measured
+	 */
+	public int getLifecycleSampleRate() {
+		return lifecycleSampleRate;
+	}
+
+	/**
+	 * Sets how often connections and statements are measured in {@link LifecycleMode#SAMPLED} mode.
+	 *
+	 * @param lifecycleSampleRate N - in average every Nth object is measured (positive number)
+	 */
+	public void setLifecycleSampleRate(int lifecycleSampleRate) {
+		if (lifecycleSampleRate < 1) {
+			throw new IllegalArgumentException("Sample rate must be positive: " + lifecycleSampleRate);
+		}
+		this.lifecycleSampleRate = lifecycleSampleRate;
+	}
+
+	/**
+	 * Returns true if slow queries are captured - either the default threshold or any per-pattern threshold is set.
+	 * Statements capture bind parameters only if the capture is enabled when they are created.
+	 *
+	 * @return true if the slow query capture is enabled
+	 * @see SlowQueryLog
+	 */
+	public boolean isSlowQueryCaptureEnabled() {
+		return slowQueryThresholdNanos > 0 || !slowQueryPatternThresholds.isEmpty();
+	}
+
+	/**
+	 * Returns the default duration threshold of slow queries.
+	 *
+	 * @return threshold in ms, 0 if slow queries are not captured by default
+	 */
+	public long getSlowQueryThreshold() {
+		return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+	}
+
+	/**
+	 * Sets the default duration threshold of slow queries, executions taking longer are reported
+	 * to the {@link SlowQueryLog} with the snapshot of bind parameters.
+	 *
+	 * @param thresholdMs threshold in ms, 0 disables the capture (except for patterns with their own threshold)
+	 */
+	public void setSlowQueryThreshold(long thresholdMs) {
+		if (thresholdMs < 0) {
+			throw new IllegalArgumentException("Slow query threshold must not be negative: " + thresholdMs);
+		}
+		this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+	}
+
+	/**
+	 * Sets the slow query threshold for the normalized SQL pattern, overriding the default threshold.
+	 *
+	 * @param normalizedSql normalized SQL (see {@link SqlNormalizer#getNormalizedSql()})
+	 * @param thresholdMs threshold in ms, 0 disables the capture for the pattern, negative value removes the override
+	 */
+	public void setSlowQueryThreshold(String normalizedSql, long thresholdMs) {
+		if (thresholdMs < 0) {
+			slowQueryPatternThresholds.remove(normalizedSql);
+		} else {
+			slowQueryPatternThresholds.put(normalizedSql, TimeUnit.MILLISECONDS.toNanos(thresholdMs));
+		}
+	}
+
+	/**
+	 * Returns slow query threshold for the normalized SQL pattern in ns - used on each statement execution.
+	 *
+	 * @param normalizedSql normalized SQL
+	 * @return threshold in ns, 0 if slow executions of the pattern are not captured
+	 */
+	long getSlowQueryThresholdNanos(String normalizedSql) {
+		if (!slowQueryPatternThresholds.isEmpty()) {
+			Long threshold = slowQueryPatternThresholds.get(normalizedSql);
+			if (threshold != null) {
+				return threshold;
+			}
+		}
+		return slowQueryThresholdNanos;
+	}
+
+	/**
+	 * Modes of {@code ResultSet.next()} monitoring. For statement Stopwatch {@code <stmt>} following Simons are used:
+	 * <ul>
+	 * <li>{@code <stmt>.next} - Stopwatch for {@code next()} calls;</li>
+	 * <li>{@code <stmt>.rows} - Counter of fetched rows (not used in {@link #SPLIT} mode where it equals
+	 * to the number of {@code next} splits);</li>
+	 * <li>{@code <stmt>.next.max} - Stopwatch with the slowest {@code next()} of each result set
+	 * ({@link #AGGREGATED} mode only).</li>
+	 * </ul>
+	 */
+	public enum ResultSetMode {
+		/** Every {@code next()} call is measured by a Split - the most precise and the most expensive mode. */
+		SPLIT,
+
+		/**
+		 * Every {@code next()} call is measured locally in the result set without any Simon access. When the result
+		 * set is closed, one Split with the cumulative fetch time is added to {@code <stmt>.next}, the number of rows
+		 * to {@code <stmt>.rows} and the slowest fetch to {@code <stmt>.next.max}.
+		 */
+		AGGREGATED,
+
+		/**
+		 * Only every Nth {@code next()} call is measured and added as a Split to {@code <stmt>.next}, number of rows
+		 * is added to {@code <stmt>.rows} when the result set is closed.
+		 */
+		SAMPLED
+	}
+
+	/**
+	 * Modes of connection and statement lifespan monitoring ({@code <prefix>.conn} and {@code <prefix>.stmt}
+	 * Stopwatches). Monitoring of executed SQL and commits/rollbacks is not affected.
+	 */
+	public enum LifecycleMode {
+		/** Lifespan is not measured, no Simon is accessed when the object is created or closed. */
+		OFF,
+
+		/**
+		 * Only randomly chosen objects are measured (in average every Nth object), counts of the Stopwatch are hence
+		 * approximately N times lower than the real counts, durations are representative.
+		 */
+		SAMPLED,
+
+		/** Every object is measured by a Split started when the object is created. */
+		FULL
+	}
+}
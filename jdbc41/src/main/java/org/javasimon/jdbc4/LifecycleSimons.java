@@ -0,0 +1,129 @@
+package org.javasimon.jdbc4;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.javasimon.Counter;
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
+import org.javasimon.utils.ManagerCache;
+
+/**
+ * Lifecycle Simons of connections and statements for one hierarchy prefix. Simon names and monitoring
+ * settings are resolved once per prefix, so creating a connection or statement costs only one map lookup
+ * plus the Split if the object is measured according to the {@link JdbcMonitoringSettings.LifecycleMode}.
+ * Like in {@link SqlNormalizerCache}, lifecycle Stopwatches are cached by name only and obtained from
+ * {@link SimonManager} when they are used. Commit and rollback Counters are resolved once and kept
+ * in a {@link ManagerCache}, so they are resolved again after the manager is cleared or any Simon is destroyed.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class LifecycleSimons {
+
+	private static final ConcurrentMap<String, LifecycleSimons> SIMONS = new ConcurrentHashMap<>();
+
+	private final JdbcMonitoringSettings settings;
+
+	private final String connectionName;
+
+	private final String commitsName;
+
+	private final String rollbacksName;
+
+	private final String statementName;
+
+	private final ManagerCache<String, Counter> counters = new ManagerCache<>(SimonManager.manager());
+
+	private LifecycleSimons(String prefix) {
+		this.settings = JdbcMonitoringSettings.forPrefix(prefix);
+		this.connectionName = prefix + ".conn";
+		this.commitsName = prefix + ".conn.commits";
+		this.rollbacksName = prefix + ".conn.rollbacks";
+		this.statementName = prefix + ".stmt";
+	}
+
+	/**
+	 * Returns lifecycle Simons for the hierarchy prefix.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return lifecycle Simons for the prefix
+	 */
+	static LifecycleSimons forPrefix(String prefix) {
+		LifecycleSimons simons = SIMONS.get(prefix);
+		if (simons == null) {
+			simons = new LifecycleSimons(prefix);
+			LifecycleSimons existing = SIMONS.putIfAbsent(prefix, simons);
+			if (existing != null) {
+				simons = existing;
+			}
+		}
+		return simons;
+	}
+
+	/**
+	 * Returns monitoring settings for the prefix.
+	 *
+	 * @return monitoring settings
+	 */
+	JdbcMonitoringSettings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Starts the split measuring lifespan of a new connection.
+	 *
+	 * @return started split or {@code null} if the connection is not measured
+	 */
+	Split startConnection() {
+		return start(settings.getConnectionLifecycleMode(), connectionName);
+	}
+
+	/**
+	 * Starts the split measuring lifespan of a new statement.
+	 *
+	 * @return started split or {@code null} if the statement is not measured
+	 */
+	Split startStatement() {
+		return start(settings.getStatementLifecycleMode(), statementName);
+	}
+
+	private Split start(JdbcMonitoringSettings.LifecycleMode mode, String stopwatchName) {
+		switch (mode) {
+			case FULL:
+				return SimonManager.getStopwatch(stopwatchName).start();
+			case SAMPLED:
+				if (ThreadLocalRandom.current().nextInt(settings.getLifecycleSampleRate()) == 0) {
+					return SimonManager.getStopwatch(stopwatchName).start();
+				}
+				return null;
+			default:
+				return null;
+		}
+	}
+
+	/** Increases the commits Counter. */
+	void commit() {
+		increase(commitsName);
+	}
+
+	/** Increases the rollbacks Counter. */
+	void rollback() {
+		increase(rollbacksName);
+	}
+
+	private void increase(String counterName) {
+		// disabled manager returns null Counter that must not stay cached after enabling
+		if (!SimonManager.isEnabled()) {
+			return;
+		}
+		ConcurrentMap<String, Counter> map = counters.map();
+		Counter counter = map.get(counterName);
+		if (counter == null) {
+			counter = counters.getManager().getCounter(counterName);
+			map.putIfAbsent(counterName, counter);
+		}
+		counter.increase();
+	}
+}
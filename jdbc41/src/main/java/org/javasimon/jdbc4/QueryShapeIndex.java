@@ -0,0 +1,322 @@
+package org.javasimon.jdbc4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of the most expensive query shapes (normalized SQL) for one hierarchy prefix. Index is a space-saving
+ * sketch ranked by total execution time: at most {@link #getCapacity()} shapes are tracked, when a new shape
+ * arrives to the full index, the shape with the lowest total time is replaced and the new one inherits its total
+ * (kept as {@link QueryShape#getTotalError()}), so heavy hitters are never missed. Count and max are measured
+ * since the shape is tracked.
+ * <p/>
+ * Update of a tracked shape costs one map lookup and a short lock of the shape only, the index is locked only
+ * when a new shape is inserted. Shape with the lowest total is found in a min-heap in O(log n) amortized time -
+ * totals grow without the index lock, so the heap is ordered by lower bounds of the totals that are refreshed
+ * only when the outdated shape gets to the top of the heap. Top shapes are available
+ * via {@link org.javasimon.jdbc4.jmx.JdbcMXBean#topSqls(int, String)} and a console detail plugin
+ * of the {@code <prefix>.sql} Simon. Index works independently of per-SQL Stopwatches.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class QueryShapeIndex {
+
+	/** Default count of tracked query shapes. */
+	public static final int DEFAULT_CAPACITY = 100;
+
+	private static final ConcurrentMap<String, QueryShapeIndex> INDEXES = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final ReentrantLock insertLock = new ReentrantLock();
+
+	/** All tracked shapes ordered by {@link Entry#heapTotal}, guarded by {@link #insertLock}. */
+	private final PriorityQueue<Entry> heap = new PriorityQueue<>(16, new Comparator<Entry>() {
+		@Override
+		public int compare(Entry o1, Entry o2) {
+			return Long.compare(o1.heapTotal, o2.heapTotal);
+		}
+	});
+
+	private volatile int capacity = DEFAULT_CAPACITY;
+
+	/**
+	 * Returns index for the hierarchy prefix, index is created on the first call.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return query shape index for the prefix
+	 */
+	public static QueryShapeIndex forPrefix(String prefix) {
+		QueryShapeIndex index = INDEXES.get(prefix);
+		if (index == null) {
+			index = new QueryShapeIndex();
+			QueryShapeIndex existing = INDEXES.putIfAbsent(prefix, index);
+			if (existing != null) {
+				index = existing;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns index for the hierarchy prefix only if it exists (any statement with the prefix was executed).
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return query shape index or {@code null}
+	 */
+	public static QueryShapeIndex find(String prefix) {
+		return INDEXES.get(prefix);
+	}
+
+	/**
+	 * Adds the execution of the query shape.
+	 *
+	 * @param normalizedSql normalized SQL
+	 * @param nanos execution time in ns
+	 */
+	void add(String normalizedSql, long nanos) {
+		if (capacity == 0) {
+			return;
+		}
+		Entry entry = entries.get(normalizedSql);
+		if (entry == null) {
+			entry = insert(normalizedSql);
+		}
+		if (entry != null) {
+			entry.add(nanos);
+		}
+	}
+
+	/** Inserts the new shape, returns {@code null} if the index was disabled concurrently. */
+
+	private Entry insert(String normalizedSql) {
+		insertLock.lock();
+		try {
+			// capacity may be changed since it was checked without the lock
+			if (capacity == 0) {
+				return null;
+			}
+			Entry entry = entries.get(normalizedSql);
+			if (entry == null) {
+				long inheritedTotal = 0;
+				while (!heap.isEmpty() && heap.size() >= capacity) {
+					Entry minimum = pollMinimum();
+					entries.remove(minimum.normalizedSql);
+					inheritedTotal = minimum.heapTotal;
+				}
+				entry = new Entry(normalizedSql, inheritedTotal);
+				entries.put(normalizedSql, entry);
+				heap.offer(entry);
+			}
+			return entry;
+		} finally {
+			insertLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the shape with the lowest total from the heap. Heap total of a shape is never higher than its
+	 * actual total, outdated shapes from the top are refreshed and pushed back - the first shape with the actual
+	 * total on the top has the lowest total of all shapes.
+	 */
+	private Entry pollMinimum() {
+		while (true) {
+			Entry top = heap.poll();
+			long total = top.total();
+			if (total == top.heapTotal) {
+				return top;
+			}
+			top.heapTotal = total;
+			heap.offer(top);
+		}
+	}
+
+	/**
+	 * Returns top query shapes by the specified order.
+	 *
+	 * @param count maximal count of returned shapes
+	 * @param order ordering of the shapes (descending)
+	 * @return list of top query shapes
+	 */
+	public List<QueryShape> getTop(int count, Order order) {
+		List<QueryShape> shapes = new ArrayList<>();
+		for (Entry entry : entries.values()) {
+			shapes.add(entry.snapshot());
+		}
+		Collections.sort(shapes, order.comparator);
+		return shapes.size() > count ? new ArrayList<>(shapes.subList(0, count)) : shapes;
+	}
+
+	/**
+	 * Returns maximal count of tracked query shapes.
+	 *
+	 * @return capacity of the index
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets maximal count of tracked query shapes, tracked shapes are discarded.
+	 *
+	 * @param capacity capacity of the index, 0 disables the index
+	 */
+	public void setCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		insertLock.lock();
+		try {
+			this.capacity = capacity;
+			entries.clear();
+			heap.clear();
+		} finally {
+			insertLock.unlock();
+		}
+	}
+
+	/** Discards all tracked query shapes. */
+	public void clear() {
+		setCapacity(capacity);
+	}
+
+	/**
+	 * Ordering of the top query shapes.
+	 */
+	public enum Order {
+		/** By total execution time (including total error). */
+		TOTAL(new Comparator<QueryShape>() {
+			@Override
+			public int compare(QueryShape o1, QueryShape o2) {
+				return Long.compare(o2.getTotal(), o1.getTotal());
+			}
+		}),
+
+		/** By count of executions. */
+		COUNT(new Comparator<QueryShape>() {
+			@Override
+			public int compare(QueryShape o1, QueryShape o2) {
+				return Long.compare(o2.getCount(), o1.getCount());
+			}
+		}),
+
+		/** By maximal execution time. */
+		MAX(new Comparator<QueryShape>() {
+			@Override
+			public int compare(QueryShape o1, QueryShape o2) {
+				return Long.compare(o2.getMax(), o1.getMax());
+			}
+		});
+
+		private final Comparator<QueryShape> comparator;
+
+		Order(Comparator<QueryShape> comparator) {
+			this.comparator = comparator;
+		}
+	}
+
+	private static final class Entry {
+		private final String normalizedSql;
+		private final long totalError;
+		private long count;
+		private long total;
+		private long max;
+
+		/** Total when the entry was last ordered in the heap, guarded by the insert lock. */
+		private long heapTotal;
+
+		Entry(String normalizedSql, long totalError) {
+			this.normalizedSql = normalizedSql;
+			this.totalError = totalError;
+			this.total = totalError;
+			this.heapTotal = totalError;
+		}
+
+		synchronized void add(long nanos) {
+			count++;
+			total += nanos;
+			if (nanos > max) {
+				max = nanos;
+			}
+		}
+
+		synchronized long total() {
+			return total;
+		}
+
+		synchronized QueryShape snapshot() {
+			return new QueryShape(normalizedSql, count, total, totalError, max);
+		}
+	}
+
+	/**
+	 * Snapshot of one tracked query shape.
+	 */
+	public static final class QueryShape {
+		private final String normalizedSql;
+		private final long count;
+		private final long total;
+		private final long totalError;
+		private final long max;
+
+		QueryShape(String normalizedSql, long count, long total, long totalError, long max) {
+			this.normalizedSql = normalizedSql;
+			this.count = count;
+			this.total = total;
+			this.totalError = totalError;
+			this.max = max;
+		}
+
+		/**
+		 * Returns normalized SQL.
+		 *
+		 * @return normalized SQL
+		 */
+		public String getNormalizedSql() {
+			return normalizedSql;
+		}
+
+		/**
+		 * Returns count of executions since the shape is tracked.
+		 *
+		 * @return count of executions
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns total execution time, overestimated by at most {@link #getTotalError()}.
+		 *
+		 * @return total time in ns
+		 */
+		public long getTotal() {
+			return total;
+		}
+
+		/**
+		 * Returns maximal possible overestimation of the total time - total inherited from the replaced shape.
+		 *
+		 * @return total error in ns
+		 */
+		public long getTotalError() {
+			return totalError;
+		}
+
+		/**
+		 * Returns maximal execution time since the shape is tracked.
+		 *
+		 * @return max time in ns
+		 */
+		public long getMax() {
+			return max;
+		}
+	}
+}
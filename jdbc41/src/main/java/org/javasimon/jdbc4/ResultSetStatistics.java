@@ -0,0 +1,327 @@
+package org.javasimon.jdbc4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Result set volume statistics per query shape (normalized SQL) for one hierarchy prefix - count of result sets,
+ * rows (with histogram of rows per result set), fetch size, column count and optionally estimated volume
+ * of String and binary values read (see {@link JdbcMonitoringSettings#isResultSetBytesEstimated()}).
+ * Many result sets with one row typically reveal N+1 selects, large maximum of rows or bytes oversized reads,
+ * fetch size shows whether the driver default is used.
+ * <p/>
+ * {@link SimonResultSet} counts rows and bytes in its own fields and adds them to statistics only once when
+ * it is closed, so no map is accessed per row. At most {@link #getCapacity()} query shapes are tracked, result sets
+ * of other shapes are only counted as {@link #getUntracked()}. Statistics are available via
+ * {@link org.javasimon.jdbc4.jmx.JdbcMXBean#resultSetVolumes()}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class ResultSetStatistics {
+
+	/** Default count of tracked query shapes. */
+	public static final int DEFAULT_CAPACITY = 100;
+
+	/**
+	 * Count of buckets of the rows histogram - bucket 0 counts empty result sets, bucket {@code i} result sets
+	 * with 2<sup>i-1</sup> to 2<sup>i</sup>-1 rows and the last bucket all larger result sets.
+	 */
+	public static final int HISTOGRAM_BUCKETS = 21;
+
+	private static final ConcurrentMap<String, ResultSetStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong untracked = new AtomicLong();
+
+	private volatile int capacity = DEFAULT_CAPACITY;
+
+	/**
+	 * Returns statistics for the hierarchy prefix, statistics are created on the first call.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return result set statistics for the prefix
+	 */
+	public static ResultSetStatistics forPrefix(String prefix) {
+		ResultSetStatistics statistics = STATISTICS.get(prefix);
+		if (statistics == null) {
+			statistics = new ResultSetStatistics();
+			ResultSetStatistics existing = STATISTICS.putIfAbsent(prefix, statistics);
+			if (existing != null) {
+				statistics = existing;
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns true if statistics are collected - capacity is not 0.
+	 *
+	 * @return true if statistics are collected
+	 */
+	public boolean isEnabled() {
+		return capacity > 0;
+	}
+
+	/**
+	 * Returns true if the result set of the query is added to the statistics - the query shape is already tracked
+	 * or the capacity is not reached yet.
+	 *
+	 * @param normalizedSql normalized SQL of the query
+	 * @return true if the result set of the query is tracked
+	 */
+	boolean isTracked(String normalizedSql) {
+		return entries.containsKey(normalizedSql) || entries.size() < capacity;
+	}
+
+	/**
+	 * Adds the closed result set.
+	 *
+	 * @param normalizedSql normalized SQL of the query
+	 * @param rows count of fetched rows
+	 * @param fetchSize fetch size of the result set
+	 * @param columnCount count of columns
+	 * @param bytes estimated volume of read values in bytes
+	 */
+	void add(String normalizedSql, long rows, int fetchSize, int columnCount, long bytes) {
+		Entry entry = entries.get(normalizedSql);
+		if (entry == null) {
+			if (entries.size() >= capacity) {
+				untracked.incrementAndGet();
+				return;
+			}
+			entry = new Entry(normalizedSql);
+			Entry existing = entries.putIfAbsent(normalizedSql, entry);
+			if (existing != null) {
+				entry = existing;
+			}
+		}
+		entry.add(rows, fetchSize, columnCount, bytes);
+	}
+
+	/**
+	 * Returns histogram bucket for the count of rows.
+	 *
+	 * @param rows count of rows
+	 * @return index of the bucket
+	 */
+	static int bucket(long rows) {
+		return Math.min(64 - Long.numberOfLeadingZeros(rows), HISTOGRAM_BUCKETS - 1);
+	}
+
+	/**
+	 * Returns the lowest count of rows counted in the histogram bucket.
+	 *
+	 * @param bucket index of the bucket
+	 * @return lower bound of the bucket
+	 */
+	public static long getBucketLowerBound(int bucket) {
+		return bucket == 0 ? 0 : 1L << (bucket - 1);
+	}
+
+	/**
+	 * Returns statistics of tracked query shapes ordered by total count of rows (descending).
+	 *
+	 * @return list of result set volumes
+	 */
+	public List<ResultSetVolume> getVolumes() {
+		List<ResultSetVolume> volumes = new ArrayList<>();
+		for (Entry entry : entries.values()) {
+			volumes.add(entry.snapshot());
+		}
+		Collections.sort(volumes, new Comparator<ResultSetVolume>() {
+			@Override
+			public int compare(ResultSetVolume o1, ResultSetVolume o2) {
+				return Long.compare(o2.getRows(), o1.getRows());
+			}
+		});
+		return volumes;
+	}
+
+	/**
+	 * Returns count of result sets not added because the capacity was reached.
+	 *
+	 * @return count of untracked result sets
+	 */
+	public long getUntracked() {
+		return untracked.get();
+	}
+
+	/**
+	 * Returns maximal count of tracked query shapes.
+	 *
+	 * @return capacity of the statistics
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets maximal count of tracked query shapes, collected statistics are discarded.
+	 *
+	 * @param capacity capacity of the statistics, 0 disables the collection
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		entries.clear();
+		untracked.set(0);
+	}
+
+	/** Discards collected statistics. */
+	public void clear() {
+		setCapacity(capacity);
+	}
+
+	private static final class Entry {
+		private final String normalizedSql;
+		private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+		private long count;
+		private long rows;
+		private long maxRows;
+		private int fetchSize;
+		private int columnCount;
+		private long bytes;
+		private long maxBytes;
+
+		Entry(String normalizedSql) {
+			this.normalizedSql = normalizedSql;
+		}
+
+		synchronized void add(long rows, int fetchSize, int columnCount, long bytes) {
+			count++;
+			this.rows += rows;
+			if (rows > maxRows) {
+				maxRows = rows;
+			}
+			histogram[bucket(rows)]++;
+			this.fetchSize = fetchSize;
+			this.columnCount = columnCount;
+			this.bytes += bytes;
+			if (bytes > maxBytes) {
+				maxBytes = bytes;
+			}
+		}
+
+		synchronized ResultSetVolume snapshot() {
+			return new ResultSetVolume(normalizedSql, count, rows, maxRows, fetchSize, columnCount, bytes, maxBytes,
+				histogram.clone());
+		}
+	}
+
+	/**
+	 * Snapshot of result set statistics of one query shape.
+	 */
+	public static final class ResultSetVolume {
+		private final String normalizedSql;
+		private final long count;
+		private final long rows;
+		private final long maxRows;
+		private final int fetchSize;
+		private final int columnCount;
+		private final long bytes;
+		private final long maxBytes;
+		private final long[] rowHistogram;
+
+		ResultSetVolume(String normalizedSql, long count, long rows, long maxRows, int fetchSize, int columnCount, long bytes, long maxBytes, long[] rowHistogram) {
+			this.normalizedSql = normalizedSql;
+			this.count = count;
+			this.rows = rows;
+			this.maxRows = maxRows;
+			this.fetchSize = fetchSize;
+			this.columnCount = columnCount;
+			this.bytes = bytes;
+			this.maxBytes = maxBytes;
+			this.rowHistogram = rowHistogram;
+		}
+
+		/**
+		 * Returns normalized SQL.
+		 *
+		 * @return normalized SQL
+		 */
+		public String getNormalizedSql() {
+			return normalizedSql;
+		}
+
+		/**
+		 * Returns count of closed result sets.
+		 *
+		 * @return count of result sets
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns total count of fetched rows.
+		 *
+		 * @return count of rows
+		 */
+		public long getRows() {
+			return rows;
+		}
+
+		/**
+		 * Returns maximal count of rows fetched from one result set.
+		 *
+		 * @return max rows
+		 */
+		public long getMaxRows() {
+			return maxRows;
+		}
+
+		/**
+		 * Returns fetch size of the last result set.
+		 *
+		 * @return fetch size, 0 means the driver default
+		 */
+		public int getFetchSize() {
+			return fetchSize;
+		}
+
+		/**
+		 * Returns column count of the last result set.
+		 *
+		 * @return count of columns
+		 */
+		public int getColumnCount() {
+			return columnCount;
+		}
+
+		/**
+		 * Returns total estimated volume of String and binary values read.
+		 *
+		 * @return bytes, 0 if the estimation is disabled
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Returns maximal estimated volume read from one result set.
+		 *
+		 * @return max bytes
+		 */
+		public long getMaxBytes() {
+			return maxBytes;
+		}
+
+		/**
+		 * Returns histogram of rows per result set, see {@link #HISTOGRAM_BUCKETS} and {@link #getBucketLowerBound(int)}.
+		 *
+		 * @return counts of result sets in histogram buckets
+		 */
+		public long[] getRowHistogram() {
+			return rowHistogram.clone();
+		}
+	}
+}
@@ -19,8 +19,6 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 
-import org.javasimon.Counter;
-import org.javasimon.SimonManager;
 import org.javasimon.Split;
 
 /**
@@ -38,7 +36,8 @@ import org.javasimon.Split;
  * </p>
  * Monitoring connection ensure following Simons:
  * <ul>
- * <li>lifespan (<code>org.javasimon.jdbc4.conn</code>, stopwatch) - measure connection life and count</li>
+ * <li>lifespan (<code>org.javasimon.jdbc4.conn</code>, stopwatch) - measure connection life and count
+ * (depends on {@link JdbcMonitoringSettings#getConnectionLifecycleMode()})</li>
  * <li>commits (<code>org.javasimon.jdbc4.conn.commits</code>, counter) - measure executed commits of all connections</li>
  * <li>rollbacks (<code>org.javasimon.jdbc4.conn.rollbacks</code>, counter) - measure executed rollbacks of all connections</li>
  * </ul>
@@ -52,37 +51,57 @@ public final class SimonConnection implements Connection {
 	private final WrapperSupport<Connection> wrapperSupport;
 	private String prefix;
 
+	private final LifecycleSimons lifecycle;
 	private Split life;
-	private Counter commits;
-	private Counter rollbacks;
+
+	private final Runnable closeHook;
 
 	/**
-	 * Class constructor, initializes Simons (lifespan, active, commits
-	 * and rollbacks) related to the DB connection.
+	 * Class constructor, starts lifespan Simon of the DB connection (if it is measured).
 	 *
 	 * @param conn real DB connection
 	 * @param prefix hierarchy prefix for connection Simons
 	 */
 	public SimonConnection(Connection conn, String prefix) {
+		this(conn, prefix, null);
+	}
+
+	/**
+	 * Class constructor with a hook that is run when the connection is closed, used by pool
+	 * instrumentation to end the connection lease.
+	 *
+	 * @param conn real DB connection
+	 * @param prefix hierarchy prefix for connection Simons
+	 * @param closeHook hook run after the real connection is closed, may be {@code null}
+	 * @since 4.2
+	 */
+	public SimonConnection(Connection conn, String prefix, Runnable closeHook) {
 		this.conn = conn;
+		this.closeHook = closeHook;
 		this.wrapperSupport = new WrapperSupport<>(this.conn, Connection.class);
 		this.prefix = prefix;
 
-		commits = SimonManager.getCounter(prefix + ".conn.commits");
-		rollbacks = SimonManager.getCounter(prefix + ".conn.rollbacks");
-		life = SimonManager.getStopwatch(prefix + ".conn").start();
+		lifecycle = LifecycleSimons.forPrefix(prefix);
+		life = lifecycle.startConnection();
 	}
 
 	/**
-	 * Closes the real connection, stops lifespan Simon and decreases the active Simon.
+	 * Closes the real connection, stops lifespan Simon and decreases the active Simon - even if the real close fails.
 	 *
 	 * @throws java.sql.SQLException if real operation fails
 	 */
 	@Override
 	public void close() throws SQLException {
-		conn.close();
-
-		life.stop();
+		try {
+			conn.close();
+		} finally {
+			if (life != null) {
+				life.stop();
+			}
+			if (closeHook != null) {
+				closeHook.run();
+			}
+		}
 	}
 
 	/**
@@ -94,7 +113,7 @@ public final class SimonConnection implements Connection {
 	public void commit() throws SQLException {
 		conn.commit();
 
-		commits.increase();
+		lifecycle.commit();
 	}
 
 	/**
@@ -106,7 +125,7 @@ public final class SimonConnection implements Connection {
 	public void rollback() throws SQLException {
 		conn.rollback();
 
-		rollbacks.increase();
+		lifecycle.rollback();
 	}
 
 	/**
@@ -119,7 +138,7 @@ public final class SimonConnection implements Connection {
 	public void rollback(Savepoint savepoint) throws SQLException {
 		conn.rollback(savepoint);
 
-		rollbacks.increase();
+		lifecycle.rollback();
 	}
 
 	/**
@@ -2,11 +2,19 @@ package org.javasimon.jdbc4;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.javasimon.SimonManager;
+
 /**
  * JDBC configuration contains Simon JDBC connection URL, real JDBC connection URL and Simon properties.
  * <p/>
@@ -14,6 +22,11 @@ import java.util.regex.Pattern;
  * Prior to Simon 3.4, this class was known as org.javasimon.jdbc4.Driver.Url and only used in {@link Driver}.
  * It was externalized and is now used in both {@code org.javasimon.jdbc4.Driver}
  * and {@link org.javasimon.jdbcx4.SimonDataSource} and other Simon DataSources.
+ * <p/>
+ * Monitoring settings provided in the URL ({@code simon_rset_mode}, {@code simon_slow_query_threshold}, ...) are
+ * not local to the configuration - they permanently change the {@link JdbcMonitoringSettings} shared by all
+ * connections with the same prefix, the last URL parsed wins. Invalid values are reported
+ * by {@link org.javasimon.Manager#warning(String, Exception)} and ignored.
  *
  * @author Radovan Sninsky
  * @author gquintana
@@ -44,6 +57,39 @@ public class SimonConnectionConfiguration {
 	 * Name for the driver property holding the hierarchy prefix given to JDBC Simons.
 	 */
 	public static final String PREFIX = "simon_prefix";
+	/**
+	 * Name for the driver property holding the {@link JdbcMonitoringSettings.ResultSetMode} (case insensitive).
+	 */
+	public static final String RESULT_SET_MODE = "simon_rset_mode";
+	/**
+	 * Name for the driver property holding the sample rate of {@link JdbcMonitoringSettings.ResultSetMode#SAMPLED} mode.
+	 */
+	public static final String RESULT_SET_SAMPLE_RATE = "simon_rset_sample_rate";
+	/**
+	 * Name for the driver property enabling estimation of the volume read from result sets ({@code true/false}),
+	 * see {@link ResultSetStatistics}.
+	 */
+	public static final String RESULT_SET_BYTES = "simon_rset_bytes";
+	/**
+	 * Name for the driver property holding the default slow query threshold in ms, see {@link SlowQueryLog}.
+	 */
+	public static final String SLOW_QUERY_THRESHOLD = "simon_slow_query_threshold";
+	/**
+	 * Name for the driver property holding the {@link JdbcMonitoringSettings.LifecycleMode} of connections.
+	 */
+	public static final String CONNECTION_LIFECYCLE_MODE = "simon_conn_lifecycle";
+	/**
+	 * Name for the driver property holding the {@link JdbcMonitoringSettings.LifecycleMode} of statements.
+	 */
+	public static final String STATEMENT_LIFECYCLE_MODE = "simon_stmt_lifecycle";
+	/**
+	 * Name for the driver property holding the sample rate of {@link JdbcMonitoringSettings.LifecycleMode#SAMPLED} mode.
+	 */
+	public static final String LIFECYCLE_SAMPLE_RATE = "simon_lifecycle_sample_rate";
+
+	/** Names of URL parameters holding {@link JdbcMonitoringSettings}. */
+	private static final Set<String> SETTINGS_PARAMETERS = new HashSet<>(Arrays.asList(RESULT_SET_MODE, RESULT_SET_SAMPLE_RATE,
+		RESULT_SET_BYTES, SLOW_QUERY_THRESHOLD, CONNECTION_LIFECYCLE_MODE, STATEMENT_LIFECYCLE_MODE, LIFECYCLE_SAMPLE_RATE));
 
 	private static final Properties PROPERTIES = initProperties();
 
@@ -121,6 +167,7 @@ public class SimonConnectionConfiguration {
 			StringTokenizer st = new StringTokenizer(url, ";");
 			String lRealDriver = getProperty(driverId, "driver");
 			String lPrefix = DEFAULT_PREFIX;
+			Map<String, String> lSettings = new HashMap<>();
 			StringBuilder realUrlBuilder = new StringBuilder();
 			while (st.hasMoreTokens()) {
 				String tokenPairStr = st.nextToken().trim();
@@ -135,6 +182,8 @@ public class SimonConnectionConfiguration {
 						lRealDriver = tokenValue;
 					} else if (token.equalsIgnoreCase(PREFIX)) {
 						lPrefix = tokenValue;
+					} else if (SETTINGS_PARAMETERS.contains(token.toLowerCase(Locale.ROOT))) {
+						lSettings.put(token.toLowerCase(Locale.ROOT), tokenValue);
 					} else {
 						realUrlBuilder.append(';').append(tokenPairStr);
 					}
@@ -143,6 +192,52 @@ public class SimonConnectionConfiguration {
 			realUrl = realUrlBuilder.toString();
 			realDriver = lRealDriver;
 			prefix = lPrefix;
+			applySettings(lSettings);
+		}
+	}
+
+	/**
+	 * Applies monitoring settings provided in the URL to the shared settings for the prefix, invalid settings
+	 * are reported as warnings and ignored so they never prevent the connection.
+	 */
+	private void applySettings(Map<String, String> urlSettings) {
+		JdbcMonitoringSettings settings = getSettings();
+		for (Map.Entry<String, String> setting : urlSettings.entrySet()) {
+			try {
+				applySetting(settings, setting.getKey(), setting.getValue());
+			} catch (IllegalArgumentException e) {
+				SimonManager.manager().warning("Invalid JDBC monitoring setting " + setting.getKey() + "=" + setting.getValue()
+					+ " for prefix " + prefix + " ignored", e);
+			}
+		}
+	}
+
+	private static void applySetting(JdbcMonitoringSettings settings, String name, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Missing value of " + name);
+		}
+		switch (name) {
+			case RESULT_SET_MODE:
+				settings.setResultSetMode(JdbcMonitoringSettings.ResultSetMode.valueOf(value.toUpperCase(Locale.ROOT)));
+				break;
+			case RESULT_SET_SAMPLE_RATE:
+				settings.setResultSetSampleRate(Integer.parseInt(value));
+				break;
+			case RESULT_SET_BYTES:
+				settings.setResultSetBytesEstimated(Boolean.parseBoolean(value));
+				break;
+			case SLOW_QUERY_THRESHOLD:
+				settings.setSlowQueryThreshold(Long.parseLong(value));
+				break;
+			case CONNECTION_LIFECYCLE_MODE:
+				settings.setConnectionLifecycleMode(JdbcMonitoringSettings.LifecycleMode.valueOf(value.toUpperCase(Locale.ROOT)));
+				break;
+			case STATEMENT_LIFECYCLE_MODE:
+				settings.setStatementLifecycleMode(JdbcMonitoringSettings.LifecycleMode.valueOf(value.toUpperCase(Locale.ROOT)));
+				break;
+			case LIFECYCLE_SAMPLE_RATE:
+				settings.setLifecycleSampleRate(Integer.parseInt(value));
+				break;
 		}
 	}
 
@@ -200,6 +295,17 @@ public class SimonConnectionConfiguration {
 		return prefix;
 	}
 
+	/**
+	 * Returns monitoring settings shared by all connections with the same prefix. Settings provided
+	 * in the URL are applied to them when the configuration is created.
+	 *
+	 * @return monitoring settings for the prefix
+	 * @since 4.2
+	 */
+	public JdbcMonitoringSettings getSettings() {
+		return JdbcMonitoringSettings.forPrefix(prefix);
+	}
+
 	/**
 	 * Simon JDBC connection URL prefixed with {@code jdbc:simon:}.
 	 *
@@ -41,6 +41,16 @@ public class SimonPreparedStatement extends SimonStatement implements PreparedSt
 
 	private PreparedStatement stmt;
 
+	/**
+	 * Normalization result for {@link #sql}, obtained from {@link SqlNormalizerCache} on the first execution.
+	 */
+	private SqlNormalizerCache.CachedSql cachedSql;
+
+	/**
+	 * Bind parameters, captured only if the slow query capture was enabled when the statement was created.
+	 */
+	private final BindParameters parameters;
+
 	/**
 	 * Class constructor, initializes Simons (lifespan, active) related to statement.
 	 *
@@ -54,24 +64,39 @@ public class SimonPreparedStatement extends SimonStatement implements PreparedSt
 
 		this.stmt = stmt;
 		this.sql = sql;
+		this.parameters = sql != null && settings.isSlowQueryCaptureEnabled() ? new BindParameters(sql) : null;
 	}
 
 	/**
 	 * Called before each prepared SQL command execution. Prepares (obtains and starts)
 	 * {@link org.javasimon.Stopwatch Stopwatch Simon} for measure SQL operation.
+	 * SQL is normalized only once, normalization result is shared via {@link SqlNormalizerCache}.
 	 *
 	 * @return Simon stopwatch object or null if sql is null or empty
 	 */
 	private Split prepare() {
 		if (sql != null && !sql.equals("")) {
-			sqlNormalizer = new SqlNormalizer(sql);
-			sqlCmdLabel = prefix + ".sql." + sqlNormalizer.getType();
-			return startSplit();
+			cachedSql();
+			sqlNormalizer = cachedSql.getNormalizer();
+			sqlCmdLabel = cachedSql.getCmdLabel();
+			return startSplit(cachedSql.getStopwatchName());
 		} else {
 			return null;
 		}
 	}
 
+	private SqlNormalizerCache.CachedSql cachedSql() {
+		if (cachedSql == null) {
+			cachedSql = SqlNormalizerCache.forPrefix(prefix).get(sql);
+		}
+		return cachedSql;
+	}
+
+	@Override
+	final BindParameters bindParameters() {
+		return parameters;
+	}
+
 	/**
 	 * Measure and execute prepared SQL operation.
 	 *
@@ -122,148 +147,228 @@ public class SimonPreparedStatement extends SimonStatement implements PreparedSt
 	}
 
 	/**
-	 * Adds prepared SQL command into batch list of sql and also into real batch.
+	 * Adds prepared SQL command into real batch and counts it in the batch statistics.
 	 *
 	 * @throws java.sql.SQLException if real calls fails
 	 */
 	@Override
 	public final void addBatch() throws SQLException {
-		batchSql.add(sql);
-
 		stmt.addBatch();
+
+		if (sql != null && !sql.equals("")) {
+			batch().add(cachedSql().getNormalizer());
+		}
 	}
 
-	//// NOT MONITORED
+	//// NOT MONITORED (bind parameters are captured for slow query reports only, see SlowQueryLog)
 
 	@Override
 	public final void setNull(int i, int i1) throws SQLException {
 		stmt.setNull(i, i1);
+		if (parameters != null) {
+			parameters.setNull(i);
+		}
 	}
 
 	@Override
 	public final void setBoolean(int i, boolean b) throws SQLException {
 		stmt.setBoolean(i, b);
+		if (parameters != null) {
+			parameters.setBoolean(i, b);
+		}
 	}
 
 	@Override
 	public final void setByte(int i, byte b) throws SQLException {
 		stmt.setByte(i, b);
+		if (parameters != null) {
+			parameters.setLong(i, b);
+		}
 	}
 
 	@Override
 	public final void setShort(int i, short i1) throws SQLException {
 		stmt.setShort(i, i1);
+		if (parameters != null) {
+			parameters.setLong(i, i1);
+		}
 	}
 
 	@Override
 	public final void setInt(int i, int i1) throws SQLException {
 		stmt.setInt(i, i1);
+		if (parameters != null) {
+			parameters.setLong(i, i1);
+		}
 	}
 
 	@Override
 	public final void setLong(int i, long l) throws SQLException {
 		stmt.setLong(i, l);
+		if (parameters != null) {
+			parameters.setLong(i, l);
+		}
 	}
 
 	@Override
 	public final void setFloat(int i, float v) throws SQLException {
 		stmt.setFloat(i, v);
+		if (parameters != null) {
+			parameters.setDouble(i, v);
+		}
 	}
 
 	@Override
 	public final void setDouble(int i, double v) throws SQLException {
 		stmt.setDouble(i, v);
+		if (parameters != null) {
+			parameters.setDouble(i, v);
+		}
 	}
 
 	@Override
 	public final void setBigDecimal(int i, BigDecimal bigDecimal) throws SQLException {
 		stmt.setBigDecimal(i, bigDecimal);
+		if (parameters != null) {
+			parameters.setObject(i, bigDecimal);
+		}
 	}
 
 	@Override
 	public final void setString(int i, String s) throws SQLException {
 		stmt.setString(i, s);
+		if (parameters != null) {
+			parameters.setObject(i, s);
+		}
 	}
 
 	@Override
 	public final void setBytes(int i, byte[] bytes) throws SQLException {
 		stmt.setBytes(i, bytes);
+		if (parameters != null) {
+			parameters.setObject(i, bytes);
+		}
 	}
 
 	@Override
 	public final void setDate(int i, Date date) throws SQLException {
 		stmt.setDate(i, date);
+		if (parameters != null) {
+			parameters.setObject(i, date);
+		}
 	}
 
 	@Override
 	public final void setTime(int i, Time time) throws SQLException {
 		stmt.setTime(i, time);
+		if (parameters != null) {
+			parameters.setObject(i, time);
+		}
 	}
 
 	@Override
 	public final void setTimestamp(int i, Timestamp timestamp) throws SQLException {
 		stmt.setTimestamp(i, timestamp);
+		if (parameters != null) {
+			parameters.setObject(i, timestamp);
+		}
 	}
 
 	@Override
 	public final void setAsciiStream(int i, InputStream inputStream, int i1) throws SQLException {
 		stmt.setAsciiStream(i, inputStream, i1);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Deprecated
 	@Override
 	public final void setUnicodeStream(int i, InputStream inputStream, int i1) throws SQLException {
 		stmt.setUnicodeStream(i, inputStream, i1);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Override
 	public final void setBinaryStream(int i, InputStream inputStream, int i1) throws SQLException {
 		stmt.setBinaryStream(i, inputStream, i1);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Override
 	public final void clearParameters() throws SQLException {
 		stmt.clearParameters();
+		if (parameters != null) {
+			parameters.clear();
+		}
 	}
 
 	@Override
 	public final void setObject(int i, Object o, int i1) throws SQLException {
 		stmt.setObject(i, o, i1);
+		if (parameters != null) {
+			parameters.setObject(i, o);
+		}
 	}
 
 	@Override
 	public final void setObject(int i, Object o) throws SQLException {
 		stmt.setObject(i, o);
+		if (parameters != null) {
+			parameters.setObject(i, o);
+		}
 	}
 
 	@Override
 	public final void setObject(int i, Object o, int i1, int i2) throws SQLException {
 		stmt.setObject(i, o, i1, i2);
+		if (parameters != null) {
+			parameters.setObject(i, o);
+		}
 	}
 
 	@Override
 	public final void setCharacterStream(int i, Reader reader, int i1) throws SQLException {
 		stmt.setCharacterStream(i, reader, i1);
+		if (parameters != null) {
+			parameters.setOpaque(i, "reader");
+		}
 	}
 
 	@Override
 	public final void setRef(int i, Ref ref) throws SQLException {
 		stmt.setRef(i, ref);
+		if (parameters != null) {
+			parameters.setObject(i, ref);
+		}
 	}
 
 	@Override
 	public final void setBlob(int i, Blob blob) throws SQLException {
 		stmt.setBlob(i, blob);
+		if (parameters != null) {
+			parameters.setOpaque(i, "blob");
+		}
 	}
 
 	@Override
 	public final void setClob(int i, Clob clob) throws SQLException {
 		stmt.setClob(i, clob);
+		if (parameters != null) {
+			parameters.setOpaque(i, "clob");
+		}
 	}
 
 	@Override
 	public final void setArray(int i, Array array) throws SQLException {
 		stmt.setArray(i, array);
+		if (parameters != null) {
+			parameters.setObject(i, array);
+		}
 	}
 
 	@Override
@@ -273,26 +378,41 @@ public class SimonPreparedStatement extends SimonStatement implements PreparedSt
 
 	public final void setDate(int i, Date date, Calendar calendar) throws SQLException {
 		stmt.setDate(i, date, calendar);
+		if (parameters != null) {
+			parameters.setObject(i, date);
+		}
 	}
 
 	@Override
 	public final void setTime(int i, Time time, Calendar calendar) throws SQLException {
 		stmt.setTime(i, time, calendar);
+		if (parameters != null) {
+			parameters.setObject(i, time);
+		}
 	}
 
 	@Override
 	public final void setTimestamp(int i, Timestamp timestamp, Calendar calendar) throws SQLException {
 		stmt.setTimestamp(i, timestamp, calendar);
+		if (parameters != null) {
+			parameters.setObject(i, timestamp);
+		}
 	}
 
 	@Override
 	public final void setNull(int i, int i1, String s) throws SQLException {
 		stmt.setNull(i, i1, s);
+		if (parameters != null) {
+			parameters.setNull(i);
+		}
 	}
 
 	@Override
 	public final void setURL(int i, URL url) throws SQLException {
 		stmt.setURL(i, url);
+		if (parameters != null) {
+			parameters.setObject(i, url);
+		}
 	}
 
 	@Override
@@ -303,91 +423,145 @@ public class SimonPreparedStatement extends SimonStatement implements PreparedSt
 	@Override
 	public final void setRowId(int i, RowId rowId) throws SQLException {
 		stmt.setRowId(i, rowId);
+		if (parameters != null) {
+			parameters.setObject(i, rowId);
+		}
 	}
 
 	@Override
 	public final void setNString(int i, String s) throws SQLException {
 		stmt.setNString(i, s);
+		if (parameters != null) {
+			parameters.setObject(i, s);
+		}
 	}
 
 	@Override
 	public final void setNCharacterStream(int i, Reader reader, long l) throws SQLException {
 		stmt.setNCharacterStream(i, reader, l);
+		if (parameters != null) {
+			parameters.setOpaque(i, "reader");
+		}
 	}
 
 	@Override
 	public final void setNClob(int i, NClob nClob) throws SQLException {
 		stmt.setNClob(i, nClob);
+		if (parameters != null) {
+			parameters.setOpaque(i, "nclob");
+		}
 	}
 
 	@Override
 	public final void setClob(int i, Reader reader, long l) throws SQLException {
 		stmt.setClob(i, reader, l);
+		if (parameters != null) {
+			parameters.setOpaque(i, "clob");
+		}
 	}
 
 	@Override
 	public final void setBlob(int i, InputStream inputStream, long l) throws SQLException {
 		stmt.setBlob(i, inputStream, l);
+		if (parameters != null) {
+			parameters.setOpaque(i, "blob");
+		}
 	}
 
 	@Override
 	public final void setNClob(int i, Reader reader, long l) throws SQLException {
 		stmt.setNClob(i, reader, l);
+		if (parameters != null) {
+			parameters.setOpaque(i, "nclob");
+		}
 	}
 
 	@Override
 	public final void setSQLXML(int i, SQLXML sqlxml) throws SQLException {
 		stmt.setSQLXML(i, sqlxml);
+		if (parameters != null) {
+			parameters.setOpaque(i, "sqlxml");
+		}
 	}
 
 	@Override
 	public final void setAsciiStream(int i, InputStream inputStream, long l) throws SQLException {
 		stmt.setAsciiStream(i, inputStream, l);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Override
 	public final void setBinaryStream(int i, InputStream inputStream, long l) throws SQLException {
 		stmt.setBinaryStream(i, inputStream);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Override
 	public final void setCharacterStream(int i, Reader reader, long l) throws SQLException {
 		stmt.setCharacterStream(i, reader, l);
+		if (parameters != null) {
+			parameters.setOpaque(i, "reader");
+		}
 	}
 
 	@Override
 	public final void setAsciiStream(int i, InputStream inputStream) throws SQLException {
 		stmt.setAsciiStream(i, inputStream);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Override
 	public final void setBinaryStream(int i, InputStream inputStream) throws SQLException {
 		stmt.setBinaryStream(i, inputStream);
+		if (parameters != null) {
+			parameters.setOpaque(i, "stream");
+		}
 	}
 
 	@Override
 	public final void setCharacterStream(int i, Reader reader) throws SQLException {
 		stmt.setCharacterStream(i, reader);
+		if (parameters != null) {
+			parameters.setOpaque(i, "reader");
+		}
 	}
 
 	@Override
 	public final void setNCharacterStream(int i, Reader reader) throws SQLException {
 		stmt.setNCharacterStream(i, reader);
+		if (parameters != null) {
+			parameters.setOpaque(i, "reader");
+		}
 	}
 
 	@Override
 	public final void setClob(int i, Reader reader) throws SQLException {
 		stmt.setClob(i, reader);
+		if (parameters != null) {
+			parameters.setOpaque(i, "clob");
+		}
 	}
 
 	@Override
 	public final void setBlob(int i, InputStream inputStream) throws SQLException {
 		stmt.setBlob(i, inputStream);
+		if (parameters != null) {
+			parameters.setOpaque(i, "blob");
+		}
 	}
 
 	@Override
 	public final void setNClob(int i, Reader reader) throws SQLException {
 		stmt.setNClob(i, reader);
+		if (parameters != null) {
+			parameters.setOpaque(i, "nclob");
+		}
 	}
 
 }
@@ -24,9 +24,13 @@ import java.util.Map;
 
 import org.javasimon.SimonManager;
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
 
 /**
- * Simon JDBC proxy result set implementation class.
+ * Simon JDBC proxy result set implementation class. Measuring of {@link #next()} calls depends on
+ * the {@link JdbcMonitoringSettings.ResultSetMode} configured for the prefix. Rows, fetch size, column count
+ * and optionally estimated volume of read values are added to {@link ResultSetStatistics} when the result set
+ * is closed.
  *
  * @author Radovan Sninsky
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
@@ -44,6 +48,29 @@ public final class SimonResultSet implements ResultSet {
 	private SimonStatement stmt;
 	private String stmtPrefix;
 
+	private final JdbcMonitoringSettings.ResultSetMode mode;
+	private final int sampleRate;
+
+	/**
+	 * Stopwatch for next calls, obtained only once per result set.
+	 */
+	private final Stopwatch nextStopwatch;
+
+	/* local aggregation of next calls published on close */
+	private long nextCalls;
+	private long rows;
+	private long fetchNanos;
+	private long maxFetchNanos;
+	private boolean published;
+
+	/* volume statistics, statistics is null if they are not collected */
+	private ResultSetStatistics statistics;
+	private String normalizedSql;
+	private int fetchSize;
+	private int columnCount;
+	private final boolean estimateBytes;
+	private long bytes;
+
 	/**
 	 * Class constructor, initializes Simons (lifespan) related to result set.
 	 *
@@ -58,6 +85,18 @@ public final class SimonResultSet implements ResultSet {
 		this.stmt = stmt;
 		this.stmtPrefix = stmtPrefix;
 
+		JdbcMonitoringSettings settings = JdbcMonitoringSettings.forPrefix(prefix);
+		mode = settings.getResultSetMode();
+		sampleRate = settings.getResultSetSampleRate();
+		nextStopwatch = mode != JdbcMonitoringSettings.ResultSetMode.AGGREGATED ? SimonManager.getStopwatch(stmtPrefix + ".next") : null;
+
+		ResultSetStatistics resultSetStatistics = ResultSetStatistics.forPrefix(prefix);
+		if (resultSetStatistics.isEnabled() && stmt != null && stmt.sqlNormalizer != null) {
+			statistics = resultSetStatistics;
+			normalizedSql = stmt.sqlNormalizer.getNormalizedSql();
+		}
+		estimateBytes = statistics != null && settings.isResultSetBytesEstimated();
+
 		split = SimonManager.getStopwatch(prefix + ".rset").start();
 	}
 
@@ -69,20 +108,107 @@ public final class SimonResultSet implements ResultSet {
 	 */
 	@Override
 	public boolean next() throws SQLException {
-		try (Split ignored = SimonManager.getStopwatch(stmtPrefix + ".next").start()) {
-			return rset.next();
+		if (mode == JdbcMonitoringSettings.ResultSetMode.SPLIT) {
+			try (Split ignored = nextStopwatch.start()) {
+				return countRow(rset.next());
+			}
+		}
+		boolean measured = mode == JdbcMonitoringSettings.ResultSetMode.AGGREGATED || nextCalls % sampleRate == 0;
+		nextCalls++;
+		if (!measured) {
+			return countRow(rset.next());
+		}
+		long start = System.nanoTime();
+		boolean result = rset.next();
+		long nanos = System.nanoTime() - start;
+		if (mode == JdbcMonitoringSettings.ResultSetMode.AGGREGATED) {
+			fetchNanos += nanos;
+			if (nanos > maxFetchNanos) {
+				maxFetchNanos = nanos;
+			}
+		} else {
+			nextStopwatch.addSplit(Split.create(nanos));
+		}
+		return countRow(result);
+	}
+
+	private boolean countRow(boolean valid) {
+		if (valid) {
+			rows++;
+		}
+		return valid;
+	}
+
+	private String countString(String value) {
+		if (estimateBytes && value != null) {
+			bytes += value.length();
+		}
+		return value;
+	}
+
+	private byte[] countBytes(byte[] value) {
+		if (estimateBytes && value != null) {
+			bytes += value.length;
+		}
+		return value;
+	}
+
+	private <T> T countObject(T value) {
+		if (estimateBytes) {
+			if (value instanceof String) {
+				countString((String) value);
+			} else if (value instanceof byte[]) {
+				countBytes((byte[]) value);
+			}
 		}
+		return value;
 	}
 
 	/**
-	 * Closes real result set, stops lifespan Simon.
+	 * Closes real result set, stops lifespan Simon and publishes locally aggregated next calls and volume statistics.
 	 *
 	 * @throws java.sql.SQLException if real close operation fails
 	 */
 	@Override
 	public void close() throws SQLException {
-		rset.close();
-		split.stop();
+		readShape();
+		try {
+			rset.close();
+		} finally {
+			split.stop();
+			publish();
+		}
+	}
+
+	/** Reads fetch size and column count before the result set is closed, only if the query shape is tracked. */
+	private void readShape() {
+		if (statistics == null || published || !statistics.isTracked(normalizedSql)) {
+			return;
+		}
+		try {
+			fetchSize = rset.getFetchSize();
+			columnCount = rset.getMetaData().getColumnCount();
+		} catch (SQLException e) {
+			// statistics are collected without fetch size or column count
+		}
+	}
+
+	private void publish() {
+		if (published) {
+			return;
+		}
+		published = true;
+		if (statistics != null) {
+			statistics.add(normalizedSql, rows, fetchSize, columnCount, bytes);
+		}
+		if (mode == JdbcMonitoringSettings.ResultSetMode.SPLIT) {
+			return;
+		}
+		SimonManager.getCounter(stmtPrefix + ".rows").increase(rows);
+		if (mode == JdbcMonitoringSettings.ResultSetMode.AGGREGATED && nextCalls > 0) {
+			SimonManager.getStopwatch(stmtPrefix + ".next").addSplit(Split.create(fetchNanos));
+			SimonManager.getStopwatch(stmtPrefix + ".next.max").addSplit(Split.create(maxFetchNanos));
+		}
 	}
 
 	//// NOT MONITORED
@@ -99,7 +225,7 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public String getString(int columnIndex) throws SQLException {
-		return rset.getString(columnIndex);
+		return countString(rset.getString(columnIndex));
 	}
 
 	@Override
@@ -145,7 +271,7 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public byte[] getBytes(int columnIndex) throws SQLException {
-		return rset.getBytes(columnIndex);
+		return countBytes(rset.getBytes(columnIndex));
 	}
 
 	@Override
@@ -181,7 +307,7 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public String getString(String columnName) throws SQLException {
-		return rset.getString(columnName);
+		return countString(rset.getString(columnName));
 	}
 
 	@Override
@@ -227,7 +353,7 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public byte[] getBytes(String columnName) throws SQLException {
-		return rset.getBytes(columnName);
+		return countBytes(rset.getBytes(columnName));
 	}
 
 	@Override
@@ -283,12 +409,12 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public Object getObject(int columnIndex) throws SQLException {
-		return rset.getObject(columnIndex);
+		return countObject(rset.getObject(columnIndex));
 	}
 
 	@Override
 	public Object getObject(String columnName) throws SQLException {
-		return rset.getObject(columnName);
+		return countObject(rset.getObject(columnName));
 	}
 
 	@Override
@@ -603,7 +729,7 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public Object getObject(int i, Map<String, Class<?>> map) throws SQLException {
-		return rset.getObject(i, map);
+		return countObject(rset.getObject(i, map));
 	}
 
 	@Override
@@ -628,7 +754,7 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public Object getObject(String colName, Map<String, Class<?>> map) throws SQLException {
-		return rset.getObject(colName, map);
+		return countObject(rset.getObject(colName, map));
 	}
 
 	@Override
@@ -813,12 +939,12 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public String getNString(int columnIndex) throws SQLException {
-		return rset.getNString(columnIndex);
+		return countString(rset.getNString(columnIndex));
 	}
 
 	@Override
 	public String getNString(String columnLabel) throws SQLException {
-		return rset.getNString(columnLabel);
+		return countString(rset.getNString(columnLabel));
 	}
 
 	@Override
@@ -973,12 +1099,12 @@ public final class SimonResultSet implements ResultSet {
 
 	@Override
 	public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-		return rset.getObject(columnIndex, type);
+		return countObject(rset.getObject(columnIndex, type));
 	}
 
 	@Override
 	public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
-		return rset.getObject(columnLabel, type);
+		return countObject(rset.getObject(columnLabel, type));
 	}
 
 	@Override
@@ -24,9 +24,18 @@ import org.javasimon.Stopwatch;
 public class SimonStatement implements Statement {
 	/**
 	 * List of batched SQL statements.
+	 *
+	 * @deprecated not filled anymore, batched SQL is not retained, rows are counted per normalized statement
+	 * in {@code <prefix>.batch.rows} Counters
 	 */
+	@Deprecated
 	protected final List<String> batchSql = new LinkedList<>();
 
+	/**
+	 * Batched statements, created by the first {@code addBatch}.
+	 */
+	SqlBatch batch;
+
 	/**
 	 * SQL connection.
 	 */
@@ -48,10 +57,21 @@ public class SimonStatement implements Statement {
 	protected SqlNormalizer sqlNormalizer;
 
 	/**
-	 * Stopwatch split measuring the lifespan of the statement until it is closed across all executes.
+	 * Stopwatch split measuring the lifespan of the statement until it is closed across all executes,
+	 * {@code null} if the statement is not measured (see {@link JdbcMonitoringSettings#getStatementLifecycleMode()}).
 	 */
 	protected Split split;
 
+	/**
+	 * Monitoring settings for the prefix.
+	 */
+	final JdbcMonitoringSettings settings;
+
+	/**
+	 * Index of query shapes for the prefix, obtained on the first execution.
+	 */
+	private QueryShapeIndex queryShapeIndex;
+
 	private final Statement stmt;
 
 	private final WrapperSupport<Statement> wrapperSupport;
@@ -68,7 +88,9 @@ public class SimonStatement implements Statement {
 		this.stmt = stmt;
 		this.prefix = prefix;
 		this.wrapperSupport = new WrapperSupport<>(stmt, Statement.class);
-		split = SimonManager.getStopwatch(prefix + ".stmt").start();
+		LifecycleSimons lifecycle = LifecycleSimons.forPrefix(prefix);
+		this.settings = lifecycle.getSettings();
+		split = lifecycle.startStatement();
 	}
 
 	/**
@@ -80,7 +102,9 @@ public class SimonStatement implements Statement {
 	public final void close() throws SQLException {
 		stmt.close();
 
-		split.stop();
+		if (split != null) {
+			split.stop();
+		}
 	}
 
 	/**
@@ -116,7 +140,9 @@ public class SimonStatement implements Statement {
 	 *
 	 * @param sqls list of sql commands
 	 * @return Simon stopwatch object or null if sql is null or empty
+	 * @deprecated batches are measured internally, this method is not used by the driver anymore
 	 */
+	@Deprecated
 	protected final Split prepare(List<String> sqls) {
 		if (!sqls.isEmpty()) {
 			sqlNormalizer = sqls.size() == 1 ? new SqlNormalizer(sqls.get(0)) : new SqlNormalizer(sqls);
@@ -127,6 +153,50 @@ public class SimonStatement implements Statement {
 		}
 	}
 
+	/**
+	 * Returns batch of this statement, creates it if necessary.
+	 *
+	 * @return batch of the statement
+	 */
+	final SqlBatch batch() {
+		if (batch == null) {
+			batch = new SqlBatch(prefix);
+		}
+		return batch;
+	}
+
+	/**
+	 * Called before each batch execution. Starts the split of the Stopwatch for the batch composition,
+	 * batch with a single row is measured by the Stopwatch of the statement itself.
+	 *
+	 * @return started split or null if the batch is empty
+	 */
+	private Split prepareBatch() {
+		if (batch == null) {
+			return null;
+		}
+		SqlNormalizer single = batch.single();
+		if (single != null) {
+			sqlNormalizer = single;
+			sqlCmdLabel = prefix + ".sql." + single.getType();
+			return startSplit();
+		}
+		sqlCmdLabel = prefix + ".sql.batch";
+		return batch.start();
+	}
+
+	/**
+	 * Called after each batch execution. Stops the split and updates batch statistics, see {@link SqlBatch}.
+	 *
+	 * @param split started Stopwatch split
+	 */
+	private void finishBatch(Split split) {
+		if (split != null) {
+			SimonManager.getStopwatch(sqlCmdLabel).addSplit(split.stop());
+			batch.finish(split.runningFor());
+		}
+	}
+
 	/**
 	 * Starts the split for the SQL specific stopwatch, sets the note and returns the split.
 	 * Used in the statment and prepared statement classes to measure runs of "execute" methods.
@@ -134,7 +204,17 @@ public class SimonStatement implements Statement {
 	 * @return split for the execution of the specific SQL command
 	 */
 	protected Split startSplit() {
-		Stopwatch stopwatch = SimonManager.getStopwatch(sqlCmdLabel + Manager.HIERARCHY_DELIMITER + sqlNormalizer.getNormalizedSql().hashCode());
+		return startSplit(sqlCmdLabel + Manager.HIERARCHY_DELIMITER + sqlNormalizer.getNormalizedSql().hashCode());
+	}
+
+	/**
+	 * Starts the split for the Stopwatch with the specified name, sets the note and returns the split.
+	 *
+	 * @param stopwatchName name of the SQL specific stopwatch
+	 * @return split for the execution of the specific SQL command
+	 */
+	protected final Split startSplit(String stopwatchName) {
+		Stopwatch stopwatch = SimonManager.getStopwatch(stopwatchName);
 		if (stopwatch.getNote() == null) {
 			stopwatch.setNote(sqlNormalizer.getNormalizedSql());
 		}
@@ -144,15 +224,36 @@ public class SimonStatement implements Statement {
 	/**
 	 * Called after each SQL command execution. Stops concrete SQL stopwatch (started in {@link #prepare(String)}),
 	 * also adds time to SQL command type Simon and sets human readable SQL cmd as note.
+	 * Executions exceeding the slow query threshold are reported to the {@link SlowQueryLog}, all executions
+	 * are added to the {@link QueryShapeIndex}.
 	 *
 	 * @param split started Stopwatch split
 	 */
 	protected final void finish(Split split) {
 		if (split != null) {
 			SimonManager.getStopwatch(sqlCmdLabel).addSplit(split.stop());
+			if (queryShapeIndex == null) {
+				queryShapeIndex = QueryShapeIndex.forPrefix(prefix);
+			}
+			queryShapeIndex.add(sqlNormalizer.getNormalizedSql(), split.runningFor());
+			if (settings.isSlowQueryCaptureEnabled()) {
+				long threshold = settings.getSlowQueryThresholdNanos(sqlNormalizer.getNormalizedSql());
+				if (threshold > 0 && split.runningFor() > threshold) {
+					SlowQueryLog.forPrefix(prefix).report(split, sqlNormalizer, bindParameters());
+				}
+			}
 		}
 	}
 
+	/**
+	 * Returns bind parameters of the statement for the slow query report.
+	 *
+	 * @return bind parameters or {@code null} if not captured
+	 */
+	BindParameters bindParameters() {
+		return null;
+	}
+
 	/**
 	 * Measure and execute SQL operation.
 	 *
@@ -322,16 +423,18 @@ public class SimonStatement implements Statement {
 	}
 
 	/**
-	 * Adds given SQL command into batch list of sql and also into real batch.
+	 * Adds given SQL command into real batch, only its normalized form is counted in the batch statistics.
 	 *
 	 * @param s sql command
 	 * @throws java.sql.SQLException if real calls fails
 	 */
 	@Override
 	public final void addBatch(String s) throws SQLException {
-		batchSql.add(s);
-
 		stmt.addBatch(s);
+
+		if (s != null && !s.isEmpty()) {
+			batch().addSql(s, SqlNormalizerCache.forPrefix(prefix));
+		}
 	}
 
 	/**
@@ -343,22 +446,24 @@ public class SimonStatement implements Statement {
 	 */
 	@Override
 	public int[] executeBatch() throws SQLException {
-		Split s = prepare(batchSql);
+		Split s = prepareBatch();
 		try {
 			return stmt.executeBatch();
 		} finally {
-			finish(s);
+			finishBatch(s);
 		}
 	}
 
 	/**
-	 * Clears batch sql list and real batch too.
+	 * Clears batch statistics and real batch too.
 	 *
 	 * @throws java.sql.SQLException if real calls fails
 	 */
 	@Override
 	public void clearBatch() throws SQLException {
-		batchSql.clear();
+		if (batch != null) {
+			batch.clear();
+		}
 
 		stmt.clearBatch();
 	}
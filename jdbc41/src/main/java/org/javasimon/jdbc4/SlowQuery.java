@@ -0,0 +1,74 @@
+package org.javasimon.jdbc4;
+
+/**
+ * One slow statement execution captured in the {@link SlowQueryLog}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class SlowQuery {
+
+	private final String normalizedSql;
+	private final String sql;
+	private final String parameters;
+	private final long timestamp;
+	private final long duration;
+
+	SlowQuery(String normalizedSql, String sql, String parameters, long timestamp, long duration) {
+		this.normalizedSql = normalizedSql;
+		this.sql = sql;
+		this.parameters = parameters;
+		this.timestamp = timestamp;
+		this.duration = duration;
+	}
+
+	/**
+	 * Returns normalized SQL - the pattern of the query.
+	 *
+	 * @return normalized SQL
+	 */
+	public String getNormalizedSql() {
+		return normalizedSql;
+	}
+
+	/**
+	 * Returns the original SQL.
+	 *
+	 * @return executed SQL
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Returns bind parameters of prepared statements like {@code [1, 'abc', null]}.
+	 *
+	 * @return bind parameters or {@code null} for plain statements
+	 */
+	public String getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Returns timestamp of the execution end.
+	 *
+	 * @return timestamp in ms
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns duration of the execution.
+	 *
+	 * @return duration in ns
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	@Override
+	public String toString() {
+		return "SlowQuery{sql=" + sql + ", parameters=" + parameters + ", duration=" + duration + '}';
+	}
+}
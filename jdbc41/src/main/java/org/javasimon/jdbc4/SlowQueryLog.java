@@ -0,0 +1,135 @@
+package org.javasimon.jdbc4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.javasimon.Counter;
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
+import org.javasimon.utils.SimonUtils;
+
+/**
+ * Bounded ring of the latest slow statement executions for one hierarchy prefix. Slow query capture is enabled
+ * by setting the threshold in {@link JdbcMonitoringSettings} (or {@code simon_slow_query_threshold} URL parameter).
+ * Prepared statements created while the capture is enabled record their bind parameters, see
+ * {@link BindParameters}. Fast executions cost only the threshold comparison, the report is created only
+ * for slow executions.
+ * <p/>
+ * Besides the ring (available also via {@link org.javasimon.jdbc4.jmx.JdbcMXBean#slowQueries()} and a console
+ * detail plugin of the {@code <prefix>.sql} Simon) each slow
+ * execution increases the Counter {@code <stmt>.slow} (where {@code <stmt>} is the SQL Stopwatch) with
+ * the duration of the last slow execution in its note, so slow queries are visible in any Simon console as well.
+ * Bind parameters may contain personal data or secrets, hence they are kept only in the ring and never
+ * in the note that is visible to all callbacks, loggers and consoles.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class SlowQueryLog {
+
+	/** Default count of kept slow queries. */
+	public static final int DEFAULT_CAPACITY = 100;
+
+	private static final ConcurrentMap<String, SlowQueryLog> LOGS = new ConcurrentHashMap<>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private volatile AtomicReferenceArray<SlowQuery> ring = new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+
+	/**
+	 * Returns slow query log for the hierarchy prefix, log is created on the first call.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return slow query log for the prefix
+	 */
+	public static SlowQueryLog forPrefix(String prefix) {
+		SlowQueryLog log = LOGS.get(prefix);
+		if (log == null) {
+			log = new SlowQueryLog();
+			SlowQueryLog existing = LOGS.putIfAbsent(prefix, log);
+			if (existing != null) {
+				log = existing;
+			}
+		}
+		return log;
+	}
+
+	/**
+	 * Returns slow query log for the hierarchy prefix only if it exists (any slow query with the prefix was reported).
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return slow query log or {@code null}
+	 */
+	public static SlowQueryLog find(String prefix) {
+		return LOGS.get(prefix);
+	}
+
+	/**
+	 * Reports slow execution - adds it to the ring and updates the {@code <stmt>.slow} Counter.
+	 *
+	 * @param split stopped split of the SQL Stopwatch
+	 * @param normalizer normalizer of the executed SQL
+	 * @param parameters bind parameters or {@code null}
+	 */
+	void report(Split split, SqlNormalizer normalizer, BindParameters parameters) {
+		SlowQuery slowQuery = new SlowQuery(normalizer.getNormalizedSql(), normalizer.getSql(),
+			parameters != null ? parameters.toString() : null, System.currentTimeMillis(), split.runningFor());
+		AtomicReferenceArray<SlowQuery> currentRing = ring;
+		currentRing.set((int) (sequence.getAndIncrement() % currentRing.length()), slowQuery);
+
+		Counter counter = SimonManager.getCounter(split.getStopwatch().getName() + Manager.HIERARCHY_DELIMITER + "slow");
+		counter.increase();
+		counter.setNote(SimonUtils.presentNanoTime(slowQuery.getDuration()));
+	}
+
+	/**
+	 * Returns captured slow queries, the latest first.
+	 *
+	 * @return list of slow queries
+	 */
+	public List<SlowQuery> getSlowQueries() {
+		AtomicReferenceArray<SlowQuery> currentRing = ring;
+		int capacity = currentRing.length();
+		long last = sequence.get();
+		List<SlowQuery> slowQueries = new ArrayList<>();
+		for (long i = last - 1; i >= 0 && i >= last - capacity; i--) {
+			SlowQuery slowQuery = currentRing.get((int) (i % capacity));
+			if (slowQuery != null) {
+				slowQueries.add(slowQuery);
+			}
+		}
+		return slowQueries;
+	}
+
+	/**
+	 * Returns count of kept slow queries.
+	 *
+	 * @return capacity of the ring
+	 */
+	public int getCapacity() {
+		return ring.length();
+	}
+
+	/**
+	 * Sets count of kept slow queries, captured slow queries are discarded.
+	 *
+	 * @param capacity capacity of the ring (positive number)
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		ring = new AtomicReferenceArray<>(capacity);
+		sequence.set(0);
+	}
+
+	/** Discards all captured slow queries. */
+	public synchronized void clear() {
+		setCapacity(getCapacity());
+	}
+}
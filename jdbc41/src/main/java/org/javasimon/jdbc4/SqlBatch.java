@@ -0,0 +1,190 @@
+package org.javasimon.jdbc4;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.javasimon.Counter;
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
+import org.javasimon.Stopwatch;
+
+/**
+ * Collects batched statements of one JDBC statement. Only row counts per distinct normalized SQL are kept,
+ * SQL strings added by {@code addBatch} are not retained. Consecutive rows of the same normalized SQL
+ * (typical prepared statement batch) are counted without any map lookup, SQL strings of a statement batch are
+ * normalized via {@link SqlNormalizerCache} unless the row repeats the previous one.
+ * <p/>
+ * Batch with a single row is measured as the statement itself (see {@link #single()}), only the batch
+ * Counters and the per-row latency Stopwatch are updated for it.
+ * <p/>
+ * Simons updated after the batch execution:
+ * <ul>
+ * <li>{@code <prefix>.sql.batch.<hash>} - Stopwatch for the batch composition (distinct normalized statements
+ * in the order of appearance, sizes are ignored), note contains the statements separated by {@code "; "};</li>
+ * <li>{@code <prefix>.batch.rows} - Counter of all batched rows, {@code <prefix>.batch.rows.<sql hash>} -
+ * Counters of rows per normalized statement (with the statement as a note);</li>
+ * <li>{@code <prefix>.batch.size} - Counter set to the size of each batch (min/max batch size),
+ * {@code <prefix>.batch.size.<limit>} - Counters of batches with size up to the limit ({@code more} for larger);</li>
+ * <li>{@code <prefix>.batch.row} - Stopwatch with the amortized per-row latency of each batch.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class SqlBatch {
+
+	/** Upper limits of batch size distribution buckets, larger batches are counted in {@code more}. */
+	static final int[] SIZE_LIMITS = {1, 10, 100, 1000, 10000};
+
+	/** Name of the bucket for batches larger than the last limit. */
+	static final String SIZE_MORE = "more";
+
+	private final String prefix;
+
+	private final Map<String, long[]> rows = new LinkedHashMap<>();
+
+	private String lastRawSql;
+	private SqlNormalizer lastNormalizer;
+	private long[] lastRows;
+	private int size;
+
+	SqlBatch(String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Adds one row of the normalized statement to the batch.
+	 *
+	 * @param normalizer normalizer of the SQL
+	 */
+	void add(SqlNormalizer normalizer) {
+		if (normalizer != lastNormalizer) {
+			String normalizedSql = normalizer.getNormalizedSql();
+			long[] count = rows.get(normalizedSql);
+			if (count == null) {
+				count = new long[1];
+				rows.put(normalizedSql, count);
+			}
+			lastNormalizer = normalizer;
+			lastRows = count;
+		}
+		lastRows[0]++;
+		size++;
+	}
+
+	/**
+	 * Adds one row of the SQL string to the batch, the SQL is normalized only if it differs from the previous row.
+	 *
+	 * @param sql SQL added by {@code addBatch(String)}
+	 * @param cache normalization cache for the prefix
+	 */
+	void addSql(String sql, SqlNormalizerCache cache) {
+		if (!sql.equals(lastRawSql)) {
+			SqlNormalizer normalizer = cache.get(sql).getNormalizer();
+			lastRawSql = sql;
+			add(normalizer);
+			return;
+		}
+		lastRows[0]++;
+		size++;
+	}
+
+	/**
+	 * Returns number of batched rows.
+	 *
+	 * @return batch size
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns normalizer of the only row of the batch.
+	 *
+	 * @return normalizer of the row or {@code null} if the batch does not contain exactly one row
+	 */
+	SqlNormalizer single() {
+		return size == 1 ? lastNormalizer : null;
+	}
+
+	/** Clears the batch. */
+	void clear() {
+		rows.clear();
+		lastRawSql = null;
+		lastNormalizer = null;
+		lastRows = null;
+		size = 0;
+	}
+
+	/**
+	 * Returns name of the Stopwatch for the batch composition, computed from the hashes of distinct statements.
+	 *
+	 * @return Stopwatch name
+	 */
+	String getStopwatchName() {
+		int hash = 0;
+		for (String sql : rows.keySet()) {
+			hash = 31 * hash + sql.hashCode();
+		}
+		return prefix + ".sql.batch" + Manager.HIERARCHY_DELIMITER + hash;
+	}
+
+	/**
+	 * Starts the split for the batch Stopwatch, sets the note if not set yet.
+	 *
+	 * @return started split or {@code null} if the batch is empty
+	 */
+	Split start() {
+		if (size == 0) {
+			return null;
+		}
+		Stopwatch stopwatch = SimonManager.getStopwatch(getStopwatchName());
+		if (stopwatch.getNote() == null) {
+			StringBuilder note = new StringBuilder();
+			for (String sql : rows.keySet()) {
+				if (note.length() > 0) {
+					note.append("; ");
+				}
+				note.append(sql);
+			}
+			stopwatch.setNote(note.toString());
+		}
+		return stopwatch.start();
+	}
+
+	/**
+	 * Updates batch statistics after the execution and clears the batch.
+	 *
+	 * @param nanos batch execution time
+	 */
+	void finish(long nanos) {
+		SimonManager.getCounter(prefix + ".batch.rows").increase(size);
+		for (Map.Entry<String, long[]> entry : rows.entrySet()) {
+			Counter counter = SimonManager.getCounter(prefix + ".batch.rows" + Manager.HIERARCHY_DELIMITER + entry.getKey().hashCode());
+			if (counter.getNote() == null) {
+				counter.setNote(entry.getKey());
+			}
+			counter.increase(entry.getValue()[0]);
+		}
+		SimonManager.getCounter(prefix + ".batch.size").set(size);
+		SimonManager.getCounter(prefix + ".batch.size" + Manager.HIERARCHY_DELIMITER + sizeBucket(size)).increase();
+		SimonManager.getStopwatch(prefix + ".batch.row").addSplit(Split.create(nanos / size));
+		clear();
+	}
+
+	/**
+	 * Returns name of the size distribution bucket for the batch size.
+	 *
+	 * @param size batch size
+	 * @return bucket name (limit or {@code more})
+	 */
+	static String sizeBucket(int size) {
+		for (int limit : SIZE_LIMITS) {
+			if (size <= limit) {
+				return Integer.toString(limit);
+			}
+		}
+		return SIZE_MORE;
+	}
+}
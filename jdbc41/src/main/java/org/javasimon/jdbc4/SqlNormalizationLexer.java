@@ -0,0 +1,511 @@
+package org.javasimon.jdbc4;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass lexer performing the SQL normalization for {@link SqlNormalizer}. SQL is scanned only once
+ * and normalized form is written into one {@link StringBuilder} - no intermediate strings are created.
+ * Lexer follows the rules of the original chain of regular expression replacements:
+ * <ul>
+ * <li>SQL is lowercased, white spaces are collapsed into a single space;</li>
+ * <li>operators are surrounded by single spaces, commas are followed by a single space;</li>
+ * <li>string and number literals after an operator, comma, dot or left parenthesis are replaced with {@code ?},
+ * as well as strings after {@code like}, both arguments of {@code between} and empty strings;</li>
+ * <li>function calls after an operator, comma or left parenthesis are replaced with {@code ?} if their
+ * arguments do not contain parentheses (after the inner calls are replaced) - for select only after
+ * the first {@code from};</li>
+ * <li>{@code in (?, ?, ...)} is shrunk to {@code in (?)};</li>
+ * <li>DDL is truncated to the first three tokens;</li>
+ * <li>JDBC escape braces are removed, {@code begin} is replaced with {@code call} and final {@code end}
+ * is removed.</li>
+ * </ul>
+ * Lexer never backtracks, parentheses are tracked on a stack to recognize function calls and {@code in} lists
+ * when the closing parenthesis is reached.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class SqlNormalizationLexer {
+
+	private static final int NONE = 0;
+	private static final int WORD = 1;
+	private static final int LITERAL = 2;
+	private static final int OPERATOR = 3;
+	private static final int COMMA = 4;
+	private static final int DOT = 5;
+	private static final int LEFT_PAREN = 6;
+	private static final int RIGHT_PAREN = 7;
+	private static final int OTHER = 8;
+
+	/** States of {@code between X and Y} processing. */
+	private static final int BETWEEN_NONE = 0;
+	private static final int BETWEEN_SEEN = 1;
+	private static final int BETWEEN_FIRST = 2;
+	private static final int BETWEEN_AND_SEEN = 3;
+	private static final int BETWEEN_SECOND = 4;
+
+	private static final int INITIAL_DEPTH = 8;
+
+	private final String sql;
+	private final StringBuilder out;
+	private int pos;
+	private int end;
+
+	private String type;
+	private boolean select;
+	private boolean functionsEnabled;
+
+	private int lastKind = NONE;
+	private int lastWordStart = -1;
+	private int pendingFunctionStart = -1;
+
+	/* stack of open parentheses */
+	private int depth;
+	private int[] parenPosition = new int[INITIAL_DEPTH];
+	private int[] parenFunctionStart = new int[INITIAL_DEPTH];
+	private boolean[] parenInList = new boolean[INITIAL_DEPTH];
+	private boolean[] parenHasParens = new boolean[INITIAL_DEPTH];
+
+	private int betweenState = BETWEEN_NONE;
+	private int betweenDepth;
+	private int betweenChunkStart;
+
+	/**
+	 * Normalizes the SQL.
+	 *
+	 * @param sql SQL statement (not null)
+	 */
+	SqlNormalizationLexer(String sql) {
+		this.sql = sql;
+		this.out = new StringBuilder(sql.length());
+		normalize();
+	}
+
+	String getNormalizedSql() {
+		return out.toString();
+	}
+
+	String getType() {
+		return type;
+	}
+
+	private void normalize() {
+		end = sql.length();
+		while (end > 0 && sql.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		while (pos < end && sql.charAt(pos) <= ' ') {
+			pos++;
+		}
+		if (pos < end && sql.charAt(pos) == '{') {
+			pos++;
+		}
+		if (end > pos && sql.charAt(end - 1) == '}') {
+			end--;
+		}
+
+		boolean space = false;
+		while (pos < end) {
+			char c = Character.toLowerCase(sql.charAt(pos));
+			if (isWhitespace(c)) {
+				space = true;
+				pos++;
+				continue;
+			}
+			boolean operator = isOperator(c);
+			betweenBeforeToken(space, operator || c == ')', c);
+			if (c == '\'') {
+				string(space);
+			} else if (operator) {
+				operator();
+			} else if (c == ',') {
+				comma();
+			} else if (isDigit(c) || c == '.' && pos + 1 < end && isDigit(sql.charAt(pos + 1))) {
+				number(space);
+			} else if (c == '.') {
+				simple(space, c, DOT);
+			} else if (c == '(') {
+				leftParen(space);
+			} else if (c == ')') {
+				rightParen(space);
+			} else if (isWordChar(c)) {
+				if (word(space)) {
+					return;
+				}
+			} else {
+				simple(space, c, OTHER);
+			}
+			space = false;
+		}
+		if (betweenState == BETWEEN_SECOND && depth == betweenDepth) {
+			replaceBetweenChunk();
+		}
+		removeFinalEnd();
+		if (type == null) {
+			type = out.toString();
+		}
+	}
+
+	/** Appends a space if there was a white space in the input and the last token does not end with one. */
+	private void separate(boolean space) {
+		if (space && out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+			out.append(' ');
+		}
+	}
+
+	private boolean literalContext() {
+		return lastKind == OPERATOR || lastKind == COMMA || lastKind == DOT || lastKind == LEFT_PAREN;
+	}
+
+	private void string(boolean space) {
+		int start = pos;
+		pos++;
+		boolean empty = true;
+		while (pos < end) {
+			char c = sql.charAt(pos);
+			if (c == '\'') {
+				if (pos + 1 < end && sql.charAt(pos + 1) == '\'') {
+					pos += 2;
+					empty = false;
+					continue;
+				}
+				pos++;
+				break;
+			}
+			empty = false;
+			pos++;
+		}
+		boolean replaced = empty || literalContext() || lastKind == WORD && lastWordIs("like");
+		separate(space);
+		if (replaced) {
+			out.append('?');
+			lastKind = LITERAL;
+			return;
+		}
+		// string kept as is, only lowercased with '' replaced and white spaces collapsed
+		boolean lastWhitespace = false;
+		for (int i = start; i < pos; i++) {
+			char c = Character.toLowerCase(sql.charAt(i));
+			if (c == '\'' && i > start && i + 1 < pos && sql.charAt(i + 1) == '\'') {
+				out.append('?');
+				i++;
+			} else if (isWhitespace(c)) {
+				if (!lastWhitespace) {
+					out.append(' ');
+				}
+				lastWhitespace = true;
+				continue;
+			} else {
+				out.append(c);
+			}
+			lastWhitespace = false;
+		}
+		lastKind = OTHER;
+	}
+
+	/** Operator run - operator characters possibly separated by spaces. */
+	private void operator() {
+		if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+			out.append(' ');
+		}
+		while (pos < end) {
+			char c = sql.charAt(pos);
+			if (isOperator(c)) {
+				out.append(c);
+				pos++;
+			} else if (c == ' ') {
+				int next = pos;
+				while (next < end && sql.charAt(next) == ' ') {
+					next++;
+				}
+				if (next < end && isOperator(sql.charAt(next))) {
+					pos = next;
+				} else {
+					break;
+				}
+			} else {
+				break;
+			}
+		}
+		out.append(' ');
+		lastKind = OPERATOR;
+	}
+
+	private void comma() {
+		int length = out.length();
+		if (length > 0 && out.charAt(length - 1) == ' ' && lastKind != OPERATOR) {
+			out.setLength(length - 1);
+		}
+		out.append(", ");
+		pos++;
+		lastKind = COMMA;
+	}
+
+	private void number(boolean space) {
+		int start = pos;
+		while (pos < end && (isDigit(sql.charAt(pos)) || sql.charAt(pos) == '.')) {
+			pos++;
+		}
+		separate(space);
+		if (literalContext()) {
+			out.append('?');
+			lastKind = LITERAL;
+		} else {
+			out.append(sql, start, pos);
+			lastKind = OTHER;
+		}
+	}
+
+	private void simple(boolean space, char c, int kind) {
+		separate(space);
+		out.append(c);
+		pos++;
+		lastKind = kind;
+	}
+
+	/**
+	 * Processes word token.
+	 *
+	 * @return true if the normalization is finished (truncated DDL)
+	 */
+	private boolean word(boolean space) {
+		int start = pos;
+		while (pos < end && isWordChar(Character.toLowerCase(sql.charAt(pos)))) {
+			pos++;
+		}
+		boolean function = functionsEnabled && pos < end && sql.charAt(pos) == '('
+			&& (lastKind == OPERATOR || lastKind == COMMA || lastKind == LEFT_PAREN);
+		separate(space);
+		int wordStart = out.length();
+		if (type == null && wordStart == 0 && pos - start == 5 && sql.regionMatches(true, start, "begin", 0, 5)) {
+			out.append("call");
+		} else {
+			for (int i = start; i < pos; i++) {
+				out.append(Character.toLowerCase(sql.charAt(i)));
+			}
+		}
+		lastKind = WORD;
+		lastWordStart = wordStart;
+		pendingFunctionStart = function ? wordStart : -1;
+
+		if (type == null) {
+			type = out.substring(wordStart);
+			select = type.equals("select");
+			functionsEnabled = !select;
+			if ((type.equals("create") || type.equals("alter") || type.equals("drop")) && truncateDdl()) {
+				return true;
+			}
+		} else if (select && !functionsEnabled && lastWordIs("from")
+			&& wordStart > 0 && out.charAt(wordStart - 1) == ' ' && pos < end && isWhitespace(sql.charAt(pos)))
+		{
+			functionsEnabled = true;
+		} else if (betweenState == BETWEEN_NONE && lastWordIs("between")) {
+			betweenState = BETWEEN_SEEN;
+		}
+		return false;
+	}
+
+	/** Truncates DDL to the first three tokens, third token ends before white space or left parenthesis. */
+	private boolean truncateDdl() {
+		int i = pos;
+		int secondStart = skipWhitespace(i);
+		if (secondStart == i) {
+			return false;
+		}
+		int secondEnd = secondStart;
+		while (secondEnd < end && !isWhitespace(sql.charAt(secondEnd))) {
+			secondEnd++;
+		}
+		int thirdStart = skipWhitespace(secondEnd);
+		if (thirdStart == secondEnd || thirdStart == end) {
+			return false;
+		}
+		int thirdEnd = thirdStart;
+		while (thirdEnd < end && !isWhitespace(sql.charAt(thirdEnd)) && sql.charAt(thirdEnd) != '(') {
+			thirdEnd++;
+		}
+		if (thirdEnd == thirdStart) {
+			return false;
+		}
+		out.append(' ');
+		appendLowerCase(secondStart, secondEnd);
+		out.append(' ');
+		appendLowerCase(thirdStart, thirdEnd);
+		return true;
+	}
+
+	private void leftParen(boolean space) {
+		boolean inList = lastKind == WORD && lastWordIs("in") && lastWordStart > 0 && out.charAt(lastWordStart - 1) == ' ';
+		separate(space || inList);
+		if (depth == parenPosition.length) {
+			growStack();
+		}
+		parenPosition[depth] = out.length();
+		parenFunctionStart[depth] = lastKind == WORD ? pendingFunctionStart : -1;
+		parenInList[depth] = inList;
+		parenHasParens[depth] = false;
+		depth++;
+		pendingFunctionStart = -1;
+		out.append('(');
+		pos++;
+		lastKind = LEFT_PAREN;
+	}
+
+	private void rightParen(boolean space) {
+		separate(space);
+		out.append(')');
+		pos++;
+		lastKind = RIGHT_PAREN;
+		if (depth == 0) {
+			return;
+		}
+		depth--;
+		int open = parenPosition[depth];
+		if (parenFunctionStart[depth] >= 0 && !parenHasParens[depth]) {
+			out.setLength(parenFunctionStart[depth]);
+			out.append('?');
+			lastKind = LITERAL;
+			return;
+		}
+		if (parenInList[depth] && isPlaceholderList(open + 1, out.length() - 1)) {
+			out.setLength(open + 1);
+			out.append("?)");
+		}
+		if (depth > 0) {
+			parenHasParens[depth - 1] = true;
+		}
+	}
+
+	/** Checks whether the output between the indexes is {@code ?} or {@code ?, ?, ...}. */
+	private boolean isPlaceholderList(int from, int to) {
+		if (from >= to || out.charAt(from) != '?' || (to - from - 1) % 3 != 0) {
+			return false;
+		}
+		for (int i = from + 1; i < to; i += 3) {
+			if (out.charAt(i) != ',' || out.charAt(i + 1) != ' ' || out.charAt(i + 2) != '?') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Handles {@code between X and Y} - called before every token. X and Y are "chunks" - tokens without
+	 * white space or operator on the same level of parentheses.
+	 */
+	private void betweenBeforeToken(boolean space, boolean chunkEnd, char c) {
+		switch (betweenState) {
+			case BETWEEN_SEEN:
+			case BETWEEN_AND_SEEN:
+				if (space && !chunkEnd) {
+					betweenState = betweenState == BETWEEN_SEEN ? BETWEEN_FIRST : BETWEEN_SECOND;
+					betweenDepth = depth;
+					betweenChunkStart = out.length();
+				} else {
+					betweenState = BETWEEN_NONE;
+				}
+				break;
+			case BETWEEN_FIRST:
+			case BETWEEN_SECOND:
+				if (depth < betweenDepth || space && depth > betweenDepth) {
+					betweenState = BETWEEN_NONE;
+				} else if ((space || chunkEnd) && depth == betweenDepth) {
+					if (betweenState == BETWEEN_SECOND) {
+						replaceBetweenChunk();
+						betweenState = BETWEEN_NONE;
+					} else if (space && c == 'a' && isWordAt(pos, "and")) {
+						// current token is "and", the second chunk follows
+						replaceBetweenChunk();
+						betweenState = BETWEEN_AND_SEEN;
+					} else {
+						betweenState = BETWEEN_NONE;
+					}
+				}
+				break;
+			default:
+		}
+	}
+
+	private void replaceBetweenChunk() {
+		boolean space = out.length() > betweenChunkStart && out.charAt(betweenChunkStart) == ' ';
+		out.setLength(betweenChunkStart);
+		out.append(space ? " ?" : "?");
+		lastKind = LITERAL;
+	}
+
+	/** Removes final {@code end} optionally surrounded by semicolons. */
+	private void removeFinalEnd() {
+		int i = out.length();
+		if (i > 0 && out.charAt(i - 1) == ';') {
+			i--;
+		}
+		if (i < 3 || out.charAt(i - 3) != 'e' || out.charAt(i - 2) != 'n' || out.charAt(i - 1) != 'd'
+			|| i > 3 && isWordChar(out.charAt(i - 4)))
+		{
+			return;
+		}
+		i -= 3;
+		while (i > 0 && out.charAt(i - 1) == ' ') {
+			i--;
+		}
+		if (i > 0 && out.charAt(i - 1) == ';') {
+			i--;
+		}
+		out.setLength(i);
+	}
+
+	private boolean lastWordIs(String word) {
+		if (lastWordStart < 0 || out.length() - lastWordStart != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (out.charAt(lastWordStart + i) != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isWordAt(int index, String word) {
+		int wordEnd = index + word.length();
+		return wordEnd <= end && sql.regionMatches(true, index, word, 0, word.length())
+			&& (wordEnd == end || !isWordChar(Character.toLowerCase(sql.charAt(wordEnd))));
+	}
+
+	private int skipWhitespace(int i) {
+		while (i < end && isWhitespace(sql.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private void appendLowerCase(int from, int to) {
+		for (int i = from; i < to; i++) {
+			out.append(Character.toLowerCase(sql.charAt(i)));
+		}
+	}
+
+	private void growStack() {
+		int length = parenPosition.length * 2;
+		parenPosition = Arrays.copyOf(parenPosition, length);
+		parenFunctionStart = Arrays.copyOf(parenFunctionStart, length);
+		parenInList = Arrays.copyOf(parenInList, length);
+		parenHasParens = Arrays.copyOf(parenHasParens, length);
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+	}
+
+	private static boolean isOperator(char c) {
+		return c == '-' || c == '=' || c == '<' || c == '>' || c == '!' || c == '+' || c == '*' || c == '/';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isWordChar(char c) {
+		return c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_';
+	}
+}
@@ -2,8 +2,6 @@ package org.javasimon.jdbc4;
 
 import java.util.List;
 
-import org.javasimon.utils.Replacer;
-
 /**
  * SqlNormalizer takes SQL statement and replaces parameters with question marks. It is
  * important to realize, that normalizer IS NOT SQL analyzer. It makes as simple replacement
@@ -14,39 +12,15 @@ import org.javasimon.utils.Replacer;
  * <p/>
  * Usage is simple, you create normalizer with SQL statement and than you can ask the
  * object for normalizedSql and type via respective getters.
+ * <p/>
+ * Since 4.2 the SQL is normalized in a single pass by a hand-written lexer instead of a chain
+ * of regular expressions, rules of the normalization stay the same.
  *
  * @author Radovan Sninsky
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
  * @since 2.4
  */
 public final class SqlNormalizer {
-	private static final Replacer[] FIRST_REPLACERS;
-	private static final Replacer[] SECOND_REPLACERS;
-
-	private static final Replacer FUNCTION_REPLACER = new Replacer("([-(=<>!+*/,]+\\s?)\\w+\\([^()]*\\)", "$1?", Replacer.Modificator.REPEAT_UNTIL_UNCHANGED);
-
-	private static final Replacer TYPE_SELECTOR = new Replacer("^\\W*(\\w+)\\W.*", "$1");
-
-	static {
-		FIRST_REPLACERS = new Replacer[]{
-			new Replacer("''", "?"), // replace empty strings and '' inside other strings
-			new Replacer(" *([-=<>!+*/,]+) *", "$1"), // remove spaces around various operators and commas
-			new Replacer("([-=<>!+*/]+)", " $1 "), // put spaces back (results in one space everywhere
-			new Replacer("\\s+", " "), // normalize white spaces
-			new Replacer("(create|alter|drop) (\\S+) ([^ (]+).*$", "$1 $2 $3"), // shrink DLL to first three tokens
-			new Replacer("([-=<>!+*/,.(]+\\s?)(?:(?:'[^']+')|(?:[0-9.]+))", "$1?"), // replace arguments after =, ( and , with ?
-			new Replacer("like '[^']+'", "like ?"), // replace like arguments
-			new Replacer("between \\S+ and \\S+", "between ? and ?"), // replace between arguments
-			new Replacer(" in\\(", " in ("), // put space before ( in "in("
-			new Replacer("^\\{|\\}$", ""), // remove { and } at the start/end
-			new Replacer("^\\s*begin", "call"), // replace begin with call
-			new Replacer(";?\\s*end;?$", ""), // remove final end
-		};
-		SECOND_REPLACERS = new Replacer[]{
-			new Replacer(",", ", "), // put spaces after ,
-			new Replacer(" in \\(\\?(?:, \\?)*\\)", " in (?)"), // shrink more ? in "in" to one
-		};
-	}
 
 	private final String sql;
 	private String normalizedSql;
@@ -93,26 +67,9 @@ public final class SqlNormalizer {
 	}
 
 	private void normalize(String sql) {
-		normalizedSql = sql.toLowerCase().trim();
-		applyReplacers(FIRST_REPLACERS);
-		type = TYPE_SELECTOR.process(normalizedSql);
-
-		// phase two - complications ;-)
-		if (type.equals("select")) {
-			String[] sa = normalizedSql.split(" from ", 2);
-			if (sa.length == 2) {
-				normalizedSql = sa[0] + " from " + FUNCTION_REPLACER.process(sa[1]);
-			}
-		} else {
-			normalizedSql = FUNCTION_REPLACER.process(normalizedSql);
-		}
-		applyReplacers(SECOND_REPLACERS);
-	}
-
-	private void applyReplacers(Replacer[] replacers) {
-		for (Replacer replacer : replacers) {
-			normalizedSql = replacer.process(normalizedSql);
-		}
+		SqlNormalizationLexer lexer = new SqlNormalizationLexer(sql);
+		normalizedSql = lexer.getNormalizedSql();
+		type = lexer.getType();
 	}
 
 	/**
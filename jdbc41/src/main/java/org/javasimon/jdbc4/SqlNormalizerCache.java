@@ -0,0 +1,172 @@
+package org.javasimon.jdbc4;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+
+/**
+ * Bounded concurrent cache of SQL normalization results for a single hierarchy prefix. SQL of a prepared
+ * statement never changes, hence it is normalized only once and the result (normalized SQL, type and names
+ * of the Stopwatches) is shared by all statements with the same SQL. Stopwatches are cached by name only
+ * and obtained from {@link SimonManager} for every execution, so the cache stays valid if the manager is
+ * cleared or disabled.
+ * <p/>
+ * When the cache is full, an entry is evicted by the clock algorithm (approximation of LRU without any locking
+ * on the lookup path) - the clock hand goes over the entries, clears the used flag and evicts the first entry
+ * not used since the hand passed it the last time. If all entries were used, the second pass over the cleared
+ * flags evicts one, so a hot working set survives. Hits and misses are counted by Counters
+ * {@code <prefix>.sqlcache.hit} and {@code <prefix>.sqlcache.miss}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class SqlNormalizerCache {
+
+	/** Default maximal number of cached SQL statements per prefix. */
+	static final int DEFAULT_MAX_SIZE = 2048;
+
+	private static final ConcurrentMap<String, SqlNormalizerCache> CACHES = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, CachedSql> entries = new ConcurrentHashMap<>();
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	/** Clock hand over the entries, guarded by {@link #evictionLock}. */
+	private Iterator<CachedSql> hand;
+
+	private final String prefix;
+
+	private final int maxSize;
+
+	private final String hitCounterName;
+
+	private final String missCounterName;
+
+	SqlNormalizerCache(String prefix, int maxSize) {
+		this.prefix = prefix;
+		this.maxSize = maxSize;
+		this.hitCounterName = prefix + ".sqlcache.hit";
+		this.missCounterName = prefix + ".sqlcache.miss";
+	}
+
+	/**
+	 * Returns shared cache for the hierarchy prefix.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return cache for the prefix
+	 */
+	static SqlNormalizerCache forPrefix(String prefix) {
+		SqlNormalizerCache cache = CACHES.get(prefix);
+		if (cache == null) {
+			cache = new SqlNormalizerCache(prefix, DEFAULT_MAX_SIZE);
+			SqlNormalizerCache existing = CACHES.putIfAbsent(prefix, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns normalization result for the SQL, normalizes the SQL if it is not cached yet.
+	 *
+	 * @param sql SQL (not null)
+	 * @return cached normalization result
+	 */
+	CachedSql get(String sql) {
+		CachedSql cachedSql = entries.get(sql);
+		if (cachedSql != null) {
+			cachedSql.used = true;
+			SimonManager.getCounter(hitCounterName).increase();
+			return cachedSql;
+		}
+		SimonManager.getCounter(missCounterName).increase();
+		cachedSql = new CachedSql(new SqlNormalizer(sql), prefix);
+		if (entries.size() >= maxSize) {
+			evict();
+		}
+		CachedSql existing = entries.putIfAbsent(sql, cachedSql);
+		return existing != null ? existing : cachedSql;
+	}
+
+	/**
+	 * Moves the clock hand until an entry not used since the hand passed it is removed, clears the flag
+	 * of the used entries. Hand goes at most twice around the entries.
+	 */
+	private void evict() {
+		if (!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			int steps = 2 * entries.size();
+			while (entries.size() >= maxSize && steps-- > 0) {
+				if (hand == null || !hand.hasNext()) {
+					hand = entries.values().iterator();
+					if (!hand.hasNext()) {
+						return;
+					}
+				}
+				CachedSql cachedSql = hand.next();
+				// entry used again concurrently is evicted anyway after two rounds to keep the cache bounded
+				if (cachedSql.used && steps > 0) {
+					cachedSql.used = false;
+				} else {
+					hand.remove();
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns number of cached SQL statements.
+	 *
+	 * @return cache size
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/** Removes all cached entries. */
+	void clear() {
+		entries.clear();
+	}
+
+	/** Normalization result with precomputed names of the Stopwatches. */
+	static final class CachedSql {
+
+		private final SqlNormalizer normalizer;
+
+		private final String cmdLabel;
+
+		private final String stopwatchName;
+
+		private volatile boolean used;
+
+		CachedSql(SqlNormalizer normalizer, String prefix) {
+			this.normalizer = normalizer;
+			this.cmdLabel = prefix + ".sql." + normalizer.getType();
+			this.stopwatchName = cmdLabel + Manager.HIERARCHY_DELIMITER + normalizer.getNormalizedSql().hashCode();
+		}
+
+		/** Returns normalizer holding the normalized SQL and the type of the statement. */
+		SqlNormalizer getNormalizer() {
+			return normalizer;
+		}
+
+		/** Returns name of the Stopwatch for the SQL command type. */
+		String getCmdLabel() {
+			return cmdLabel;
+		}
+
+		/** Returns name of the Stopwatch for the normalized SQL. */
+		String getStopwatchName() {
+			return stopwatchName;
+		}
+	}
+}
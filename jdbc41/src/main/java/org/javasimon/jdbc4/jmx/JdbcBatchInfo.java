@@ -0,0 +1,110 @@
+package org.javasimon.jdbc4.jmx;
+
+import java.beans.ConstructorProperties;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transfer object for JDBC MBean holding summary of batch executions.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class JdbcBatchInfo {
+
+	private long executions;
+	private long rows;
+	private long minSize;
+	private long maxSize;
+	private long total;
+	private double rowMean;
+	private Map<String, Long> sizeDistribution;
+
+	/**
+	 * Class constructor used on both server and client side (by JMX to initialize object from composite data).
+	 *
+	 * @param executions count of batch executions
+	 * @param rows count of all batched rows
+	 * @param minSize minimal batch size
+	 * @param maxSize maximal batch size
+	 * @param total sum of execution times of batches with more than one row in ns
+	 * @param rowMean mean amortized per-row latency in ns
+	 * @param sizeDistribution count of batches per size bucket - upper limit of the bucket (or {@code more}) to count
+	 */
+	@ConstructorProperties({"executions", "rows", "minSize", "maxSize", "total", "rowMean", "sizeDistribution"})
+	public JdbcBatchInfo(long executions, long rows, long minSize, long maxSize, long total, double rowMean,
+		Map<String, Long> sizeDistribution)
+	{
+		this.executions = executions;
+		this.rows = rows;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.total = total;
+		this.rowMean = rowMean;
+		this.sizeDistribution = Collections.unmodifiableMap(new LinkedHashMap<>(sizeDistribution));
+	}
+
+	/**
+	 * Getter for count of batch executions.
+	 *
+	 * @return count of batch executions
+	 */
+	public long getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * Getter for count of all batched rows.
+	 *
+	 * @return count of batched rows
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * Getter for minimal batch size.
+	 *
+	 * @return minimal batch size
+	 */
+	public long getMinSize() {
+		return minSize;
+	}
+
+	/**
+	 * Getter for maximal batch size.
+	 *
+	 * @return maximal batch size
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Getter for sum of batch execution times.
+	 *
+	 * @return total execution time in ns, batches with a single row are measured as their statement and not included
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Getter for mean amortized per-row latency (batch execution time divided by its size).
+	 *
+	 * @return mean per-row latency in ns
+	 */
+	public double getRowMean() {
+		return rowMean;
+	}
+
+	/**
+	 * Getter for batch size distribution.
+	 *
+	 * @return count of batches per size bucket - upper limit of the bucket (or {@code more}) to count
+	 */
+	public Map<String, Long> getSizeDistribution() {
+		return sizeDistribution;
+	}
+}
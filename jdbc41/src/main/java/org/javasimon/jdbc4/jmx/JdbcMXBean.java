@@ -85,6 +85,45 @@ public interface JdbcMXBean {
 	 */
 	JdbcObjectInfo resultsetsStat();
 
+	/**
+	 * Retrieves summary data about batch executions: batch size distribution, batched rows
+	 * and amortized per-row latency.
+	 *
+	 * @return value object {@link JdbcBatchInfo} or {@code null} if no batch was executed yet
+	 * @since 4.2
+	 */
+	JdbcBatchInfo batchesStat();
+
+	/**
+	 * Retrieves the latest slow statement executions with their bind parameters. Slow query capture must be
+	 * enabled by the threshold, see {@link org.javasimon.jdbc4.SlowQueryLog}.
+	 *
+	 * @return array of slow executions, the latest first
+	 * @since 4.2
+	 */
+	JdbcSlowQueryInfo[] slowQueries();
+
+	/**
+	 * Retrieves the most expensive query shapes (normalized SQL), see {@link org.javasimon.jdbc4.QueryShapeIndex}.
+	 *
+	 * @param count maximal count of returned query shapes
+	 * @param order ordering - {@code total} (total execution time, also used if the order is empty),
+	 * {@code count} or {@code max} (case insensitive)
+	 * @return array of query shapes ordered descending, empty if no statement with the prefix was executed
+	 * @throws IllegalArgumentException if the order is not known
+	 * @since 4.2
+	 */
+	JdbcQueryShapeInfo[] topSqls(int count, String order);
+
+	/**
+	 * Retrieves result set volume statistics per query shape - rows, fetch size, column count and estimated
+	 * volume of read values, see {@link org.javasimon.jdbc4.ResultSetStatistics}.
+	 *
+	 * @return array of result set statistics ordered by total count of rows (descending)
+	 * @since 4.2
+	 */
+	JdbcResultSetVolumeInfo[] resultSetVolumes();
+
 	/**
 	 * Returns SQL command types ({@code select}, {@code insert}, {@code delete}, etc).
 	 * If client application uses DDL commands like {@code create}, {@code alter} and other,
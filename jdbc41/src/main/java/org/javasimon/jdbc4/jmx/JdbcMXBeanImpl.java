@@ -1,9 +1,20 @@
 package org.javasimon.jdbc4.jmx;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.javasimon.Counter;
 import org.javasimon.Manager;
 import org.javasimon.Simon;
 import org.javasimon.SimonState;
 import org.javasimon.Stopwatch;
+import org.javasimon.jdbc4.QueryShapeIndex;
+import org.javasimon.jdbc4.ResultSetStatistics;
+import org.javasimon.jdbc4.SlowQuery;
+import org.javasimon.jdbc4.SlowQueryLog;
 import org.javasimon.utils.SimonUtils;
 
 /**
@@ -106,6 +117,93 @@ public class JdbcMXBeanImpl implements JdbcMXBean {
 		return null;
 	}
 
+	public JdbcBatchInfo batchesStat() {
+		Simon executions = manager.getSimon(prefix + ".batch.row");
+		if (!(executions instanceof Stopwatch)) {
+			return null;
+		}
+		Counter size = manager.getCounter(prefix + ".batch.size");
+		Map<Long, Long> buckets = new TreeMap<>();
+		for (Simon bucket : size.getChildren()) {
+			String limit = SimonUtils.localName(bucket.getName());
+			buckets.put(limit.equals("more") ? Long.MAX_VALUE : Long.valueOf(limit), ((Counter) bucket).getCounter());
+		}
+		Map<String, Long> distribution = new LinkedHashMap<>();
+		for (Map.Entry<Long, Long> bucket : buckets.entrySet()) {
+			distribution.put(bucket.getKey() == Long.MAX_VALUE ? "more" : bucket.getKey().toString(), bucket.getValue());
+		}
+		Stopwatch row = (Stopwatch) executions;
+		Simon batch = manager.getSimon(prefix + ".sql.batch");
+		return new JdbcBatchInfo(
+			row.getCounter(),
+			manager.getCounter(prefix + ".batch.rows").getCounter(),
+			size.getMin(),
+			size.getMax(),
+			batch instanceof Stopwatch ? ((Stopwatch) batch).getTotal() : 0,
+			row.getMean(),
+			distribution
+		);
+	}
+
+	public JdbcSlowQueryInfo[] slowQueries() {
+		List<SlowQuery> slowQueries = SlowQueryLog.forPrefix(prefix).getSlowQueries();
+		JdbcSlowQueryInfo[] infos = new JdbcSlowQueryInfo[slowQueries.size()];
+		int i = 0;
+		for (SlowQuery slowQuery : slowQueries) {
+			infos[i++] = new JdbcSlowQueryInfo(slowQuery.getNormalizedSql(), slowQuery.getSql(), slowQuery.getParameters(),
+				slowQuery.getTimestamp(), slowQuery.getDuration());
+		}
+		return infos;
+	}
+
+	public JdbcQueryShapeInfo[] topSqls(int count, String order) {
+		QueryShapeIndex.Order shapeOrder = shapeOrder(order);
+		QueryShapeIndex index = QueryShapeIndex.find(prefix);
+		if (index == null) {
+			return new JdbcQueryShapeInfo[0];
+		}
+		List<QueryShapeIndex.QueryShape> shapes = index.getTop(count, shapeOrder);
+		JdbcQueryShapeInfo[] infos = new JdbcQueryShapeInfo[shapes.size()];
+		int i = 0;
+		for (QueryShapeIndex.QueryShape shape : shapes) {
+			infos[i++] = new JdbcQueryShapeInfo(shape.getNormalizedSql(), shape.getCount(), shape.getTotal(),
+				shape.getTotalError(), shape.getMax());
+		}
+		return infos;
+	}
+
+	private static QueryShapeIndex.Order shapeOrder(String order) {
+		if (order == null || order.isEmpty()) {
+			return QueryShapeIndex.Order.TOTAL;
+		}
+		for (QueryShapeIndex.Order shapeOrder : QueryShapeIndex.Order.values()) {
+			if (shapeOrder.name().equals(order.toUpperCase(Locale.ROOT))) {
+				return shapeOrder;
+			}
+		}
+		throw new IllegalArgumentException("Unknown order '" + order + "', use total, count or max");
+	}
+
+	public JdbcResultSetVolumeInfo[] resultSetVolumes() {
+		List<ResultSetStatistics.ResultSetVolume> volumes = ResultSetStatistics.forPrefix(prefix).getVolumes();
+		JdbcResultSetVolumeInfo[] infos = new JdbcResultSetVolumeInfo[volumes.size()];
+		int i = 0;
+		for (ResultSetStatistics.ResultSetVolume volume : volumes) {
+			long[] histogram = volume.getRowHistogram();
+			Map<String, Long> distribution = new LinkedHashMap<>();
+			for (int bucket = 0; bucket < histogram.length; bucket++) {
+				if (histogram[bucket] > 0) {
+					distribution.put(bucket == histogram.length - 1 ? "more"
+						: Long.toString(ResultSetStatistics.getBucketLowerBound(bucket + 1) - 1), histogram[bucket]);
+				}
+			}
+			infos[i++] = new JdbcResultSetVolumeInfo(volume.getNormalizedSql(), volume.getCount(), volume.getRows(),
+				volume.getMaxRows(), volume.getFetchSize(), volume.getColumnCount(), volume.getBytes(), volume.getMaxBytes(),
+				distribution);
+		}
+		return infos;
+	}
+
 	public String[] getSqlCommands() {
 		Simon s = manager.getSimon(prefix + ".sql");
 		if (s != null) {
@@ -0,0 +1,82 @@
+package org.javasimon.jdbc4.jmx;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Transfer object for JDBC MBean holding statistics of one query shape (normalized SQL),
+ * see {@link org.javasimon.jdbc4.QueryShapeIndex}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class JdbcQueryShapeInfo {
+
+	private String normalizedSql;
+	private long count;
+	private long total;
+	private long totalError;
+	private long max;
+
+	/**
+	 * Class constructor used on both server and client side (by JMX to initialize object from composite data).
+	 *
+	 * @param normalizedSql normalized SQL
+	 * @param count count of executions
+	 * @param total total execution time in ns
+	 * @param totalError maximal overestimation of the total time in ns
+	 * @param max maximal execution time in ns
+	 */
+	@ConstructorProperties({"normalizedSql", "count", "total", "totalError", "max"})
+	public JdbcQueryShapeInfo(String normalizedSql, long count, long total, long totalError, long max) {
+		this.normalizedSql = normalizedSql;
+		this.count = count;
+		this.total = total;
+		this.totalError = totalError;
+		this.max = max;
+	}
+
+	/**
+	 * Getter for normalized SQL.
+	 *
+	 * @return normalized SQL
+	 */
+	public String getNormalizedSql() {
+		return normalizedSql;
+	}
+
+	/**
+	 * Getter for count of executions.
+	 *
+	 * @return count of executions
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter for total execution time.
+	 *
+	 * @return total time in ns
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Getter for maximal overestimation of the total time.
+	 *
+	 * @return total error in ns
+	 */
+	public long getTotalError() {
+		return totalError;
+	}
+
+	/**
+	 * Getter for maximal execution time.
+	 *
+	 * @return max time in ns
+	 */
+	public long getMax() {
+		return max;
+	}
+}
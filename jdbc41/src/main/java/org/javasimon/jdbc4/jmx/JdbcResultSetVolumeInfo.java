@@ -0,0 +1,135 @@
+package org.javasimon.jdbc4.jmx;
+
+import java.beans.ConstructorProperties;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transfer object for JDBC MBean holding result set volume statistics of one query shape (normalized SQL),
+ * see {@link org.javasimon.jdbc4.ResultSetStatistics}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class JdbcResultSetVolumeInfo {
+
+	private String normalizedSql;
+	private long count;
+	private long rows;
+	private long maxRows;
+	private int fetchSize;
+	private int columnCount;
+	private long bytes;
+	private long maxBytes;
+	private Map<String, Long> rowDistribution;
+
+	/**
+	 * Class constructor used on both server and client side (by JMX to initialize object from composite data).
+	 *
+	 * @param normalizedSql normalized SQL
+	 * @param count count of result sets
+	 * @param rows total count of fetched rows
+	 * @param maxRows maximal count of rows fetched from one result set
+	 * @param fetchSize fetch size of the last result set
+	 * @param columnCount column count of the last result set
+	 * @param bytes total estimated volume of read values
+	 * @param maxBytes maximal estimated volume read from one result set
+	 * @param rowDistribution count of result sets per rows bucket - upper limit of the bucket (or {@code more}) to count
+	 */
+	@ConstructorProperties({"normalizedSql", "count", "rows", "maxRows", "fetchSize", "columnCount", "bytes", "maxBytes", "rowDistribution"})
+	public JdbcResultSetVolumeInfo(String normalizedSql, long count, long rows, long maxRows, int fetchSize,
+		int columnCount, long bytes, long maxBytes, Map<String, Long> rowDistribution)
+	{
+		this.normalizedSql = normalizedSql;
+		this.count = count;
+		this.rows = rows;
+		this.maxRows = maxRows;
+		this.fetchSize = fetchSize;
+		this.columnCount = columnCount;
+		this.bytes = bytes;
+		this.maxBytes = maxBytes;
+		this.rowDistribution = Collections.unmodifiableMap(new LinkedHashMap<>(rowDistribution));
+	}
+
+	/**
+	 * Getter for normalized SQL.
+	 *
+	 * @return normalized SQL
+	 */
+	public String getNormalizedSql() {
+		return normalizedSql;
+	}
+
+	/**
+	 * Getter for count of closed result sets.
+	 *
+	 * @return count of result sets
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter for total count of fetched rows.
+	 *
+	 * @return count of rows
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * Getter for maximal count of rows fetched from one result set.
+	 *
+	 * @return max rows
+	 */
+	public long getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * Getter for fetch size of the last result set.
+	 *
+	 * @return fetch size, 0 means the driver default
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Getter for column count of the last result set.
+	 *
+	 * @return count of columns
+	 */
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * Getter for total estimated volume of read values.
+	 *
+	 * @return bytes, 0 if the estimation is disabled
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Getter for maximal estimated volume read from one result set.
+	 *
+	 * @return max bytes
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Getter for distribution of rows per result set.
+	 *
+	 * @return count of result sets per rows bucket - upper limit of the bucket (or {@code more}) to count
+	 */
+	public Map<String, Long> getRowDistribution() {
+		return rowDistribution;
+	}
+}
@@ -0,0 +1,81 @@
+package org.javasimon.jdbc4.jmx;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Transfer object for JDBC MBean holding one slow statement execution, see {@link org.javasimon.jdbc4.SlowQueryLog}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class JdbcSlowQueryInfo {
+
+	private String normalizedSql;
+	private String sql;
+	private String parameters;
+	private long timestamp;
+	private long duration;
+
+	/**
+	 * Class constructor used on both server and client side (by JMX to initialize object from composite data).
+	 *
+	 * @param normalizedSql normalized SQL
+	 * @param sql executed SQL
+	 * @param parameters bind parameters or {@code null} for plain statements
+	 * @param timestamp timestamp of the execution end in ms
+	 * @param duration duration of the execution in ns
+	 */
+	@ConstructorProperties({"normalizedSql", "sql", "parameters", "timestamp", "duration"})
+	public JdbcSlowQueryInfo(String normalizedSql, String sql, String parameters, long timestamp, long duration) {
+		this.normalizedSql = normalizedSql;
+		this.sql = sql;
+		this.parameters = parameters;
+		this.timestamp = timestamp;
+		this.duration = duration;
+	}
+
+	/**
+	 * Getter for normalized SQL.
+	 *
+	 * @return normalized SQL
+	 */
+	public String getNormalizedSql() {
+		return normalizedSql;
+	}
+
+	/**
+	 * Getter for executed SQL.
+	 *
+	 * @return executed SQL
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * Getter for bind parameters.
+	 *
+	 * @return bind parameters or {@code null} for plain statements
+	 */
+	public String getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Getter for timestamp of the execution end.
+	 *
+	 * @return timestamp in ms
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Getter for duration of the execution.
+	 *
+	 * @return duration in ns
+	 */
+	public long getDuration() {
+		return duration;
+	}
+}
@@ -110,7 +110,24 @@
  * |
  * +-> .sql
  * |     +-> .<sql type (select, insert, ...)>
- * |           +-> .<sql hash>}</pre>
+ * |     |     +-> .<sql hash>
+ * |     |           +-> .slow
+ * |     +-> .batch
+ * |           +-> .<batch hash>
+ * |
+ * +-> .batch
+ *       +-> .rows
+ *       |     +-> .<sql hash>
+ *       +-> .size
+ *       |     +-> .<size limit>
+ *       +-> .row}</pre>
+ *
+ * Batches are monitored by a Stopwatch per batch composition (distinct normalized
+ * statements), rows per normalized statement, batch size distribution and amortized per-row latency.
+ * Batch with a single row is measured by the Stopwatch of its statement type, as a single statement.
+ * Counter {@code .slow} counts executions exceeding the slow query threshold, see {@link org.javasimon.jdbc4.SlowQueryLog}.
+ * Statistics outside of the Simon hierarchy are kept per normalized statement for the most expensive statements
+ * ({@link org.javasimon.jdbc4.QueryShapeIndex}) and for result set volumes ({@link org.javasimon.jdbc4.ResultSetStatistics}).
  *
  * For choosing Simon's name is used prefix. If non is defined, default is {@code org.javasimon.jdbc}.
  * If default prefix value is not sufficient or you need to differentiate between two different drivers
@@ -0,0 +1,337 @@
+package org.javasimon.jdbcx4;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
+
+/**
+ * Pool-level instrumentation shared by all Simon datasources with the same hierarchy prefix. Monitor measures
+ * how long it takes to obtain a connection from the pool, how long connections are leased and how long pooled
+ * connections stay idle between the leases. Optionally it detects leaked connections - leases exceeding
+ * the threshold are reported with the stack trace captured when the connection was acquired.
+ * <p/>
+ * Borrow path (acquiring the connection) does not use any lock - lease count is kept in atomic variables
+ * and Simons are updated only when the lease ends. Used Simons:
+ * <ul>
+ * <li>{@code <prefix>.pool.acquire} - Stopwatch with the time spent in the real {@code getConnection} call
+ * (waiting for the wrapped pool or for the logical connection of a pooled connection), added when the lease
+ * ends;</li>
+ * <li>{@code <prefix>.pool.lease} - Stopwatch with the lease duration (from acquiring the connection until
+ * it is closed);</li>
+ * <li>{@code <prefix>.pool.idle} - Stopwatch with the idle time of pooled connections (between the end
+ * of the previous lease, or creation, and the next lease);</li>
+ * <li>{@code <prefix>.pool.create} - Stopwatch measuring creation of physical pooled connections;</li>
+ * <li>{@code <prefix>.pool.leases} - Counter sampled with the count of concurrent leases by the leak detection
+ * check, exact values are available via {@link #getLeases()} and {@link #getMaxLeases()};</li>
+ * <li>{@code <prefix>.pool.leak} - Counter of detected leaks (each lease is counted once).</li>
+ * </ul>
+ * Leak detection is started by {@link #startLeakDetection(long, long, java.util.concurrent.TimeUnit)}, checks of all
+ * prefixes share one daemon thread that is shut down when the last leak detection is stopped.
+ * Leaks are reported by {@link org.javasimon.Manager#warning(String, Exception)} so any callback
+ * can log them. Acquiring stack trace is captured only while the leak detection is running.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public final class ConnectionPoolMonitor {
+
+	private static final ConcurrentMap<String, ConnectionPoolMonitor> MONITORS = new ConcurrentHashMap<>();
+
+	private static ScheduledExecutorService executorService;
+
+	private static int leakDetections;
+
+	private final String prefix;
+
+	private final AtomicLong leases = new AtomicLong();
+
+	private final AtomicLong maxLeases = new AtomicLong();
+
+	private final Queue<Lease> trackedLeases = new ConcurrentLinkedQueue<>();
+
+	private volatile long leakThresholdNanos;
+
+	private ScheduledFuture<?> leakDetection;
+
+	private ConnectionPoolMonitor(String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Returns monitor for the hierarchy prefix, monitor is created on the first call.
+	 *
+	 * @param prefix hierarchy prefix of JDBC Simons
+	 * @return pool monitor for the prefix
+	 */
+	public static ConnectionPoolMonitor forPrefix(String prefix) {
+		ConnectionPoolMonitor monitor = MONITORS.get(prefix);
+		if (monitor == null) {
+			monitor = new ConnectionPoolMonitor(prefix);
+			ConnectionPoolMonitor existing = MONITORS.putIfAbsent(prefix, monitor);
+			if (existing != null) {
+				monitor = existing;
+			}
+		}
+		return monitor;
+	}
+
+	/**
+	 * Starts a lease of the connection that has been just acquired.
+	 *
+	 * @param acquireStart nano-time before the real {@code getConnection} call
+	 * @param pooledConnection pooled connection providing the connection or {@code null}
+	 * @return lease that must be ended when the connection is closed (it is used as the connection close hook)
+	 */
+	Lease lease(long acquireStart, SimonPooledConnection pooledConnection) {
+		long count = leases.incrementAndGet();
+		long max = maxLeases.get();
+		while (count > max && !maxLeases.compareAndSet(max, count)) {
+			max = maxLeases.get();
+		}
+		Lease lease = new Lease(this, acquireStart, pooledConnection, leakThresholdNanos > 0);
+		if (lease.acquiringStack != null) {
+			trackedLeases.offer(lease);
+		}
+		return lease;
+	}
+
+	/**
+	 * Measures creation of the physical pooled connection.
+	 *
+	 * @return started split
+	 */
+	Split startCreate() {
+		return SimonManager.getStopwatch(prefix + ".pool.create").start();
+	}
+
+	private void leaseEnded(Lease lease, long endNanos) {
+		leases.decrementAndGet();
+		SimonManager.getStopwatch(prefix + ".pool.acquire").addSplit(Split.create(lease.leaseStart - lease.acquireStart));
+		SimonManager.getStopwatch(prefix + ".pool.lease").addSplit(Split.create(endNanos - lease.leaseStart));
+		if (lease.idleNanos >= 0) {
+			SimonManager.getStopwatch(prefix + ".pool.idle").addSplit(Split.create(lease.idleNanos));
+		}
+	}
+
+	/**
+	 * Returns count of currently leased connections.
+	 *
+	 * @return count of concurrent leases
+	 */
+	public long getLeases() {
+		return leases.get();
+	}
+
+	/**
+	 * Returns maximal count of concurrently leased connections.
+	 *
+	 * @return maximal count of concurrent leases
+	 */
+	public long getMaxLeases() {
+		return maxLeases.get();
+	}
+
+	/**
+	 * Returns lease duration threshold for the leak detection.
+	 *
+	 * @return threshold in ms, 0 if the leak detection is not running
+	 */
+	public long getLeakThreshold() {
+		return TimeUnit.NANOSECONDS.toMillis(leakThresholdNanos);
+	}
+
+	/**
+	 * Starts periodical leak detection. Leases started since this call capture the acquiring stack trace
+	 * and are checked for the lease duration every period.
+	 *
+	 * @param thresholdMs lease duration in ms considered a leak (positive number)
+	 * @param period duration of the check period
+	 * @param timeUnit time unit of the period duration
+	 */
+	public synchronized void startLeakDetection(long thresholdMs, long period, TimeUnit timeUnit) {
+		if (thresholdMs <= 0) {
+			throw new IllegalArgumentException("Leak threshold must be positive: " + thresholdMs);
+		}
+		if (leakDetection != null) {
+			throw new IllegalStateException("Leak detection for " + prefix + " has already been started");
+		}
+		leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+		leakDetection = schedule(new Runnable() {
+			@Override
+			public void run() {
+				checkLeaks();
+			}
+		}, period, timeUnit);
+	}
+
+	/**
+	 * Stops leak detection if it was started, tracked leases are discarded.
+	 */
+	public synchronized void stopLeakDetection() {
+		if (leakDetection != null) {
+			unschedule(leakDetection);
+			leakDetection = null;
+		}
+		leakThresholdNanos = 0;
+		trackedLeases.clear();
+	}
+
+	/**
+	 * Checks tracked leases and reports new leaks, updates {@code <prefix>.pool.leases} Counter with the count
+	 * of concurrent leases. Called periodically when the leak detection is running, but it can be called
+	 * directly as well.
+	 *
+	 * @return all leases currently exceeding the leak threshold (both new and already reported)
+	 */
+	public List<Lease> checkLeaks() {
+		SimonManager.getCounter(prefix + ".pool.leases").set(leases.get());
+		List<Lease> leaks = new ArrayList<>();
+		long threshold = leakThresholdNanos;
+		if (threshold <= 0) {
+			return leaks;
+		}
+		long now = System.nanoTime();
+		for (Iterator<Lease> iterator = trackedLeases.iterator(); iterator.hasNext(); ) {
+			Lease lease = iterator.next();
+			if (lease.isEnded()) {
+				iterator.remove();
+			} else if (now - lease.leaseStart > threshold) {
+				leaks.add(lease);
+				if (!lease.reported) {
+					lease.reported = true;
+					SimonManager.getCounter(prefix + ".pool.leak").increase();
+					SimonManager.manager().warning("Connection " + prefix + " leased for "
+						+ lease.getDuration() + " ms by thread " + lease.threadName + " (possible leak)", lease.acquiringStack);
+				}
+			}
+		}
+		return leaks;
+	}
+
+	/** Schedules the leak check on the shared executor, creates the executor for the first running leak detection. */
+	private static synchronized ScheduledFuture<?> schedule(Runnable check, long period, TimeUnit timeUnit) {
+		if (executorService == null) {
+			executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "javasimon-poolLeakDetection");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		ScheduledFuture<?> future = executorService.scheduleWithFixedDelay(check, period, period, timeUnit);
+		leakDetections++;
+		return future;
+	}
+
+	/** Cancels the leak check, shuts the shared executor down when no leak detection is running. */
+	private static synchronized void unschedule(ScheduledFuture<?> check) {
+		check.cancel(false);
+		if (--leakDetections == 0) {
+			executorService.shutdown();
+			executorService = null;
+		}
+	}
+
+	/**
+	 * Returns true if the shared leak detection executor exists.
+	 *
+	 * @return true if any leak detection is running
+	 */
+	static synchronized boolean isLeakDetectionExecutorRunning() {
+		return executorService != null;
+	}
+
+	/**
+	 * Lease of one connection, it is ended when the connection is closed (ending is idempotent).
+	 */
+	public static final class Lease implements Runnable {
+
+		private static final AtomicLongFieldUpdater<Lease> END_UPDATER = AtomicLongFieldUpdater.newUpdater(Lease.class, "end");
+
+		private final ConnectionPoolMonitor monitor;
+		private final SimonPooledConnection pooledConnection;
+		private final long acquireStart;
+		private final long leaseStart;
+		private final long idleNanos;
+		private final String threadName;
+		private final Exception acquiringStack;
+
+		private volatile long end;
+		private volatile boolean reported;
+
+		private Lease(ConnectionPoolMonitor monitor, long acquireStart, SimonPooledConnection pooledConnection, boolean captureStack) {
+			this.monitor = monitor;
+			this.pooledConnection = pooledConnection;
+			this.acquireStart = acquireStart;
+			this.leaseStart = System.nanoTime();
+			this.idleNanos = pooledConnection != null ? acquireStart - pooledConnection.idleSince : -1;
+			this.threadName = Thread.currentThread().getName();
+			this.acquiringStack = captureStack ? new Exception("Connection acquired by thread " + threadName) : null;
+		}
+
+		/** Ends the lease, only the first call has any effect. */
+		@Override
+		public void run() {
+			long now = System.nanoTime();
+			if (END_UPDATER.compareAndSet(this, 0, now)) {
+				if (pooledConnection != null) {
+					pooledConnection.idleSince = now;
+				}
+				monitor.leaseEnded(this, now);
+			}
+		}
+
+		/**
+		 * Returns true if the lease has already ended.
+		 *
+		 * @return true if the connection has been closed
+		 */
+		public boolean isEnded() {
+			return end != 0;
+		}
+
+		/**
+		 * Returns lease duration - until now for the running lease.
+		 *
+		 * @return lease duration in ms
+		 */
+		public long getDuration() {
+			long until = end;
+			return TimeUnit.NANOSECONDS.toMillis((until != 0 ? until : System.nanoTime()) - leaseStart);
+		}
+
+		/**
+		 * Returns name of the thread that acquired the connection.
+		 *
+		 * @return thread name
+		 */
+		public String getThreadName() {
+			return threadName;
+		}
+
+		/**
+		 * Returns stack trace captured when the connection was acquired.
+		 *
+		 * @return acquiring stack trace or {@code null} if the leak detection was not running
+		 */
+		public StackTraceElement[] getAcquiringStack() {
+			return acquiringStack != null ? acquiringStack.getStackTrace() : null;
+		}
+	}
+}
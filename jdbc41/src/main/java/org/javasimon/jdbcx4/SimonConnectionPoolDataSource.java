@@ -6,9 +6,12 @@ import java.util.logging.Logger;
 import javax.sql.ConnectionPoolDataSource;
 import javax.sql.PooledConnection;
 
+import org.javasimon.Split;
+
 /**
  * Wrapper class for real ConnectionPoolDataSource implementation, produces pooled
- * {@link javax.sql.PooledConnection} object.
+ * {@link javax.sql.PooledConnection} object. Creation of physical connections and leases of logical
+ * connections are measured by {@link ConnectionPoolMonitor}.
  * <p/>
  * See the {@link SimonDataSource} for more information.
  *
@@ -28,12 +31,22 @@ public final class SimonConnectionPoolDataSource extends AbstractSimonDataSource
 
 	@Override
 	public PooledConnection getPooledConnection() throws SQLException {
-		return new SimonPooledConnection(datasource().getPooledConnection(), getPrefix());
+		Split split = ConnectionPoolMonitor.forPrefix(getPrefix()).startCreate();
+		try {
+			return new SimonPooledConnection(datasource().getPooledConnection(), getPrefix());
+		} finally {
+			split.stop();
+		}
 	}
 
 	@Override
 	public PooledConnection getPooledConnection(String user, String password) throws SQLException {
-		return new SimonPooledConnection(datasource().getPooledConnection(user, password), getPrefix());
+		Split split = ConnectionPoolMonitor.forPrefix(getPrefix()).startCreate();
+		try {
+			return new SimonPooledConnection(datasource().getPooledConnection(user, password), getPrefix());
+		} finally {
+			split.stop();
+		}
 	}
 
 	@Override
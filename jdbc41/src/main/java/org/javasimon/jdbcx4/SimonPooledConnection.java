@@ -12,7 +12,8 @@ import org.javasimon.jdbc4.SimonConnection;
  * Simon implementation of <code>PooledConnection</code>, needed for
  * Simon ConnectionPollDataSource implementation.
  * <p/>
- * All method invokes its real implementation.
+ * All method invokes its real implementation. Logical connections are leased and measured
+ * by {@link ConnectionPoolMonitor}.
  * <p/>
  * See the {@link org.javasimon.jdbcx4 package description} for more
  * information.
@@ -24,6 +25,10 @@ import org.javasimon.jdbc4.SimonConnection;
 public class SimonPooledConnection implements PooledConnection {
 	private final PooledConnection pooledConn;
 	private final String prefix;
+	private final ConnectionPoolMonitor poolMonitor;
+
+	/** Nano-time of the last lease end (or creation), updated by the lease. */
+	volatile long idleSince = System.nanoTime();
 
 	/**
 	 * Class constructor.
@@ -34,11 +39,14 @@ public class SimonPooledConnection implements PooledConnection {
 	public SimonPooledConnection(PooledConnection connection, String prefix) {
 		this.pooledConn = connection;
 		this.prefix = prefix;
+		this.poolMonitor = ConnectionPoolMonitor.forPrefix(prefix);
 	}
 
 	@Override
 	public final Connection getConnection() throws SQLException {
-		return new SimonConnection(pooledConn.getConnection(), prefix);
+		long start = System.nanoTime();
+		Connection connection = pooledConn.getConnection();
+		return new SimonConnection(connection, prefix, poolMonitor.lease(start, this));
 	}
 
 	@Override
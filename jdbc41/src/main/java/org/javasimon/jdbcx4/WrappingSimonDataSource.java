@@ -26,6 +26,8 @@ import org.javasimon.jdbc4.WrapperSupport;
  *     <property name="maxIdle" value="2"/>
  *     <property name="validationQuery" value="SELECT 1"/>
  * </bean>}</pre>
+ * Connections obtained from the wrapped (typically pooled) datasource are measured as leases
+ * by {@link ConnectionPoolMonitor} - including the time spent waiting for the connection.
  *
  * @author Radovan Sninsky
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
@@ -52,7 +54,9 @@ public class WrappingSimonDataSource extends AbstractSimonDataSource implements
 	 */
 	@Override
 	public Connection getConnection() throws SQLException {
-		return new SimonConnection(getDataSource().getConnection(), getPrefix());
+		long start = System.nanoTime();
+		Connection connection = getDataSource().getConnection();
+		return new SimonConnection(connection, getPrefix(), ConnectionPoolMonitor.forPrefix(getPrefix()).lease(start, null));
 	}
 
 	/**
@@ -65,7 +69,9 @@ public class WrappingSimonDataSource extends AbstractSimonDataSource implements
 	 */
 	@Override
 	public Connection getConnection(String user, String password) throws SQLException {
-		return new SimonConnection(getDataSource().getConnection(user, password), getPrefix());
+		long start = System.nanoTime();
+		Connection connection = getDataSource().getConnection(user, password);
+		return new SimonConnection(connection, getPrefix(), ConnectionPoolMonitor.forPrefix(getPrefix()).lease(start, null));
 	}
 
 	@Override
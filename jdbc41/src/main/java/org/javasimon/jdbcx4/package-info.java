@@ -29,6 +29,9 @@
  * properties are supported: <i>url</i>, <i>user</i>, <i>password</i>. These should still be enough for
  * almost all important datasource implementations (Oracle thin, PostgreSQL, H2, MySQL, ...). Other datasource
  * types (e.g. Oracle OCI case) will be added in the future as needed/requested.
+ * <p>
+ * Connection acquiring and leases of pooled connections (and connections of wrapped pooled datasources)
+ * are measured by {@link org.javasimon.jdbcx4.ConnectionPoolMonitor} which can also detect leaked connections.
  *
  * @author Radovan Sninsky
  * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
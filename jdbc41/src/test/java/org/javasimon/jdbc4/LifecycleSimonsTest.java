@@ -0,0 +1,91 @@
+package org.javasimon.jdbc4;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.javasimon.SimonManager;
+import org.javasimon.Stopwatch;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for lifecycle monitoring modes of connections and statements ({@link LifecycleSimons}).
+ */
+public class LifecycleSimonsTest {
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testFullMode() throws SQLException {
+		useConnection("jdbc:simon:h2:mem:LifecycleSimonsTest;simon_prefix=test.full");
+
+		assertEquals(SimonManager.getStopwatch("test.full.conn").getCounter(), 1);
+		assertEquals(SimonManager.getStopwatch("test.full.stmt").getCounter(), 3);
+		assertEquals(SimonManager.getCounter("test.full.conn.commits").getCounter(), 1);
+		assertEquals(SimonManager.getCounter("test.full.conn.rollbacks").getCounter(), 1);
+	}
+
+	@Test
+	public void testOffMode() throws SQLException {
+		useConnection("jdbc:simon:h2:mem:LifecycleSimonsTest;simon_prefix=test.off;simon_conn_lifecycle=off;SIMON_STMT_LIFECYCLE=OFF");
+
+		// only unknown parent of the commits counter exists
+		assertFalse(SimonManager.getSimon("test.off.conn") instanceof Stopwatch);
+		assertNull(SimonManager.getSimon("test.off.stmt"));
+		assertEquals(SimonManager.getCounter("test.off.conn.commits").getCounter(), 1);
+		assertEquals(SimonManager.getCounter("test.off.conn.rollbacks").getCounter(), 1);
+	}
+
+	@Test
+	public void testSampledMode() throws SQLException {
+		useConnection("jdbc:simon:h2:mem:LifecycleSimonsTest;simon_prefix=test.sampled;simon_stmt_lifecycle=sampled;simon_lifecycle_sample_rate=1");
+
+		JdbcMonitoringSettings settings = JdbcMonitoringSettings.forPrefix("test.sampled");
+		assertEquals(settings.getStatementLifecycleMode(), JdbcMonitoringSettings.LifecycleMode.SAMPLED);
+		assertEquals(settings.getConnectionLifecycleMode(), JdbcMonitoringSettings.LifecycleMode.FULL);
+		assertEquals(settings.getLifecycleSampleRate(), 1);
+		// with sample rate 1 every statement is measured
+		assertEquals(SimonManager.getStopwatch("test.sampled.stmt").getCounter(), 3);
+	}
+
+	@Test
+	public void testCountersAfterClearAndDisable() {
+		LifecycleSimons lifecycle = LifecycleSimons.forPrefix("test.counters");
+		lifecycle.commit();
+		lifecycle.commit();
+		assertEquals(SimonManager.getCounter("test.counters.conn.commits").getCounter(), 2);
+
+		// cached Counter is resolved again after the manager is cleared
+		SimonManager.clear();
+		lifecycle.commit();
+		assertEquals(SimonManager.getCounter("test.counters.conn.commits").getCounter(), 1);
+
+		SimonManager.disable();
+		try {
+			lifecycle.rollback();
+		} finally {
+			SimonManager.enable();
+		}
+		lifecycle.rollback();
+		assertEquals(SimonManager.getCounter("test.counters.conn.rollbacks").getCounter(), 1);
+	}
+
+	private static void useConnection(String url) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url)) {
+			connection.setAutoCommit(false);
+			connection.createStatement().close();
+			connection.prepareStatement("select 1").close();
+			connection.prepareCall("call 1").close();
+			connection.commit();
+			connection.rollback();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package org.javasimon.jdbc4;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+import org.javasimon.SimonManager;
+import org.javasimon.jdbc4.jmx.JdbcMXBeanImpl;
+import org.javasimon.jdbc4.jmx.JdbcQueryShapeInfo;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link QueryShapeIndex}.
+ */
+public class QueryShapeIndexTest {
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testOrdering() {
+		QueryShapeIndex index = QueryShapeIndex.forPrefix("test.shape.order");
+		index.add("a", 10);
+		index.add("a", 10);
+		index.add("a", 10);
+		index.add("b", 50);
+		index.add("c", 5);
+		index.add("c", 40);
+
+		assertShapes(index.getTop(3, QueryShapeIndex.Order.TOTAL), "b", "c", "a");
+		assertShapes(index.getTop(3, QueryShapeIndex.Order.COUNT), "a", "c", "b");
+		assertShapes(index.getTop(2, QueryShapeIndex.Order.MAX), "b", "c");
+
+		QueryShapeIndex.QueryShape c = index.getTop(2, QueryShapeIndex.Order.MAX).get(1);
+		assertEquals(c.getCount(), 2);
+		assertEquals(c.getTotal(), 45);
+		assertEquals(c.getMax(), 40);
+		assertEquals(c.getTotalError(), 0);
+	}
+
+	@Test
+	public void testEviction() {
+		QueryShapeIndex index = QueryShapeIndex.forPrefix("test.shape.eviction");
+		index.setCapacity(2);
+		index.add("a", 100);
+		index.add("b", 10);
+		index.add("c", 5);
+
+		List<QueryShapeIndex.QueryShape> shapes = index.getTop(10, QueryShapeIndex.Order.TOTAL);
+		assertShapes(shapes, "a", "c");
+		assertEquals(shapes.get(1).getTotal(), 15);
+		assertEquals(shapes.get(1).getTotalError(), 10);
+		assertEquals(shapes.get(1).getCount(), 1);
+
+		index.setCapacity(0);
+		index.add("a", 100);
+		assertTrue(index.getTop(10, QueryShapeIndex.Order.TOTAL).isEmpty());
+	}
+
+	@Test
+	public void testEvictionOfUpdatedShapes() {
+		QueryShapeIndex index = QueryShapeIndex.forPrefix("test.shape.updated");
+		index.setCapacity(3);
+		index.add("a", 1);
+		index.add("b", 2);
+		index.add("c", 3);
+		// shapes updated after the insertion are not evicted
+		index.add("a", 100);
+		index.add("d", 1);
+		assertShapes(index.getTop(10, QueryShapeIndex.Order.TOTAL), "a", "c", "d");
+		index.add("c", 10);
+		index.add("e", 1);
+		assertShapes(index.getTop(10, QueryShapeIndex.Order.TOTAL), "a", "c", "e");
+
+		List<QueryShapeIndex.QueryShape> shapes = index.getTop(10, QueryShapeIndex.Order.TOTAL);
+		assertEquals(shapes.get(2).getTotal(), 4);
+		assertEquals(shapes.get(2).getTotalError(), 3);
+	}
+
+	@Test
+	public void testStatementExecution() throws SQLException {
+		assertNull(QueryShapeIndex.find("test.shape.jdbc"));
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:QueryShapeIndexTest;simon_prefix=test.shape.jdbc")) {
+			Statement statement = connection.createStatement();
+			statement.execute("create table foo (id int)");
+			for (int i = 0; i < 3; i++) {
+				statement.execute("insert into foo values (" + i + ")");
+			}
+			statement.close();
+		}
+
+		JdbcQueryShapeInfo[] infos = new JdbcMXBeanImpl(SimonManager.manager(), "test.shape.jdbc").topSqls(1, "count");
+		assertEquals(infos.length, 1);
+		assertEquals(infos[0].getNormalizedSql(), "insert into foo values (?)");
+		assertEquals(infos[0].getCount(), 3);
+		assertTrue(infos[0].getTotal() >= infos[0].getMax());
+	}
+
+	@Test
+	public void testTopSqlsOrder() {
+		QueryShapeIndex.forPrefix("test.shape.mxbean").add("a", 1);
+		JdbcMXBeanImpl mxBean = new JdbcMXBeanImpl(SimonManager.manager(), "test.shape.mxbean");
+		Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			assertEquals(mxBean.topSqls(10, "total").length, 1);
+			assertEquals(mxBean.topSqls(10, "max").length, 1);
+		} finally {
+			Locale.setDefault(locale);
+		}
+		assertEquals(mxBean.topSqls(10, null).length, 1);
+		try {
+			mxBean.topSqls(10, "avg");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("avg"), e.getMessage());
+		}
+
+		// index is not created for unknown prefix
+		assertEquals(new JdbcMXBeanImpl(SimonManager.manager(), "test.shape.unknown").topSqls(10, "total").length, 0);
+		assertNull(QueryShapeIndex.find("test.shape.unknown"));
+	}
+
+	private static void assertShapes(List<QueryShapeIndex.QueryShape> shapes, String... normalizedSqls) {
+		assertEquals(shapes.size(), normalizedSqls.length);
+		for (int i = 0; i < normalizedSqls.length; i++) {
+			assertEquals(shapes.get(i).getNormalizedSql(), normalizedSqls[i]);
+		}
+	}
+}
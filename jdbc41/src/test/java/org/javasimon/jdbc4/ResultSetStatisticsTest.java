@@ -0,0 +1,99 @@
+package org.javasimon.jdbc4;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.javasimon.SimonManager;
+import org.javasimon.jdbc4.jmx.JdbcMXBeanImpl;
+import org.javasimon.jdbc4.jmx.JdbcResultSetVolumeInfo;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link ResultSetStatistics}.
+ */
+public class ResultSetStatisticsTest {
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testResultSetVolume() throws SQLException {
+		int fetchSize = 0;
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:ResultSetStatisticsTest;simon_prefix=test.volume;simon_rset_bytes=true")) {
+			try (PreparedStatement statement = connection.prepareStatement("select x, 'abc' from system_range(1, ?)")) {
+				statement.setFetchSize(5);
+				for (int size : new int[] {1, 1, 1, 10}) {
+					statement.setInt(1, size);
+					try (ResultSet resultSet = statement.executeQuery()) {
+						fetchSize = resultSet.getFetchSize();
+						while (resultSet.next()) {
+							resultSet.getString(2);
+						}
+					}
+				}
+			}
+		} finally {
+			JdbcMonitoringSettings.forPrefix("test.volume").setResultSetBytesEstimated(false);
+		}
+
+		List<ResultSetStatistics.ResultSetVolume> volumes = ResultSetStatistics.forPrefix("test.volume").getVolumes();
+		assertEquals(volumes.size(), 1);
+		ResultSetStatistics.ResultSetVolume volume = volumes.get(0);
+		assertEquals(volume.getNormalizedSql(), "select x, ? from system_range(?, ?)");
+		assertEquals(volume.getCount(), 4);
+		assertEquals(volume.getRows(), 13);
+		assertEquals(volume.getMaxRows(), 10);
+		assertEquals(volume.getColumnCount(), 2);
+		assertEquals(volume.getFetchSize(), fetchSize);
+		assertEquals(volume.getBytes(), 39);
+		assertEquals(volume.getMaxBytes(), 30);
+		assertEquals(volume.getRowHistogram()[1], 3);
+		assertEquals(volume.getRowHistogram()[ResultSetStatistics.bucket(10)], 1);
+
+		JdbcResultSetVolumeInfo[] infos = new JdbcMXBeanImpl(SimonManager.manager(), "test.volume").resultSetVolumes();
+		assertEquals(infos.length, 1);
+		assertEquals(infos[0].getRowDistribution().toString(), "{1=3, 15=1}");
+	}
+
+	@Test
+	public void testHistogramBuckets() {
+		assertEquals(ResultSetStatistics.bucket(0), 0);
+		assertEquals(ResultSetStatistics.bucket(1), 1);
+		assertEquals(ResultSetStatistics.bucket(2), 2);
+		assertEquals(ResultSetStatistics.bucket(3), 2);
+		assertEquals(ResultSetStatistics.bucket(4), 3);
+		assertEquals(ResultSetStatistics.bucket(Long.MAX_VALUE), ResultSetStatistics.HISTOGRAM_BUCKETS - 1);
+		for (int bucket = 0; bucket < ResultSetStatistics.HISTOGRAM_BUCKETS; bucket++) {
+			assertEquals(ResultSetStatistics.bucket(ResultSetStatistics.getBucketLowerBound(bucket)), bucket);
+		}
+	}
+
+	@Test
+	public void testCapacity() {
+		ResultSetStatistics statistics = ResultSetStatistics.forPrefix("test.volume.capacity");
+		statistics.setCapacity(1);
+		statistics.add("a", 1, 0, 1, 0);
+		statistics.add("b", 1, 0, 1, 0);
+		statistics.add("a", 2, 0, 1, 0);
+		assertEquals(statistics.getVolumes().size(), 1);
+		assertEquals(statistics.getVolumes().get(0).getRows(), 3);
+		assertEquals(statistics.getUntracked(), 1);
+		assertTrue(statistics.isTracked("a"));
+		assertFalse(statistics.isTracked("b"));
+
+		statistics.setCapacity(0);
+		assertFalse(statistics.isEnabled());
+		assertTrue(statistics.getVolumes().isEmpty());
+	}
+}
@@ -88,6 +88,32 @@ public class SimonConnectionConfigurationTest {
 		assertEquals(configuration.getPrefix(), prefix);
 	}
 
+	/**
+	 * Settings provided in the URL are applied to the shared settings of the prefix
+	 */
+	@Test
+	public void testSettings() {
+		new SimonConnectionConfiguration("jdbc:simon:h2:mem:db;simon_prefix=test.settings;SIMON_RSET_MODE=sampled;simon_slow_query_threshold=50");
+		JdbcMonitoringSettings settings = JdbcMonitoringSettings.forPrefix("test.settings");
+		assertEquals(settings.getResultSetMode(), JdbcMonitoringSettings.ResultSetMode.SAMPLED);
+		assertEquals(settings.getSlowQueryThreshold(), 50);
+	}
+
+	/**
+	 * Invalid settings are ignored and do not prevent the connection
+	 */
+	@Test
+	public void testInvalidSettings() {
+		SimonConnectionConfiguration configuration = new SimonConnectionConfiguration("jdbc:simon:h2:mem:db;simon_prefix=test.invalid"
+			+ ";simon_conn_lifecycle=never;simon_lifecycle_sample_rate=x;simon_rset_sample_rate=0;simon_stmt_lifecycle;simon_slow_query_threshold=20");
+		assertEquals(configuration.getRealUrl(), "jdbc:h2:mem:db");
+		JdbcMonitoringSettings settings = configuration.getSettings();
+		assertEquals(settings.getConnectionLifecycleMode(), new JdbcMonitoringSettings().getConnectionLifecycleMode());
+		assertEquals(settings.getLifecycleSampleRate(), new JdbcMonitoringSettings().getLifecycleSampleRate());
+		assertEquals(settings.getResultSetSampleRate(), new JdbcMonitoringSettings().getResultSetSampleRate());
+		assertEquals(settings.getSlowQueryThreshold(), 20);
+	}
+
 	/**
 	 * Test URL parsing for different databases
 	 */
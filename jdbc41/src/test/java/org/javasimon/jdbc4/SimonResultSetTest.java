@@ -0,0 +1,107 @@
+package org.javasimon.jdbc4;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.javasimon.Counter;
+import org.javasimon.Simon;
+import org.javasimon.SimonManager;
+import org.javasimon.Stopwatch;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link SimonResultSet} monitoring modes.
+ */
+public class SimonResultSetTest {
+
+	private static final String QUERY = "select x from system_range(1, 100)";
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testSplitMode() throws SQLException {
+		readAll("jdbc:simon:h2:mem:SimonResultSetTest;simon_prefix=test.rset.split");
+
+		assertEquals(findSimon("test.rset.split", ".next", Stopwatch.class).getCounter(), 101);
+		assertFalse(SimonManager.getSimonNames().toString().contains(".rows"));
+	}
+
+	@Test
+	public void testAggregatedMode() throws SQLException {
+		readAll("jdbc:simon:h2:mem:SimonResultSetTest;simon_prefix=test.rset.aggr;simon_rset_mode=aggregated");
+		readAll("jdbc:simon:h2:mem:SimonResultSetTest;simon_prefix=test.rset.aggr");
+
+		Stopwatch next = findSimon("test.rset.aggr", ".next", Stopwatch.class);
+		Stopwatch max = findSimon("test.rset.aggr", ".next.max", Stopwatch.class);
+		assertEquals(next.getCounter(), 2);
+		assertEquals(max.getCounter(), 2);
+		assertEquals(findSimon("test.rset.aggr", ".rows", Counter.class).getCounter(), 200);
+	}
+
+	@Test
+	public void testSampledMode() throws SQLException {
+		readAll("jdbc:simon:h2:mem:SimonResultSetTest;simon_prefix=test.rset.sampled;simon_rset_mode=SAMPLED;simon_rset_sample_rate=10");
+
+		assertEquals(findSimon("test.rset.sampled", ".next", Stopwatch.class).getCounter(), 11);
+		assertEquals(findSimon("test.rset.sampled", ".rows", Counter.class).getCounter(), 100);
+		assertEquals(JdbcMonitoringSettings.forPrefix("test.rset.sampled").getResultSetSampleRate(), 10);
+	}
+
+	@Test
+	public void testCloseFailure() throws SQLException {
+		ResultSet realResultSet = mock(ResultSet.class);
+		when(realResultSet.next()).thenReturn(true, false);
+		doThrow(new SQLException("close failed")).when(realResultSet).close();
+		JdbcMonitoringSettings.forPrefix("test.rset.failedclose").setResultSetMode(JdbcMonitoringSettings.ResultSetMode.AGGREGATED);
+
+		ResultSet resultSet = new SimonResultSet(realResultSet, null, "test.rset.failedclose", "test.rset.failedclose.sql.select");
+		while (resultSet.next()) {
+			resultSet.getInt(1);
+		}
+		try {
+			resultSet.close();
+			fail();
+		} catch (SQLException e) {
+			// expected
+		}
+		assertEquals(SimonManager.getStopwatch("test.rset.failedclose.rset").getActive(), 0);
+		assertEquals(SimonManager.getStopwatch("test.rset.failedclose.rset").getCounter(), 1);
+		assertEquals(SimonManager.getCounter("test.rset.failedclose.sql.select.rows").getCounter(), 1);
+	}
+
+	private static void readAll(String url) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url);
+			Statement statement = connection.createStatement())
+		{
+			ResultSet resultSet = statement.executeQuery(QUERY);
+			while (resultSet.next()) {
+				resultSet.getInt(1);
+			}
+			resultSet.close();
+			resultSet.close();
+		}
+	}
+
+	private static <T extends Simon> T findSimon(String prefix, String suffix, Class<T> type) {
+		for (String name : SimonManager.getSimonNames()) {
+			if (name.startsWith(prefix + ".sql.") && name.endsWith(suffix) && type.isInstance(SimonManager.getSimon(name))) {
+				return type.cast(SimonManager.getSimon(name));
+			}
+		}
+		throw new AssertionError("Simon " + prefix + "*" + suffix + " not found in " + SimonManager.getSimonNames());
+	}
+}
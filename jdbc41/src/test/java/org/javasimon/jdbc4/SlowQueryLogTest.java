@@ -0,0 +1,148 @@
+package org.javasimon.jdbc4;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.javasimon.Counter;
+import org.javasimon.Simon;
+import org.javasimon.SimonManager;
+import org.javasimon.jdbc4.jmx.JdbcMXBeanImpl;
+import org.javasimon.jdbc4.jmx.JdbcSlowQueryInfo;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for slow query capture ({@link SlowQueryLog} and {@link BindParameters}).
+ */
+public class SlowQueryLogTest {
+
+	private static final String QUERY = "select count(*) from system_range(1, ?) where sleep(?) is null and ? is not null";
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testSlowQueryCapture() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:SlowQueryLogTest;simon_prefix=test.slow")) {
+			// compilation of the alias may be slow, threshold is set after it
+			connection.createStatement().execute("create alias if not exists sleep for \"java.lang.Thread.sleep\"");
+			JdbcMonitoringSettings.forPrefix("test.slow").setSlowQueryThreshold(50);
+			try (PreparedStatement statement = connection.prepareStatement(QUERY)) {
+				for (long sleep : new long[] {0, 100}) {
+					statement.setInt(1, 1);
+					statement.setLong(2, sleep);
+					statement.setString(3, "abc");
+					statement.executeQuery().close();
+				}
+			}
+			Statement statement = connection.createStatement();
+			statement.execute("call sleep(75)");
+			JdbcMonitoringSettings.forPrefix("test.slow").setSlowQueryThreshold(new SqlNormalizer("call sleep(75)").getNormalizedSql(), 1000);
+			statement.execute("call sleep(75)");
+			statement.close();
+		} finally {
+			JdbcMonitoringSettings.forPrefix("test.slow").setSlowQueryThreshold(0);
+		}
+
+		List<SlowQuery> slowQueries = SlowQueryLog.forPrefix("test.slow").getSlowQueries();
+		assertEquals(slowQueries.size(), 2);
+		assertEquals(slowQueries.get(0).getSql(), "call sleep(75)");
+		assertNull(slowQueries.get(0).getParameters());
+		assertEquals(slowQueries.get(1).getSql(), QUERY);
+		assertEquals(slowQueries.get(1).getParameters(), "[1, 100, 'abc']");
+		assertTrue(slowQueries.get(1).getDuration() >= 100000000);
+
+		JdbcSlowQueryInfo[] infos = new JdbcMXBeanImpl(SimonManager.manager(), "test.slow").slowQueries();
+		assertEquals(infos.length, 2);
+		assertEquals(infos[1].getNormalizedSql(), slowQueries.get(1).getNormalizedSql());
+
+		Counter slow = findSlowCounter("test.slow.sql.select.");
+		assertEquals(slow.getCounter(), 1);
+		// bind parameters are not exposed in the note
+		assertTrue(slow.getNote().endsWith("ms"), slow.getNote());
+		assertFalse(slow.getNote().contains("abc"), slow.getNote());
+	}
+
+	@Test
+	public void testCaptureDisabled() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:SlowQueryLogTest;simon_prefix=test.noslow")) {
+			connection.createStatement().execute("create alias if not exists sleep for \"java.lang.Thread.sleep\"");
+			try (PreparedStatement statement = connection.prepareStatement(QUERY)) {
+				assertNull(((SimonPreparedStatement) statement).bindParameters());
+				statement.setInt(1, 1);
+				statement.setLong(2, 5);
+				statement.setString(3, "abc");
+				statement.executeQuery().close();
+			}
+		}
+		assertTrue(SlowQueryLog.forPrefix("test.noslow").getSlowQueries().isEmpty());
+	}
+
+	@Test
+	public void testRing() {
+		SlowQueryLog log = SlowQueryLog.forPrefix("test.ring");
+		log.setCapacity(2);
+		for (int i = 0; i < 3; i++) {
+			log.report(SimonManager.getStopwatch("test.ring.sql.select.1").start().stop(), new SqlNormalizer("select " + i), null);
+		}
+		List<SlowQuery> slowQueries = log.getSlowQueries();
+		assertEquals(slowQueries.size(), 2);
+		assertEquals(slowQueries.get(0).getSql(), "select 2");
+		assertEquals(slowQueries.get(1).getSql(), "select 1");
+		assertEquals(SimonManager.getCounter("test.ring.sql.select.1.slow").getCounter(), 3);
+
+		log.clear();
+		assertTrue(log.getSlowQueries().isEmpty());
+		assertEquals(log.getCapacity(), 2);
+	}
+
+	@Test
+	public void testBindParameters() {
+		BindParameters parameters = new BindParameters("insert into foo values (?, ?)");
+		parameters.setBoolean(1, true);
+		parameters.setDouble(2, 1.5);
+		parameters.setObject(4, new byte[3]);
+		parameters.setOpaque(5, "stream");
+		parameters.setObject(6, null);
+		StringBuilder longValue = new StringBuilder();
+		for (int i = 0; i < BindParameters.MAX_VALUE_LENGTH + 1; i++) {
+			longValue.append('x');
+		}
+		parameters.setObject(7, longValue);
+		assertEquals(parameters.toString(), "[true, 1.5, ?, <bytes[3]>, <stream>, null, '"
+			+ longValue.substring(0, BindParameters.MAX_VALUE_LENGTH) + "...']");
+
+		// mutable values are captured when bound
+		byte[] bytes = new byte[3];
+		StringBuilder value = new StringBuilder("abc");
+		parameters.setObject(1, bytes);
+		parameters.setObject(2, value);
+		value.append("def");
+		assertTrue(parameters.toString().startsWith("[<bytes[3]>, 'abc', ?"), parameters.toString());
+
+		parameters.clear();
+		assertEquals(parameters.toString(), "[]");
+		assertEquals(BindParameters.placeholderCount("select ? from dual where x in (?, ?)"), 3);
+	}
+
+	private static Counter findSlowCounter(String parentPrefix) {
+		for (String name : SimonManager.getSimonNames()) {
+			Simon simon = SimonManager.getSimon(name);
+			if (name.startsWith(parentPrefix) && name.endsWith(".slow") && simon instanceof Counter) {
+				return (Counter) simon;
+			}
+		}
+		throw new AssertionError("Slow counter not found in " + SimonManager.getSimonNames());
+	}
+}
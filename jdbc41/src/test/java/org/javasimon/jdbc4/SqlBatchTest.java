@@ -0,0 +1,152 @@
+package org.javasimon.jdbc4;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.javasimon.SimonManager;
+import org.javasimon.jdbc4.jmx.JdbcBatchInfo;
+import org.javasimon.jdbc4.jmx.JdbcMXBeanImpl;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for batch monitoring ({@link SqlBatch}).
+ */
+public class SqlBatchTest {
+
+	private static final String INSERT = "insert into batch_test (id, name) values (?, ?)";
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testStatementBatch() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:SqlBatchTest;simon_prefix=test.batch");
+			Statement statement = connection.createStatement())
+		{
+			statement.execute("create table batch_test (id int, name varchar(10))");
+			for (int i = 0; i < 3; i++) {
+				statement.addBatch("insert into batch_test (id, name) values (" + i + ", 'name" + i + "')");
+			}
+			statement.addBatch("update batch_test set name = 'x' where id = 1");
+			assertEquals(statement.executeBatch().length, 4);
+			// batch is cleared after the execution
+			assertEquals(statement.executeBatch().length, 0);
+			statement.execute("drop table batch_test");
+		}
+
+		assertEquals(SimonManager.getCounter("test.batch.batch.rows").getCounter(), 4);
+		assertEquals(SimonManager.getCounter("test.batch.batch.rows." + INSERT.hashCode()).getCounter(), 3);
+		assertEquals(SimonManager.getCounter("test.batch.batch.rows." + INSERT.hashCode()).getNote(), INSERT);
+		assertEquals(SimonManager.getCounter("test.batch.batch.size.10").getCounter(), 1);
+		assertEquals(SimonManager.getStopwatch("test.batch.sql.batch").getCounter(), 1);
+		assertEquals(SimonManager.getStopwatch("test.batch.batch.row").getCounter(), 1);
+	}
+
+	@Test
+	public void testPreparedStatementBatchReusesStopwatch() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:SqlBatchTest;simon_prefix=test.pbatch")) {
+			connection.createStatement().execute("create table batch_test (id int, name varchar(10))");
+			try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+				for (int size : new int[] {25, 1, 25}) {
+					for (int i = 0; i < size; i++) {
+						statement.setInt(1, i);
+						statement.setString(2, "name");
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				}
+				statement.addBatch();
+				statement.clearBatch();
+				statement.executeBatch();
+			}
+		}
+
+		String stopwatchName = "test.pbatch.sql.batch." + INSERT.hashCode();
+		assertEquals(SimonManager.getStopwatch(stopwatchName).getCounter(), 2);
+		assertEquals(SimonManager.getStopwatch(stopwatchName).getNote(), INSERT);
+		// batch of one row is measured as the statement itself
+		assertEquals(SimonManager.getStopwatch("test.pbatch.sql.insert." + INSERT.hashCode()).getCounter(), 1);
+		assertEquals(SimonManager.getStopwatch("test.pbatch.sql.insert").getCounter(), 1);
+
+		JdbcBatchInfo info = new JdbcMXBeanImpl(SimonManager.manager(), "test.pbatch").batchesStat();
+		assertEquals(info.getExecutions(), 3);
+		assertEquals(info.getRows(), 51);
+		assertEquals(info.getMinSize(), 1);
+		assertEquals(info.getMaxSize(), 25);
+		Map<String, Long> distribution = new LinkedHashMap<>();
+		distribution.put("1", 1L);
+		distribution.put("100", 2L);
+		assertEquals(info.getSizeDistribution(), distribution);
+	}
+
+	@Test
+	public void testRepeatedStatementBatch() throws SQLException {
+		Connection realConnection = mock(Connection.class);
+		Statement realStatement = mock(Statement.class);
+		when(realConnection.createStatement()).thenReturn(realStatement);
+		when(realStatement.executeBatch()).thenReturn(new int[] {1, 1, 1});
+
+		try (Connection connection = new SimonConnection(realConnection, "test.rbatch")) {
+			Statement statement = connection.createStatement();
+			statement.addBatch("delete from foo where id = 1");
+			statement.addBatch("delete from foo where id = 1");
+			statement.addBatch("delete from foo where id = 2");
+			assertEquals(statement.executeBatch(), new int[] {1, 1, 1});
+		}
+
+		// repeated row is not normalized again, distinct rows are normalized via the cache
+		assertEquals(SimonManager.getCounter("test.rbatch.sqlcache.miss").getCounter(), 2);
+		assertEquals(SimonManager.getCounter("test.rbatch.batch.rows." + "delete from foo where id = ?".hashCode()).getCounter(), 3);
+		JdbcBatchInfo info = new JdbcMXBeanImpl(SimonManager.manager(), "test.rbatch").batchesStat();
+		assertEquals(info.getExecutions(), 1);
+		assertEquals(info.getRows(), 3);
+		assertEquals(info.getSizeDistribution(), Collections.singletonMap("10", 1L));
+		assertNull(new JdbcMXBeanImpl(SimonManager.manager(), "test.nobatch").batchesStat());
+	}
+
+	@Test
+	public void testSingleRowStatementBatch() throws SQLException {
+		Connection realConnection = mock(Connection.class);
+		Statement realStatement = mock(Statement.class);
+		when(realConnection.createStatement()).thenReturn(realStatement);
+		when(realStatement.executeBatch()).thenReturn(new int[] {1});
+
+		try (Connection connection = new SimonConnection(realConnection, "test.sbatch")) {
+			Statement statement = connection.createStatement();
+			statement.addBatch("delete from foo where id = 1");
+			statement.executeBatch();
+		}
+
+		String normalizedSql = "delete from foo where id = ?";
+		assertEquals(SimonManager.getStopwatch("test.sbatch.sql.delete").getCounter(), 1);
+		assertEquals(SimonManager.getStopwatch("test.sbatch.sql.delete." + normalizedSql.hashCode()).getNote(), normalizedSql);
+		assertNull(SimonManager.getSimon("test.sbatch.sql.batch"));
+		assertEquals(SimonManager.getCounter("test.sbatch.batch.rows." + normalizedSql.hashCode()).getCounter(), 1);
+		assertEquals(SimonManager.getCounter("test.sbatch.batch.size.1").getCounter(), 1);
+		JdbcBatchInfo info = new JdbcMXBeanImpl(SimonManager.manager(), "test.sbatch").batchesStat();
+		assertEquals(info.getExecutions(), 1);
+		assertEquals(info.getTotal(), 0);
+	}
+
+	@Test
+	public void testSizeBucket() {
+		assertEquals(SqlBatch.sizeBucket(1), "1");
+		assertEquals(SqlBatch.sizeBucket(2), "10");
+		assertEquals(SqlBatch.sizeBucket(10000), "10000");
+		assertEquals(SqlBatch.sizeBucket(10001), SqlBatch.SIZE_MORE);
+	}
+}
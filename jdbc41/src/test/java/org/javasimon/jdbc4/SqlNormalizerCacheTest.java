@@ -0,0 +1,82 @@
+package org.javasimon.jdbc4;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.javasimon.SimonManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link SqlNormalizerCache}.
+ */
+public class SqlNormalizerCacheTest {
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		SqlNormalizerCache cache = new SqlNormalizerCache("test.cache", 10);
+		SqlNormalizerCache.CachedSql first = cache.get("select * from t where id = 1");
+		SqlNormalizerCache.CachedSql second = cache.get("select * from t where id = 1");
+
+		assertSame(second, first);
+		assertEquals(first.getNormalizer().getNormalizedSql(), "select * from t where id = ?");
+		assertEquals(first.getCmdLabel(), "test.cache.sql.select");
+		assertEquals(first.getStopwatchName(), "test.cache.sql.select." + "select * from t where id = ?".hashCode());
+		assertEquals(SimonManager.getCounter("test.cache.sqlcache.hit").getCounter(), 1);
+		assertEquals(SimonManager.getCounter("test.cache.sqlcache.miss").getCounter(), 1);
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		SqlNormalizerCache cache = new SqlNormalizerCache("test.cache", 10);
+		for (int i = 0; i < 100; i++) {
+			cache.get("select " + i + " from dual");
+			cache.get("select x from used");
+		}
+		assertTrue(cache.size() <= 10, "size: " + cache.size());
+	}
+
+	@Test
+	public void testHotEntriesSurviveAtCapacity() {
+		SqlNormalizerCache cache = new SqlNormalizerCache("test.cache.hot", 10);
+		int rounds = 20;
+		for (int round = 0; round < rounds; round++) {
+			// every entry of the full cache is used, each new entry evicts only one of them
+			cache.get("select " + round + " from cold");
+			cache.get("select " + round + " from cold");
+			for (int i = 0; i < 9; i++) {
+				cache.get("select " + i + " from hot");
+			}
+			assertTrue(cache.size() <= 10, "size: " + cache.size());
+		}
+		// dropping the whole cache would miss all hot entries in every round
+		long hotMisses = SimonManager.getCounter("test.cache.hot.sqlcache.miss").getCounter() - rounds;
+		assertTrue(hotMisses < 9 * rounds / 2, "hot misses: " + hotMisses);
+	}
+
+	@Test
+	public void testPreparedStatementUsesCache() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:simon:h2:mem:SqlNormalizerCacheTest;simon_prefix=test.jdbc")) {
+			for (int i = 0; i < 3; i++) {
+				try (PreparedStatement statement = connection.prepareStatement("select 1 from dual where 1 = ?")) {
+					statement.setInt(1, i);
+					statement.executeQuery().close();
+				}
+			}
+		}
+		assertEquals(SimonManager.getCounter("test.jdbc.sqlcache.miss").getCounter(), 1);
+		assertEquals(SimonManager.getCounter("test.jdbc.sqlcache.hit").getCounter(), 2);
+		assertEquals(SimonManager.getStopwatch("test.jdbc.sql.select").getCounter(), 3);
+	}
+}
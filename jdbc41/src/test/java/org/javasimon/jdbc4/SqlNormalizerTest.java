@@ -54,6 +54,13 @@ public final class SqlNormalizerTest {
 
 			// DDL
 			{"  create table	foo(a1 varchar2(30) not null, a2   numeric(12,4))", "create", "create table foo"},
+			{"ALTER TABLE foo ADD bar int", "alter", "alter table foo"},
+
+			// single-pass lexer corner cases
+			{"select a from t where x = -5 and y in(1, 2,  3) and z=f(g(1), (2))", "select",
+				"select a from t where x =- ? and y in (?) and z = f(?, (?))"},
+			{"select count(*) from t where d between 1 and 10", "select", "select count( * ) from t where d between ? and ?"},
+			{"commit", "commit", "commit"},
 		};
 	}
 
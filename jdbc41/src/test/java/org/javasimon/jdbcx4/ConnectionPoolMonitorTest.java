@@ -0,0 +1,130 @@
+package org.javasimon.jdbcx4;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.PooledConnection;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.javasimon.SimonManager;
+import org.javasimon.jdbc4.SimonConnection;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Unit test for {@link ConnectionPoolMonitor}. */
+public class ConnectionPoolMonitorTest {
+
+	@BeforeMethod
+	public void setUp() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testPooledConnectionLeases() throws SQLException {
+		SimonConnectionPoolDataSource dataSource = new SimonConnectionPoolDataSource();
+		dataSource.setUrl("jdbc:h2:mem:ConnectionPoolMonitorTest");
+		dataSource.setRealDataSourceClassName(JdbcDataSource.class.getName());
+		dataSource.setUser("sa");
+		dataSource.setPrefix("test.pool");
+		ConnectionPoolMonitor monitor = ConnectionPoolMonitor.forPrefix("test.pool");
+
+		PooledConnection pooledConnection = dataSource.getPooledConnection();
+		for (int i = 0; i < 2; i++) {
+			Connection connection = pooledConnection.getConnection();
+			assertEquals(monitor.getLeases(), 1);
+			connection.close();
+			// closing twice ends the lease only once
+			connection.close();
+		}
+		pooledConnection.close();
+
+		assertEquals(monitor.getLeases(), 0);
+		assertEquals(monitor.getMaxLeases(), 1);
+		assertEquals(SimonManager.getStopwatch("test.pool.pool.create").getCounter(), 1);
+		assertEquals(SimonManager.getStopwatch("test.pool.pool.acquire").getCounter(), 2);
+		assertEquals(SimonManager.getStopwatch("test.pool.pool.lease").getCounter(), 2);
+		assertEquals(SimonManager.getStopwatch("test.pool.pool.idle").getCounter(), 2);
+	}
+
+	@Test
+	public void testLeakDetection() throws Exception {
+		JdbcDataSource realDataSource = new JdbcDataSource();
+		realDataSource.setURL("jdbc:h2:mem:ConnectionPoolMonitorTest");
+		realDataSource.setUser("sa");
+		WrappingSimonDataSource dataSource = new WrappingSimonDataSource();
+		dataSource.setDataSource(realDataSource);
+		dataSource.setPrefix("test.leak");
+		ConnectionPoolMonitor monitor = ConnectionPoolMonitor.forPrefix("test.leak");
+
+		monitor.startLeakDetection(1, 1, TimeUnit.HOURS);
+		try {
+			Connection connection = dataSource.getConnection();
+			Connection shortLease = dataSource.getConnection();
+			shortLease.close();
+			Thread.sleep(10);
+
+			List<ConnectionPoolMonitor.Lease> leaks = monitor.checkLeaks();
+			assertEquals(leaks.size(), 1);
+			assertEquals(leaks.get(0).getThreadName(), Thread.currentThread().getName());
+			assertTrue(leaks.get(0).getDuration() >= 10);
+			assertEquals(leaks.get(0).getAcquiringStack()[0].getClassName(), ConnectionPoolMonitor.Lease.class.getName());
+			// leak is reported only once
+			assertEquals(monitor.checkLeaks().size(), 1);
+			assertEquals(SimonManager.getCounter("test.leak.pool.leak").getCounter(), 1);
+			assertEquals(SimonManager.getCounter("test.leak.pool.leases").getCounter(), 1);
+			assertEquals(monitor.getMaxLeases(), 2);
+
+			connection.close();
+			assertTrue(monitor.checkLeaks().isEmpty());
+		} finally {
+			monitor.stopLeakDetection();
+		}
+		assertEquals(monitor.getLeakThreshold(), 0);
+		assertEquals(SimonManager.getStopwatch("test.leak.pool.lease").getCounter(), 2);
+	}
+
+	@Test
+	public void testLeakDetectionExecutorShutdown() {
+		ConnectionPoolMonitor first = ConnectionPoolMonitor.forPrefix("test.leak1");
+		ConnectionPoolMonitor second = ConnectionPoolMonitor.forPrefix("test.leak2");
+		first.startLeakDetection(1000, 1, TimeUnit.HOURS);
+		second.startLeakDetection(1000, 1, TimeUnit.HOURS);
+		first.stopLeakDetection();
+		assertTrue(ConnectionPoolMonitor.isLeakDetectionExecutorRunning());
+		second.stopLeakDetection();
+		// stopping again does not affect the count of running leak detections
+		second.stopLeakDetection();
+		assertFalse(ConnectionPoolMonitor.isLeakDetectionExecutorRunning());
+
+		first.startLeakDetection(1000, 1, TimeUnit.HOURS);
+		assertTrue(ConnectionPoolMonitor.isLeakDetectionExecutorRunning());
+		first.stopLeakDetection();
+		assertFalse(ConnectionPoolMonitor.isLeakDetectionExecutorRunning());
+	}
+
+	@Test
+	public void testLeaseEndsWhenCloseFails() throws SQLException {
+		Connection realConnection = mock(Connection.class);
+		doThrow(new SQLException("close failed")).when(realConnection).close();
+		ConnectionPoolMonitor monitor = ConnectionPoolMonitor.forPrefix("test.failedclose");
+
+		Connection connection = new SimonConnection(realConnection, "test.failedclose", monitor.lease(System.nanoTime(), null));
+		assertEquals(monitor.getLeases(), 1);
+		try {
+			connection.close();
+			fail();
+		} catch (SQLException e) {
+			// expected
+		}
+		assertEquals(monitor.getLeases(), 0);
+		assertEquals(SimonManager.getStopwatch("test.failedclose.pool.lease").getCounter(), 1);
+	}
+}
@@ -1,24 +1,40 @@
 package org.javasimon.spring;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.javasimon.Manager;
 import org.javasimon.SimonManager;
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
 import org.javasimon.source.StopwatchSource;
+import org.javasimon.utils.ManagerCache;
+import org.springframework.aop.TargetClassAware;
+import org.springframework.aop.support.AopUtils;
 
 /**
  * Basic method interceptor that measures the duration of the intercepted call with a Stopwatch.
  * Class can be overridden in case more sophisticated measuring needs to be provided - this all should
  * happen in {@link #processInvoke(org.aopalliance.intercept.MethodInvocation, org.javasimon.Split)} method.
+ * <p/>
+ * Stopwatch source is consulted only for the first invocation of the method on the target class - the result
+ * (whether the method is monitored and its Stopwatch) is kept as a monitoring plan of the method, so following
+ * invocations do not resolve annotations or Simon names again. Plans are kept per method and class of the invoked
+ * object, {@link AopUtils#getTargetClass(Object)} is called only for objects that are {@link TargetClassAware}.
+ * Plans are dropped when the manager is cleared or any Simon is destroyed, see {@link ManagerCache}.
+ * Invocations of methods that are not monitored or whose Stopwatch is disabled get {@link Split#DISABLED}.
  *
  * @author Erik van Oosten
  */
 public class BasicMonitoringInterceptor implements MethodInterceptor, Serializable {
 	private final StopwatchSource<MethodInvocation> stopwatchSource;
 
+	/** Monitoring plans per method, created with the first invocation. */
+	private transient volatile ManagerCache<Method, MethodPlan> methodPlans;
+
 	/**
 	 * Constructor with specified {@link org.javasimon.source.MonitorSource}.
 	 *
@@ -46,7 +62,8 @@ public class BasicMonitoringInterceptor implements MethodInterceptor, Serializab
 	 * @throws Throwable anything thrown by the method
 	 */
 	public final Object invoke(MethodInvocation invocation) throws Throwable {
-		final Split split = stopwatchSource.start(invocation);
+		Stopwatch stopwatch = getMethodPlan(invocation).stopwatch;
+		final Split split = stopwatch != null && stopwatch.isEnabled() ? stopwatch.start() : Split.DISABLED;
 		try {
 			return processInvoke(invocation, split);
 		} finally {
@@ -66,4 +83,64 @@ public class BasicMonitoringInterceptor implements MethodInterceptor, Serializab
 	protected Object processInvoke(MethodInvocation invocation, @SuppressWarnings("UnusedParameters") Split split) throws Throwable {
 		return invocation.proceed();
 	}
+
+	private MethodPlan getMethodPlan(MethodInvocation invocation) {
+		ManagerCache<Method, MethodPlan> methodPlans = this.methodPlans;
+		if (methodPlans == null) {
+			// created lazily, the cache is not serialized
+			methodPlans = new ManagerCache<>(stopwatchSource.getManager());
+			this.methodPlans = methodPlans;
+		}
+		ConcurrentMap<Method, MethodPlan> plans = methodPlans.map();
+
+		Method method = invocation.getMethod();
+		Class<?> targetClass = targetClass(invocation.getThis());
+		Stopwatch stopwatch = null;
+		boolean resolved = false;
+		while (true) {
+			MethodPlan first = plans.get(method);
+			for (MethodPlan plan = first; plan != null; plan = plan.next) {
+				if (plan.targetClass == targetClass) {
+					return plan;
+				}
+			}
+
+			if (!resolved) {
+				stopwatch = stopwatchSource.isMonitored(invocation) ? stopwatchSource.getMonitor(invocation) : null;
+				resolved = true;
+			}
+			// plan for another class may have been added concurrently, chain is replaced atomically
+			MethodPlan plan = new MethodPlan(targetClass, stopwatch, first);
+			if (first == null ? plans.putIfAbsent(method, plan) == null : plans.replace(method, first, plan)) {
+				return plan;
+			}
+		}
+	}
+
+	/**
+	 * Returns class identifying the plan of the invoked object - its own class unless the object knows
+	 * its target class, which may differ per instance.
+	 */
+	private static Class<?> targetClass(Object target) {
+		if (target == null) {
+			return null;
+		}
+		return target instanceof TargetClassAware ? AopUtils.getTargetClass(target) : target.getClass();
+	}
+
+	/**
+	 * Monitoring plan of the method for one target class, plans of the same method for other target classes
+	 * (e.g. inherited method) are chained.
+	 */
+	private static final class MethodPlan {
+		private final Class<?> targetClass;
+		private final Stopwatch stopwatch;
+		private final MethodPlan next;
+
+		MethodPlan(Class<?> targetClass, Stopwatch stopwatch, MethodPlan next) {
+			this.targetClass = targetClass;
+			this.stopwatch = stopwatch;
+			this.next = next;
+		}
+	}
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package org.javasimon.spring;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.aopalliance.intercept.MethodInvocation;
 import org.javasimon.Manager;
 import org.javasimon.SimonManager;
@@ -20,6 +23,9 @@ public class MonitoringInterceptor extends BasicMonitoringInterceptor {
 
 	private boolean tagByExceptionType;
 
+	/** Tags (simple names) per exception class, used when {@link #tagByExceptionType} is set. */
+	private transient volatile ConcurrentMap<Class<?>, String> exceptionTags;
+
 	/**
 	 * Constructor with specified {@link MonitorSource}.
 	 *
@@ -60,8 +66,24 @@ public class MonitoringInterceptor extends BasicMonitoringInterceptor {
 		try {
 			return invocation.proceed();
 		} catch (Throwable t) {
-			split.stop(tagByExceptionType ? t.getClass().getSimpleName() : EXCEPTION_TAG);
+			if (split.isRunning()) {
+				split.stop(tagByExceptionType ? getExceptionTag(t.getClass()) : EXCEPTION_TAG);
+			}
 			throw t;
 		}
 	}
+
+	private String getExceptionTag(Class<?> exceptionClass) {
+		ConcurrentMap<Class<?>, String> exceptionTags = this.exceptionTags;
+		if (exceptionTags == null) {
+			exceptionTags = new ConcurrentHashMap<>();
+			this.exceptionTags = exceptionTags;
+		}
+		String tag = exceptionTags.get(exceptionClass);
+		if (tag == null) {
+			tag = exceptionClass.getSimpleName();
+			exceptionTags.put(exceptionClass, tag);
+		}
+		return tag;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package org.javasimon.spring;
+
+import javax.sql.DataSource;
+
+import org.javasimon.jdbc4.SimonConnectionConfiguration;
+import org.javasimon.jdbcx4.WrappingSimonDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Bean post processor wrapping all {@link DataSource} beans into {@link WrappingSimonDataSource}, so that
+ * connections, statements and connection pool leases of the data sources are monitored without changing
+ * the data source definitions. Data sources that are already wrapped are left alone. Spring configuration:
+ * <pre>{@code
+ * <bean class="org.javasimon.spring.SimonDataSourceBeanPostProcessor">
+ *     <property name="prefix" value="org.javasimon.jdbc"/>
+ * </bean>}</pre>
+ * Wrapped bean is exposed only as {@link DataSource}, beans injecting data source by its implementation type
+ * must use {@link DataSource#unwrap(Class)} instead. Requires {@code javasimon-jdbc41} on the classpath.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class SimonDataSourceBeanPostProcessor implements BeanPostProcessor {
+
+	private String prefix = SimonConnectionConfiguration.DEFAULT_PREFIX;
+
+	/**
+	 * Returns Simon prefix of the wrapped data sources.
+	 *
+	 * @return Simon prefix
+	 */
+	public String getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * Sets Simon prefix of the wrapped data sources, {@value SimonConnectionConfiguration#DEFAULT_PREFIX} by default.
+	 *
+	 * @param prefix Simon prefix
+	 */
+	public void setPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource && !(bean instanceof WrappingSimonDataSource)) {
+			WrappingSimonDataSource dataSource = new WrappingSimonDataSource();
+			dataSource.setDataSource((DataSource) bean);
+			dataSource.setPrefix(prefix);
+			return dataSource;
+		}
+		return bean;
+	}
+}
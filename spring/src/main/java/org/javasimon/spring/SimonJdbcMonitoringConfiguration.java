@@ -0,0 +1,21 @@
+package org.javasimon.spring;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration wrapping {@code DataSource} beans into {@link org.javasimon.jdbcx4.WrappingSimonDataSource},
+ * imported by {@link SimonMonitoringConfiguration} when {@code javasimon-jdbc41} is on the classpath.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+@Configuration
+public class SimonJdbcMonitoringConfiguration {
+
+	/** Bean post processor is static, so it does not instantiate this configuration too early. */
+	@Bean
+	public static SimonDataSourceBeanPostProcessor simonDataSourceBeanPostProcessor() {
+		return new SimonDataSourceBeanPostProcessor();
+	}
+}
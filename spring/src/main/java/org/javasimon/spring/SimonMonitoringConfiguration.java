@@ -0,0 +1,126 @@
+package org.javasimon.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.springframework.aop.config.AopConfigUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Java configuration enabling Simon monitoring in the Spring application context:
+ * <pre>{@code
+ * @Configuration
+ * @Import(SimonMonitoringConfiguration.class)
+ * public class AppConfig {
+ *     ...
+ * }}</pre>
+ * Configuration registers:
+ * <ul>
+ * <li>{@link MonitoringInterceptor} applied to beans annotated with {@link org.javasimon.aop.Monitored}
+ * ({@link MonitoredMeasuringPointcut}) together with the infrastructure auto-proxy creator - the same one used
+ * by Spring transaction management, so it does not proxy beans twice;</li>
+ * <li>{@link SimonDataSourceBeanPostProcessor} wrapping all {@code DataSource} beans, if {@code javasimon-jdbc41}
+ * is on the classpath ({@link SimonJdbcMonitoringConfiguration}) - JDBC monitors always use the default manager;</li>
+ * <li>{@link org.javasimon.spring.webmvc.MonitoringHandlerInterceptor}, if Spring MVC is on the classpath
+ * ({@link org.javasimon.spring.webmvc.SimonWebMvcConfiguration}) - MVC configuration is picked up
+ * by {@code @EnableWebMvc};</li>
+ * <li>{@link org.javasimon.spring.webmvc.SimonMetricsEndpoint} only if Spring MVC is on the classpath and
+ * the property {@code javasimon.metrics.endpoint.enabled} is {@code true}
+ * ({@link org.javasimon.spring.webmvc.SimonMetricsEndpointConfiguration}).</li>
+ * </ul>
+ * Monitors are created in the {@link Manager} bean of the context, if there is one (e.g. from
+ * {@link ManagerFactoryBean}), otherwise in the default {@link SimonManager#manager()}.
+ * Do not combine this configuration with other advisor auto-proxy creators (like
+ * {@code DefaultAdvisorAutoProxyCreator}) because they would apply the monitoring advisor too.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+@Configuration
+@Import({SimonMonitoringConfiguration.AutoProxyRegistrar.class, SimonMonitoringConfiguration.OptionalConfigurationSelector.class})
+public class SimonMonitoringConfiguration {
+
+	private static final String JDBC_CLASS = "org.javasimon.jdbcx4.WrappingSimonDataSource";
+
+	private static final String WEBMVC_CLASS = "org.springframework.web.servlet.config.annotation.WebMvcConfigurer";
+
+	private static final String METRICS_ENDPOINT_PROPERTY = "javasimon.metrics.endpoint.enabled";
+
+	@Autowired(required = false)
+	private Manager manager;
+
+	/**
+	 * Returns Simon manager used for the monitors.
+	 *
+	 * @return manager bean of the context or the default manager
+	 */
+	protected Manager getManager() {
+		return manager != null ? manager : SimonManager.manager();
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public MonitoringInterceptor simonMonitoringInterceptor() {
+		return new MonitoringInterceptor(getManager());
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public DefaultPointcutAdvisor simonMonitoringAdvisor() {
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(simonMonitoringInterceptor());
+		advisor.setPointcut(new MonitoredMeasuringPointcut());
+		return advisor;
+	}
+
+	/** Registers the infrastructure advisor auto-proxy creator (unless there is a more capable one). */
+	static class AutoProxyRegistrar implements ImportBeanDefinitionRegistrar {
+		@Override
+		public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
+			AopConfigUtils.registerAutoProxyCreatorIfNecessary(registry);
+		}
+	}
+
+	/**
+	 * Imports JDBC and MVC configurations when their libraries are on the classpath, metrics endpoint only
+	 * when it is enabled.
+	 */
+	static class OptionalConfigurationSelector implements ImportSelector, EnvironmentAware {
+		private Environment environment;
+
+		@Override
+		public void setEnvironment(Environment environment) {
+			this.environment = environment;
+		}
+
+		@Override
+		public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+			ClassLoader classLoader = SimonMonitoringConfiguration.class.getClassLoader();
+			List<String> imports = new ArrayList<>();
+			if (ClassUtils.isPresent(JDBC_CLASS, classLoader)) {
+				imports.add("org.javasimon.spring.SimonJdbcMonitoringConfiguration");
+			}
+			if (ClassUtils.isPresent(WEBMVC_CLASS, classLoader)) {
+				imports.add("org.javasimon.spring.webmvc.SimonWebMvcConfiguration");
+				if (environment != null && "true".equalsIgnoreCase(environment.getProperty(METRICS_ENDPOINT_PROPERTY))) {
+					imports.add("org.javasimon.spring.webmvc.SimonMetricsEndpointConfiguration");
+				}
+			}
+			return imports.toArray(new String[imports.size()]);
+		}
+	}
+}
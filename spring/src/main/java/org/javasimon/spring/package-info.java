@@ -22,5 +22,8 @@ classpath:context/data-access-layer.xml
  * <p>Step -2- Annotate all classes and/or methods you want to monitor (see {@link org.javasimon.aop.Monitored} for
  * more details). As step 1 configured annotation detection only for spring beans, make sure these classes are
  * instantiated through Spring (i.e. declare them as a bean in a Spring configuration file).
+ *
+ * <p>With Java configuration, import {@link org.javasimon.spring.SimonMonitoringConfiguration} instead of step 1,
+ * it also monitors {@code DataSource} beans and Spring MVC handlers.
  */
 package org.javasimon.spring;
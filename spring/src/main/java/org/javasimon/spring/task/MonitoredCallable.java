@@ -0,0 +1,59 @@
+package org.javasimon.spring.task;
+
+import java.util.concurrent.Callable;
+
+import org.javasimon.Split;
+import org.javasimon.callback.ContextSnapshot;
+
+/**
+ * Callable measuring the wait and the execution of the task. Execution runs with the context snapshot
+ * of the submitting thread attached.
+ *
+ * @param <V> result type of the task
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class MonitoredCallable<V> implements Callable<V> {
+
+	private final Callable<V> task;
+
+	private final TaskMonitors.Monitors monitors;
+
+	private final ContextSnapshot snapshot;
+
+	private final long submitted;
+
+	MonitoredCallable(Callable<V> task, TaskMonitors.Monitors monitors, ContextSnapshot snapshot, long submitted) {
+		this.task = task;
+		this.monitors = monitors;
+		this.snapshot = snapshot;
+		this.submitted = submitted;
+	}
+
+	@Override
+	public V call() throws Exception {
+		Object[] previous = snapshot.attach();
+		try {
+			Split split = start(monitors, submitted);
+			try {
+				return task.call();
+			} finally {
+				split.stop();
+			}
+		} finally {
+			snapshot.detach(previous);
+		}
+	}
+
+	/**
+	 * Adds the wait split (if measured) and starts the execution split.
+	 *
+	 * @return execution split
+	 */
+	static Split start(TaskMonitors.Monitors monitors, long submitted) {
+		if (monitors.wait != null) {
+			monitors.wait.addSplit(Split.create(Math.max(0, System.nanoTime() - submitted)));
+		}
+		return monitors.exec.start();
+	}
+}
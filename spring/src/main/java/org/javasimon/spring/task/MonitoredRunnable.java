@@ -0,0 +1,44 @@
+package org.javasimon.spring.task;
+
+import org.javasimon.Split;
+import org.javasimon.callback.ContextSnapshot;
+
+/**
+ * Runnable measuring the wait (if the wait Stopwatch is set) and the execution of the task. Execution runs
+ * with the context snapshot of the submitting thread attached.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class MonitoredRunnable implements Runnable {
+
+	private final Runnable task;
+
+	private final TaskMonitors.Monitors monitors;
+
+	private final ContextSnapshot snapshot;
+
+	private final long submitted;
+
+	MonitoredRunnable(Runnable task, TaskMonitors.Monitors monitors, ContextSnapshot snapshot, long submitted) {
+		this.task = task;
+		this.monitors = monitors;
+		this.snapshot = snapshot;
+		this.submitted = submitted;
+	}
+
+	@Override
+	public void run() {
+		Object[] previous = snapshot.attach();
+		try {
+			Split split = MonitoredCallable.start(monitors, submitted);
+			try {
+				task.run();
+			} finally {
+				split.stop();
+			}
+		} finally {
+			snapshot.detach(previous);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package org.javasimon.spring.task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.javasimon.callback.ContextSnapshot;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Task executor decorator measuring tasks executed by the wrapped executor. For each task type (short class name
+ * of the task) these Simons are maintained:
+ * <ul>
+ * <li>{@code <name>.<type>.wait} - Stopwatch with the time between submission and start of the task;</li>
+ * <li>{@code <name>.<type>.exec} - Stopwatch with the execution of the task;</li>
+ * <li>{@code <name>.<type>.rejected} - Counter of tasks rejected by the executor.</li>
+ * </ul>
+ * States of {@link org.javasimon.callback.ContextPropagatingCallback}s of the submitting thread are captured
+ * with the task ({@link ContextSnapshot}) and attached to the executing thread - so the tasks become part of
+ * the call tree of {@link org.javasimon.callback.calltree.CallTreeCallback} and the splits of the tasks are reported
+ * with the HTTP request measured by {@code SimonServletFilter}.
+ * <p/>
+ * Spring configuration (executor used also for {@code @Async} methods):
+ * <pre>{@code
+ * <task:annotation-driven executor="monitoredExecutor"/>
+ * <task:executor id="executor" pool-size="5"/>
+ * <bean id="monitoredExecutor" class="org.javasimon.spring.task.MonitoringTaskExecutor">
+ *     <constructor-arg ref="executor"/>
+ *     <constructor-arg value="org.javasimon.executor"/>
+ * </bean>}</pre>
+ * All {@code @Async} methods are one task type, because Spring wraps them in its own task.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class MonitoringTaskExecutor implements AsyncTaskExecutor {
+
+	private final Executor executor;
+
+	private final TaskMonitors monitors;
+
+	/**
+	 * Constructor with the Simon manager.
+	 *
+	 * @param executor wrapped executor
+	 * @param name name of the executor used as a prefix of Simon names
+	 * @param manager Simon manager
+	 */
+	public MonitoringTaskExecutor(Executor executor, String name, Manager manager) {
+		this.executor = executor;
+		this.monitors = new TaskMonitors(manager, name, true);
+	}
+
+	/**
+	 * Constructor with the default manager.
+	 *
+	 * @param executor wrapped executor
+	 * @param name name of the executor used as a prefix of Simon names
+	 */
+	public MonitoringTaskExecutor(Executor executor, String name) {
+		this(executor, name, SimonManager.manager());
+	}
+
+	/**
+	 * Returns wrapped executor.
+	 *
+	 * @return wrapped executor
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			executor.execute(wrap(task, taskMonitors));
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public void execute(Runnable task, long startTimeout) {
+		if (!(executor instanceof AsyncTaskExecutor)) {
+			execute(task);
+			return;
+		}
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			((AsyncTaskExecutor) executor).execute(wrap(task, taskMonitors), startTimeout);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			Runnable monitoredTask = wrap(task, taskMonitors);
+			if (executor instanceof AsyncTaskExecutor) {
+				return ((AsyncTaskExecutor) executor).submit(monitoredTask);
+			}
+			FutureTask<Object> future = new FutureTask<>(monitoredTask, null);
+			executor.execute(future);
+			return future;
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			Callable<T> monitoredTask = new MonitoredCallable<>(task, taskMonitors,
+				ContextSnapshot.capture(monitors.getManager()), System.nanoTime());
+			if (executor instanceof AsyncTaskExecutor) {
+				return ((AsyncTaskExecutor) executor).submit(monitoredTask);
+			}
+			FutureTask<T> future = new FutureTask<>(monitoredTask);
+			executor.execute(future);
+			return future;
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	private Runnable wrap(Runnable task, TaskMonitors.Monitors taskMonitors) {
+		return new MonitoredRunnable(task, taskMonitors, ContextSnapshot.capture(monitors.getManager()), System.nanoTime());
+	}
+}
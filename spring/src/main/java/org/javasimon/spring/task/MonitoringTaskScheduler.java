@@ -0,0 +1,135 @@
+package org.javasimon.spring.task;
+
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.javasimon.callback.ContextSnapshot;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+
+/**
+ * Task scheduler decorator measuring executions of tasks scheduled by the wrapped scheduler. For each task type
+ * ({@code @Scheduled} method or short class name of the task) Stopwatch {@code <name>.<type>.exec} measures
+ * executions and Counter {@code <name>.<type>.rejected} counts tasks rejected by the scheduler. There is no wait
+ * Stopwatch and no context propagation, scheduled tasks are not executed on behalf of the thread scheduling them.
+ * <p/>
+ * Scheduler for {@code @Scheduled} methods is configured with
+ * {@link org.springframework.scheduling.annotation.SchedulingConfigurer}:
+ * <pre>{@code
+ * public void configureTasks(ScheduledTaskRegistrar registrar) {
+ *     registrar.setTaskScheduler(new MonitoringTaskScheduler(taskScheduler(), "org.javasimon.scheduler"));
+ * }}</pre>
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+public class MonitoringTaskScheduler implements TaskScheduler {
+
+	private final TaskScheduler scheduler;
+
+	private final TaskMonitors monitors;
+
+	/**
+	 * Constructor with the Simon manager.
+	 *
+	 * @param scheduler wrapped scheduler
+	 * @param name name of the scheduler used as a prefix of Simon names
+	 * @param manager Simon manager
+	 */
+	public MonitoringTaskScheduler(TaskScheduler scheduler, String name, Manager manager) {
+		this.scheduler = scheduler;
+		this.monitors = new TaskMonitors(manager, name, false);
+	}
+
+	/**
+	 * Constructor with the default manager.
+	 *
+	 * @param scheduler wrapped scheduler
+	 * @param name name of the scheduler used as a prefix of Simon names
+	 */
+	public MonitoringTaskScheduler(TaskScheduler scheduler, String name) {
+		this(scheduler, name, SimonManager.manager());
+	}
+
+	/**
+	 * Returns wrapped scheduler.
+	 *
+	 * @return wrapped scheduler
+	 */
+	public TaskScheduler getScheduler() {
+		return scheduler;
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			return scheduler.schedule(wrap(task, taskMonitors), trigger);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			return scheduler.schedule(wrap(task, taskMonitors), startTime);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			return scheduler.scheduleAtFixedRate(wrap(task, taskMonitors), startTime, period);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			return scheduler.scheduleAtFixedRate(wrap(task, taskMonitors), period);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			return scheduler.scheduleWithFixedDelay(wrap(task, taskMonitors), startTime, delay);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		TaskMonitors.Monitors taskMonitors = monitors.get(task);
+		try {
+			return scheduler.scheduleWithFixedDelay(wrap(task, taskMonitors), delay);
+		} catch (RejectedExecutionException e) {
+			taskMonitors.rejected.increase();
+			throw e;
+		}
+	}
+
+	private Runnable wrap(Runnable task, TaskMonitors.Monitors taskMonitors) {
+		return new MonitoredRunnable(task, taskMonitors, ContextSnapshot.EMPTY, 0);
+	}
+}
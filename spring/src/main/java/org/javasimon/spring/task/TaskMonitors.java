@@ -0,0 +1,114 @@
+package org.javasimon.spring.task;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.javasimon.Counter;
+import org.javasimon.Manager;
+import org.javasimon.Stopwatch;
+import org.javasimon.utils.ManagerCache;
+import org.javasimon.utils.SimonUtils;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Simons of tasks of one executor or scheduler per task type. Task type is the short class name of the task,
+ * for {@code @Scheduled} methods it is short name of the declaring class and the method name.
+ * Simons are created with the first task of the type and cached, cache is dropped when the manager is cleared
+ * or any Simon is destroyed, see {@link ManagerCache}.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+final class TaskMonitors {
+
+	/** Suffix of the Stopwatch measuring time between submission and start of the task. */
+	static final String WAIT = "wait";
+
+	/** Suffix of the Stopwatch measuring execution of the task. */
+	static final String EXEC = "exec";
+
+	/** Suffix of the Counter of rejected tasks. */
+	static final String REJECTED = "rejected";
+
+	private static final String INVALID_NAME_CHARS = "[^" + SimonUtils.NAME_PATTERN_CHAR_CLASS_CONTENT + "]";
+
+	private final String name;
+
+	private final boolean waitMeasured;
+
+	private final ManagerCache<Object, Monitors> cache;
+
+	/**
+	 * Creates monitors of the executor.
+	 *
+	 * @param manager Simon manager
+	 * @param name name of the executor used as a prefix of the Simon names
+	 * @param waitMeasured true if wait Stopwatch should be created
+	 */
+	TaskMonitors(Manager manager, String name, boolean waitMeasured) {
+		this.cache = new ManagerCache<>(manager);
+		this.name = name;
+		this.waitMeasured = waitMeasured;
+	}
+
+	Manager getManager() {
+		return cache.getManager();
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns Simons of the task type.
+	 *
+	 * @param task submitted task
+	 * @return Simons of the task type
+	 */
+	Monitors get(Object task) {
+		ConcurrentMap<Object, Monitors> monitorsMap = cache.map();
+		Object key = task instanceof ScheduledMethodRunnable ? ((ScheduledMethodRunnable) task).getMethod() : task.getClass();
+		Monitors monitors = monitorsMap.get(key);
+		if (monitors == null) {
+			Manager manager = cache.getManager();
+			String prefix = name + Manager.HIERARCHY_DELIMITER + taskType(task) + Manager.HIERARCHY_DELIMITER;
+			monitors = new Monitors(
+				waitMeasured ? manager.getStopwatch(prefix + WAIT) : null,
+				manager.getStopwatch(prefix + EXEC),
+				manager.getCounter(prefix + REJECTED));
+			monitorsMap.putIfAbsent(key, monitors);
+		}
+		return monitors;
+	}
+
+	/**
+	 * Returns task type used in Simon names.
+	 *
+	 * @param task submitted task
+	 * @return task type
+	 */
+	static String taskType(Object task) {
+		String type;
+		if (task instanceof ScheduledMethodRunnable) {
+			ScheduledMethodRunnable scheduledTask = (ScheduledMethodRunnable) task;
+			type = ClassUtils.getShortName(scheduledTask.getMethod().getDeclaringClass())
+				+ Manager.HIERARCHY_DELIMITER + scheduledTask.getMethod().getName();
+		} else {
+			type = ClassUtils.getShortName(task.getClass());
+		}
+		return type.replaceAll(INVALID_NAME_CHARS, "_");
+	}
+
+	/** Simons of one task type. */
+	static final class Monitors {
+		final Stopwatch wait;
+		final Stopwatch exec;
+		final Counter rejected;
+
+		Monitors(Stopwatch wait, Stopwatch exec, Counter rejected) {
+			this.wait = wait;
+			this.exec = exec;
+			this.rejected = rejected;
+		}
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Decorators of Spring {@link org.springframework.core.task.TaskExecutor}s and
+ * {@link org.springframework.scheduling.TaskScheduler}s measuring waiting, execution and rejections of tasks,
+ * including {@code @Async} and {@code @Scheduled} methods.
+ */
+package org.javasimon.spring.task;
@@ -7,5 +7,7 @@ package org.javasimon.spring.webmvc;
  */
 public enum HandlerStep {
 	CONTROLLER,
-	VIEW
+	VIEW,
+	/** Asynchronous processing of the request ({@code Callable}, {@code DeferredResult}), since 4.2. */
+	ASYNC
 }
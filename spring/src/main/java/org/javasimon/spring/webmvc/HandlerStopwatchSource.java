@@ -26,6 +26,11 @@ public class HandlerStopwatchSource extends AbstractStopwatchSource<HandlerLocat
 	 */
 	private static final String VIEW_SUFFIX = "view";
 
+	/**
+	 * Suffix used for Simon names of asynchronous processing.
+	 */
+	private static final String ASYNC_SUFFIX = "async";
+
 	public HandlerStopwatchSource(Manager manager) {
 		super(manager);
 	}
@@ -50,6 +55,9 @@ public class HandlerStopwatchSource extends AbstractStopwatchSource<HandlerLocat
 			case VIEW:
 				stringBuilder.append(VIEW_SUFFIX);
 				break;
+			case ASYNC:
+				stringBuilder.append(ASYNC_SUFFIX);
+				break;
 		}
 		return stringBuilder.toString();
 	}
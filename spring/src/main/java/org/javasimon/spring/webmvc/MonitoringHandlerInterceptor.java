@@ -1,14 +1,18 @@
 package org.javasimon.spring.webmvc;
 
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.javasimon.Manager;
 import org.javasimon.SimonManager;
 import org.javasimon.Split;
+import org.javasimon.Stopwatch;
 import org.javasimon.source.StopwatchSource;
-
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.javasimon.utils.ManagerCache;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
@@ -19,21 +23,50 @@ import org.springframework.web.servlet.ModelAndView;
  *    <bean class="org.javasimon.spring.webmvc.MonitoringHandlerInterceptor"/>
  * </mvc:interceptors>
  * }</pre>
+ * Running split is kept in the request attribute {@link #SPLIT_ATTRIBUTE}, so the interceptor works also for
+ * asynchronous requests ({@code Callable}, {@code DeferredResult}) where the request is processed by more threads.
+ * Time between the start of the asynchronous processing and the async dispatch is measured separately
+ * by the Stopwatch of {@link HandlerStep#ASYNC} step, view rendering of the async dispatch is measured
+ * as usual.
+ * <p/>
+ * With the default {@link HandlerStopwatchSource} Stopwatch of each step is resolved with the first request
+ * of the handler that reaches the step and cached per handler (handler method or handler class), cache is dropped
+ * when the manager is cleared or any Simon is destroyed, see {@link ManagerCache}. Custom stopwatch sources may
+ * decide per request, hence they are asked for every request, unless caching is enabled
+ * by {@link #setStopwatchesCached(boolean)}.
  *
  * @author gquintana
  * @since Spring 3.1
  */
-public class MonitoringHandlerInterceptor implements HandlerInterceptor {
+public class MonitoringHandlerInterceptor implements AsyncHandlerInterceptor {
+	/**
+	 * Name of the request attribute holding the running split of the controller or view step.
+	 */
+	public static final String SPLIT_ATTRIBUTE = MonitoringHandlerInterceptor.class.getName() + ".split";
+
 	/**
-	 * Current thread running split, if any.
+	 * Name of the request attribute holding the running split of the asynchronous processing.
 	 */
-	private final ThreadLocal<HandlerLocation> threadLocation = new ThreadLocal<>();
+	public static final String ASYNC_SPLIT_ATTRIBUTE = MonitoringHandlerInterceptor.class.getName() + ".asyncSplit";
+
+	/** Cached value for steps that are not monitored. */
+	private static final Object NOT_MONITORED = new Object();
 
 	/**
 	 * Stopwatch source.
 	 */
 	private StopwatchSource<HandlerLocation> stopwatchSource;
 
+	/**
+	 * Stopwatches per handler, created with the first request of the handler.
+	 */
+	private volatile ManagerCache<Object, HandlerStopwatches> stopwatchesCache;
+
+	/**
+	 * True if Stopwatches are cached per handler.
+	 */
+	private boolean stopwatchesCached;
+
 	/**
 	 * Constructor with stopwatch source.
 	 *
@@ -41,6 +74,8 @@ public class MonitoringHandlerInterceptor implements HandlerInterceptor {
 	 */
 	public MonitoringHandlerInterceptor(StopwatchSource<HandlerLocation> stopwatchSource) {
 		this.stopwatchSource = stopwatchSource;
+		// subclasses of the default source may resolve names per request
+		stopwatchesCached = stopwatchSource.getClass() == HandlerStopwatchSource.class;
 	}
 
 	/**
@@ -49,52 +84,71 @@ public class MonitoringHandlerInterceptor implements HandlerInterceptor {
 	 * @param manager Manager manager
 	 */
 	public MonitoringHandlerInterceptor(Manager manager) {
-		stopwatchSource = new HandlerStopwatchSource(manager);
+		this(new HandlerStopwatchSource(manager));
 	}
 
 	/**
 	 * Default constructor: default stopwatch source, default manager.
 	 */
 	public MonitoringHandlerInterceptor() {
-		stopwatchSource = new HandlerStopwatchSource(SimonManager.manager());
+		this(new HandlerStopwatchSource(SimonManager.manager()));
 	}
 
 	/**
-	 * Start stopwatch for given name and thread.
+	 * Returns true if Stopwatches are cached per handler - by default only with {@link HandlerStopwatchSource}.
+	 *
+	 * @return true if Stopwatches are cached
+	 * @since 4.2
+	 */
+	public boolean isStopwatchesCached() {
+		return stopwatchesCached;
+	}
+
+	/**
+	 * Enables caching of Stopwatches per handler (handler method or handler class). Should be enabled only
+	 * if the stopwatch source decides and names Stopwatches by the handler and the step, not by the request.
+	 *
+	 * @param stopwatchesCached true to cache Stopwatches
+	 * @since 4.2
+	 */
+	public void setStopwatchesCached(boolean stopwatchesCached) {
+		this.stopwatchesCached = stopwatchesCached;
+	}
+
+	/**
+	 * Start stopwatch of the step for the handler and stores the split in the request.
 	 *
 	 * @return Running split
 	 */
-	protected final Split startStopwatch(HandlerLocation location) {
-		Split split = stopwatchSource.start(location);
-		location.setSplit(split);
+	protected final Split startStopwatch(HttpServletRequest request, Object handler, HandlerStep step) {
+		Stopwatch stopwatch = getStopwatch(request, handler, step);
+		Split split = stopwatch != null && stopwatch.isEnabled() ? stopwatch.start() : Split.DISABLED;
+		request.setAttribute(step == HandlerStep.ASYNC ? ASYNC_SPLIT_ATTRIBUTE : SPLIT_ATTRIBUTE, split);
 		return split;
 	}
 
 	/**
-	 * Stop current thread stopwatch (if any).
+	 * Stop split stored in the request attribute (if any) and removes the attribute.
 	 *
-	 * @return Stopped split
+	 * @return Stopped split or {@code null}
 	 */
-	protected final Split stopStopwatch() {
-		HandlerLocation location = threadLocation.get();
-		Split split = null;
-		if (location != null) {
-			split = location.getSplit();
+	protected final Split stopStopwatch(HttpServletRequest request, String attribute) {
+		Split split = (Split) request.getAttribute(attribute);
+		if (split != null) {
 			split.stop();
-			location.setSplit(null);
+			request.removeAttribute(attribute);
 		}
 		return split;
 	}
 
 	/**
-	 * Invoked before controller.
+	 * Invoked before controller - or at the async dispatch, where the asynchronous processing split is stopped.
 	 */
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-		final HandlerLocation location = new HandlerLocation(request, handler, HandlerStep.CONTROLLER);
-		threadLocation.set(location);
-
-		// Start controller stopwatch
-		startStopwatch(location);
+		if (stopStopwatch(request, ASYNC_SPLIT_ATTRIBUTE) == null) {
+			// Start controller stopwatch
+			startStopwatch(request, handler, HandlerStep.CONTROLLER);
+		}
 		return true;
 	}
 
@@ -103,13 +157,10 @@ public class MonitoringHandlerInterceptor implements HandlerInterceptor {
 	 */
 	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
 		// Stop controller stopwatch
-		stopStopwatch();
-
-		HandlerLocation location = threadLocation.get();
-		location.setStep(HandlerStep.VIEW);
+		stopStopwatch(request, SPLIT_ATTRIBUTE);
 
 		// Start view stopwatch
-		startStopwatch(location);
+		startStopwatch(request, handler, HandlerStep.VIEW);
 	}
 
 	/**
@@ -117,9 +168,87 @@ public class MonitoringHandlerInterceptor implements HandlerInterceptor {
 	 */
 	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
 		// Stop view stopwatch
-		stopStopwatch();
+		stopStopwatch(request, SPLIT_ATTRIBUTE);
+	}
 
-		// Remove location
-		threadLocation.remove();
+	/**
+	 * Invoked instead of {@link #postHandle} when the controller started asynchronous processing.
+	 */
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		// Stop controller stopwatch
+		stopStopwatch(request, SPLIT_ATTRIBUTE);
+
+		// Start async stopwatch, stopped in preHandle of the async dispatch
+		startStopwatch(request, handler, HandlerStep.ASYNC);
+	}
+
+	private Stopwatch getStopwatch(HttpServletRequest request, Object handler, HandlerStep step) {
+		if (!stopwatchesCached) {
+			HandlerLocation location = new HandlerLocation(request, handler, step);
+			return stopwatchSource.isMonitored(location) ? stopwatchSource.getMonitor(location) : null;
+		}
+		AtomicReferenceArray<Object> stopwatches = getHandlerStopwatches(handler);
+		Object stopwatch = stopwatches.get(step.ordinal());
+		if (stopwatch == null) {
+			HandlerLocation location = new HandlerLocation(request, handler, step);
+			stopwatch = stopwatchSource.isMonitored(location) ? stopwatchSource.getMonitor(location) : NOT_MONITORED;
+			stopwatches.set(step.ordinal(), stopwatch);
+		}
+		return stopwatch != NOT_MONITORED ? (Stopwatch) stopwatch : null;
+	}
+
+	private AtomicReferenceArray<Object> getHandlerStopwatches(Object handler) {
+		ManagerCache<Object, HandlerStopwatches> cache = stopwatchesCache;
+		if (cache == null) {
+			cache = new ManagerCache<>(stopwatchSource.getManager());
+			stopwatchesCache = cache;
+		}
+		ConcurrentMap<Object, HandlerStopwatches> handlers = cache.map();
+
+		Object key;
+		Class<?> type;
+		if (handler instanceof HandlerMethod) {
+			key = ((HandlerMethod) handler).getMethod();
+			type = ((HandlerMethod) handler).getBeanType();
+		} else {
+			key = handler.getClass();
+			type = handler.getClass();
+		}
+		AtomicReferenceArray<Object> stopwatches = null;
+		while (true) {
+			HandlerStopwatches first = handlers.get(key);
+			for (HandlerStopwatches handlerStopwatches = first; handlerStopwatches != null; handlerStopwatches = handlerStopwatches.next) {
+				if (handlerStopwatches.type == type) {
+					return handlerStopwatches.stopwatches;
+				}
+			}
+
+			if (stopwatches == null) {
+				stopwatches = new AtomicReferenceArray<>(HandlerStep.values().length);
+			}
+			// handler with another bean type may have been added concurrently, chain is replaced atomically
+			HandlerStopwatches handlerStopwatches = new HandlerStopwatches(type, stopwatches, first);
+			if (first == null ? handlers.putIfAbsent(key, handlerStopwatches) == null
+				: handlers.replace(key, first, handlerStopwatches))
+			{
+				return stopwatches;
+			}
+		}
+	}
+
+	/**
+	 * Stopwatches (or {@link #NOT_MONITORED}) of one handler indexed by {@link HandlerStep} ordinal, {@code null}
+	 * for steps not resolved yet. Handlers with the same method and different bean types are chained.
+	 */
+	private static final class HandlerStopwatches {
+		private final Class<?> type;
+		private final AtomicReferenceArray<Object> stopwatches;
+		private final HandlerStopwatches next;
+
+		HandlerStopwatches(Class<?> type, AtomicReferenceArray<Object> stopwatches, HandlerStopwatches next) {
+			this.type = type;
+			this.stopwatches = stopwatches;
+			this.next = next;
+		}
 	}
 }
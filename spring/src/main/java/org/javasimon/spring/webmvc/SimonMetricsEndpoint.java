@@ -0,0 +1,134 @@
+package org.javasimon.spring.webmvc;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.servlet.http.HttpServletResponse;
+
+import org.javasimon.Counter;
+import org.javasimon.CounterSample;
+import org.javasimon.Manager;
+import org.javasimon.Simon;
+import org.javasimon.SimonFilter;
+import org.javasimon.SimonPattern;
+import org.javasimon.Stopwatch;
+import org.javasimon.StopwatchSample;
+import org.javasimon.clock.SimonClock;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Spring MVC endpoint streaming values of all Simons as one flat JSON object in the format of Spring Boot Actuator
+ * {@code /metrics} endpoint, mapped to {@value #PATH}:
+ * <pre>{@code
+ * {"org.javasimon.jdbc.sql.select.counter":12,"org.javasimon.jdbc.sql.select.total":3.25,...}}</pre>
+ * Stopwatch produces {@code counter}, {@code total}, {@code min}, {@code max}, {@code mean} (in ms)
+ * and {@code active}, Counter produces {@code counter}, {@code min} and {@code max} (once they are set). Simons can be restricted
+ * with {@code pattern} parameter (see {@link SimonPattern}).
+ * <p/>
+ * Values are taken from one {@link Simon#sample()} snapshot per Simon and written to the response right away,
+ * so the endpoint neither keeps the whole response in memory nor inspects Simons by reflection.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+@RequestMapping(SimonMetricsEndpoint.PATH)
+public class SimonMetricsEndpoint {
+
+	/** Path of the endpoint. */
+	public static final String PATH = "/simon/metrics";
+
+	private static final double NANOS_IN_MILLIS = SimonClock.NANOS_IN_MILLIS;
+
+	private final Manager manager;
+
+	/**
+	 * Constructor with the Simon manager.
+	 *
+	 * @param manager Simon manager
+	 */
+	public SimonMetricsEndpoint(Manager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Writes metrics of the Simons matching the pattern to the response.
+	 *
+	 * @param pattern Simon pattern or {@code null} for all Simons
+	 * @param response HTTP response
+	 * @throws IOException if writing to the response fails
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	public void metrics(@RequestParam(value = "pattern", required = false) String pattern, HttpServletResponse response) throws IOException {
+		response.setContentType("application/json;charset=UTF-8");
+		writeMetrics(pattern != null ? SimonPattern.create(pattern) : null, response.getWriter());
+	}
+
+	/**
+	 * Writes metrics of the Simons accepted by the filter as JSON object.
+	 *
+	 * @param filter Simon filter or {@code null} for all Simons
+	 * @param writer output writer
+	 * @throws IOException if writing fails
+	 */
+	public void writeMetrics(SimonFilter filter, Writer writer) throws IOException {
+		MetricsWriter metrics = new MetricsWriter(writer);
+		writer.write('{');
+		for (Simon simon : manager.getSimons(filter)) {
+			if (simon instanceof Stopwatch) {
+				StopwatchSample sample = ((Stopwatch) simon).sample();
+				metrics.write(sample.getName(), "counter", sample.getCounter());
+				metrics.write(sample.getName(), "total", sample.getTotal() / NANOS_IN_MILLIS);
+				if (sample.getCounter() > 0) {
+					metrics.write(sample.getName(), "min", sample.getMin() / NANOS_IN_MILLIS);
+					metrics.write(sample.getName(), "max", sample.getMax() / NANOS_IN_MILLIS);
+					metrics.write(sample.getName(), "mean", sample.getMean() / NANOS_IN_MILLIS);
+				}
+				metrics.write(sample.getName(), "active", sample.getActive());
+			} else if (simon instanceof Counter) {
+				CounterSample sample = ((Counter) simon).sample();
+				metrics.write(sample.getName(), "counter", sample.getCounter());
+				if (sample.getMin() != Long.MAX_VALUE) {
+					metrics.write(sample.getName(), "min", sample.getMin());
+				}
+				if (sample.getMax() != Long.MIN_VALUE) {
+					metrics.write(sample.getName(), "max", sample.getMax());
+				}
+			}
+		}
+		writer.write('}');
+		writer.flush();
+	}
+
+	/** Writes members of the JSON object, Simon names need no escaping. */
+	private static final class MetricsWriter {
+		private final Writer writer;
+		private boolean first = true;
+
+		MetricsWriter(Writer writer) {
+			this.writer = writer;
+		}
+
+		void write(String name, String metric, long value) throws IOException {
+			writeKey(name, metric);
+			writer.write(Long.toString(value));
+		}
+
+		void write(String name, String metric, double value) throws IOException {
+			writeKey(name, metric);
+			writer.write(Double.toString(value));
+		}
+
+		private void writeKey(String name, String metric) throws IOException {
+			if (!first) {
+				writer.write(',');
+			}
+			first = false;
+			writer.write('"');
+			writer.write(name);
+			writer.write('.');
+			writer.write(metric);
+			writer.write("\":");
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package org.javasimon.spring.webmvc;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring MVC configuration registering {@link SimonMetricsEndpoint}. Endpoint exposes values of all Simons,
+ * so it is not registered by default - it is imported by {@link org.javasimon.spring.SimonMonitoringConfiguration}
+ * only if the property {@value #ENABLED_PROPERTY} is {@code true}, or this configuration can be imported directly.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+@Configuration
+public class SimonMetricsEndpointConfiguration {
+
+	/** Property enabling the endpoint in {@link org.javasimon.spring.SimonMonitoringConfiguration}. */
+	public static final String ENABLED_PROPERTY = "javasimon.metrics.endpoint.enabled";
+
+	@Autowired(required = false)
+	private Manager manager;
+
+	@Bean
+	public SimonMetricsEndpoint simonMetricsEndpoint() {
+		return new SimonMetricsEndpoint(manager != null ? manager : SimonManager.manager());
+	}
+}
@@ -0,0 +1,45 @@
+package org.javasimon.spring.webmvc;
+
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Spring MVC configuration registering {@link MonitoringHandlerInterceptor}, imported
+ * by {@link org.javasimon.spring.SimonMonitoringConfiguration} when Spring MVC is on the classpath.
+ * {@link SimonMetricsEndpoint} is not registered by default, see {@link SimonMetricsEndpointConfiguration}.
+ * The interceptor is added by {@code @EnableWebMvc} configuration, which calls all
+ * {@link org.springframework.web.servlet.config.annotation.WebMvcConfigurer} beans.
+ *
+ * @author <a href="mailto:virgo47@gmail.com">Richard "Virgo" Richter</a>
+ * @since 4.2
+ */
+@Configuration
+public class SimonWebMvcConfiguration extends WebMvcConfigurerAdapter {
+
+	@Autowired(required = false)
+	private Manager manager;
+
+	/**
+	 * Returns Simon manager used for the monitors.
+	 *
+	 * @return manager bean of the context or the default manager
+	 */
+	protected Manager getManager() {
+		return manager != null ? manager : SimonManager.manager();
+	}
+
+	@Bean
+	public MonitoringHandlerInterceptor simonHandlerInterceptor() {
+		return new MonitoringHandlerInterceptor(getManager());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(simonHandlerInterceptor());
+	}
+}
@@ -1,5 +1,5 @@
 /**
  * {@link org.javasimon.spring.webmvc.MonitoringHandlerInterceptor} is a Spring MVC interceptor which can be used to monitor
- * time spent in Controller and View. Spring 3.1 is required for this feature.
+ * time spent in Controller and View (and asynchronous processing of the request). Spring 3.2 is required for this feature.
  */
 package org.javasimon.spring.webmvc;
\ No newline at end of file
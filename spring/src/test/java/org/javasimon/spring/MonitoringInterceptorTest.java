@@ -0,0 +1,147 @@
+package org.javasimon.spring;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.javasimon.SimonManager;
+import org.javasimon.SimonState;
+import org.javasimon.Stopwatch;
+import org.springframework.aop.framework.ProxyFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for {@link MonitoringInterceptor} and its monitoring plans.
+ */
+public class MonitoringInterceptorTest {
+
+	private static final String SERVICE_ONE_RUN = ServiceOne.class.getName() + ".run";
+	private static final String SERVICE_TWO_RUN = ServiceTwo.class.getName() + ".run";
+
+	private final MonitoringInterceptor interceptor = new MonitoringInterceptor();
+
+	@BeforeMethod
+	public void cleanup() {
+		SimonManager.clear();
+	}
+
+	@Test
+	public void testPlanPerTargetClass() {
+		MonitoredService serviceOne = proxy(new ServiceOne());
+		MonitoredService serviceTwo = proxy(new ServiceTwo());
+		serviceOne.run();
+		serviceTwo.run();
+		serviceOne.run();
+
+		assertEquals(SimonManager.getStopwatch(SERVICE_ONE_RUN).getCounter(), 2);
+		assertEquals(SimonManager.getStopwatch(SERVICE_TWO_RUN).getCounter(), 1);
+
+		SimonManager.clear();
+		serviceOne.run();
+		assertEquals(SimonManager.getStopwatch(SERVICE_ONE_RUN).getCounter(), 1);
+
+		SimonManager.destroySimon(SERVICE_ONE_RUN);
+		serviceOne.run();
+		assertEquals(SimonManager.getStopwatch(SERVICE_ONE_RUN).getCounter(), 1);
+	}
+
+	@Test
+	public void testConcurrentPlansOfOneMethod() throws Exception {
+		final CyclicBarrier barrier = new CyclicBarrier(2);
+		final AtomicInteger resolutions = new AtomicInteger();
+		BasicMonitoringInterceptor interceptor = new BasicMonitoringInterceptor(new SpringStopwatchSource(SimonManager.manager()) {
+			@Override
+			public boolean isMonitored(MethodInvocation methodInvocation) {
+				if (resolutions.incrementAndGet() <= 2) {
+					// both threads resolve their plan at the same time
+					try {
+						barrier.await(5, TimeUnit.SECONDS);
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				}
+				return super.isMonitored(methodInvocation);
+			}
+		});
+		final MonitoredService serviceOne = proxy(new ServiceOne(), interceptor);
+		final MonitoredService serviceTwo = proxy(new ServiceTwo(), interceptor);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> runOne = executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					serviceOne.run();
+				}
+			});
+			serviceTwo.run();
+			runOne.get();
+		} finally {
+			executor.shutdown();
+		}
+
+		// no plan was lost, following invocations do not resolve the plans again
+		serviceOne.run();
+		serviceTwo.run();
+		assertEquals(resolutions.get(), 2);
+		assertEquals(SimonManager.getStopwatch(SERVICE_ONE_RUN).getCounter(), 2);
+		assertEquals(SimonManager.getStopwatch(SERVICE_TWO_RUN).getCounter(), 2);
+	}
+
+	@Test
+	public void testDisabledStopwatch() {
+		MonitoredService serviceOne = proxy(new ServiceOne());
+		serviceOne.run();
+		Stopwatch stopwatch = SimonManager.getStopwatch(SERVICE_ONE_RUN);
+		stopwatch.setState(SimonState.DISABLED, false);
+		serviceOne.run();
+
+		assertEquals(stopwatch.getCounter(), 1);
+		assertEquals(stopwatch.getActive(), 0);
+	}
+
+	@Test
+	public void testExceptionTag() {
+		interceptor.setTagByExceptionType(true);
+		MonitoredService failingService = proxy(new FailingService());
+		for (int i = 0; i < 2; i++) {
+			try {
+				failingService.run();
+				fail();
+			} catch (IllegalStateException e) {
+				// expected
+			}
+		}
+
+		String name = FailingService.class.getName() + ".run";
+		assertEquals(SimonManager.getStopwatch(name).getCounter(), 0);
+		assertEquals(SimonManager.getStopwatch(name).getActive(), 0);
+		assertEquals(SimonManager.getStopwatch(name + ".IllegalStateException").getCounter(), 2);
+		assertNull(SimonManager.getSimon(name + "." + MonitoringInterceptor.EXCEPTION_TAG));
+	}
+
+	private MonitoredService proxy(MonitoredService target) {
+		return proxy(target, interceptor);
+	}
+
+	private MonitoredService proxy(MonitoredService target, BasicMonitoringInterceptor interceptor) {
+		ProxyFactory proxyFactory = new ProxyFactory(target);
+		proxyFactory.addAdvice(interceptor);
+		return (MonitoredService) proxyFactory.getProxy();
+	}
+
+	public static class FailingService implements MonitoredService {
+		@Override
+		public void run() {
+			throw new IllegalStateException();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package org.javasimon.spring;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.Collections;
+import javax.sql.DataSource;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
+import org.javasimon.jdbcx4.WrappingSimonDataSource;
+import org.javasimon.spring.webmvc.MonitoringHandlerInterceptor;
+import org.javasimon.spring.webmvc.SimonMetricsEndpoint;
+import org.javasimon.spring.webmvc.SimonMetricsEndpointConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link SimonMonitoringConfiguration} and {@link SimonMetricsEndpoint}.
+ */
+public class SimonMonitoringConfigurationTest {
+
+	@Test
+	public void testConfiguration() throws Exception {
+		SimonManager.clear();
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
+		try {
+			Manager manager = context.getBean(Manager.class);
+
+			MonitoredService service = context.getBean("serviceOne", MonitoredService.class);
+			service.run();
+			assertEquals(manager.getStopwatch(ServiceOne.class.getName() + ".run").getCounter(), 1);
+
+			DataSource dataSource = context.getBean(DataSource.class);
+			assertTrue(dataSource instanceof WrappingSimonDataSource);
+			dataSource.getConnection().close();
+			// JDBC proxies always use the default manager
+			assertEquals(SimonManager.getStopwatch("org.javasimon.jdbc.conn").getCounter(), 1);
+
+			assertNotNull(context.getBean(MonitoringHandlerInterceptor.class));
+			// metrics endpoint is not enabled by default
+			assertTrue(context.getBeansOfType(SimonMetricsEndpoint.class).isEmpty());
+		} finally {
+			context.close();
+		}
+	}
+
+	@Test
+	public void testMetricsEndpointEnabled() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+			Collections.<String, Object>singletonMap(SimonMetricsEndpointConfiguration.ENABLED_PROPERTY, "true")));
+		context.register(AppConfig.class);
+		context.refresh();
+		try {
+			assertNotNull(context.getBean(SimonMetricsEndpoint.class));
+		} finally {
+			context.close();
+		}
+	}
+
+	@Test
+	public void testMetricsEndpoint() throws Exception {
+		Manager manager = new EnabledManager();
+		manager.getStopwatch("test.stopwatch");
+		manager.getStopwatch("test.used").addSplit(Split.create(2000000));
+		manager.getCounter("test.counter").increase(5);
+		manager.getCounter("other.counter");
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new SimonMetricsEndpoint(manager).metrics("test.*", response);
+
+		assertEquals(response.getContentType(), "application/json;charset=UTF-8");
+		String json = response.getContentAsString();
+		assertTrue(json.startsWith("{") && json.endsWith("}"), json);
+		assertTrue(json.contains("\"test.stopwatch.counter\":0,\"test.stopwatch.total\":0.0,\"test.stopwatch.active\":0"), json);
+		assertTrue(json.contains("\"test.used.counter\":1,\"test.used.total\":2.0,\"test.used.min\":2.0,\"test.used.max\":2.0,\"test.used.mean\":2.0,\"test.used.active\":0"), json);
+		assertTrue(json.contains("\"test.counter.counter\":5,\"test.counter.max\":5"), json);
+		assertTrue(!json.contains("other.counter"), json);
+		assertEquals(json.split(",").length, 11, json);
+	}
+
+	@Configuration
+	@Import(SimonMonitoringConfiguration.class)
+	static class AppConfig {
+		@Bean
+		public Manager simonManager() {
+			return new EnabledManager();
+		}
+
+		@Bean
+		public MonitoredService serviceOne() {
+			return new ServiceOne();
+		}
+
+		@Bean
+		public DataSource dataSource() throws Exception {
+			DataSource dataSource = mock(DataSource.class);
+			when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+			return dataSource;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package org.javasimon.spring.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.javasimon.EnabledManager;
+import org.javasimon.Manager;
+import org.javasimon.Split;
+import org.javasimon.callback.calltree.CallTree;
+import org.javasimon.callback.calltree.CallTreeCallback;
+import org.javasimon.callback.calltree.CallTreeNode;
+import org.javasimon.callback.logging.LogTemplates;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link MonitoringTaskExecutor}.
+ */
+public class MonitoringTaskExecutorTest {
+
+	private static final String TASK_PREFIX = "test.executor.MonitoringTaskExecutorTest.Task.";
+
+	private Manager manager;
+
+	private ThreadPoolTaskExecutor pool;
+
+	private MonitoringTaskExecutor executor;
+
+	@BeforeMethod
+	public void setUp() {
+		manager = new EnabledManager();
+		pool = new ThreadPoolTaskExecutor();
+		pool.initialize();
+		executor = new MonitoringTaskExecutor(pool, "test.executor", manager);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testExecution() throws Exception {
+		executor.submit((Runnable) new Task()).get();
+		executor.submit((Callable<Object>) new Task()).get();
+
+		assertEquals(manager.getStopwatch(TASK_PREFIX + TaskMonitors.WAIT).getCounter(), 2);
+		assertEquals(manager.getStopwatch(TASK_PREFIX + TaskMonitors.EXEC).getCounter(), 2);
+		assertEquals(manager.getCounter(TASK_PREFIX + TaskMonitors.REJECTED).getCounter(), 0);
+		assertEquals(manager.getStopwatch("test.task").getCounter(), 2);
+
+		// cached Simons are dropped with the destroyed Simon
+		manager.destroySimon(TASK_PREFIX + TaskMonitors.EXEC);
+		executor.submit((Runnable) new Task()).get();
+		assertEquals(manager.getStopwatch(TASK_PREFIX + TaskMonitors.EXEC).getCounter(), 1);
+	}
+
+	@Test
+	public void testRejection() {
+		executor = new MonitoringTaskExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		}, "test.executor", manager);
+		try {
+			executor.execute(new Task());
+			fail();
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+
+		assertEquals(manager.getCounter(TASK_PREFIX + TaskMonitors.REJECTED).getCounter(), 1);
+		assertEquals(manager.getStopwatch(TASK_PREFIX + TaskMonitors.EXEC).getCounter(), 0);
+	}
+
+	@Test
+	public void testCallTreePropagation() throws Exception {
+		final List<CallTree> callTrees = new ArrayList<>();
+		manager.callback().addCallback(new CallTreeCallback(LogTemplates.<Split>disabled()) {
+			@Override
+			public void onRootStopwatchStop(CallTree callTree, Split split) {
+				super.onRootStopwatchStop(callTree, split);
+				callTrees.add(callTree);
+			}
+		});
+
+		Split split = manager.getStopwatch("test.root").start();
+		executor.submit((Runnable) new Task()).get();
+		split.stop();
+
+		// tree of the task is merged into the tree of the test thread
+		assertEquals(callTrees.size(), 2);
+		CallTree callTree = callTrees.get(1);
+		assertEquals(callTree.getRootNode().getName(), "test.root");
+		CallTreeNode execNode = callTree.getRootNode().getChild(TASK_PREFIX + TaskMonitors.EXEC);
+		assertNotNull(execNode);
+		assertEquals(execNode.getSplitCount(), 1);
+		assertEquals(execNode.getChild("test.task").getSplitCount(), 1);
+	}
+
+	@Test
+	public void testTaskType() throws Exception {
+		assertEquals(TaskMonitors.taskType(new Task()), "MonitoringTaskExecutorTest.Task");
+		assertEquals(TaskMonitors.taskType(new ScheduledMethodRunnable(this, "scheduled")), "MonitoringTaskExecutorTest.scheduled");
+	}
+
+	public void scheduled() {
+	}
+
+	private class Task implements Runnable, Callable<Object> {
+		@Override
+		public void run() {
+			manager.getStopwatch("test.task").start().stop();
+		}
+
+		@Override
+		public Object call() {
+			run();
+			return null;
+		}
+	}
+}
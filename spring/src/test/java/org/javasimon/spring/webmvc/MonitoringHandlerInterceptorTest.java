@@ -3,7 +3,10 @@ package org.javasimon.spring.webmvc;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -106,4 +109,74 @@ public class MonitoringHandlerInterceptorTest {
 		assertNotNull(stopwatch);
 		assertEquals(stopwatch.getCounter(), 1);
 	}
+
+	/** Test MVC Interceptor with asynchronous request processing. */
+	@Test
+	public void testAsyncRequest() throws Exception {
+		HandlerMethod handler = new HandlerMethod(new Object(), Object.class.getDeclaredMethod("toString"));
+		HttpServletRequest request = new MockHttpServletRequest("GET", "request/uri");
+		setMockTime(10L);
+		interceptor.preHandle(request, NULL_RESPONSE, handler);
+		setMockTime(20L);
+		interceptor.afterConcurrentHandlingStarted(request, NULL_RESPONSE, handler);
+		assertNotNull(request.getAttribute(MonitoringHandlerInterceptor.ASYNC_SPLIT_ATTRIBUTE));
+
+		// async dispatch
+		setMockTime(120L);
+		interceptor.preHandle(request, NULL_RESPONSE, handler);
+		interceptor.postHandle(request, NULL_RESPONSE, handler, new ModelAndView("view"));
+		setMockTime(125L);
+		interceptor.afterCompletion(request, NULL_RESPONSE, handler, null);
+
+		Stopwatch controller = (Stopwatch) manager.getSimon("org.javasimon.mvc.Object.toString.ctrl");
+		assertEquals(controller.getCounter(), 1);
+		assertEquals(controller.getTotal(), 10 * SimonClock.NANOS_IN_MILLIS);
+		Stopwatch async = (Stopwatch) manager.getSimon("org.javasimon.mvc.Object.toString.async");
+		assertEquals(async.getCounter(), 1);
+		assertEquals(async.getTotal(), 100 * SimonClock.NANOS_IN_MILLIS);
+		Stopwatch view = (Stopwatch) manager.getSimon("org.javasimon.mvc.Object.toString.view");
+		assertEquals(view.getCounter(), 1);
+		assertEquals(view.getTotal(), 5 * SimonClock.NANOS_IN_MILLIS);
+		assertNull(request.getAttribute(MonitoringHandlerInterceptor.SPLIT_ATTRIBUTE));
+		assertNull(request.getAttribute(MonitoringHandlerInterceptor.ASYNC_SPLIT_ATTRIBUTE));
+	}
+
+	/** Stopwatches are cached per handler and the cache is dropped with the cleared manager or destroyed Simon. */
+	@Test
+	public void testStopwatchCache() throws Exception {
+		processRequest("request/uri", new Object(), 500L, "view", 100L);
+		processRequest("request/uri", new Object(), 500L, "view", 100L);
+		assertEquals(((Stopwatch) manager.getSimon("org.javasimon.mvc.Object.ctrl")).getCounter(), 2);
+		assertNull(manager.getSimon("org.javasimon.mvc.Object.async"));
+
+		manager.clear();
+		processRequest("request/uri", new Object(), 500L, "view", 100L);
+		assertEquals(((Stopwatch) manager.getSimon("org.javasimon.mvc.Object.ctrl")).getCounter(), 1);
+
+		manager.destroySimon("org.javasimon.mvc.Object.ctrl");
+		processRequest("request/uri", new Object(), 500L, "view", 100L);
+		assertEquals(((Stopwatch) manager.getSimon("org.javasimon.mvc.Object.ctrl")).getCounter(), 1);
+	}
+
+	/** Custom stopwatch source naming Stopwatches per request is asked for every request. */
+	@Test
+	public void testCustomSourceNotCached() throws Exception {
+		interceptor = new MonitoringHandlerInterceptor(new HandlerStopwatchSource(manager) {
+			@Override
+			protected String getMonitorName(HandlerLocation location) {
+				return "test.mvc" + location.getRequest().getRequestURI().replace('/', '.') + "." + location.getStep();
+			}
+		});
+		assertFalse(interceptor.isStopwatchesCached());
+		processRequest("/one", new Object(), 500L, "view", 100L);
+		processRequest("/two", new Object(), 500L, "view", 100L);
+		assertEquals(((Stopwatch) manager.getSimon("test.mvc.one.CONTROLLER")).getCounter(), 1);
+		assertEquals(((Stopwatch) manager.getSimon("test.mvc.two.CONTROLLER")).getCounter(), 1);
+
+		interceptor.setStopwatchesCached(true);
+		processRequest("/one", new Object(), 500L, "view", 100L);
+		processRequest("/two", new Object(), 500L, "view", 100L);
+		assertEquals(((Stopwatch) manager.getSimon("test.mvc.one.CONTROLLER")).getCounter(), 3);
+		assertTrue(new MonitoringHandlerInterceptor(manager).isStopwatchesCached());
+	}
 }